@@ -379,6 +379,41 @@ public class BaseClientImpl implements BaseClient {
 		}
 	}
 
+	/**
+	 * Put the given number of bytes from the passed stream to the passed URL.
+	 * 
+	 * @category Upload & Download
+	 * @param url
+	 * @param input
+	 * @param length
+	 * @param contentType
+	 * @return
+	 * @throws SynapseException
+	 */
+	protected String putStreamToURL(URL url, InputStream input, long length, String contentType) throws SynapseException {
+		ValidateArgument.required(url, "url");
+		ValidateArgument.required(input, "input");
+		ValidateArgument.required(contentType, "contentType");
+		SimpleHttpRequest request = new SimpleHttpRequest();
+		request.setUri(url.toString());
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put(HTTP.CONTENT_TYPE, contentType);
+		request.setHeaders(headers);
+		try {
+			SimpleHttpResponse response = simpleHttpClient.putToURL(request, input, length);
+			if (!ClientUtils.is200sStatusCode(response.getStatusCode())) {
+				throw new UnknownSynapseServerException(response.getStatusCode(), 
+						response.getStatusReason()
+						+ " for " + url);
+			}
+			return response.getContent();
+		} catch (ClientProtocolException e) {
+			throw new SynapseClientException(e);
+		} catch (IOException e) {
+			throw new SynapseClientException(e);
+		}
+	}
+
 	/**
 	 * Download the file at the given URL.
 	 * 
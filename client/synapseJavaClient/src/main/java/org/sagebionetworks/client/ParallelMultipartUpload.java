@@ -0,0 +1,345 @@
+package org.sagebionetworks.client;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.binary.Hex;
+import org.sagebionetworks.client.exceptions.SynapseClientException;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.repo.model.file.AddPartResponse;
+import org.sagebionetworks.repo.model.file.AddPartState;
+import org.sagebionetworks.repo.model.file.BatchPresignedUploadUrlRequest;
+import org.sagebionetworks.repo.model.file.BatchPresignedUploadUrlResponse;
+import org.sagebionetworks.repo.model.file.CloudProviderFileHandleInterface;
+import org.sagebionetworks.repo.model.file.MultipartUploadRequest;
+import org.sagebionetworks.repo.model.file.MultipartUploadStatus;
+import org.sagebionetworks.repo.model.file.PartUtils;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Multi-part upload of a file that reads each part directly from the file and
+ * uploads several parts at a time.
+ * <p>
+ * Unlike {@link MultipartUpload}, no temporary copy of the parts is made. The
+ * file is read once to calculate the MD5 of the file and of each part, and then
+ * each missing part is streamed from its position in the file to its
+ * pre-signed URL. The number of parts uploaded at the same time is limited both
+ * by a maximum number of parts and by a maximum number of bytes in flight. A
+ * part that fails to upload is retried on its own.
+ *
+ */
+public class ParallelMultipartUpload {
+
+	public static final int DEFAULT_MAX_CONCURRENT_PARTS = 8;
+	public static final long DEFAULT_MAX_BYTES_IN_FLIGHT = 1024L * 1024L * 1024L; // 1 GB
+	public static final int DEFAULT_MAX_ATTEMPTS_PER_PART = 3;
+	public static final long DEFAULT_RETRY_DELAY_MS = 1000L;
+
+	static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+	// input parameters
+	final SynapseClient client;
+	final File file;
+	final Boolean forceRestart;
+	final MultipartUploadRequest request;
+	final int maxConcurrentParts;
+	final long maxBytesInFlight;
+	final int maxAttemptsPerPart;
+	final long retryDelayMs;
+
+	public ParallelMultipartUpload(SynapseClient client, File file, String contentType, Long storageLocationId,
+			Boolean generatePreview, Boolean forceRestart) {
+		this(client, file, contentType, storageLocationId, generatePreview, forceRestart,
+				DEFAULT_MAX_CONCURRENT_PARTS, DEFAULT_MAX_BYTES_IN_FLIGHT, DEFAULT_MAX_ATTEMPTS_PER_PART,
+				DEFAULT_RETRY_DELAY_MS);
+	}
+
+	/**
+	 *
+	 * @param client
+	 * @param file
+	 * @param contentType
+	 * @param storageLocationId
+	 * @param generatePreview
+	 * @param forceRestart
+	 * @param maxConcurrentParts The maximum number of parts uploaded at the same
+	 *                           time.
+	 * @param maxBytesInFlight   The maximum total size of the parts uploaded at
+	 *                           the same time. At least one part is always
+	 *                           uploaded.
+	 * @param maxAttemptsPerPart The maximum number of times each part is
+	 *                           attempted before the upload fails.
+	 * @param retryDelayMs       The delay before the first retry of a part, that
+	 *                           grows with each attempt.
+	 */
+	public ParallelMultipartUpload(SynapseClient client, File file, String contentType, Long storageLocationId,
+			Boolean generatePreview, Boolean forceRestart, int maxConcurrentParts, long maxBytesInFlight,
+			int maxAttemptsPerPart, long retryDelayMs) {
+		ValidateArgument.required(client, "SynapseClient");
+		ValidateArgument.required(file, "file");
+		ValidateArgument.required(contentType, "contentType");
+		ValidateArgument.requirement(maxConcurrentParts > 0, "maxConcurrentParts must be greater than zero");
+		ValidateArgument.requirement(maxBytesInFlight > 0, "maxBytesInFlight must be greater than zero");
+		ValidateArgument.requirement(maxAttemptsPerPart > 0, "maxAttemptsPerPart must be greater than zero");
+		ValidateArgument.requirement(retryDelayMs >= 0, "retryDelayMs cannot be negative");
+		this.request = new MultipartUploadRequest();
+		this.request.setFileName(file.getName());
+		this.request.setContentType(contentType);
+		this.request.setGeneratePreview(generatePreview);
+		this.request.setStorageLocationId(storageLocationId);
+		this.client = client;
+		this.file = file;
+		this.forceRestart = forceRestart;
+		this.maxConcurrentParts = maxConcurrentParts;
+		this.maxBytesInFlight = maxBytesInFlight;
+		this.maxAttemptsPerPart = maxAttemptsPerPart;
+		this.retryDelayMs = retryDelayMs;
+	}
+
+	/**
+	 * Upload the file.
+	 *
+	 * @return
+	 * @throws SynapseException
+	 */
+	public CloudProviderFileHandleInterface uploadFile() throws SynapseException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long fileSizeBytes = channel.size();
+			long partSizeBytes = PartUtils.choosePartSize(fileSizeBytes);
+			int numberOfParts = PartUtils.calculateNumberOfParts(fileSizeBytes, partSizeBytes);
+			String[] partMD5Hex = new String[numberOfParts];
+			String fileMD5Hex = calculateMD5s(channel, fileSizeBytes, partSizeBytes, partMD5Hex);
+
+			this.request.setFileSizeBytes(fileSizeBytes);
+			this.request.setPartSizeBytes(partSizeBytes);
+			this.request.setContentMD5Hex(fileMD5Hex);
+			// Ready to start the upload
+			MultipartUploadStatus status = client.startMultipartUpload(request, forceRestart);
+			// If the file upload is done then just return the FileHandle
+			if (status.getResultFileHandleId() != null) {
+				return (CloudProviderFileHandleInterface) client.getRawFileHandle(status.getResultFileHandleId());
+			}
+			// Add only the parts that are needed
+			uploadMissingParts(channel, status, fileSizeBytes, partSizeBytes, partMD5Hex);
+			// Complete the file upload
+			status = client.completeMultipartUpload(status.getUploadId());
+			return (CloudProviderFileHandleInterface) client.getRawFileHandle(status.getResultFileHandleId());
+		} catch (IOException e) {
+			throw new SynapseClientException(e);
+		}
+	}
+
+	/**
+	 * Read the file once to calculate the MD5 of the file and of each part.
+	 *
+	 * @param channel
+	 * @param fileSizeBytes
+	 * @param partSizeBytes
+	 * @param partMD5Hex    Set to the MD5 of each part.
+	 * @return The MD5 of the file.
+	 * @throws IOException
+	 */
+	static String calculateMD5s(FileChannel channel, long fileSizeBytes, long partSizeBytes, String[] partMD5Hex)
+			throws IOException {
+		MessageDigest fileMD5Digest = MultipartUpload.createMD5Digest();
+		ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+		for (int i = 0; i < partMD5Hex.length; i++) {
+			MessageDigest partMD5Digest = MultipartUpload.createMD5Digest();
+			long position = i * partSizeBytes;
+			long end = Math.min(fileSizeBytes, position + partSizeBytes);
+			while (position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), end - position));
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					throw new EOFException("File ended after " + position + " of " + fileSizeBytes + " bytes");
+				}
+				fileMD5Digest.update(buffer.array(), 0, read);
+				partMD5Digest.update(buffer.array(), 0, read);
+				position += read;
+			}
+			partMD5Hex[i] = new String(Hex.encodeHex(partMD5Digest.digest()));
+		}
+		return new String(Hex.encodeHex(fileMD5Digest.digest()));
+	}
+
+	/**
+	 * The number of parts that can be uploaded at the same time.
+	 *
+	 * @param partSizeBytes
+	 * @return
+	 */
+	int getConcurrentParts(long partSizeBytes) {
+		long partsInBudget = Math.max(1L, maxBytesInFlight / partSizeBytes);
+		return (int) Math.min(maxConcurrentParts, partsInBudget);
+	}
+
+	/**
+	 * Upload each missing part, several at a time.
+	 *
+	 * @param channel
+	 * @param status
+	 * @param fileSizeBytes
+	 * @param partSizeBytes
+	 * @param partMD5Hex
+	 * @throws SynapseException
+	 */
+	void uploadMissingParts(final FileChannel channel, final MultipartUploadStatus status, final long fileSizeBytes,
+			final long partSizeBytes, final String[] partMD5Hex) throws SynapseException {
+		char[] partStateArray = status.getPartsState().toCharArray();
+		ExecutorService executorService = Executors.newFixedThreadPool(getConcurrentParts(partSizeBytes));
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < partStateArray.length; i++) {
+				if ('0' == partStateArray[i]) {
+					// this is a missing part
+					final int partNumber = i + 1;
+					final long position = i * partSizeBytes;
+					final long length = Math.min(fileSizeBytes, position + partSizeBytes) - position;
+					final String md5Hex = partMD5Hex[i];
+					futures.add(executorService.submit(() -> {
+						uploadPartWithRetry(channel, status.getUploadId(), partNumber, position, length, md5Hex);
+						return null;
+					}));
+				}
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SynapseClientException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SynapseException) {
+				throw (SynapseException) e.getCause();
+			}
+			throw new SynapseClientException(e.getCause());
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Upload a single part, retrying the part on failure.
+	 *
+	 * @param channel
+	 * @param uploadId
+	 * @param partNumber
+	 * @param position
+	 * @param length
+	 * @param partMD5Hex
+	 * @throws SynapseException
+	 * @throws InterruptedException
+	 */
+	void uploadPartWithRetry(FileChannel channel, String uploadId, int partNumber, long position, long length,
+			String partMD5Hex) throws SynapseException, InterruptedException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				uploadPart(channel, uploadId, partNumber, position, length, partMD5Hex);
+				return;
+			} catch (SynapseException | RuntimeException e) {
+				if (attempt >= maxAttemptsPerPart) {
+					throw e;
+				}
+			}
+			Thread.sleep(retryDelayMs * attempt);
+		}
+	}
+
+	/**
+	 * Upload a single part and add it to the upload.
+	 *
+	 * @param channel
+	 * @param uploadId
+	 * @param partNumber
+	 * @param position
+	 * @param length
+	 * @param partMD5Hex
+	 * @throws SynapseException
+	 */
+	void uploadPart(FileChannel channel, String uploadId, int partNumber, long position, long length,
+			String partMD5Hex) throws SynapseException {
+		// Get a URL for this part.
+		BatchPresignedUploadUrlRequest batchRequest = new BatchPresignedUploadUrlRequest();
+		batchRequest.setUploadId(uploadId);
+		batchRequest.setPartNumbers(new LinkedList<Long>());
+		batchRequest.getPartNumbers().add((long) partNumber);
+		BatchPresignedUploadUrlResponse batchResponse = client.getMultipartPresignedUrlBatch(batchRequest);
+		URL url;
+		try {
+			url = new URL(batchResponse.getPartPresignedUrls().get(0).getUploadPresignedUrl());
+		} catch (MalformedURLException e) {
+			throw new SynapseClientException(e);
+		}
+		// upload the part to the url
+		client.putStreamToURL(url, new FileChannelPartInputStream(channel, position, length), length,
+				request.getContentType());
+		// Add the part to the upload
+		AddPartResponse response = client.addPartToMultipartUpload(uploadId, partNumber, partMD5Hex);
+		if (response != null && AddPartState.ADD_FAILED == response.getAddPartState()) {
+			throw new SynapseClientException(
+					"Failed to add part " + partNumber + " to upload " + uploadId + ": " + response.getErrorMessage());
+		}
+	}
+
+	/**
+	 * Reads a single part of a file from a channel that is shared with other
+	 * parts, without changing the position of the channel.
+	 */
+	static class FileChannelPartInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private final long end;
+		private long position;
+
+		FileChannelPartInputStream(FileChannel channel, long position, long length) {
+			this.channel = channel;
+			this.position = position;
+			this.end = position + length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			int read = read(single, 0, 1);
+			return read < 0 ? -1 : single[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= end) {
+				return -1;
+			}
+			int toRead = (int) Math.min(len, end - position);
+			int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+			if (read < 0) {
+				throw new EOFException("File ended before the end of the part");
+			}
+			position += read;
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, end - position);
+		}
+	}
+}
@@ -621,6 +621,19 @@ public interface SynapseClient extends BaseClient {
 	public String putFileToURL(URL url, File file, String contentType)
 			throws SynapseException;
 
+	/**
+	 * Put the given number of bytes from the passed stream to the passed URL.
+	 * 
+	 * @param url
+	 * @param input
+	 * @param length
+	 * @param contentType
+	 * @return
+	 * @throws SynapseException
+	 */
+	public String putStreamToURL(URL url, InputStream input, long length, String contentType)
+			throws SynapseException;
+
 	public ExternalFileHandle createExternalFileHandle(ExternalFileHandle efh)
 			throws SynapseException;
 	
@@ -2793,7 +2806,8 @@ public interface SynapseClient extends BaseClient {
 	CloudProviderFileHandleInterface multipartUpload(InputStream input, long fileSize, String fileName, String contentType, Long storageLocationId, Boolean generatePreview, Boolean forceRestart) throws SynapseException;
 	
 	/**
-	 * Upload the passed file with mutli-part upload.
+	 * Upload the passed file with mutli-part upload. The parts are read directly
+	 * from the file and uploaded in parallel, see {@link ParallelMultipartUpload}.
 	 * @param file
 	 * @param storageLocationId
 	 * @param generatePreview
@@ -21,7 +21,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.utils.URIBuilder;
@@ -1574,6 +1573,11 @@ public class SynapseClientImpl extends BaseClientImpl implements SynapseClient {
 		return super.putFileToURL(url, file, contentType);
 	}
 
+	@Override
+	public String putStreamToURL(URL url, InputStream input, long length, String contentType) throws SynapseException {
+		return super.putStreamToURL(url, input, length, contentType);
+	}
+
 	/**
 	 * Create an External File Handle. This is used to references a file that is
 	 * not stored in Synapse.
@@ -4979,16 +4983,8 @@ public class SynapseClientImpl extends BaseClientImpl implements SynapseClient {
 	public CloudProviderFileHandleInterface multipartUpload(File file,
 			Long storageLocationId, Boolean generatePreview,
 			Boolean forceRestart) throws SynapseException, IOException {
-		InputStream fileInputStream = null;
-		try{
-			fileInputStream = new FileInputStream(file);
-			String fileName = file.getName();
-			long fileSize = file.length();
-			String contentType = guessContentTypeFromStream(file);
-			return multipartUpload(fileInputStream, fileSize, fileName, contentType, storageLocationId, generatePreview, forceRestart);
-		}finally{
-			IOUtils.closeQuietly(fileInputStream);
-		}
+		String contentType = guessContentTypeFromStream(file);
+		return new ParallelMultipartUpload(this, file, contentType, storageLocationId, generatePreview, forceRestart).uploadFile();
 	}
 
 	@Override
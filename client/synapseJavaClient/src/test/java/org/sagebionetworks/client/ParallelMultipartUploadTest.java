@@ -0,0 +1,257 @@
+package org.sagebionetworks.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.client.MultipartUpload.calculateMD5Hex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sagebionetworks.client.exceptions.SynapseClientException;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.repo.model.file.AddPartResponse;
+import org.sagebionetworks.repo.model.file.AddPartState;
+import org.sagebionetworks.repo.model.file.BatchPresignedUploadUrlRequest;
+import org.sagebionetworks.repo.model.file.BatchPresignedUploadUrlResponse;
+import org.sagebionetworks.repo.model.file.CloudProviderFileHandleInterface;
+import org.sagebionetworks.repo.model.file.MultipartUploadState;
+import org.sagebionetworks.repo.model.file.MultipartUploadStatus;
+import org.sagebionetworks.repo.model.file.PartPresignedUrl;
+import org.sagebionetworks.repo.model.file.PartUtils;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+
+public class ParallelMultipartUploadTest {
+
+	@Mock
+	SynapseClient mockClient;
+
+	File file;
+	byte[] fileBytes;
+	long partSizeBytes;
+	String contentType;
+	S3FileHandle fileHandle;
+	MultipartUploadStatus startStatus;
+	MultipartUploadStatus completeStatus;
+	AddPartResponse addSuccess;
+	Set<String> uploadedPartMD5s;
+
+	@Before
+	public void before() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		// three parts, the last one smaller than the others.
+		partSizeBytes = PartUtils.MIN_PART_SIZE_BYTES;
+		fileBytes = new byte[(int) (partSizeBytes * 2 + 1234)];
+		for (int i = 0; i < fileBytes.length; i++) {
+			fileBytes[i] = (byte) (i % 251);
+		}
+		file = File.createTempFile("ParallelMultipartUploadTest", ".bin");
+		FileUtils.writeByteArrayToFile(file, fileBytes);
+		contentType = "application/octet-stream";
+
+		startStatus = new MultipartUploadStatus();
+		startStatus.setPartsState("000");
+		startStatus.setResultFileHandleId(null);
+		startStatus.setUploadId("uploadId");
+		when(mockClient.startMultipartUpload(any(), any())).thenReturn(startStatus);
+
+		completeStatus = new MultipartUploadStatus();
+		completeStatus.setPartsState("111");
+		completeStatus.setResultFileHandleId("1235");
+		completeStatus.setState(MultipartUploadState.COMPLETED);
+		completeStatus.setUploadId(startStatus.getUploadId());
+		when(mockClient.completeMultipartUpload(anyString())).thenReturn(completeStatus);
+
+		fileHandle = new S3FileHandle();
+		fileHandle.setId(completeStatus.getResultFileHandleId());
+		when(mockClient.getRawFileHandle(anyString())).thenReturn(fileHandle);
+
+		BatchPresignedUploadUrlResponse batchResponse = new BatchPresignedUploadUrlResponse();
+		batchResponse.setPartPresignedUrls(new LinkedList<PartPresignedUrl>());
+		PartPresignedUrl partUrl = new PartPresignedUrl();
+		partUrl.setPartNumber(new Long(1));
+		partUrl.setUploadPresignedUrl("http://amazon.com/bucket/key/1");
+		batchResponse.getPartPresignedUrls().add(partUrl);
+		when(mockClient.getMultipartPresignedUrlBatch(any(BatchPresignedUploadUrlRequest.class)))
+				.thenReturn(batchResponse);
+
+		// capture the MD5 of each uploaded part.
+		uploadedPartMD5s = Collections.synchronizedSet(new HashSet<String>());
+		when(mockClient.putStreamToURL(any(URL.class), any(InputStream.class), anyLong(), anyString()))
+				.thenAnswer(invocation -> {
+					byte[] bytes = IOUtils.toByteArray((InputStream) invocation.getArgument(1));
+					assertEquals(((Long) invocation.getArgument(2)).longValue(), bytes.length);
+					uploadedPartMD5s.add(calculateMD5Hex(bytes, 0, bytes.length));
+					return null;
+				});
+
+		addSuccess = new AddPartResponse();
+		addSuccess.setAddPartState(AddPartState.ADD_SUCCESS);
+		when(mockClient.addPartToMultipartUpload(anyString(), anyInt(), anyString())).thenReturn(addSuccess);
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(file);
+	}
+
+	private ParallelMultipartUpload createUpload(int maxConcurrentParts, long maxBytesInFlight, int maxAttempts) {
+		return new ParallelMultipartUpload(mockClient, file, contentType, null, false, false, maxConcurrentParts,
+				maxBytesInFlight, maxAttempts, 0L);
+	}
+
+	private String partMD5(int partNumber) {
+		int start = (int) ((partNumber - 1) * partSizeBytes);
+		int end = (int) Math.min(fileBytes.length, start + partSizeBytes);
+		return calculateMD5Hex(fileBytes, start, end - start);
+	}
+
+	@Test
+	public void testUploadFileHappy() throws Exception {
+		ParallelMultipartUpload upload = createUpload(3, Long.MAX_VALUE, 1);
+		// call under test
+		CloudProviderFileHandleInterface result = upload.uploadFile();
+		assertEquals(fileHandle, result);
+		assertEquals(fileBytes.length, upload.request.getFileSizeBytes().longValue());
+		assertEquals(partSizeBytes, upload.request.getPartSizeBytes().longValue());
+		assertEquals(calculateMD5Hex(fileBytes, 0, fileBytes.length), upload.request.getContentMD5Hex());
+		assertEquals(file.getName(), upload.request.getFileName());
+
+		verify(mockClient, times(3)).putStreamToURL(any(URL.class), any(InputStream.class), anyLong(),
+				eq(contentType));
+		assertEquals(new HashSet<>(Arrays.asList(partMD5(1), partMD5(2), partMD5(3))), uploadedPartMD5s);
+		for (int partNumber = 1; partNumber <= 3; partNumber++) {
+			verify(mockClient).addPartToMultipartUpload(startStatus.getUploadId(), partNumber, partMD5(partNumber));
+		}
+		verify(mockClient).completeMultipartUpload(startStatus.getUploadId());
+	}
+
+	@Test
+	public void testUploadFileOnlyMissingParts() throws Exception {
+		startStatus.setPartsState("101");
+		ParallelMultipartUpload upload = createUpload(3, Long.MAX_VALUE, 1);
+		// call under test
+		upload.uploadFile();
+		verify(mockClient, times(1)).putStreamToURL(any(URL.class), any(InputStream.class), anyLong(),
+				anyString());
+		verify(mockClient).addPartToMultipartUpload(startStatus.getUploadId(), 2, partMD5(2));
+		verify(mockClient, times(1)).addPartToMultipartUpload(anyString(), anyInt(), anyString());
+	}
+
+	@Test
+	public void testUploadFileComplete() throws Exception {
+		startStatus.setPartsState("111");
+		startStatus.setResultFileHandleId(fileHandle.getId());
+		startStatus.setState(MultipartUploadState.COMPLETED);
+		ParallelMultipartUpload upload = createUpload(3, Long.MAX_VALUE, 1);
+		// call under test
+		CloudProviderFileHandleInterface result = upload.uploadFile();
+		assertEquals(fileHandle, result);
+		verify(mockClient, never()).getMultipartPresignedUrlBatch(any(BatchPresignedUploadUrlRequest.class));
+		verify(mockClient, never()).putStreamToURL(any(URL.class), any(InputStream.class), anyLong(), anyString());
+		verify(mockClient, never()).completeMultipartUpload(anyString());
+	}
+
+	@Test
+	public void testUploadFileRetryPart() throws Exception {
+		when(mockClient.addPartToMultipartUpload(anyString(), anyInt(), anyString()))
+				.thenThrow(new SynapseClientException("try again")).thenReturn(addSuccess);
+		ParallelMultipartUpload upload = createUpload(1, Long.MAX_VALUE, 2);
+		// call under test
+		upload.uploadFile();
+		// the failed part is uploaded a second time with a new URL.
+		verify(mockClient, times(4)).getMultipartPresignedUrlBatch(any(BatchPresignedUploadUrlRequest.class));
+		verify(mockClient, times(4)).putStreamToURL(any(URL.class), any(InputStream.class), anyLong(),
+				anyString());
+		verify(mockClient, times(4)).addPartToMultipartUpload(anyString(), anyInt(), anyString());
+		verify(mockClient).completeMultipartUpload(startStatus.getUploadId());
+	}
+
+	@Test
+	public void testUploadFileAddPartFailed() throws Exception {
+		AddPartResponse addFailed = new AddPartResponse();
+		addFailed.setAddPartState(AddPartState.ADD_FAILED);
+		addFailed.setErrorMessage("MD5 does not match");
+		when(mockClient.addPartToMultipartUpload(anyString(), anyInt(), anyString())).thenReturn(addFailed);
+		ParallelMultipartUpload upload = createUpload(1, Long.MAX_VALUE, 2);
+		try {
+			// call under test
+			upload.uploadFile();
+			fail();
+		} catch (SynapseClientException e) {
+			assertEquals("Failed to add part 1 to upload uploadId: MD5 does not match", e.getMessage());
+		}
+		verify(mockClient, times(2)).addPartToMultipartUpload(startStatus.getUploadId(), 1, partMD5(1));
+		verify(mockClient, never()).completeMultipartUpload(anyString());
+	}
+
+	@Test
+	public void testGetConcurrentParts() {
+		assertEquals(4, createUpload(4, Long.MAX_VALUE, 1).getConcurrentParts(partSizeBytes));
+		assertEquals(2, createUpload(4, partSizeBytes * 2 + 1, 1).getConcurrentParts(partSizeBytes));
+		// at least one part is always uploaded.
+		assertEquals(1, createUpload(4, 1L, 1).getConcurrentParts(partSizeBytes));
+	}
+
+	@Test
+	public void testCalculateMD5s() throws IOException {
+		String[] partMD5Hex = new String[3];
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// call under test
+			String fileMD5Hex = ParallelMultipartUpload.calculateMD5s(channel, fileBytes.length, partSizeBytes,
+					partMD5Hex);
+			assertEquals(calculateMD5Hex(fileBytes, 0, fileBytes.length), fileMD5Hex);
+		}
+		assertArrayEquals(new String[] { partMD5(1), partMD5(2), partMD5(3) }, partMD5Hex);
+	}
+
+	@Test
+	public void testFileChannelPartInputStream() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			InputStream in = new ParallelMultipartUpload.FileChannelPartInputStream(channel, 10L, 20L);
+			assertEquals(fileBytes[10], (byte) in.read());
+			// call under test
+			byte[] read = IOUtils.toByteArray(in);
+			assertArrayEquals(Arrays.copyOfRange(fileBytes, 11, 30), read);
+			assertEquals(-1, in.read());
+			// the position of the shared channel is not changed.
+			assertEquals(0L, channel.position());
+		}
+	}
+
+	@Test
+	public void testConstructorInvalidBudget() {
+		try {
+			createUpload(1, 0L, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("maxBytesInFlight"));
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.sagebionetworks.ids;
 
+import java.util.List;
+
 /**
  * 
  * @author jmhill
@@ -13,6 +15,16 @@ public interface IdGenerator {
 	 */
 	public Long generateNewId(IdType type);
 	
+	/**
+	 * Generate the given number of new IDs with as few calls to the database as
+	 * possible. Unless the type is allocated in blocks, the IDs are consecutive.
+	 * 
+	 * @param type
+	 * @param count
+	 * @return The new IDs in increasing order.
+	 */
+	public List<Long> generateNewIds(IdType type, int count);
+	
 	/**
 	 * Ensure that the given ID is reserved.  If the ID is not already reserved then, 
 	 * this method will reserve it and all values below it.
@@ -3,6 +3,14 @@ package org.sagebionetworks.ids;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 
@@ -15,6 +23,12 @@ import org.springframework.jdbc.core.JdbcTemplate;
 /**
  * This class creates domain unique ids using a MySql sequence via AUTO_INCREMENT of a primary key.
  * For a full explanation of how this works @See http://dev.mysql.com/doc/refman/5.1/en/information-functions.html#function_last-insert-id.
+ * <p>
+ * Types configured with a block size (see {@link #setBlockSizes(Map)}) are allocated in blocks: each
+ * machine reserves a block of IDs from the database with a single call and issues the IDs of the block
+ * from memory. Such IDs are unique and increasing on each machine, but are not issued in increasing order
+ * across machines, and the unused IDs of a block are lost when the machine stops. Therefore, only types
+ * whose IDs do not need to reflect the order of creation should be allocated in blocks.
  * @author jmhill
  *
  */
@@ -38,8 +52,85 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 	// Get the current max.
 	public static final String MAX_ID = "SELECT MAX(ID) FROM %1$S";
 	
+	/**
+	 * The maximum number of IDs allocated by a single call to the database.
+	 */
+	public static final int MAX_IDS_PER_CALL = 1000;
+	
 	@Autowired
 	JdbcTemplate idGeneratorJdbcTemplate;
+	
+	private Map<IdType, Integer> blockSizes = Collections.emptyMap();
+	
+	/**
+	 * The current block of each type that is allocated in blocks.
+	 */
+	private final ConcurrentMap<IdType, IdBlock> blocks = new ConcurrentHashMap<>();
+	
+	/**
+	 * The lock held while the block of each type is replaced, so the blocks of
+	 * different types are replaced concurrently.
+	 */
+	private Map<IdType, Object> blockLocks = Collections.emptyMap();
+	
+	/**
+	 * A block of consecutive IDs reserved in the database that are issued from memory.
+	 */
+	static class IdBlock {
+		
+		private final AtomicLong next;
+		private final long last;
+		
+		IdBlock(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+		}
+		
+		/**
+		 * @return The next ID of this block or null if the block is used up.
+		 */
+		Long nextId() {
+			long id = next.getAndIncrement();
+			return id <= last ? id : null;
+		}
+		
+		/**
+		 * Stop issuing the IDs of this block if any of the remaining IDs is less than
+		 * or equal to the given reserved ID.
+		 * 
+		 * @param reservedId
+		 */
+		void discardIfReserved(long reservedId) {
+			if (next.get() <= reservedId) {
+				next.set(last + 1);
+			}
+		}
+	}
+	
+	/**
+	 * Set the types that are allocated in blocks, with the number of IDs reserved
+	 * by each block. Injected, see: id-generator.spb.xml
+	 * 
+	 * @param blockSizes
+	 */
+	public void setBlockSizes(Map<IdType, Integer> blockSizes) {
+		if (blockSizes == null) {
+			throw new IllegalArgumentException("Block sizes cannot be null");
+		}
+		for (Map.Entry<IdType, Integer> entry : blockSizes.entrySet()) {
+			if (entry.getValue() == null || entry.getValue() < 1 || entry.getValue() > MAX_IDS_PER_CALL) {
+				throw new IllegalArgumentException("The block size of " + entry.getKey()
+						+ " must be between 1 and " + MAX_IDS_PER_CALL);
+			}
+		}
+		Map<IdType, Object> locks = new EnumMap<>(IdType.class);
+		for (IdType type : blockSizes.keySet()) {
+			locks.put(type, new Object());
+		}
+		this.blockSizes = blockSizes.isEmpty() ? Collections.emptyMap() : new EnumMap<>(blockSizes);
+		this.blockLocks = locks;
+		this.blocks.clear();
+	}
 
 	/**
 	 * Note: This is a call to a separate database and does not participate in the
@@ -50,9 +141,95 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		if (type == null) {
 			throw new IllegalArgumentException("Type cannot be null");
 		}
+		Integer blockSize = blockSizes.get(type);
+		if (blockSize != null) {
+			return generateNewIdFromBlock(type, blockSize);
+		}
 		return idGeneratorJdbcTemplate.queryForObject("CALL generateNewId(?)", Long.class, type.name());
 	}
 	
+	/**
+	 * Note: This is a call to a separate database and does not participate in the
+	 * caller's transaction. Do not add transaction annotations to this method.
+	 */
+	@Override
+	public List<Long> generateNewIds(IdType type, int count) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		if (count < 0) {
+			throw new IllegalArgumentException("Count cannot be negative");
+		}
+		List<Long> ids = new ArrayList<>(count);
+		Integer blockSize = blockSizes.get(type);
+		if (blockSize != null) {
+			for (int i = 0; i < count; i++) {
+				ids.add(generateNewIdFromBlock(type, blockSize));
+			}
+			return ids;
+		}
+		int remaining = count;
+		while (remaining > 0) {
+			int callCount = Math.min(remaining, MAX_IDS_PER_CALL);
+			long firstId = reserveNewIds(type, callCount);
+			for (int i = 0; i < callCount; i++) {
+				ids.add(firstId + i);
+			}
+			remaining -= callCount;
+		}
+		return ids;
+	}
+	
+	/**
+	 * Reserve the given number of consecutive IDs in the database.
+	 * 
+	 * @param type
+	 * @param count
+	 * @return The first of the reserved IDs.
+	 */
+	long reserveNewIds(IdType type, int count) {
+		return idGeneratorJdbcTemplate.queryForObject("CALL generateNewIds(?,?)", Long.class, type.name(), count);
+	}
+	
+	/**
+	 * Issue the next ID of the current block of the given type, reserving a new
+	 * block when the current block is used up.
+	 * 
+	 * @param type
+	 * @param blockSize
+	 * @return
+	 */
+	Long generateNewIdFromBlock(IdType type, int blockSize) {
+		while (true) {
+			IdBlock block = blocks.get(type);
+			if (block != null) {
+				Long id = block.nextId();
+				if (id != null) {
+					return id;
+				}
+			}
+			replaceBlock(type, block, blockSize);
+		}
+	}
+	
+	/**
+	 * Replace the given used up block of the given type with a new block, unless
+	 * another thread already did.
+	 * 
+	 * @param type
+	 * @param usedBlock
+	 * @param blockSize
+	 */
+	private void replaceBlock(IdType type, IdBlock usedBlock, int blockSize) {
+		synchronized (blockLocks.get(type)) {
+			if (blocks.get(type) != usedBlock) {
+				return;
+			}
+			long firstId = reserveNewIds(type, blockSize);
+			blocks.put(type, new IdBlock(firstId, firstId + blockSize - 1));
+		}
+	}
+	
 	/**
 	 * Note: This is a call to a separate database and does not participate in the
 	 * caller's transaction. Do not add transaction annotations to this method.
@@ -66,6 +243,11 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 			throw new IllegalArgumentException("Type cannot be null");
 		}
 		idGeneratorJdbcTemplate.queryForObject("CALL reserveId(?,?)", Long.class, idToLock, type.name());
+		// IDs of the current block that are now reserved must not be issued.
+		IdBlock block = blocks.get(type);
+		if (block != null) {
+			block.discardIfReserved(idToLock);
+		}
 	}
 
 	/**
@@ -93,6 +275,7 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		if(!con.getAutoCommit()) throw new RuntimeException("The connections from this datasources should be set to auto-commit");
 		
 		createStoredProcedure("generateNewId.ddl.sql");
+		createStoredProcedure("generateNewIds.ddl.sql");
 		createStoredProcedure("reserveId.ddl.sql");
 		
 		// Make sure we have a table for each type
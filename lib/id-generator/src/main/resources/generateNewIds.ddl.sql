@@ -0,0 +1,20 @@
+CREATE PROCEDURE generateNewIds(IN typeName VARCHAR(256), IN idCount INT)
+    MODIFIES SQL DATA
+    SQL SECURITY INVOKER
+BEGIN
+	SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED;
+
+ 	/*
+ 	Allocates a block of consecutive IDs with a single round trip. A multi-row
+ 	INSERT ... VALUES is a 'simple insert' so InnoDB assigns its rows consecutive
+ 	AUTO_INCREMENT values. LAST_INSERT_ID() returns the first of them and, as with
+ 	generateNewId, must be called on the same connection as the INSERT.
+ 	*/
+	SET @sql_text:=CONCAT('INSERT INTO ',typeName,' (CREATED_ON) VALUES ',REPEAT('(NOW()),', idCount - 1),'(NOW())');
+	PREPARE stmt from @sql_text;
+	EXECUTE stmt; 
+    DEALLOCATE PREPARE stmt;
+	
+	SELECT LAST_INSERT_ID() as NEW_ID;
+	
+END
\ No newline at end of file
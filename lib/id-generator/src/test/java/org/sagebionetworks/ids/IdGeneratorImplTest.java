@@ -2,14 +2,18 @@ package org.sagebionetworks.ids;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -19,6 +23,9 @@ public class IdGeneratorImplTest {
 	
 	@Autowired
 	IdGenerator idGenerator;
+	
+	@Autowired
+	JdbcTemplate idGeneratorJdbcTemplate;
 		
 	@Test
 	public void testNewId(){
@@ -61,6 +68,110 @@ public class IdGeneratorImplTest {
 		assertEquals(next.longValue(), id.longValue()+1);
 	}
 	
+	@Test
+	public void testGenerateNewIds() {
+		Long id = idGenerator.generateNewId(IdType.ENTITY_ID);
+		// call under test
+		List<Long> ids = idGenerator.generateNewIds(IdType.ENTITY_ID, 5);
+		assertEquals(5, ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals(id + 1 + i, ids.get(i).longValue());
+		}
+		// the sequence continues after the batch
+		assertEquals(id + 6, idGenerator.generateNewId(IdType.ENTITY_ID).longValue());
+	}
+	
+	@Test
+	public void testGenerateNewIdsMoreThanOneCall() {
+		int count = IdGeneratorImpl.MAX_IDS_PER_CALL + 3;
+		// call under test
+		List<Long> ids = idGenerator.generateNewIds(IdType.ACCESS_APPROVAL_ID, count);
+		assertEquals(count, ids.size());
+		assertEquals(count, new HashSet<Long>(ids).size());
+		for (int i = 1; i < ids.size(); i++) {
+			assertTrue(ids.get(i) > ids.get(i - 1));
+		}
+	}
+	
+	@Test
+	public void testGenerateNewIdsZero() {
+		// call under test
+		assertEquals(Collections.emptyList(), idGenerator.generateNewIds(IdType.ENTITY_ID, 0));
+	}
+	
+	@Test
+	public void testGenerateNewIdsNegative() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			idGenerator.generateNewIds(IdType.ENTITY_ID, -1);
+		});
+	}
+	
+	@Test
+	public void testGenerateNewIdInBlocks() {
+		// a type that is not allocated in blocks by the configured generator
+		IdType type = IdType.FAVORITE_ID;
+		IdGeneratorImpl blockGenerator = createBlockGenerator(type, 10);
+		Long first = blockGenerator.generateNewId(type);
+		// IDs are issued from the block without calls to the database
+		long maxValue = idGenerator.getMaxValueForType(type);
+		assertEquals(first + 9, maxValue);
+		// call under test
+		List<Long> ids = blockGenerator.generateNewIds(type, 12);
+		assertEquals(12, ids.size());
+		assertEquals(12, new HashSet<Long>(ids).size());
+		for (int i = 0; i < 9; i++) {
+			assertEquals(first + 1 + i, ids.get(i).longValue());
+		}
+		// the last IDs come from a new block
+		assertTrue(ids.get(9) > maxValue);
+		// IDs issued without blocks never collide with the block
+		assertTrue(idGenerator.generateNewId(type) > ids.get(11) + 7);
+	}
+	
+	@Test
+	public void testReserveIdInBlock() {
+		IdType type = IdType.FAVORITE_ID;
+		IdGeneratorImpl blockGenerator = createBlockGenerator(type, 10);
+		Long first = blockGenerator.generateNewId(type);
+		Long reserved = first + 5;
+		// call under test
+		blockGenerator.reserveId(reserved, type);
+		// reserved IDs of the current block are not issued
+		assertTrue(blockGenerator.generateNewId(type) > reserved);
+	}
+	
+	@Test
+	public void testConfiguredBlocks() {
+		IdType type = IdType.ACL_RES_ACC_ID;
+		// call under test
+		List<Long> ids = idGenerator.generateNewIds(type, 2);
+		assertEquals(2, new HashSet<Long>(ids).size());
+		// the IDs of the block are reserved in the database
+		assertTrue(idGenerator.getMaxValueForType(type) >= ids.get(1));
+	}
+	
+	@Test
+	public void testSetBlockSizesInvalid() {
+		IdGeneratorImpl blockGenerator = new IdGeneratorImpl();
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			blockGenerator.setBlockSizes(Collections.singletonMap(IdType.ACL_RES_ACC_ID, 0));
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			blockGenerator.setBlockSizes(
+					Collections.singletonMap(IdType.ACL_RES_ACC_ID, IdGeneratorImpl.MAX_IDS_PER_CALL + 1));
+		});
+	}
+	
+	private IdGeneratorImpl createBlockGenerator(IdType type, int blockSize) {
+		IdGeneratorImpl blockGenerator = new IdGeneratorImpl();
+		blockGenerator.idGeneratorJdbcTemplate = idGeneratorJdbcTemplate;
+		blockGenerator.setBlockSizes(Collections.singletonMap(type, blockSize));
+		return blockGenerator;
+	}
+	
 	@Test
 	public void testGetMaxValueForTypeWithValue() {
 		// activity will always have a value
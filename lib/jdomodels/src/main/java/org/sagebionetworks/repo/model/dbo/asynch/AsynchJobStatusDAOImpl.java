@@ -37,6 +37,7 @@ import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
@@ -54,14 +55,17 @@ public class AsynchJobStatusDAOImpl implements AsynchronousJobStatusDAO {
 	
 	private static final String SQL_UPDATE_PROGRESS = "UPDATE " + ASYNCH_JOB_STATUS + " SET "
 			+ COL_ASYNCH_JOB_PROGRESS_CURRENT + " = ?, " + COL_ASYNCH_JOB_PROGRESS_TOTAL + " = ?, "
-			+ COL_ASYNCH_JOB_PROGRESS_MESSAGE + " = ?, " + COL_ASYNCH_JOB_CHANGED_ON + " = ?, " + COL_ASYNCH_JOB_RUNTIME_MS
+			+ COL_ASYNCH_JOB_PROGRESS_MESSAGE + " = ?, " + COL_ASYNCH_JOB_ETAG + " = ?, " + COL_ASYNCH_JOB_CHANGED_ON + " = ?, " + COL_ASYNCH_JOB_RUNTIME_MS
 			+ " = ? - " + COL_ASYNCH_JOB_STARTED_ON + " WHERE " + COL_ASYNCH_JOB_ID
 			+ " = ? AND " + COL_ASYNCH_JOB_STATE + " = 'PROCESSING'";
 	
 	private static final String SQL_SET_FAILED = "UPDATE " + ASYNCH_JOB_STATUS + " SET " + COL_ASYNCH_JOB_EXCEPTION + " = ?, "
 			+ COL_ASYNCH_JOB_ERROR_MESSAGE + " = ?, " + COL_ASYNCH_JOB_ERROR_DETAILS + " = ?, " + COL_ASYNCH_JOB_STATE + " = ?, "
 			+ COL_ASYNCH_JOB_ETAG + " = ?, " + COL_ASYNCH_JOB_CHANGED_ON + " = ?  WHERE " + COL_ASYNCH_JOB_ID + " = ?";
-	private static final String SQL_SET_CANCELING = "UPDATE " + ASYNCH_JOB_STATUS + " SET " + COL_ASYNCH_JOB_CANCELING + " = true WHERE "
+	private static final String SQL_SET_CANCELING = "UPDATE " + ASYNCH_JOB_STATUS + " SET " + COL_ASYNCH_JOB_CANCELING + " = true, "
+			+ COL_ASYNCH_JOB_ETAG + " = ? WHERE " + COL_ASYNCH_JOB_ID + " = ?";
+	
+	private static final String SQL_SELECT_ETAG = "SELECT " + COL_ASYNCH_JOB_ETAG + " FROM " + ASYNCH_JOB_STATUS + " WHERE "
 			+ COL_ASYNCH_JOB_ID + " = ?";
 
 	private static final String TRUNCATE_ALL = "DELETE FROM "+ASYNCH_JOB_STATUS+" WHERE "+COL_ASYNCH_JOB_ID+" > -1";
@@ -92,6 +96,18 @@ public class AsynchJobStatusDAOImpl implements AsynchronousJobStatusDAO {
 		DBOAsynchJobStatus dbo =  basicDao.getObjectByPrimaryKey(DBOAsynchJobStatus.class, new SinglePrimaryKeySqlParameterSource(jobIdLong));
 		return AsynchJobStatusUtils.createDTOFromDBO(dbo);
 	}
+	
+	@Override
+	public String getJobEtag(String jobId) throws NotFoundException {
+		if(jobId == null){
+			throw new IllegalArgumentException("Job id cannot be null");
+		}
+		try {
+			return jdbcTemplate.queryForObject(SQL_SELECT_ETAG, String.class, jobId);
+		} catch (EmptyResultDataAccessException e) {
+			throw new NotFoundException("Asynchronous job not found: " + jobId);
+		}
+	}
 
 	@WriteTransaction
 	@Override
@@ -130,7 +146,8 @@ public class AsynchJobStatusDAOImpl implements AsynchronousJobStatusDAO {
 		if(jobId == null) throw new IllegalArgumentException("JobId cannot be null");
 		progressMessage = AsynchJobStatusUtils.truncateMessageStringIfNeeded(progressMessage);
 		long now = System.currentTimeMillis();
-		jdbcTemplate.update(SQL_UPDATE_PROGRESS, progressCurrent, progressTotal, progressMessage, now, now, jobId);
+		String newEtag = UUID.randomUUID().toString();
+		jdbcTemplate.update(SQL_UPDATE_PROGRESS, progressCurrent, progressTotal, progressMessage, newEtag, now, now, jobId);
 	}
 
 	@WriteTransaction
@@ -161,7 +178,7 @@ public class AsynchJobStatusDAOImpl implements AsynchronousJobStatusDAO {
 	public void setJobCanceling(String jobId) {
 		if (jobId == null)
 			throw new IllegalArgumentException("JobId cannot be null");
-		jdbcTemplate.update(SQL_SET_CANCELING, jobId);
+		jdbcTemplate.update(SQL_SET_CANCELING, UUID.randomUUID().toString(), jobId);
 	}
 
 	@WriteTransaction
@@ -24,8 +24,10 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_RESOUR
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -94,7 +96,23 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 			+ RESOURCE_ID_BIND_VAR
 			+ ") AND acl." + COL_ACL_OWNER_TYPE + "=:" + RESOURCE_TYPE_BIND_VAR;
 	
-
+	private static final String SELECT_ACCESS_TYPES = "SELECT DISTINCT acl."
+			+ COL_ACL_OWNER_ID
+			+ ", at."
+			+ COL_RESOURCE_ACCESS_TYPE_ELEMENT
+			+ " FROM "
+			+ AUTHORIZATION_SQL_TABLES
+			+ " WHERE "
+			+ AUTHORIZATION_SQL_JOIN
+			+ " AND ra."
+			+ COL_RESOURCE_ACCESS_GROUP_ID
+			+ " IN (:"
+			+ PRINCIPAL_IDS_BIND_VAR
+			+ ") AND acl."
+			+ COL_ACL_OWNER_ID
+			+ " IN (:"
+			+ RESOURCE_ID_BIND_VAR
+			+ ") AND acl." + COL_ACL_OWNER_TYPE + "=:" + RESOURCE_TYPE_BIND_VAR;
 	
 	private static final String SELECT_NON_VISIBLE_CHILDREN =
 			"SELECT N1."+COL_NODE_ID+
@@ -275,11 +293,13 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 	private void populateResourceAccess(long dboId,
 			Set<ResourceAccess> resourceAccess) throws DatastoreException,
 			NotFoundException {
+		// Allocate the IDs of all Resource Access at once
+		Iterator<Long> ids = idGenerator.generateNewIds(IdType.ACL_RES_ACC_ID, resourceAccess.size()).iterator();
 		// Now create each Resource Access
 		for (ResourceAccess ra : resourceAccess) {
 			DBOResourceAccess dboRa = new DBOResourceAccess();
 			// assign an id
-			dboRa.setId(idGenerator.generateNewId(IdType.ACL_RES_ACC_ID));
+			dboRa.setId(ids.next());
 			dboRa.setOwner(dboId);
 			if (ra.getPrincipalId() == null) {
 				throw new IllegalArgumentException(
@@ -547,6 +567,29 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 		return new HashSet<Long>(result);
 	}
 
+	@Override
+	public Map<Long, Set<ACCESS_TYPE>> getAccessTypes(Set<Long> groups,
+			Set<Long> resourceIds, ObjectType resourceType) {
+		ValidateArgument.required(groups, "groups");
+		ValidateArgument.required(resourceIds, "resourceIds");
+		ValidateArgument.required(resourceType, "resourceType");
+		Map<Long, Set<ACCESS_TYPE>> results = new HashMap<Long, Set<ACCESS_TYPE>>();
+		if (groups.isEmpty() || resourceIds.isEmpty()) {
+			// there will be no matches for empty inputs.
+			return results;
+		}
+		Map<String, Object> namedParameters = new HashMap<String, Object>(3);
+		namedParameters.put(RESOURCE_ID_BIND_VAR, resourceIds);
+		namedParameters.put(PRINCIPAL_IDS_BIND_VAR, groups);
+		namedParameters.put(RESOURCE_TYPE_BIND_VAR, resourceType.name());
+		namedParameterJdbcTemplate.query(SELECT_ACCESS_TYPES, namedParameters, (ResultSet rs) -> {
+			Long resourceId = rs.getLong(COL_ACL_OWNER_ID);
+			ACCESS_TYPE accessType = ACCESS_TYPE.valueOf(rs.getString(COL_RESOURCE_ACCESS_TYPE_ELEMENT));
+			results.computeIfAbsent(resourceId, k -> EnumSet.noneOf(ACCESS_TYPE.class)).add(accessType);
+		});
+		return results;
+	}
+
 	@Override
 	public Set<String> getPrincipalIds(String objectId, ObjectType objectType,
 			ACCESS_TYPE accessType) {
@@ -8,9 +8,17 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_RO
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_TRX_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_TYPE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_FIRST;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_LAST;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_ROW_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_VERSION;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_TRX_TO_VER_TRX_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_TRX_TO_VER_VER_NUM;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_CHANGE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_VERSION;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_VERSION_RANGE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_TABLE_ID_SEQUENCE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_TABLE_TRX_TO_VERSION;
 
@@ -19,8 +27,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.sagebionetworks.aws.SynapseS3Client;
@@ -34,6 +45,7 @@ import org.sagebionetworks.repo.model.table.ColumnChange;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.IdRange;
 import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
 import org.sagebionetworks.repo.model.table.TableChangeType;
 import org.sagebionetworks.repo.model.table.TableRowChange;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
@@ -45,6 +57,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import com.amazonaws.services.s3.model.S3Object;
 
@@ -117,6 +131,56 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	private static final String SQL_SELECT_ALL_ROW_CHANGES_FOR_TABLE_GREATER_VERSION = "SELECT * "
 			+ SQL_ALL_ROW_CHANGES_FOR_TABLE_GREATER_VERSION_BASE;
 	
+	private static final String SQL_UPSERT_ROW_VERSION = "INSERT INTO " + TABLE_ROW_VERSION + " ("
+			+ COL_TABLE_ROW_VERSION_TABLE_ID + ", " + COL_TABLE_ROW_VERSION_ROW_ID + ", " + COL_TABLE_ROW_VERSION_VERSION
+			+ ") VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE " + COL_TABLE_ROW_VERSION_VERSION + " = GREATEST("
+			+ COL_TABLE_ROW_VERSION_VERSION + ", VALUES(" + COL_TABLE_ROW_VERSION_VERSION + "))";
+
+	/**
+	 * Starts an empty range that ends just before the given version. Does nothing
+	 * if the table already has a range.
+	 */
+	private static final String SQL_START_ROW_VERSION_RANGE = "INSERT IGNORE INTO " + TABLE_ROW_VERSION_RANGE + " ("
+			+ COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + ", " + COL_TABLE_ROW_VERSION_RANGE_FIRST + ", "
+			+ COL_TABLE_ROW_VERSION_RANGE_LAST + ") VALUES (?, ?, ?)";
+
+	/**
+	 * Extends the indexed range of a table that has one when the new version
+	 * directly follows it. Otherwise (e.g. changes were migrated in) the range
+	 * restarts at the new version. FIRST_VERSION must be assigned first as it
+	 * reads the old LAST_VERSION.
+	 */
+	private static final String SQL_EXTEND_ROW_VERSION_RANGE = "UPDATE " + TABLE_ROW_VERSION_RANGE + " SET "
+			+ COL_TABLE_ROW_VERSION_RANGE_FIRST + " = IF(" + COL_TABLE_ROW_VERSION_RANGE_LAST + " = ? - 1, "
+			+ COL_TABLE_ROW_VERSION_RANGE_FIRST + ", ?), " + COL_TABLE_ROW_VERSION_RANGE_LAST + " = ? WHERE "
+			+ COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + " = ?";
+
+	private static final String SQL_DELETE_ROW_VERSION_RANGES = "DELETE FROM " + TABLE_ROW_VERSION_RANGE + " WHERE "
+			+ COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + " IN (:tableIds)";
+
+	private static final String SQL_DELETE_ROW_VERSIONS = "DELETE FROM " + TABLE_ROW_VERSION + " WHERE "
+			+ COL_TABLE_ROW_VERSION_TABLE_ID + " IN (:tableIds)";
+
+	private static final String SQL_SELECT_ROW_IDS_CHANGED_AFTER_VERSION = "SELECT V." + COL_TABLE_ROW_VERSION_ROW_ID
+			+ " FROM " + TABLE_ROW_VERSION + " V JOIN " + TABLE_ROW_VERSION_RANGE + " R ON (V."
+			+ COL_TABLE_ROW_VERSION_TABLE_ID + " = R." + COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + ") WHERE V."
+			+ COL_TABLE_ROW_VERSION_TABLE_ID + " = :tableId AND V." + COL_TABLE_ROW_VERSION_ROW_ID
+			+ " IN (:rowIds) AND V." + COL_TABLE_ROW_VERSION_VERSION + " > :version AND V."
+			+ COL_TABLE_ROW_VERSION_VERSION + " >= R." + COL_TABLE_ROW_VERSION_RANGE_FIRST;
+
+	private static final String SQL_SELECT_ROW_CHANGES_NOT_IN_ROW_VERSION_INDEX = "SELECT C.* FROM "
+			+ TABLE_ROW_CHANGE + " C LEFT JOIN " + TABLE_ROW_VERSION_RANGE + " R ON (C." + COL_TABLE_ROW_TABLE_ID
+			+ " = R." + COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + ") WHERE C." + COL_TABLE_ROW_TABLE_ID + " = ? AND C."
+			+ COL_TABLE_ROW_VERSION + " > ? AND C." + COL_TABLE_ROW_TYPE + " = '" + TableChangeType.ROW
+			+ "' AND (R." + COL_TABLE_ROW_VERSION_RANGE_TABLE_ID + " IS NULL OR C." + COL_TABLE_ROW_VERSION + " < R."
+			+ COL_TABLE_ROW_VERSION_RANGE_FIRST + " OR C." + COL_TABLE_ROW_VERSION + " > R."
+			+ COL_TABLE_ROW_VERSION_RANGE_LAST + ") ORDER BY C." + COL_TABLE_ROW_VERSION + " ASC";
+
+	/**
+	 * The maximum number of row IDs to look up in a single query.
+	 */
+	private static final int MAX_ROW_IDS_PER_QUERY = 10_000;
+	
 	private static final String SQL_DELETE_ROW_DATA_FOR_TABLE = "DELETE FROM " + TABLE_TABLE_ID_SEQUENCE + " WHERE "
 			+ COL_ID_SEQUENCE_TABLE_ID
 			+ " = ?";
@@ -134,6 +198,8 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
 	@Autowired
+	private NamedParameterJdbcTemplate namedJdbcTemplate;
+	@Autowired
 	private SynapseS3Client s3Client;
 	@Autowired
 	private FileProvider fileProvider;
@@ -214,9 +280,66 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		changeDBO.setChangeType(TableChangeType.ROW.name());
 		changeDBO.setTransactionId(transactionId);
 		basicDao.createNew(changeDBO);
+		updateRowVersionIndex(changeDBO.getTableId(), versionNumber, delta);
 		return key;
 	}
 	
+	/**
+	 * Record the given version as the last version of each row in the delta.
+	 * Only tables with a row version range are indexed, see
+	 * {@link #startRowVersionIndex(String, long)}.
+	 * 
+	 * @param tableId
+	 * @param versionNumber
+	 * @param delta
+	 */
+	void updateRowVersionIndex(Long tableId, long versionNumber, SparseChangeSetDto delta) {
+		if (!extendRowVersionRange(tableId, versionNumber)) {
+			return;
+		}
+		List<Object[]> batchArgs = new ArrayList<>(delta.getRows().size());
+		for (SparseRowDto row : delta.getRows()) {
+			if (row.getRowId() != null) {
+				batchArgs.add(new Object[] { tableId, row.getRowId(), versionNumber });
+			}
+		}
+		if (!batchArgs.isEmpty()) {
+			jdbcTemplate.batchUpdate(SQL_UPSERT_ROW_VERSION, batchArgs);
+		}
+	}
+	
+	/**
+	 * Include the given version in the range covered by the row version index.
+	 * 
+	 * @param tableId
+	 * @param versionNumber
+	 * @return False if the table does not have a row version index.
+	 */
+	boolean extendRowVersionRange(Long tableId, long versionNumber) {
+		return jdbcTemplate.update(SQL_EXTEND_ROW_VERSION_RANGE, versionNumber, versionNumber, versionNumber, tableId) > 0;
+	}
+	
+	@WriteTransaction
+	@Override
+	public void startRowVersionIndex(String tableIdString, long versionNumber) {
+		ValidateArgument.required(tableIdString, "tableId");
+		long tableId = KeyFactory.stringToKey(tableIdString);
+		jdbcTemplate.update(SQL_START_ROW_VERSION_RANGE, tableId, versionNumber, versionNumber - 1);
+	}
+	
+	@WriteTransaction
+	@Override
+	public void deleteRowVersionIndex(List<Long> tableIds) {
+		ValidateArgument.required(tableIds, "tableIds");
+		if (tableIds.isEmpty()) {
+			return;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource("tableIds", tableIds);
+		// the range is deleted first so the rows are no longer used.
+		namedJdbcTemplate.update(SQL_DELETE_ROW_VERSION_RANGES, params);
+		namedJdbcTemplate.update(SQL_DELETE_ROW_VERSIONS, params);
+	}
+	
 	@Override
 	public long appendSchemaChangeToTable(String userId, String tableId,
 			List<String> current, final List<ColumnChange> changes, long transactionId) {
@@ -239,6 +362,8 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		changeDBO.setChangeType(TableChangeType.COLUMN.name());
 		changeDBO.setTransactionId(transactionId);
 		basicDao.createNew(changeDBO);
+		// A schema change does not change any rows but must not break the indexed range.
+		extendRowVersionRange(changeDBO.getTableId(), range.getVersionNumber());
 		return range.getVersionNumber();
 	}
 	
@@ -371,6 +496,33 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		return TableRowChangeUtils.ceateDTOFromDBO(dboList);
 	}
 
+	@Override
+	public Set<Long> getRowIdsChangedAfterVersion(String tableIdString, Set<Long> rowIds, long version) {
+		ValidateArgument.required(tableIdString, "tableId");
+		ValidateArgument.required(rowIds, "rowIds");
+		long tableId = KeyFactory.stringToKey(tableIdString);
+		Set<Long> changed = new HashSet<>();
+		List<Long> allRowIds = new ArrayList<>(rowIds);
+		for (int start = 0; start < allRowIds.size(); start += MAX_ROW_IDS_PER_QUERY) {
+			List<Long> batch = allRowIds.subList(start, Math.min(start + MAX_ROW_IDS_PER_QUERY, allRowIds.size()));
+			MapSqlParameterSource params = new MapSqlParameterSource();
+			params.addValue("tableId", tableId);
+			params.addValue("rowIds", batch);
+			params.addValue("version", version);
+			changed.addAll(namedJdbcTemplate.queryForList(SQL_SELECT_ROW_IDS_CHANGED_AFTER_VERSION, params, Long.class));
+		}
+		return changed;
+	}
+
+	@Override
+	public List<TableRowChange> listRowSetsKeysNotInRowVersionIndex(String tableIdString, long version) {
+		ValidateArgument.required(tableIdString, "tableId");
+		long tableId = KeyFactory.stringToKey(tableIdString);
+		List<DBOTableRowChange> dboList = jdbcTemplate.query(SQL_SELECT_ROW_CHANGES_NOT_IN_ROW_VERSION_INDEX,
+				rowChangeMapper, tableId, version);
+		return TableRowChangeUtils.ceateDTOFromDBO(dboList);
+	}
+
 	@Override
 	public TableRowChange getTableRowChange(String tableIdString,
 			long rowVersion) throws NotFoundException {
@@ -0,0 +1,97 @@
+package org.sagebionetworks.repo.model.dbo.persistence.table;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_ROW_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_VERSION;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.DDL_TABLE_ROW_VERSION;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_VERSION;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+
+/**
+ * The last table version that changed a row. Maintained as row change sets are
+ * appended so that row level conflicts can be detected without reading the
+ * change sets from S3.
+ * 
+ * This is not a migrate-able table. It is derived from the row change sets and
+ * only covers the versions in {@link DBOTableRowVersionRange}. Only tables
+ * that have received row updates have a range, so tables that are only
+ * appended to are not indexed.
+ *
+ */
+public class DBOTableRowVersion implements DatabaseObject<DBOTableRowVersion> {
+
+	private static final FieldColumn[] FIELDS = new FieldColumn[] {
+			new FieldColumn("tableId", COL_TABLE_ROW_VERSION_TABLE_ID, true),
+			new FieldColumn("rowId", COL_TABLE_ROW_VERSION_ROW_ID, true),
+			new FieldColumn("rowVersion", COL_TABLE_ROW_VERSION_VERSION) };
+
+	private Long tableId;
+	private Long rowId;
+	private Long rowVersion;
+
+	public Long getTableId() {
+		return tableId;
+	}
+
+	public void setTableId(Long tableId) {
+		this.tableId = tableId;
+	}
+
+	public Long getRowId() {
+		return rowId;
+	}
+
+	public void setRowId(Long rowId) {
+		this.rowId = rowId;
+	}
+
+	public Long getRowVersion() {
+		return rowVersion;
+	}
+
+	public void setRowVersion(Long rowVersion) {
+		this.rowVersion = rowVersion;
+	}
+
+	@Override
+	public TableMapping<DBOTableRowVersion> getTableMapping() {
+		return new TableMapping<DBOTableRowVersion>() {
+
+			@Override
+			public DBOTableRowVersion mapRow(ResultSet rs, int rowNum) throws SQLException {
+				DBOTableRowVersion dbo = new DBOTableRowVersion();
+				dbo.setTableId(rs.getLong(COL_TABLE_ROW_VERSION_TABLE_ID));
+				dbo.setRowId(rs.getLong(COL_TABLE_ROW_VERSION_ROW_ID));
+				dbo.setRowVersion(rs.getLong(COL_TABLE_ROW_VERSION_VERSION));
+				return dbo;
+			}
+
+			@Override
+			public String getTableName() {
+				return TABLE_ROW_VERSION;
+			}
+
+			@Override
+			public String getDDLFileName() {
+				return DDL_TABLE_ROW_VERSION;
+			}
+
+			@Override
+			public FieldColumn[] getFieldColumns() {
+				return FIELDS;
+			}
+
+			@Override
+			public Class<? extends DBOTableRowVersion> getDBOClass() {
+				return DBOTableRowVersion.class;
+			}
+		};
+	}
+
+}
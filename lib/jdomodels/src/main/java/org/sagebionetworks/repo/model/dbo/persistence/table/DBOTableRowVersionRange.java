@@ -0,0 +1,96 @@
+package org.sagebionetworks.repo.model.dbo.persistence.table;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_FIRST;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_LAST;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_VERSION_RANGE_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.DDL_TABLE_ROW_VERSION_RANGE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_VERSION_RANGE;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+
+/**
+ * The contiguous range of table versions (inclusive) that are included in
+ * {@link DBOTableRowVersion}. Changes outside of this range, such as changes
+ * appended before the index existed or changes that arrived through migration,
+ * must be read from S3. A range is started with the first row update of a
+ * table.
+ * 
+ * This is not a migrate-able table.
+ *
+ */
+public class DBOTableRowVersionRange implements DatabaseObject<DBOTableRowVersionRange> {
+
+	private static final FieldColumn[] FIELDS = new FieldColumn[] {
+			new FieldColumn("tableId", COL_TABLE_ROW_VERSION_RANGE_TABLE_ID, true),
+			new FieldColumn("firstVersion", COL_TABLE_ROW_VERSION_RANGE_FIRST),
+			new FieldColumn("lastVersion", COL_TABLE_ROW_VERSION_RANGE_LAST) };
+
+	private Long tableId;
+	private Long firstVersion;
+	private Long lastVersion;
+
+	public Long getTableId() {
+		return tableId;
+	}
+
+	public void setTableId(Long tableId) {
+		this.tableId = tableId;
+	}
+
+	public Long getFirstVersion() {
+		return firstVersion;
+	}
+
+	public void setFirstVersion(Long firstVersion) {
+		this.firstVersion = firstVersion;
+	}
+
+	public Long getLastVersion() {
+		return lastVersion;
+	}
+
+	public void setLastVersion(Long lastVersion) {
+		this.lastVersion = lastVersion;
+	}
+
+	@Override
+	public TableMapping<DBOTableRowVersionRange> getTableMapping() {
+		return new TableMapping<DBOTableRowVersionRange>() {
+
+			@Override
+			public DBOTableRowVersionRange mapRow(ResultSet rs, int rowNum) throws SQLException {
+				DBOTableRowVersionRange dbo = new DBOTableRowVersionRange();
+				dbo.setTableId(rs.getLong(COL_TABLE_ROW_VERSION_RANGE_TABLE_ID));
+				dbo.setFirstVersion(rs.getLong(COL_TABLE_ROW_VERSION_RANGE_FIRST));
+				dbo.setLastVersion(rs.getLong(COL_TABLE_ROW_VERSION_RANGE_LAST));
+				return dbo;
+			}
+
+			@Override
+			public String getTableName() {
+				return TABLE_ROW_VERSION_RANGE;
+			}
+
+			@Override
+			public String getDDLFileName() {
+				return DDL_TABLE_ROW_VERSION_RANGE;
+			}
+
+			@Override
+			public FieldColumn[] getFieldColumns() {
+				return FIELDS;
+			}
+
+			@Override
+			public Class<? extends DBOTableRowVersionRange> getDBOClass() {
+				return DBOTableRowVersionRange.class;
+			}
+		};
+	}
+
+}
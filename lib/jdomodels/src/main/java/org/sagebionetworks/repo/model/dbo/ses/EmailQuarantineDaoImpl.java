@@ -16,7 +16,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
@@ -25,11 +31,15 @@ import org.sagebionetworks.repo.model.ses.QuarantinedEmail;
 import org.sagebionetworks.repo.model.ses.QuarantinedEmailBatch;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.util.ValidateArgument;
+
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -72,8 +82,18 @@ public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 			+ COL_QUARANTINED_EMAILS_REASON + " = ?, "
 			+ COL_QUARANTINED_EMAILS_REASON_DETAILS + " = ?, "
 			+ COL_QUARANTINED_EMAILS_SES_MESSAGE_ID + " = ?";
+	
+	private static final String PARAM_EMAILS = "emails";
+	private static final String PARAM_NOW = "now";
+	
+	private static String SQL_SELECT_QUARANTINED = "SELECT " + COL_QUARANTINED_EMAILS_EMAIL + " FROM " + TABLE_QUARANTINED_EMAILS 
+			+ " WHERE " + COL_QUARANTINED_EMAILS_EMAIL + " IN (:" + PARAM_EMAILS + ")"
+			+ " AND (" + COL_QUARANTINED_EMAILS_EXPIRES_ON + " IS NULL OR " + COL_QUARANTINED_EMAILS_EXPIRES_ON + " > :" + PARAM_NOW + ")";
 	 
 	// @formatter:on
+	
+	// The maximum number of emails in the IN clause of a single query
+	static final int MAX_EMAILS_PER_QUERY = 1000;
 
 	private JdbcTemplate jdbcTemplate;
 
@@ -176,6 +196,43 @@ public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 		return jdbcTemplate.queryForObject(sql, Long.class, email, Timestamp.from(Instant.now())) > 0;
 	}
 
+	@Override
+	public Set<String> getQuarantinedEmails(Collection<String> emails) {
+		ValidateArgument.required(emails, "The emails");
+		
+		// The emails are stored normalized, maps each normalized email to the emails as given
+		Map<String, Set<String>> normalizedEmails = new HashMap<>(emails.size());
+		
+		for (String email : emails) {
+			validateInputEmail(email);
+			normalizedEmails.computeIfAbsent(email.trim().toLowerCase(), (key) -> new HashSet<>()).add(email);
+		}
+		
+		Set<String> result = new HashSet<>();
+		
+		if (normalizedEmails.isEmpty()) {
+			return result;
+		}
+		
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		Timestamp now = Timestamp.from(Instant.now());
+		
+		for (List<String> batch : Iterables.partition(normalizedEmails.keySet(), MAX_EMAILS_PER_QUERY)) {
+			MapSqlParameterSource params = new MapSqlParameterSource()
+					.addValue(PARAM_EMAILS, batch)
+					.addValue(PARAM_NOW, now);
+			
+			namedTemplate.query(SQL_SELECT_QUARANTINED, params, (ResultSet rs) -> {
+				Set<String> matching = normalizedEmails.get(rs.getString(COL_QUARANTINED_EMAILS_EMAIL).trim().toLowerCase());
+				if (matching != null) {
+					result.addAll(matching);
+				}
+			});
+		}
+		
+		return result;
+	}
+
 	@Override
 	public void clearAll() {
 		String sql = "DELETE FROM " + TABLE_QUARANTINED_EMAILS;
@@ -521,6 +521,20 @@ public class SqlConstants {
 	public static final String COL_TABLE_ROW_TRX_ID			= "TRX_ID";
 	public static final String DDL_TABLE_ROW_CHANGE = "schema/TableRowChange-ddl.sql";
 	
+	// The last version that changed each row of a table.
+	public static final String TABLE_ROW_VERSION				= "TABLE_ROW_VERSION";
+	public static final String COL_TABLE_ROW_VERSION_TABLE_ID	= "TABLE_ID";
+	public static final String COL_TABLE_ROW_VERSION_ROW_ID		= "ROW_ID";
+	public static final String COL_TABLE_ROW_VERSION_VERSION	= "ROW_VERSION";
+	public static final String DDL_TABLE_ROW_VERSION = "schema/TableRowVersion-ddl.sql";
+	
+	// The range of table versions included in TABLE_ROW_VERSION.
+	public static final String TABLE_ROW_VERSION_RANGE					= "TABLE_ROW_VERSION_RANGE";
+	public static final String COL_TABLE_ROW_VERSION_RANGE_TABLE_ID		= "TABLE_ID";
+	public static final String COL_TABLE_ROW_VERSION_RANGE_FIRST		= "FIRST_VERSION";
+	public static final String COL_TABLE_ROW_VERSION_RANGE_LAST			= "LAST_VERSION";
+	public static final String DDL_TABLE_ROW_VERSION_RANGE = "schema/TableRowVersionRange-ddl.sql";
+	
 	// Tracks view scope.
 	public static final String TABLE_VIEW_TYPE					= "VIEW_TYPE";
 	public static final String COL_VIEW_TYPE_VIEW_ID			= "VIEW_ID";
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS `TABLE_ROW_VERSION_RANGE` (
+  `TABLE_ID` BIGINT NOT NULL,
+  `FIRST_VERSION` BIGINT NOT NULL,
+  `LAST_VERSION` BIGINT NOT NULL,
+  PRIMARY KEY (`TABLE_ID`),
+  CONSTRAINT `TABLE_ROW_VERSION_RANGE_TABLE_ID_FK` FOREIGN KEY (`TABLE_ID`) REFERENCES `TABLE_ID_SEQUENCE` (`TABLE_ID`) ON DELETE CASCADE
+)
@@ -120,6 +120,24 @@ public class AsynchJobStatusDaoImplTest {
 		assertEquals(AsynchJobState.PROCESSING, status.getJobState());
 		assertNotNull(clone.getRuntimeMS());
 		assertTrue(clone.getRuntimeMS() > 0L);
+		// progress changes the etag
+		assertFalse(status.getEtag().equals(clone.getEtag()));
+	}
+	
+	@Test
+	public void testGetJobEtag() throws DatastoreException, NotFoundException {
+		AsynchronousJobStatus status = asynchJobStatusDao.startJob(creatorUserGroupId, body);
+		// call under test
+		assertEquals(status.getEtag(), asynchJobStatusDao.getJobEtag(status.getJobId()));
+		asynchJobStatusDao.updateJobProgress(status.getJobId(), 0L, 1000L, "A MESSAGE");
+		AsynchronousJobStatus clone = asynchJobStatusDao.getJobStatus(status.getJobId());
+		// call under test
+		assertEquals(clone.getEtag(), asynchJobStatusDao.getJobEtag(status.getJobId()));
+	}
+	
+	@Test (expected=NotFoundException.class)
+	public void testGetJobEtagNotFound() throws DatastoreException, NotFoundException {
+		asynchJobStatusDao.getJobEtag("-99");
 	}
 	
 	@Test
@@ -310,6 +328,7 @@ public class AsynchJobStatusDaoImplTest {
 		AsynchronousJobStatus clone = asynchJobStatusDao.getJobStatus(status.getJobId());
 		assertEquals(AsynchJobState.PROCESSING, clone.getJobState());
 		assertTrue(clone.getJobCanceling());
+		assertFalse(status.getEtag().equals(clone.getEtag()));
 	}
 
 	@Test
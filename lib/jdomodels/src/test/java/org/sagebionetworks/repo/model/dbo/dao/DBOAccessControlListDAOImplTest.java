@@ -14,6 +14,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.After;
@@ -281,6 +282,37 @@ public class DBOAccessControlListDAOImplTest {
 		assertTrue(results.isEmpty());
 	}
 	
+	@Test
+	public void testGetAccessTypes() throws Exception {
+		Set<Long> gs = Sets.newHashSet(Long.parseLong(group.getId()), Long.parseLong(group2.getId()));
+		Long nodeId = KeyFactory.stringToKey(node.getId());
+		Set<Long> resourceIds = Sets.newHashSet(nodeId, new Long(-1));
+		// call under test
+		Map<Long, Set<ACCESS_TYPE>> results = aclDAO.getAccessTypes(gs, resourceIds, ObjectType.ENTITY);
+		assertNotNull(results);
+		assertEquals(1, results.size());
+		assertEquals(Sets.newHashSet(ACCESS_TYPE.READ), results.get(nodeId));
+	}
+	
+	@Test
+	public void testGetAccessTypesNoMatch() throws Exception {
+		Set<Long> gs = Sets.newHashSet(Long.parseLong(group2.getId()));
+		Long nodeId = KeyFactory.stringToKey(node.getId());
+		// call under test
+		Map<Long, Set<ACCESS_TYPE>> results = aclDAO.getAccessTypes(gs, Sets.newHashSet(nodeId), ObjectType.ENTITY);
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetAccessTypesEmpty() throws Exception {
+		Set<Long> gs = Sets.newHashSet(Long.parseLong(group.getId()));
+		// call under test
+		Map<Long, Set<ACCESS_TYPE>> results = aclDAO.getAccessTypes(gs, new HashSet<Long>(), ObjectType.ENTITY);
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+	
 	@Test (expected=IllegalArgumentException.class)
 	public void testCanAccessMultipleGroupsNull() throws Exception {
 		Set<Long> gs = null;
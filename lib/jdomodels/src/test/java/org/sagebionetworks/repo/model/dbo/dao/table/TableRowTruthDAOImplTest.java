@@ -7,9 +7,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -39,6 +41,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
@@ -166,11 +169,38 @@ public class TableRowTruthDAOImplTest {
 	 */
 	private long appendRowSetToTable(String userId, String tableId, List<ColumnModel> columns, SparseChangeSet delta,
 			Long linkToVersion) throws IOException {
+		boolean startRowVersionIndex = false;
+		return appendRowSetToTable(userId, tableId, columns, delta, linkToVersion, startRowVersionIndex);
+	}
+	
+	/**
+	 * Helper to append a row update to a table, starting the row version index
+	 * with the version of the update like the table entity manager does.
+	 * 
+	 * @param userId
+	 * @param tableId
+	 * @param columns
+	 * @param delta
+	 * @return
+	 * @throws IOException
+	 */
+	private long appendRowUpdateToTable(String userId, String tableId, List<ColumnModel> columns, SparseChangeSet delta)
+			throws IOException {
+		Long linkToVersion = null;
+		boolean startRowVersionIndex = true;
+		return appendRowSetToTable(userId, tableId, columns, delta, linkToVersion, startRowVersionIndex);
+	}
+	
+	private long appendRowSetToTable(String userId, String tableId, List<ColumnModel> columns, SparseChangeSet delta,
+			Long linkToVersion, boolean startRowVersionIndex) throws IOException {
 		return readCommitedTransactionTemplate.execute((TransactionStatus status) -> {
 			// Now set the row version numbers and ID.
 			int coutToReserver = TableModelUtils.countEmptyOrInvalidRowIds(delta);
 			// Reserver IDs for the missing
 			IdRange range = tableRowTruthDao.reserveIdsInRange(delta.getTableId(), coutToReserver);
+			if (startRowVersionIndex) {
+				tableRowTruthDao.startRowVersionIndex(delta.getTableId(), range.getVersionNumber());
+			}
 			// Now assign the rowIds and set the version number
 			TableModelUtils.assignRowIdsAndVersionNumbers(delta, range);
 			Long transactionId = tableTransactionDao.startTransaction(tableId, Long.parseLong(userId));
@@ -508,4 +538,176 @@ public class TableRowTruthDAOImplTest {
 		assertTrue(secondTransaction.isPresent());
 		assertTrue(secondTransaction.get() > firstTransaction.get());
 	}
+	
+	/**
+	 * Helper to create a table with two rows followed by an update of the first
+	 * row, which starts the row version index.
+	 * 
+	 * @param aString
+	 * @return The versions of the two changes.
+	 * @throws IOException
+	 */
+	private long[] createTableWithRowVersionIndex(ColumnModel aString) throws IOException {
+		List<ColumnModel> schema = Lists.newArrayList(aString);
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, schema);
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "foo");
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "bar");
+		long firstVersion = appendRowSetToTable(creatorUserGroupId, tableId, schema, changeSet);
+		SparseChangeSet update = new SparseChangeSet(tableId, schema);
+		SparseRow row = update.addEmptyRow();
+		row.setRowId(0L);
+		row.setVersionNumber(firstVersion);
+		row.setCellValue(aString.getId(), "updated");
+		long secondVersion = appendRowUpdateToTable(creatorUserGroupId, tableId, schema, update);
+		return new long[] { firstVersion, secondVersion };
+	}
+	
+	/**
+	 * Helper to update the second row of a table created with
+	 * {@link #createTableWithRowVersionIndex(ColumnModel)}.
+	 * 
+	 * @param aString
+	 * @param firstVersion
+	 * @return The version of the update.
+	 * @throws IOException
+	 */
+	private long updateSecondRow(ColumnModel aString, long firstVersion) throws IOException {
+		List<ColumnModel> schema = Lists.newArrayList(aString);
+		SparseChangeSet update = new SparseChangeSet(tableId, schema);
+		SparseRow row = update.addEmptyRow();
+		row.setRowId(1L);
+		row.setVersionNumber(firstVersion);
+		row.setCellValue(aString.getId(), "updated");
+		return appendRowUpdateToTable(creatorUserGroupId, tableId, schema, update);
+	}
+	
+	@Test
+	public void testGetRowIdsChangedAfterVersion() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		long[] versions = createTableWithRowVersionIndex(aString);
+		long firstVersion = versions[0];
+		long secondVersion = versions[1];
+		long thirdVersion = updateSecondRow(aString, firstVersion);
+		Set<Long> rowIds = Sets.newHashSet(0L, 1L);
+		// call under test
+		assertEquals(Sets.newHashSet(0L, 1L), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, rowIds, firstVersion));
+		assertEquals(Sets.newHashSet(1L), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, rowIds, secondVersion));
+		assertEquals(Sets.newHashSet(), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, rowIds, thirdVersion));
+		// the change appended before the first update is not in the index
+		List<TableRowChange> notIndexed = tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, firstVersion - 1);
+		assertEquals(1, notIndexed.size());
+		assertEquals(new Long(firstVersion), notIndexed.get(0).getRowVersion());
+		assertEquals(Collections.emptyList(), tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, firstVersion));
+	}
+	
+	@Test
+	public void testAppendRowSetToTableWithoutRowVersionIndex() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		List<ColumnModel> schema = Lists.newArrayList(aString);
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, schema);
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "foo");
+		long firstVersion = appendRowSetToTable(creatorUserGroupId, tableId, schema, changeSet);
+		changeSet = new SparseChangeSet(tableId, schema);
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "bar");
+		appendRowSetToTable(creatorUserGroupId, tableId, schema, changeSet);
+		// call under test
+		assertEquals(Sets.newHashSet(), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), firstVersion - 1));
+		assertEquals(2, tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, firstVersion - 1).size());
+	}
+	
+	@Test
+	public void testStartRowVersionIndexAlreadyStarted() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		long[] versions = createTableWithRowVersionIndex(aString);
+		// call under test
+		tableRowTruthDao.startRowVersionIndex(tableId, versions[1] + 1);
+		// the existing range is kept
+		assertEquals(Sets.newHashSet(0L), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), versions[0]));
+	}
+	
+	@Test
+	public void testListRowSetsKeysNotInRowVersionIndex() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		long[] versions = createTableWithRowVersionIndex(aString);
+		long firstVersion = versions[0];
+		long secondVersion = versions[1];
+		// A version without a change (such as a change that arrived through migration) breaks the range.
+		tableRowTruthDao.reserveIdsInRange(tableId, 0);
+		updateSecondRow(aString, firstVersion);
+		// call under test
+		List<TableRowChange> notIndexed = tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, firstVersion - 1);
+		assertEquals(2, notIndexed.size());
+		assertEquals(new Long(firstVersion), notIndexed.get(0).getRowVersion());
+		assertEquals(new Long(secondVersion), notIndexed.get(1).getRowVersion());
+		// only the versions in the range are used
+		assertEquals(Sets.newHashSet(1L), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), firstVersion - 1));
+	}
+	
+	@Test
+	public void testRowVersionRangeWithSchemaChange() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		List<ColumnModel> schema = Lists.newArrayList(aString);
+		long[] versions = createTableWithRowVersionIndex(aString);
+		ColumnChange add = new ColumnChange();
+		add.setOldColumnId(null);
+		add.setNewColumnId(aString.getId());
+		appendSchemaChangeToTable(creatorUserGroupId, tableId, Lists.newArrayList(aString.getId()), Lists.newArrayList(add));
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, schema);
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "bar");
+		appendRowSetToTable(creatorUserGroupId, tableId, schema, changeSet);
+		// call under test
+		assertEquals(Collections.emptyList(), tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, versions[0]));
+	}
+	
+	/**
+	 * Re-create the table and check that none of the old index is used.
+	 * 
+	 * @throws IOException
+	 */
+	private void assertRowVersionIndexRemoved() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		List<ColumnModel> schema = Lists.newArrayList(aString);
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, schema);
+		changeSet.addEmptyRow().setCellValue(aString.getId(), "foo");
+		long version = appendRowSetToTable(creatorUserGroupId, tableId, schema, changeSet);
+		assertEquals(Sets.newHashSet(), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), version - 1));
+		assertEquals(1, tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, version - 1).size());
+	}
+	
+	@Test
+	public void testDeleteAllRowDataForTableWithRowVersionIndex() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		createTableWithRowVersionIndex(aString);
+		// call under test
+		tableRowTruthDao.deleteAllRowDataForTable(tableId);
+		assertRowVersionIndexRemoved();
+	}
+	
+	@Test
+	public void testTruncateAllRowDataWithRowVersionIndex() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		createTableWithRowVersionIndex(aString);
+		// call under test
+		tableRowTruthDao.truncateAllRowData();
+		assertRowVersionIndexRemoved();
+	}
+	
+	@Test
+	public void testDeleteRowVersionIndex() throws IOException {
+		ColumnModel aString = TableModelTestUtils.createColumn(202L, "aString", ColumnType.STRING);
+		long[] versions = createTableWithRowVersionIndex(aString);
+		// call under test
+		tableRowTruthDao.deleteRowVersionIndex(Lists.newArrayList(KeyFactory.stringToKey(tableId)));
+		assertEquals(Sets.newHashSet(), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), versions[0] - 1));
+		assertEquals(2, tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, versions[0] - 1).size());
+		// the next update starts a new index
+		updateSecondRow(aString, versions[0]);
+		assertEquals(Sets.newHashSet(1L), tableRowTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), versions[0] - 1));
+	}
+	
+	@Test
+	public void testDeleteRowVersionIndexEmpty() {
+		// call under test
+		tableRowTruthDao.deleteRowVersionIndex(Collections.emptyList());
+	}
 }
@@ -5,7 +5,12 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.AfterEach;
@@ -16,6 +21,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.sagebionetworks.repo.model.principal.EmailQuarantineReason;
 import org.sagebionetworks.repo.model.ses.QuarantinedEmail;
 import org.sagebionetworks.repo.model.ses.QuarantinedEmailBatch;
+
+import com.google.common.collect.ImmutableSet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -385,6 +392,70 @@ public class EmailQuarantineDaoImplTest {
 		assertFalse(dao.isQuarantined(testEmail));
 	}
 
+	@Test
+	public void testGetQuarantinedEmails() throws Exception {
+		Long timeout = 50L;
+		String otherEmail = "otheremail@test.com";
+		String expiredEmail = "expiredemail@test.com";
+		
+		dao.addToQuarantine(new QuarantinedEmailBatch()
+				.add(getTestQuarantinedEmail())
+				.add(getTestQuarantinedEmail(otherEmail, EmailQuarantineReason.PERMANENT_BOUNCE)));
+		
+		dao.addToQuarantine(new QuarantinedEmailBatch()
+				.withExpirationTimeout(timeout)
+				.add(getTestQuarantinedEmail(expiredEmail, EmailQuarantineReason.TRANSIENT_BOUNCE)));
+		
+		Thread.sleep(timeout * 2);
+		
+		List<String> emails = Arrays.asList(testEmail, "TestEmail@test.com", expiredEmail, "notquarantined@test.com");
+		
+		// Call under test
+		Set<String> result = dao.getQuarantinedEmails(emails);
+		
+		assertEquals(ImmutableSet.of(testEmail, "TestEmail@test.com"), result);
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsEmpty() {
+		dao.addToQuarantine(new QuarantinedEmailBatch().add(getTestQuarantinedEmail()));
+		
+		// Call under test
+		Set<String> result = dao.getQuarantinedEmails(Collections.emptyList());
+		
+		assertTrue(result.isEmpty());
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsOverQueryLimit() {
+		QuarantinedEmailBatch batch = new QuarantinedEmailBatch();
+		List<String> emails = new ArrayList<>();
+		
+		for (int i = 0; i < EmailQuarantineDaoImpl.MAX_EMAILS_PER_QUERY + 1; i++) {
+			String email = "testemail" + i + "@test.com";
+			emails.add(email);
+			if (i % 2 == 0) {
+				batch.add(getTestQuarantinedEmail(email, EmailQuarantineReason.PERMANENT_BOUNCE));
+			}
+		}
+		
+		dao.addToQuarantine(batch);
+		
+		// Call under test
+		Set<String> result = dao.getQuarantinedEmails(emails);
+		
+		assertEquals(batch.size(), result.size());
+		assertTrue(result.contains(emails.get(EmailQuarantineDaoImpl.MAX_EMAILS_PER_QUERY)));
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsWithBlankEmail() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			// Call under test
+			dao.getQuarantinedEmails(Arrays.asList(testEmail, " "));
+		});
+	}
+
 	private QuarantinedEmail getTestQuarantinedEmail() {
 		return getTestQuarantinedEmail(testEmail, EmailQuarantineReason.PERMANENT_BOUNCE);
 	}
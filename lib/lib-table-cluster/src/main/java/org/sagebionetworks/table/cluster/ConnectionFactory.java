@@ -21,6 +21,19 @@ public interface ConnectionFactory {
 	 */
 	TableIndexDAO getConnection(IdAndVersion tableId);
 	
+	/**
+	 * Move the given table to the database selected by the current set of
+	 * databases. If the table is moved, the {@link TableIndexPlacementListener}
+	 * is notified so the index is rebuilt on the new database, and the index is
+	 * deleted from the old database once no machine routes the table there. The
+	 * deletion is persisted so it is not lost when the machine restarts. Called
+	 * when an administrator rebuilds a table.
+	 * 
+	 * @param tableId
+	 * @return The connection for the database the table is now placed on.
+	 */
+	TableIndexDAO rebalance(IdAndVersion tableId);
+	
 	/**
 	 * Get all connections.
 	 * @return
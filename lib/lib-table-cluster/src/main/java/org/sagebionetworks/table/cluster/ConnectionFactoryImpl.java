@@ -1,8 +1,14 @@
 package org.sagebionetworks.table.cluster;
 
 import java.sql.SQLException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -13,13 +19,32 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 /**
- * Note: For the first pass at this feature we are only using one database. This
- * will be extended in the future.
- * 
+ * Each table or view is placed on exactly one of the index databases. New
+ * tables are assigned using a consistent hash of their {@link IdAndVersion}
+ * and the assignment is then persisted in the first database, so adding a new
+ * database does not move existing tables. A table that already has an index on
+ * the first database when it is first placed (it was built before the table
+ * was placed) stays on the first database. Each database has its own
+ * connection pool and {@link TableIndexDAO}.
+ * <p>
+ * When a table is moved the {@link TableIndexPlacementListener} is notified so
+ * the table is rebuilt on the new database. Other machines can still route the
+ * table to the old database until their placement cache expires, so the old
+ * index is only dropped after {@link #OLD_INDEX_DROP_DELAY_MINUTES}. The drop is
+ * persisted so it survives a restart, and the pending drops are checked every
+ * {@link #PENDING_DROP_CHECK_MINUTES}.
+ *
  * @author jmhill
  *
  */
@@ -28,34 +53,196 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 
 	private static Logger log = LogManager.getLogger(ConnectionFactoryImpl.class);
 
-	private InstanceDiscovery instanceDiscovery;
+	public static final long PLACEMENT_CACHE_MAX_SIZE = 100_000;
+	/**
+	 * A table moved by another machine will be picked up after this time.
+	 */
+	public static final long PLACEMENT_CACHE_EXPIRE_MINUTES = 1;
 	/**
-	 * Note: This field will be remove when we actually have more than one
-	 * connection. It is a simple way to get the functionality up and running
-	 * without adding full support for a load balancing.
+	 * The index of a moved table is dropped from the old database once the
+	 * placement caches of all machines have expired.
 	 */
-	private BasicDataSource singleConnectionPool;
+	public static final long OLD_INDEX_DROP_DELAY_MINUTES = PLACEMENT_CACHE_EXPIRE_MINUTES * 2;
+	public static final long PENDING_DROP_CHECK_MINUTES = 1;
+	/**
+	 * The maximum number of old indexes dropped by each check.
+	 */
+	public static final long PENDING_DROP_BATCH_SIZE = 100;
+
+	private InstanceDiscovery instanceDiscovery;
 
 	private StackConfiguration stackConfig;
 
 	/**
-	 * Note: The DAO is autowired so it can be profiled. See: PLFM-5984. We might
-	 * need an alternate solution to support multiple database connections in the
-	 * future.
+	 * Note: The DAOs are Spring beans so they can be profiled. See: PLFM-5984. The
+	 * first database uses the singleton DAO while each additional database uses a
+	 * new instance from the prototype factory.
 	 */
 	private TableIndexDAO tableIndexDao;
-	
+
+	private ObjectFactory<TableIndexDAO> shardTableIndexDaoFactory;
+
+	/**
+	 * Connection pool for each database keyed by instance key, in discovery
+	 * order.
+	 */
+	private Map<String, BasicDataSource> connectionPools;
+	/**
+	 * DAO for each database keyed by instance key, in discovery order.
+	 */
+	private Map<String, TableIndexDAO> indexDaos;
+
+	private TableShardRing ring;
+
+	private TableShardPlacementDAO placementDao;
+
+	private LoadingCache<IdAndVersion, String> placementCache;
+
+	private TableIndexPlacementListener placementListener;
+
+	private ScheduledExecutorService placementExecutor;
+
 	@Autowired
-	public ConnectionFactoryImpl(StackConfiguration config, InstanceDiscovery instanceDiscovery, TableIndexDAO tableIndexDao) {
+	public ConnectionFactoryImpl(StackConfiguration config, InstanceDiscovery instanceDiscovery,
+			TableIndexDAO tableIndexDao,
+			@Qualifier("shardTableIndexDao") ObjectFactory<TableIndexDAO> shardTableIndexDaoFactory) {
 		this.stackConfig = config;
 		this.instanceDiscovery = instanceDiscovery;
 		this.tableIndexDao = tableIndexDao;
+		this.shardTableIndexDaoFactory = shardTableIndexDaoFactory;
+	}
+
+	/**
+	 * Optional since the table cluster can be used without the managers.
+	 * 
+	 * @param placementListener
+	 */
+	@Autowired(required = false)
+	public void setPlacementListener(TableIndexPlacementListener placementListener) {
+		this.placementListener = placementListener;
+	}
+
+	void setPlacementExecutor(ScheduledExecutorService placementExecutor) {
+		this.placementExecutor = placementExecutor;
 	}
 
 	@Override
 	public TableIndexDAO getConnection(IdAndVersion tableId) {
-		// Create a new DAO for this call.
-		return tableIndexDao;
+		ValidateArgument.required(tableId, "tableId");
+		String instanceKey;
+		try {
+			instanceKey = placementCache.get(tableId);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return indexDaos.get(instanceKey);
+	}
+
+	/**
+	 * Lookup the persisted placement of the given table, placing the table on the
+	 * instance selected by the ring if it has not been placed yet or if its
+	 * instance is no longer available.
+	 *
+	 * @param tableId
+	 * @return
+	 */
+	String lookupPlacement(IdAndVersion tableId) {
+		String ringKey = TableShardRing.getInstanceKey(ring.getInstance(tableId));
+		// The placement is persisted even with a single database, so the tables are not moved when a database is added.
+		String instanceKey = placementDao.getPlacement(tableId)
+				.orElseGet(() -> placementDao.placeIfAbsent(tableId, getFirstPlacement(tableId, ringKey)));
+		if (!indexDaos.containsKey(instanceKey)) {
+			log.warn("Table: " + tableId + " was placed on: " + instanceKey
+					+ " which is no longer available. The table will be moved to: " + ringKey);
+			placementDao.setPlacement(tableId, ringKey);
+			// Called while loading the cache so the listener must not be called on this thread.
+			placementExecutor.execute(() -> notifyPlacementChanged(tableId));
+			instanceKey = ringKey;
+		}
+		return instanceKey;
+	}
+
+	/**
+	 * The instance a table that was never placed is placed on. A table that was
+	 * built before it was placed can only be on the first database, where it is
+	 * kept so it is not rebuilt.
+	 * 
+	 * @param tableId
+	 * @param ringKey
+	 * @return
+	 */
+	String getFirstPlacement(IdAndVersion tableId, String ringKey) {
+		Map.Entry<String, TableIndexDAO> first = indexDaos.entrySet().iterator().next();
+		if (!first.getKey().equals(ringKey) && first.getValue().doesIndexExist(tableId)) {
+			return first.getKey();
+		}
+		return ringKey;
+	}
+
+	@Override
+	public TableIndexDAO rebalance(IdAndVersion tableId) {
+		ValidateArgument.required(tableId, "tableId");
+		String currentKey = lookupPlacement(tableId);
+		String ringKey = TableShardRing.getInstanceKey(ring.getInstance(tableId));
+		if (!currentKey.equals(ringKey)) {
+			log.info("Moving table: " + tableId + " from: " + currentKey + " to: " + ringKey);
+			placementDao.setPlacement(tableId, ringKey);
+			placementCache.invalidate(tableId);
+			notifyPlacementChanged(tableId);
+			placementDao.addPendingDrop(tableId, currentKey,
+					System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(OLD_INDEX_DROP_DELAY_MINUTES));
+		}
+		return indexDaos.get(ringKey);
+	}
+
+	/**
+	 * Drop the old indexes of the moved tables that are due at the given time.
+	 * 
+	 * @param nowMS
+	 */
+	void dropPendingIndexes(long nowMS) {
+		try {
+			for (PendingIndexDrop drop : placementDao.getPendingDrops(nowMS, PENDING_DROP_BATCH_SIZE)) {
+				dropOldIndex(drop.getTableId(), drop.getInstanceKey());
+				placementDao.removePendingDrop(drop);
+			}
+		} catch (Exception e) {
+			// the drops that failed are attempted again with the next check.
+			log.error("Failed to drop the old indexes of moved tables", e);
+		}
+	}
+
+	/**
+	 * Called once the placement caches of all machines have expired. Any machine
+	 * that was still routing the table to the old database might have rebuilt
+	 * the index there, so the table is reset again before the old index is
+	 * dropped.
+	 * 
+	 * @param tableId
+	 * @param oldKey
+	 */
+	void dropOldIndex(IdAndVersion tableId, String oldKey) {
+		if (placementDao.getPlacement(tableId).map(oldKey::equals).orElse(false)) {
+			// the table was moved back to the old database.
+			return;
+		}
+		notifyPlacementChanged(tableId);
+		TableIndexDAO oldDao = indexDaos.get(oldKey);
+		if (oldDao != null) {
+			oldDao.deleteTable(tableId);
+		}
+	}
+
+	void notifyPlacementChanged(IdAndVersion tableId) {
+		if (placementListener == null) {
+			log.warn("No placement listener, the index of table: " + tableId + " will not be rebuilt.");
+			return;
+		}
+		try {
+			placementListener.placementChanged(tableId);
+		} catch (Exception e) {
+			log.error("Failed to notify the placement change of table: " + tableId, e);
+		}
 	}
 
 	/**
@@ -63,40 +250,73 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	 */
 	@PostConstruct
 	public void initialize() {
-		// There is nothing to do if the table feature is not enabled.
 		// The features is enabled so we must find all database instances that we can
 		// use
 		List<InstanceInfo> instances = instanceDiscovery.discoverAllInstances();
 		if (instances == null || instances.isEmpty())
 			throw new IllegalArgumentException("Did not find at least one database instances.");
 
-		// This will be improved in the future. For now we just use the first database
-		// we find
-		InstanceInfo instance = instances.get(0);
-		// Use the one instance to create a single connection pool
-		singleConnectionPool = InstanceUtils.createNewDatabaseConnectionPool(stackConfig, instance);
-		// ensure the index has the correct tables
-		tableIndexDao.setDataSource(singleConnectionPool);
-		tableIndexDao.createObjectReplicationTablesIfDoesNotExist();
+		connectionPools = new LinkedHashMap<>(instances.size());
+		indexDaos = new LinkedHashMap<>(instances.size());
+		for (InstanceInfo instance : instances) {
+			String instanceKey = TableShardRing.getInstanceKey(instance);
+			// Each instance gets its own connection pool
+			BasicDataSource connectionPool = InstanceUtils.createNewDatabaseConnectionPool(stackConfig, instance);
+			TableIndexDAO indexDao = indexDaos.isEmpty() ? tableIndexDao : shardTableIndexDaoFactory.getObject();
+			// ensure each index has the correct tables
+			indexDao.setDataSource(connectionPool);
+			indexDao.createObjectReplicationTablesIfDoesNotExist();
+			connectionPools.put(instanceKey, connectionPool);
+			indexDaos.put(instanceKey, indexDao);
+		}
+		// The placement map lives in the first database.
+		TableShardPlacementDAO placementDao = new TableShardPlacementDAOImpl(getFirstDataSource());
+		placementDao.createTableIfDoesNotExist();
+		placementExecutor = Executors.newSingleThreadScheduledExecutor();
+		initializePlacement(instances, indexDaos, placementDao);
+		placementExecutor.scheduleWithFixedDelay(() -> dropPendingIndexes(System.currentTimeMillis()),
+				PENDING_DROP_CHECK_MINUTES, PENDING_DROP_CHECK_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Setup the placement of tables across the given databases.
+	 * 
+	 * @param instances
+	 * @param indexDaos    DAO for each database keyed by instance key.
+	 * @param placementDao
+	 */
+	void initializePlacement(List<InstanceInfo> instances, Map<String, TableIndexDAO> indexDaos,
+			TableShardPlacementDAO placementDao) {
+		this.indexDaos = indexDaos;
+		this.placementDao = placementDao;
+		this.ring = new TableShardRing(instances);
+		this.placementCache = CacheBuilder.newBuilder().maximumSize(PLACEMENT_CACHE_MAX_SIZE)
+				.expireAfterWrite(PLACEMENT_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+				.build(CacheLoader.from(this::lookupPlacement));
 	}
 
 	/**
 	 * Spring will calls this method when this bean is destroyed. This is our chance
 	 * to shutdown the database connection pools.
-	 * 
+	 *
 	 * @throws SQLException
 	 */
 	@PreDestroy
 	public void close() throws SQLException {
-		if (singleConnectionPool != null) {
-			log.debug("Closing connection pool to: " + singleConnectionPool.getUrl());
-			singleConnectionPool.close();
+		if (placementExecutor != null) {
+			placementExecutor.shutdownNow();
+		}
+		if (connectionPools != null) {
+			for (BasicDataSource connectionPool : connectionPools.values()) {
+				log.debug("Closing connection pool to: " + connectionPool.getUrl());
+				connectionPool.close();
+			}
 		}
 	}
 
 	@Override
 	public List<TableIndexDAO> getAllConnections() {
-		return Collections.singletonList(tableIndexDao);
+		return new ArrayList<>(indexDaos.values());
 	}
 
 	@Override
@@ -106,7 +326,7 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 
 	@Override
 	public DataSource getFirstDataSource() {
-		return singleConnectionPool;
+		return connectionPools.values().iterator().next();
 	}
 
 }
@@ -0,0 +1,63 @@
+package org.sagebionetworks.table.cluster;
+
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+/**
+ * The index of a table that was moved to another database and that must be
+ * dropped from its old database. See:
+ * {@link TableShardPlacementDAO#addPendingDrop(IdAndVersion, String, long)}
+ *
+ */
+public class PendingIndexDrop {
+
+	private final IdAndVersion tableId;
+	private final String instanceKey;
+
+	public PendingIndexDrop(IdAndVersion tableId, String instanceKey) {
+		this.tableId = tableId;
+		this.instanceKey = instanceKey;
+	}
+
+	/**
+	 * The table that was moved.
+	 * 
+	 * @return
+	 */
+	public IdAndVersion getTableId() {
+		return tableId;
+	}
+
+	/**
+	 * The key of the database the index must be dropped from.
+	 * 
+	 * @return
+	 */
+	public String getInstanceKey() {
+		return instanceKey;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(instanceKey, tableId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PendingIndexDrop)) {
+			return false;
+		}
+		PendingIndexDrop other = (PendingIndexDrop) obj;
+		return Objects.equals(instanceKey, other.instanceKey) && Objects.equals(tableId, other.tableId);
+	}
+
+	@Override
+	public String toString() {
+		return "PendingIndexDrop [tableId=" + tableId + ", instanceKey=" + instanceKey + "]";
+	}
+
+}
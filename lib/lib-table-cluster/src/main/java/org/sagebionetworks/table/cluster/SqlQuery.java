@@ -108,6 +108,17 @@ public class SqlQuery {
 	List<FacetColumnRequest> selectedFacets;
 	
 	EntityType tableType;
+	
+	/**
+	 * Is this query paginated by seeking past the ROW_ID of the last row of the
+	 * previous page?
+	 */
+	boolean isSeekPagination;
+	
+	/**
+	 * The ROW_ID of the last row of the previous page of a seek paginated query.
+	 */
+	Long afterRowId;
 
 	/**
 	 * @param tableId
@@ -127,7 +138,9 @@ public class SqlQuery {
 			Boolean includeRowIdAndRowVersion,
 			EntityType tableType,
 			List<FacetColumnRequest> selectedFacets,
-			List<QueryFilter> additionalFilters
+			List<QueryFilter> additionalFilters,
+			Boolean seekPagination,
+			Long afterRowId
 			) {
 		ValidateArgument.required(tableSchema, "TableSchema");
 		if(tableSchema.isEmpty()){
@@ -186,10 +199,10 @@ public class SqlQuery {
 		//Append additionalFilters onto the WHERE clause
 		if(additionalFilters != null && !additionalFilters.isEmpty()) {
 			String additionalFilterSearchCondition = SQLTranslatorUtils.translateQueryFilters(additionalFilters);
-			StringBuilder whereClauseBuilder = new StringBuilder();
-			SqlElementUntils.appendCombinedWhereClauseToStringBuilder(whereClauseBuilder,additionalFilterSearchCondition, this.model.getTableExpression().getWhereClause());
 			try {
-				this.model.getTableExpression().replaceWhere(new TableQueryParser(whereClauseBuilder.toString()).whereClause());
+				// Only the filters are parsed, the existing where is reused.
+				this.model.getTableExpression().replaceWhere(SqlElementUntils.createCombinedWhereClause(
+						this.model.getTableExpression().getWhereClause(), SqlElementUntils.createSearchCondition(additionalFilterSearchCondition)));
 			} catch (ParseException e) {
 				throw new IllegalArgumentException(e);
 			}
@@ -204,8 +217,30 @@ public class SqlQuery {
 		if(maxBytesPerPage != null){
 			this.maxRowsPerPage =  Math.max(1, maxBytesPerPage / this.maxRowSizeBytes);
 		}
+		/*
+		 * Pages of a query that returns a single result per table row are ordered by
+		 * ROW_ID, so the next page can seek past the last row of the previous page
+		 * instead of scanning and discarding all of the previous rows with an OFFSET.
+		 * A first page with a limit smaller than a page returns every row of the query,
+		 * so it is not ordered.
+		 */
+		boolean isSinglePage = afterRowId == null && overrideLimit != null && maxRowsPerPage != null
+				&& overrideLimit < maxRowsPerPage;
+		this.isSeekPagination = BooleanUtils.isTrue(seekPagination) && !isSinglePage
+				&& SqlElementUntils.isSeekPaginationSupported(model);
+		if (afterRowId != null && !this.isSeekPagination) {
+			throw new IllegalArgumentException("A query that is not paginated by ROW_ID cannot start after a ROW_ID");
+		}
+		this.afterRowId = afterRowId;
 		// paginated model includes all overrides and max rows per page.
 		QuerySpecification paginatedModel = SqlElementUntils.overridePagination(model, overrideOffset, overrideLimit, maxRowsPerPage);
+		if (this.isSeekPagination) {
+			try {
+				paginatedModel = SqlElementUntils.convertToSeekQuery(paginatedModel, afterRowId);
+			} catch (ParseException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
 
 		// Create a copy of the paginated model.
 		try {
@@ -380,4 +415,23 @@ public class SqlQuery {
 	public Long getMaxBytesPerPage() {
 		return maxBytesPerPage;
 	}
+
+	/**
+	 * Is this query paginated by seeking past the ROW_ID of the last row of the
+	 * previous page? When true, the rows are ordered by ROW_ID.
+	 * 
+	 * @return
+	 */
+	public boolean isSeekPagination() {
+		return isSeekPagination;
+	}
+
+	/**
+	 * The ROW_ID of the last row of the previous page of a seek paginated query.
+	 * 
+	 * @return
+	 */
+	public Long getAfterRowId() {
+		return afterRowId;
+	}
 }
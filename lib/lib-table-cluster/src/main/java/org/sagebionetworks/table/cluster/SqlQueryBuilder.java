@@ -25,6 +25,8 @@ public class SqlQueryBuilder {
 	EntityType tableType;
 	List<FacetColumnRequest> selectedFacets;
 	List<QueryFilter> additionalFilters;
+	Boolean seekPagination;
+	Long afterRowId;
 	
 	/**
 	 * Start with the SQL.
@@ -109,9 +111,33 @@ public class SqlQueryBuilder {
 		return this;
 	}
 
+	/**
+	 * When true, a query that supports it is paginated by ROW_ID. See:
+	 * {@link SqlQuery#isSeekPagination()}
+	 * 
+	 * @param seekPagination
+	 * @return
+	 */
+	public SqlQueryBuilder seekPagination(Boolean seekPagination) {
+		this.seekPagination = seekPagination;
+		return this;
+	}
+	
+	/**
+	 * The ROW_ID of the last row of the previous page of a seek paginated query.
+	 * 
+	 * @param afterRowId
+	 * @return
+	 */
+	public SqlQueryBuilder afterRowId(Long afterRowId) {
+		this.afterRowId = afterRowId;
+		return this;
+	}
+
 	public SqlQuery build(){
 		return new SqlQuery(model, tableSchema, overrideOffset, overrideLimit, maxBytesPerPage, sortList, isConsistent,
-				includeEntityEtag, includeRowIdAndRowVersion, tableType, selectedFacets, additionalFilters);
+				includeEntityEtag, includeRowIdAndRowVersion, tableType, selectedFacets, additionalFilters, seekPagination,
+				afterRowId);
 	}
 
 
@@ -97,6 +97,14 @@ public interface TableIndexDAO {
 	 * @return The row count of the table. If the table does not exist then null.
 	 */
 	Long getRowCountForTable(IdAndVersion tableId);
+
+	/**
+	 * Does the index table of the given table exist in this database?
+	 * 
+	 * @param tableId
+	 * @return
+	 */
+	boolean doesIndexExist(IdAndVersion tableId);
 	
 	/**
 	 * Get the max complete version we currently have for this table.
@@ -263,6 +263,13 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		}
 	}
 
+	@Override
+	public boolean doesIndexExist(IdAndVersion tableId) {
+		String tableName = SQLUtils.getTableNameForId(tableId, SQLUtils.TableType.INDEX);
+		// an underscore of the name matches any character, so the names are compared.
+		return template.queryForList("SHOW TABLES LIKE '" + tableName + "'", String.class).contains(tableName);
+	}
+
 	@Override
 	public Long getMaxCurrentCompleteVersionForTable(IdAndVersion tableId) {
 		String sql = SQLUtils.getStatusMaxVersionSQL(tableId);
@@ -321,7 +328,7 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	public RowSet query(ProgressCallback callback, final SqlQuery query) {
 		if (query == null)
 			throw new IllegalArgumentException("SqlQuery cannot be null");
-		final List<Row> rows = new LinkedList<Row>();
+		final List<Row> rows = new ArrayList<Row>();
 		final RowSet rowSet = new RowSet();
 		rowSet.setRows(rows);
 		rowSet.setHeaders(query.getSelectColumns());
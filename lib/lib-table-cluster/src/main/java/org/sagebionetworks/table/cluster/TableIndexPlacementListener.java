@@ -0,0 +1,20 @@
+package org.sagebionetworks.table.cluster;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+/**
+ * Listener notified by the {@link ConnectionFactory} when a table is moved to
+ * another index database. The index of the table on the new database is empty,
+ * so the listener is expected to reset the status of the table and trigger a
+ * rebuild.
+ *
+ */
+public interface TableIndexPlacementListener {
+
+	/**
+	 * Called when the given table has been placed on a different database.
+	 *
+	 * @param tableId
+	 */
+	void placementChanged(IdAndVersion tableId);
+}
@@ -0,0 +1,75 @@
+package org.sagebionetworks.table.cluster;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+/**
+ * Persists the index database instance that each table or view is placed on.
+ * The placement map lives in the first index database so every worker and
+ * repository node agree on where a table's index is located.
+ *
+ */
+public interface TableShardPlacementDAO {
+
+	/**
+	 * Create the placement tables if they do not already exist.
+	 */
+	void createTableIfDoesNotExist();
+
+	/**
+	 * Get the key of the instance that the given table is placed on.
+	 * 
+	 * @param tableId
+	 * @return {@link Optional#empty()} if the table has not been placed.
+	 */
+	Optional<String> getPlacement(IdAndVersion tableId);
+
+	/**
+	 * Place the given table on the given instance if the table does not already
+	 * have a placement. When two callers race to place the same table the first
+	 * placement wins.
+	 * 
+	 * @param tableId
+	 * @param instanceKey
+	 * @return The key of the instance the table is actually placed on.
+	 */
+	String placeIfAbsent(IdAndVersion tableId, String instanceKey);
+
+	/**
+	 * Move the given table to the given instance.
+	 * 
+	 * @param tableId
+	 * @param instanceKey
+	 */
+	void setPlacement(IdAndVersion tableId, String instanceKey);
+
+	/**
+	 * Record that the index of the given table must be dropped from the given
+	 * instance once the given time is reached. The drop is persisted so it is not
+	 * lost when a machine restarts.
+	 * 
+	 * @param tableId
+	 * @param instanceKey
+	 * @param dropAfterMS
+	 */
+	void addPendingDrop(IdAndVersion tableId, String instanceKey, long dropAfterMS);
+
+	/**
+	 * Get the pending drops that are due at the given time.
+	 * 
+	 * @param nowMS
+	 * @param limit
+	 * @return
+	 */
+	List<PendingIndexDrop> getPendingDrops(long nowMS, long limit);
+
+	/**
+	 * Remove a pending drop once the index was dropped.
+	 * 
+	 * @param drop
+	 */
+	void removePendingDrop(PendingIndexDrop drop);
+
+}
@@ -0,0 +1,118 @@
+package org.sagebionetworks.table.cluster;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class TableShardPlacementDAOImpl implements TableShardPlacementDAO {
+
+	/**
+	 * Version is stored as -1 for tables without a version so it can be part of
+	 * the primary key.
+	 */
+	public static final long NO_VERSION = -1L;
+
+	public static final String TABLE_SHARD_PLACEMENT = "TABLE_SHARD_PLACEMENT";
+	public static final String COL_TABLE_ID = "TABLE_ID";
+	public static final String COL_TABLE_VERSION = "TABLE_VERSION";
+	public static final String COL_INSTANCE_KEY = "INSTANCE_KEY";
+
+	public static final String TABLE_SHARD_PENDING_DROP = "TABLE_SHARD_PENDING_DROP";
+	public static final String COL_DROP_AFTER = "DROP_AFTER";
+
+	public static final String SQL_CREATE = "CREATE TABLE IF NOT EXISTS " + TABLE_SHARD_PLACEMENT + "("
+			+ COL_TABLE_ID + " BIGINT NOT NULL,"
+			+ COL_TABLE_VERSION + " BIGINT NOT NULL,"
+			+ COL_INSTANCE_KEY + " VARCHAR(512) NOT NULL,"
+			+ "PRIMARY KEY(" + COL_TABLE_ID + "," + COL_TABLE_VERSION + "))";
+
+	public static final String SQL_SELECT = "SELECT " + COL_INSTANCE_KEY + " FROM " + TABLE_SHARD_PLACEMENT
+			+ " WHERE " + COL_TABLE_ID + " = ? AND " + COL_TABLE_VERSION + " = ?";
+
+	public static final String SQL_INSERT_IGNORE = "INSERT IGNORE INTO " + TABLE_SHARD_PLACEMENT + " ("
+			+ COL_TABLE_ID + "," + COL_TABLE_VERSION + "," + COL_INSTANCE_KEY + ") VALUES (?,?,?)";
+
+	public static final String SQL_UPSERT = SQL_INSERT_IGNORE.replace("INSERT IGNORE", "INSERT")
+			+ " ON DUPLICATE KEY UPDATE " + COL_INSTANCE_KEY + " = ?";
+
+	public static final String SQL_CREATE_PENDING_DROP = "CREATE TABLE IF NOT EXISTS " + TABLE_SHARD_PENDING_DROP + "("
+			+ COL_TABLE_ID + " BIGINT NOT NULL,"
+			+ COL_TABLE_VERSION + " BIGINT NOT NULL,"
+			+ COL_INSTANCE_KEY + " VARCHAR(512) NOT NULL,"
+			+ COL_DROP_AFTER + " BIGINT NOT NULL,"
+			+ "PRIMARY KEY(" + COL_TABLE_ID + "," + COL_TABLE_VERSION + "," + COL_INSTANCE_KEY + "),"
+			+ "INDEX(" + COL_DROP_AFTER + "))";
+
+	public static final String SQL_UPSERT_PENDING_DROP = "INSERT INTO " + TABLE_SHARD_PENDING_DROP + " ("
+			+ COL_TABLE_ID + "," + COL_TABLE_VERSION + "," + COL_INSTANCE_KEY + "," + COL_DROP_AFTER
+			+ ") VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE " + COL_DROP_AFTER + " = ?";
+
+	public static final String SQL_SELECT_PENDING_DROPS = "SELECT " + COL_TABLE_ID + "," + COL_TABLE_VERSION + ","
+			+ COL_INSTANCE_KEY + " FROM " + TABLE_SHARD_PENDING_DROP + " WHERE " + COL_DROP_AFTER + " <= ? ORDER BY "
+			+ COL_DROP_AFTER + " LIMIT ?";
+
+	public static final String SQL_DELETE_PENDING_DROP = "DELETE FROM " + TABLE_SHARD_PENDING_DROP + " WHERE "
+			+ COL_TABLE_ID + " = ? AND " + COL_TABLE_VERSION + " = ? AND " + COL_INSTANCE_KEY + " = ?";
+
+	private final JdbcTemplate template;
+
+	public TableShardPlacementDAOImpl(DataSource dataSource) {
+		this.template = new JdbcTemplate(dataSource);
+	}
+
+	@Override
+	public void createTableIfDoesNotExist() {
+		template.update(SQL_CREATE);
+		template.update(SQL_CREATE_PENDING_DROP);
+	}
+
+	@Override
+	public Optional<String> getPlacement(IdAndVersion tableId) {
+		List<String> results = template.queryForList(SQL_SELECT, String.class, tableId.getId(),
+				getVersion(tableId));
+		return results.stream().findFirst();
+	}
+
+	@Override
+	public String placeIfAbsent(IdAndVersion tableId, String instanceKey) {
+		template.update(SQL_INSERT_IGNORE, tableId.getId(), getVersion(tableId), instanceKey);
+		return getPlacement(tableId).orElseThrow(
+				() -> new IllegalStateException("Failed to place table: " + tableId));
+	}
+
+	@Override
+	public void setPlacement(IdAndVersion tableId, String instanceKey) {
+		template.update(SQL_UPSERT, tableId.getId(), getVersion(tableId), instanceKey, instanceKey);
+	}
+
+	@Override
+	public void addPendingDrop(IdAndVersion tableId, String instanceKey, long dropAfterMS) {
+		template.update(SQL_UPSERT_PENDING_DROP, tableId.getId(), getVersion(tableId), instanceKey, dropAfterMS,
+				dropAfterMS);
+	}
+
+	@Override
+	public List<PendingIndexDrop> getPendingDrops(long nowMS, long limit) {
+		return template.query(SQL_SELECT_PENDING_DROPS, (ResultSet rs, int rowNum) -> {
+			long version = rs.getLong(COL_TABLE_VERSION);
+			IdAndVersion tableId = IdAndVersion.newBuilder().setId(rs.getLong(COL_TABLE_ID))
+					.setVersion(version == NO_VERSION ? null : version).build();
+			return new PendingIndexDrop(tableId, rs.getString(COL_INSTANCE_KEY));
+		}, nowMS, limit);
+	}
+
+	@Override
+	public void removePendingDrop(PendingIndexDrop drop) {
+		template.update(SQL_DELETE_PENDING_DROP, drop.getTableId().getId(), getVersion(drop.getTableId()),
+				drop.getInstanceKey());
+	}
+
+	static long getVersion(IdAndVersion tableId) {
+		return tableId.getVersion().orElse(NO_VERSION);
+	}
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.table.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Consistent hash ring used to assign each table or view to one of the index
+ * database instances. Each instance is placed on the ring multiple times
+ * (virtual nodes) so tables are spread evenly and adding or removing an
+ * instance only moves the tables that were assigned to the affected segments.
+ *
+ * This class is immutable and thread safe.
+ *
+ */
+public class TableShardRing {
+
+	public static final int VIRTUAL_NODES_PER_INSTANCE = 128;
+
+	private final NavigableMap<Long, InstanceInfo> ring;
+
+	/**
+	 * Build a ring containing the given instances.
+	 *
+	 * @param instances
+	 */
+	public TableShardRing(List<InstanceInfo> instances) {
+		ValidateArgument.requiredNotEmpty(instances, "instances");
+		this.ring = new TreeMap<>();
+		for (InstanceInfo instance : instances) {
+			for (int i = 0; i < VIRTUAL_NODES_PER_INSTANCE; i++) {
+				ring.put(hash(getInstanceKey(instance) + "#" + i), instance);
+			}
+		}
+	}
+
+	/**
+	 * Get the instance that owns the given table.
+	 *
+	 * @param tableId
+	 * @return
+	 */
+	public InstanceInfo getInstance(IdAndVersion tableId) {
+		ValidateArgument.required(tableId, "tableId");
+		Entry<Long, InstanceInfo> entry = ring.ceilingEntry(hash(tableId.toString()));
+		if (entry == null) {
+			// wrap around the ring.
+			entry = ring.firstEntry();
+		}
+		return entry.getValue();
+	}
+
+	/**
+	 * The key that identifies an instance in the persisted placement map.
+	 *
+	 * @param instance
+	 * @return
+	 */
+	public static String getInstanceKey(InstanceInfo instance) {
+		return instance.getEndpoint() + "/" + instance.getSchema();
+	}
+
+	/**
+	 * The first eight bytes of the MD5 of the given value.
+	 *
+	 * @param value
+	 * @return
+	 */
+	static long hash(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] bytes = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+			long hash = 0;
+			for (int i = 0; i < 8; i++) {
+				hash = (hash << 8) | (bytes[i] & 0xFF);
+			}
+			return hash;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
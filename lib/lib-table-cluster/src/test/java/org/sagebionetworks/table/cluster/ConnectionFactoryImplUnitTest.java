@@ -0,0 +1,270 @@
+package org.sagebionetworks.table.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.springframework.beans.factory.ObjectFactory;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionFactoryImplUnitTest {
+
+	@Mock
+	private StackConfiguration mockConfig;
+	@Mock
+	private InstanceDiscovery mockInstanceDiscovery;
+	@Mock
+	private TableIndexDAO mockFirstDao;
+	@Mock
+	private TableIndexDAO mockSecondDao;
+	@Mock
+	private ObjectFactory<TableIndexDAO> mockShardFactory;
+	@Mock
+	private TableShardPlacementDAO mockPlacementDao;
+	@Mock
+	private TableIndexPlacementListener mockListener;
+	@Mock
+	private ScheduledExecutorService mockExecutor;
+
+	private ConnectionFactoryImpl factory;
+
+	private List<InstanceInfo> instances;
+	private Map<String, TableIndexDAO> indexDaos;
+	private IdAndVersion tableId;
+	private String ringKey;
+	private String otherKey;
+
+	@BeforeEach
+	public void before() {
+		factory = new ConnectionFactoryImpl(mockConfig, mockInstanceDiscovery, mockFirstDao, mockShardFactory);
+		factory.setPlacementListener(mockListener);
+		factory.setPlacementExecutor(mockExecutor);
+		instances = Arrays.asList(new InstanceInfo("endpoint0", "schema0", false),
+				new InstanceInfo("endpoint1", "schema1", false));
+		indexDaos = new LinkedHashMap<>();
+		indexDaos.put(TableShardRing.getInstanceKey(instances.get(0)), mockFirstDao);
+		indexDaos.put(TableShardRing.getInstanceKey(instances.get(1)), mockSecondDao);
+		tableId = IdAndVersion.parse("syn123");
+		ringKey = TableShardRing.getInstanceKey(new TableShardRing(instances).getInstance(tableId));
+		otherKey = indexDaos.keySet().stream().filter(k -> !k.equals(ringKey)).findFirst().get();
+	}
+
+	@Test
+	public void testGetConnectionSingleDatabase() {
+		String firstKey = TableShardRing.getInstanceKey(instances.get(0));
+		indexDaos.remove(TableShardRing.getInstanceKey(instances.get(1)));
+		factory.initializePlacement(instances.subList(0, 1), indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.empty());
+		when(mockPlacementDao.placeIfAbsent(tableId, firstKey)).thenReturn(firstKey);
+		// call under test
+		TableIndexDAO dao = factory.getConnection(tableId);
+		assertSame(mockFirstDao, dao);
+		// the placement is persisted so the table is not moved when a database is added.
+		verify(mockPlacementDao).placeIfAbsent(tableId, firstKey);
+		verify(mockFirstDao, never()).doesIndexExist(any());
+	}
+
+	@Test
+	public void testGetConnectionNotPlaced() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.empty());
+		when(mockPlacementDao.placeIfAbsent(tableId, ringKey)).thenReturn(ringKey);
+		if (indexDaos.get(ringKey) != mockFirstDao) {
+			when(mockFirstDao.doesIndexExist(tableId)).thenReturn(false);
+		}
+		// call under test
+		TableIndexDAO dao = factory.getConnection(tableId);
+		assertSame(indexDaos.get(ringKey), dao);
+		// a second call should use the cache.
+		assertSame(dao, factory.getConnection(tableId));
+		verify(mockPlacementDao).getPlacement(tableId);
+		verify(mockPlacementDao).placeIfAbsent(tableId, ringKey);
+		verify(mockPlacementDao, never()).setPlacement(any(), any());
+		verifyNoMoreInteractions(mockListener, mockExecutor);
+	}
+
+	@Test
+	public void testGetFirstPlacementWithExistingIndexOnFirst() {
+		String firstKey = TableShardRing.getInstanceKey(instances.get(0));
+		String secondKey = TableShardRing.getInstanceKey(instances.get(1));
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockFirstDao.doesIndexExist(tableId)).thenReturn(true);
+		// call under test
+		assertEquals(firstKey, factory.getFirstPlacement(tableId, secondKey));
+	}
+
+	@Test
+	public void testGetFirstPlacementWithNoIndexOnFirst() {
+		String secondKey = TableShardRing.getInstanceKey(instances.get(1));
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockFirstDao.doesIndexExist(tableId)).thenReturn(false);
+		// call under test
+		assertEquals(secondKey, factory.getFirstPlacement(tableId, secondKey));
+	}
+
+	@Test
+	public void testGetFirstPlacementRingIsFirst() {
+		String firstKey = TableShardRing.getInstanceKey(instances.get(0));
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		// call under test
+		assertEquals(firstKey, factory.getFirstPlacement(tableId, firstKey));
+		verify(mockFirstDao, never()).doesIndexExist(any());
+	}
+
+	@Test
+	public void testGetConnectionPlacedOnOtherInstance() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(otherKey));
+		// call under test
+		TableIndexDAO dao = factory.getConnection(tableId);
+		// the persisted placement wins over the ring.
+		assertSame(indexDaos.get(otherKey), dao);
+		verify(mockPlacementDao, never()).placeIfAbsent(any(), any());
+		verify(mockPlacementDao, never()).setPlacement(any(), any());
+		verifyNoMoreInteractions(mockListener, mockExecutor);
+	}
+
+	@Test
+	public void testGetConnectionPlacedOnMissingInstance() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of("gone/schema"));
+		// call under test
+		TableIndexDAO dao = factory.getConnection(tableId);
+		assertSame(indexDaos.get(ringKey), dao);
+		verify(mockPlacementDao).setPlacement(tableId, ringKey);
+		// the listener is notified off the loading thread.
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(mockExecutor).execute(captor.capture());
+		verifyNoMoreInteractions(mockListener);
+		captor.getValue().run();
+		verify(mockListener).placementChanged(tableId);
+	}
+
+	@Test
+	public void testRebalanceNotMoved() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(ringKey));
+		// call under test
+		TableIndexDAO dao = factory.rebalance(tableId);
+		assertSame(indexDaos.get(ringKey), dao);
+		verify(mockPlacementDao, never()).setPlacement(any(), any());
+		verifyNoMoreInteractions(mockListener, mockExecutor);
+	}
+
+	@Test
+	public void testRebalanceMoved() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(otherKey));
+		long start = System.currentTimeMillis();
+		// prime the cache with the old placement.
+		assertSame(indexDaos.get(otherKey), factory.getConnection(tableId));
+		// call under test
+		TableIndexDAO dao = factory.rebalance(tableId);
+		assertSame(indexDaos.get(ringKey), dao);
+		verify(mockPlacementDao).setPlacement(tableId, ringKey);
+		verify(mockListener).placementChanged(tableId);
+		// the old index must not be dropped until the caches of other machines expire.
+		verify(indexDaos.get(otherKey), never()).deleteTable(any());
+		ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
+		verify(mockPlacementDao).addPendingDrop(eq(tableId), eq(otherKey), captor.capture());
+		assertTrue(captor.getValue() >= start + TimeUnit.MINUTES.toMillis(ConnectionFactoryImpl.OLD_INDEX_DROP_DELAY_MINUTES));
+		verifyNoMoreInteractions(mockExecutor);
+		// the local cache is invalidated.
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(ringKey));
+		assertSame(indexDaos.get(ringKey), factory.getConnection(tableId));
+	}
+
+	@Test
+	public void testDropPendingIndexes() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		long now = 123L;
+		PendingIndexDrop drop = new PendingIndexDrop(tableId, otherKey);
+		when(mockPlacementDao.getPendingDrops(now, ConnectionFactoryImpl.PENDING_DROP_BATCH_SIZE))
+				.thenReturn(Collections.singletonList(drop));
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(ringKey));
+		// call under test
+		factory.dropPendingIndexes(now);
+		// reset again in case a machine rebuilt the index on the old database.
+		verify(mockListener).placementChanged(tableId);
+		verify(indexDaos.get(otherKey)).deleteTable(tableId);
+		verify(indexDaos.get(ringKey), never()).deleteTable(any());
+		verify(mockPlacementDao).removePendingDrop(drop);
+	}
+
+	@Test
+	public void testDropPendingIndexesDeleteFails() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		long now = 123L;
+		PendingIndexDrop drop = new PendingIndexDrop(tableId, otherKey);
+		when(mockPlacementDao.getPendingDrops(now, ConnectionFactoryImpl.PENDING_DROP_BATCH_SIZE))
+				.thenReturn(Collections.singletonList(drop));
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(ringKey));
+		doThrow(new IllegalStateException("nope")).when(indexDaos.get(otherKey)).deleteTable(tableId);
+		// call under test
+		factory.dropPendingIndexes(now);
+		// the drop is kept so it is attempted again.
+		verify(mockPlacementDao, never()).removePendingDrop(any());
+	}
+
+	@Test
+	public void testDropOldIndexMovedBack() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(otherKey));
+		// call under test
+		factory.dropOldIndex(tableId, otherKey);
+		verify(mockListener, never()).placementChanged(any());
+		verify(mockFirstDao, never()).deleteTable(any());
+		verify(mockSecondDao, never()).deleteTable(any());
+	}
+
+	@Test
+	public void testDropOldIndexMissingInstance() {
+		factory.initializePlacement(instances, indexDaos, mockPlacementDao);
+		when(mockPlacementDao.getPlacement(tableId)).thenReturn(Optional.of(ringKey));
+		// call under test
+		factory.dropOldIndex(tableId, "gone/schema");
+		verify(mockListener).placementChanged(tableId);
+		verify(mockFirstDao, never()).deleteTable(any());
+		verify(mockSecondDao, never()).deleteTable(any());
+	}
+
+	@Test
+	public void testNotifyPlacementChangedNoListener() {
+		factory.setPlacementListener(null);
+		// call under test
+		factory.notifyPlacementChanged(tableId);
+		verifyNoMoreInteractions(mockListener);
+	}
+
+	@Test
+	public void testNotifyPlacementChangedListenerFails() {
+		doThrow(new IllegalStateException("nope")).when(mockListener).placementChanged(tableId);
+		// call under test
+		factory.notifyPlacementChanged(tableId);
+		verify(mockListener).placementChanged(tableId);
+	}
+}
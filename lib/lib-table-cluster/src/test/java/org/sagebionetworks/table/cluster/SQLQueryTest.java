@@ -23,6 +23,7 @@ import org.sagebionetworks.repo.model.table.ColumnSingleValueFilterOperator;
 import org.sagebionetworks.repo.model.table.ColumnType;
 import org.sagebionetworks.repo.model.table.ColumnSingleValueQueryFilter;
 import org.sagebionetworks.repo.model.table.SelectColumn;
+import org.sagebionetworks.repo.model.table.SortItem;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.table.query.ParseException;
 import org.sagebionetworks.table.query.TableQueryParser;
@@ -708,6 +709,90 @@ public class SQLQueryTest {
 		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123",translator.getOutputSQL());
 	}
 	
+	@Test
+	public void testSeekPaginationFirstPage() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123 where bar = 'a'").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, 10L, null, 10000L).seekPagination(true).build();
+		assertTrue(translator.isSeekPagination());
+		assertEquals(null, translator.getAfterRowId());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 WHERE _C333_ = :b0 ORDER BY ROW_ID ASC LIMIT :b1 OFFSET :b2",translator.getOutputSQL());
+		assertEquals(10L, translator.getParameters().get("b2"));
+		// the original model should remain unchanged.
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 'a'",translator.getModel().toSql());
+	}
+	
+	@Test
+	public void testSeekPaginationNextPage() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123 where bar = 'a'").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, null, 10000L).seekPagination(true).afterRowId(456L).build();
+		assertTrue(translator.isSeekPagination());
+		assertEquals(Long.valueOf(456L), translator.getAfterRowId());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 WHERE ( _C333_ = :b0 ) AND ( ROW_ID > :b1 ) ORDER BY ROW_ID ASC LIMIT :b2 OFFSET :b3",translator.getOutputSQL());
+		assertEquals(456L, translator.getParameters().get("b1"));
+		assertEquals(0L, translator.getParameters().get("b3"));
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 'a'",translator.getModel().toSql());
+	}
+	
+	@Test
+	public void testSeekPaginationFirstPageWithLimitSmallerThanPage() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, 5L, 10000L).seekPagination(true).build();
+		// the page includes all of the rows so there is no next page to seek.
+		assertFalse(translator.isSeekPagination());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 LIMIT :b0 OFFSET :b1",translator.getOutputSQL());
+	}
+	
+	@Test
+	public void testSeekPaginationFirstPageWithLimitLargerThanPage() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, 1000L, 1L).seekPagination(true).build();
+		assertTrue(translator.isSeekPagination());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 ORDER BY ROW_ID ASC LIMIT :b0 OFFSET :b1",translator.getOutputSQL());
+	}
+	
+	@Test
+	public void testSeekPaginationNotRequested() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, null, 10000L).build();
+		assertFalse(translator.isSeekPagination());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 LIMIT :b0 OFFSET :b1",translator.getOutputSQL());
+	}
+	
+	@Test
+	public void testSeekPaginationWithSort() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123").querySpecification();
+		SortItem sort = new SortItem();
+		sort.setColumn("foo");
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, null, 10000L).sortList(Lists.newArrayList(sort))
+				.seekPagination(true).build();
+		// sorted queries are paginated with an offset.
+		assertFalse(translator.isSeekPagination());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 ORDER BY _C111_ ASC LIMIT :b0 OFFSET :b1",translator.getOutputSQL());
+	}
+	
+	@Test
+	public void testSeekPaginationAggregate() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select count(*) from syn123").querySpecification();
+		// call under test
+		SqlQuery translator = new SqlQueryBuilder(model, tableSchema, null, null, 10000L).seekPagination(true).build();
+		assertFalse(translator.isSeekPagination());
+	}
+	
+	@Test
+	public void testAfterRowIdWithoutSeekPagination() throws ParseException{
+		QuerySpecification model = new TableQueryParser("select foo from syn123 order by foo").querySpecification();
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new SqlQueryBuilder(model, tableSchema, null, null, 10000L).seekPagination(true).afterRowId(456L).build();
+		});
+	}
+	
 	@Test
 	public void testPLFM_4161() throws ParseException{
 		String sql = "select * from syn123";
@@ -326,6 +326,16 @@ public class TableIndexDAOImplTest {
 		assertEquals(42L, row.get("_C11_"));
 	}
 
+	@Test
+	public void testDoesIndexExist() {
+		assertFalse(tableIndexDAO.doesIndexExist(tableId));
+		createOrUpdateTable(TableModelTestUtils.createOneOfEachType(), tableId, isView);
+		// call under test
+		assertTrue(tableIndexDAO.doesIndexExist(tableId));
+		tableIndexDAO.deleteTable(tableId);
+		assertFalse(tableIndexDAO.doesIndexExist(tableId));
+	}
+
 	@Test
 	public void testGetRowCountForTable() {
 		// Before the table exists the max version should be null
@@ -0,0 +1,121 @@
+package org.sagebionetworks.table.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:table-cluster-spb.xml" })
+public class TableShardPlacementDAOImplTest {
+
+	@Autowired
+	ConnectionFactory tableConnectionFactory;
+
+	TableShardPlacementDAO placementDao;
+	JdbcTemplate template;
+	IdAndVersion tableId;
+	IdAndVersion tableIdVersion;
+
+	@Before
+	public void before() {
+		placementDao = new TableShardPlacementDAOImpl(tableConnectionFactory.getFirstDataSource());
+		placementDao.createTableIfDoesNotExist();
+		template = new JdbcTemplate(tableConnectionFactory.getFirstDataSource());
+		tableId = IdAndVersion.parse("syn999123");
+		tableIdVersion = IdAndVersion.parse("syn999123.2");
+		cleanup();
+	}
+
+	@After
+	public void after() {
+		cleanup();
+	}
+
+	private void cleanup() {
+		template.update("DELETE FROM " + TableShardPlacementDAOImpl.TABLE_SHARD_PLACEMENT + " WHERE "
+				+ TableShardPlacementDAOImpl.COL_TABLE_ID + " = ?", tableId.getId());
+		template.update("DELETE FROM " + TableShardPlacementDAOImpl.TABLE_SHARD_PENDING_DROP + " WHERE "
+				+ TableShardPlacementDAOImpl.COL_TABLE_ID + " = ?", tableId.getId());
+	}
+
+	@Test
+	public void testGetPlacementDoesNotExist() {
+		assertFalse(placementDao.getPlacement(tableId).isPresent());
+	}
+
+	@Test
+	public void testPlaceIfAbsent() {
+		assertEquals("one", placementDao.placeIfAbsent(tableId, "one"));
+		// the first placement wins.
+		assertEquals("one", placementDao.placeIfAbsent(tableId, "two"));
+		assertEquals(Optional.of("one"), placementDao.getPlacement(tableId));
+	}
+
+	@Test
+	public void testSetPlacement() {
+		// set without an existing placement.
+		placementDao.setPlacement(tableId, "one");
+		assertEquals(Optional.of("one"), placementDao.getPlacement(tableId));
+		// set should replace the existing placement.
+		placementDao.setPlacement(tableId, "two");
+		assertEquals(Optional.of("two"), placementDao.getPlacement(tableId));
+	}
+
+	@Test
+	public void testPlacementWithVersion() {
+		placementDao.placeIfAbsent(tableId, "one");
+		// each version of a table is placed independently.
+		assertFalse(placementDao.getPlacement(tableIdVersion).isPresent());
+		assertEquals("two", placementDao.placeIfAbsent(tableIdVersion, "two"));
+		assertEquals(Optional.of("one"), placementDao.getPlacement(tableId));
+		assertEquals(Optional.of("two"), placementDao.getPlacement(tableIdVersion));
+	}
+
+	@Test
+	public void testPendingDrops() {
+		placementDao.addPendingDrop(tableId, "one", 100L);
+		placementDao.addPendingDrop(tableIdVersion, "two", 200L);
+		// nothing is due yet.
+		assertEquals(Collections.emptyList(), placementDao.getPendingDrops(99L, 10L));
+		assertEquals(Collections.singletonList(new PendingIndexDrop(tableId, "one")),
+				placementDao.getPendingDrops(100L, 10L));
+		// ordered by the time they are due.
+		assertEquals(Arrays.asList(new PendingIndexDrop(tableId, "one"), new PendingIndexDrop(tableIdVersion, "two")),
+				placementDao.getPendingDrops(200L, 10L));
+		assertEquals(Collections.singletonList(new PendingIndexDrop(tableId, "one")),
+				placementDao.getPendingDrops(200L, 1L));
+		// call under test
+		placementDao.removePendingDrop(new PendingIndexDrop(tableId, "one"));
+		assertEquals(Collections.singletonList(new PendingIndexDrop(tableIdVersion, "two")),
+				placementDao.getPendingDrops(200L, 10L));
+	}
+
+	@Test
+	public void testAddPendingDropAgain() {
+		placementDao.addPendingDrop(tableId, "one", 100L);
+		// the same drop is delayed.
+		placementDao.addPendingDrop(tableId, "one", 300L);
+		assertEquals(Collections.emptyList(), placementDao.getPendingDrops(200L, 10L));
+		assertEquals(Collections.singletonList(new PendingIndexDrop(tableId, "one")),
+				placementDao.getPendingDrops(300L, 10L));
+	}
+
+	@Test
+	public void testGetVersion() {
+		assertEquals(TableShardPlacementDAOImpl.NO_VERSION, TableShardPlacementDAOImpl.getVersion(tableId));
+		assertEquals(2L, TableShardPlacementDAOImpl.getVersion(tableIdVersion));
+	}
+}
@@ -0,0 +1,96 @@
+package org.sagebionetworks.table.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+public class TableShardRingTest {
+
+	private InstanceInfo one;
+	private InstanceInfo two;
+	private InstanceInfo three;
+
+	@BeforeEach
+	public void before() {
+		one = new InstanceInfo("endpoint0", "schema0", false);
+		two = new InstanceInfo("endpoint1", "schema1", false);
+		three = new InstanceInfo("endpoint2", "schema2", false);
+	}
+
+	@Test
+	public void testGetInstanceKey() {
+		assertEquals("endpoint0/schema0", TableShardRing.getInstanceKey(one));
+	}
+
+	@Test
+	public void testGetInstanceSingle() {
+		TableShardRing ring = new TableShardRing(Collections.singletonList(one));
+		// call under test
+		assertEquals(one, ring.getInstance(IdAndVersion.parse("syn123")));
+		assertEquals(one, ring.getInstance(IdAndVersion.parse("syn123.4")));
+	}
+
+	@Test
+	public void testGetInstanceDeterministic() {
+		TableShardRing ring = new TableShardRing(Arrays.asList(one, two, three));
+		TableShardRing reordered = new TableShardRing(Arrays.asList(three, one, two));
+		for (long i = 0; i < 100; i++) {
+			IdAndVersion id = IdAndVersion.newBuilder().setId(i).build();
+			// call under test
+			assertEquals(ring.getInstance(id), reordered.getInstance(id));
+		}
+	}
+
+	@Test
+	public void testGetInstanceDistribution() {
+		List<InstanceInfo> instances = Arrays.asList(one, two, three);
+		TableShardRing ring = new TableShardRing(instances);
+		Map<InstanceInfo, Integer> counts = new HashMap<>();
+		int tableCount = 3000;
+		for (long i = 0; i < tableCount; i++) {
+			IdAndVersion id = IdAndVersion.newBuilder().setId(i).build();
+			counts.merge(ring.getInstance(id), 1, Integer::sum);
+		}
+		for (InstanceInfo instance : instances) {
+			int count = counts.getOrDefault(instance, 0);
+			assertTrue(count > tableCount / 6, "Unbalanced: " + counts);
+		}
+	}
+
+	@Test
+	public void testGetInstanceAddInstanceMovesOnlyNewSegments() {
+		TableShardRing before = new TableShardRing(Arrays.asList(one, two));
+		TableShardRing after = new TableShardRing(Arrays.asList(one, two, three));
+		for (long i = 0; i < 1000; i++) {
+			IdAndVersion id = IdAndVersion.newBuilder().setId(i).build();
+			InstanceInfo newInstance = after.getInstance(id);
+			// a table either stays where it was or moves to the new instance.
+			assertTrue(newInstance.equals(before.getInstance(id)) || newInstance.equals(three));
+		}
+	}
+
+	@Test
+	public void testConstructorWithEmpty() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new TableShardRing(Collections.emptyList());
+		});
+	}
+
+	@Test
+	public void testGetInstanceWithNull() {
+		TableShardRing ring = new TableShardRing(Collections.singletonList(one));
+		assertThrows(IllegalArgumentException.class, () -> {
+			ring.getInstance(null);
+		});
+	}
+}
@@ -56,16 +56,13 @@ public class FacetUtils {
 	public static QuerySpecification appendFacetSearchConditionToQuerySpecification(QuerySpecification sqlModel, List<FacetRequestColumnModel> facetRequestColumnModels) throws ParseException{
 		QuerySpecification modelCopy = new TableQueryParser(sqlModel.toSql()).querySpecification();
 		if(!facetRequestColumnModels.isEmpty()){
-			WhereClause originalWhereClause = sqlModel.getTableExpression().getWhereClause();
-			
 			String facetSearchConditionString = FacetUtils.concatFacetSearchConditionStrings(facetRequestColumnModels, null);
 			
-			StringBuilder builder = new StringBuilder();
-			SqlElementUntils.appendCombinedWhereClauseToStringBuilder(builder, facetSearchConditionString, originalWhereClause);
-			
 			// create the new where if necessary
-			if(builder.length() > 0){
-				WhereClause newWhereClause = new TableQueryParser(builder.toString()).whereClause();
+			if(facetSearchConditionString != null){
+				// Only the facet search conditions are parsed, the where of the copy is reused.
+				WhereClause newWhereClause = SqlElementUntils.createCombinedWhereClause(modelCopy.getTableExpression().getWhereClause(),
+						SqlElementUntils.createSearchCondition(facetSearchConditionString));
 				modelCopy.getTableExpression().replaceWhere(newWhereClause);
 			}
 		}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.table.query.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -11,42 +12,58 @@ import org.sagebionetworks.repo.model.table.SortItem;
 import org.sagebionetworks.repo.model.table.TableConstants;
 import org.sagebionetworks.table.query.ParseException;
 import org.sagebionetworks.table.query.TableQueryParser;
+import org.sagebionetworks.table.query.model.ActualIdentifier;
+import org.sagebionetworks.table.query.model.ArrayFunctionSpecification;
 import org.sagebionetworks.table.query.model.BetweenPredicate;
 import org.sagebionetworks.table.query.model.BooleanFactor;
 import org.sagebionetworks.table.query.model.BooleanPredicate;
 import org.sagebionetworks.table.query.model.BooleanPrimary;
 import org.sagebionetworks.table.query.model.BooleanTerm;
 import org.sagebionetworks.table.query.model.BooleanTest;
+import org.sagebionetworks.table.query.model.ColumnName;
 import org.sagebionetworks.table.query.model.ColumnReference;
 import org.sagebionetworks.table.query.model.ComparisonPredicate;
 import org.sagebionetworks.table.query.model.DerivedColumn;
 import org.sagebionetworks.table.query.model.EscapeCharacter;
+import org.sagebionetworks.table.query.model.ExactNumericLiteral;
+import org.sagebionetworks.table.query.model.Factor;
 import org.sagebionetworks.table.query.model.FromClause;
 import org.sagebionetworks.table.query.model.GroupByClause;
 import org.sagebionetworks.table.query.model.GroupingColumnReference;
 import org.sagebionetworks.table.query.model.GroupingColumnReferenceList;
+import org.sagebionetworks.table.query.model.Identifier;
 import org.sagebionetworks.table.query.model.InPredicate;
 import org.sagebionetworks.table.query.model.InPredicateValue;
+import org.sagebionetworks.table.query.model.InValueList;
 import org.sagebionetworks.table.query.model.LikePredicate;
 import org.sagebionetworks.table.query.model.MatchValue;
 import org.sagebionetworks.table.query.model.NullPredicate;
+import org.sagebionetworks.table.query.model.NumericPrimary;
+import org.sagebionetworks.table.query.model.NumericValueExpression;
 import org.sagebionetworks.table.query.model.OrderByClause;
 import org.sagebionetworks.table.query.model.OrderingSpecification;
 import org.sagebionetworks.table.query.model.Pagination;
 import org.sagebionetworks.table.query.model.Pattern;
 import org.sagebionetworks.table.query.model.Predicate;
 import org.sagebionetworks.table.query.model.QuerySpecification;
+import org.sagebionetworks.table.query.model.RegularIdentifier;
 import org.sagebionetworks.table.query.model.RowValueConstructor;
 import org.sagebionetworks.table.query.model.RowValueConstructorElement;
 import org.sagebionetworks.table.query.model.RowValueConstructorList;
 import org.sagebionetworks.table.query.model.SearchCondition;
 import org.sagebionetworks.table.query.model.SelectList;
 import org.sagebionetworks.table.query.model.SetQuantifier;
+import org.sagebionetworks.table.query.model.Sign;
 import org.sagebionetworks.table.query.model.SortKey;
 import org.sagebionetworks.table.query.model.SortSpecification;
 import org.sagebionetworks.table.query.model.SortSpecificationList;
 import org.sagebionetworks.table.query.model.TableExpression;
+import org.sagebionetworks.table.query.model.Term;
+import org.sagebionetworks.table.query.model.UnsignedLiteral;
+import org.sagebionetworks.table.query.model.UnsignedNumericLiteral;
+import org.sagebionetworks.table.query.model.UnsignedValueSpecification;
 import org.sagebionetworks.table.query.model.ValueExpression;
+import org.sagebionetworks.table.query.model.ValueExpressionPrimary;
 import org.sagebionetworks.table.query.model.WhereClause;
 import org.sagebionetworks.util.ValidateArgument;
 
@@ -553,6 +570,57 @@ public class SqlElementUntils {
 		return convertToPaginatedQuery(model, paginatedOffset, paginatedLimit);
 	}
 	
+	/**
+	 * Can the given query be paginated by seeking past the ROW_ID of the last row
+	 * of the previous page? Each row of such a query is a single row of the table,
+	 * so the rows can be ordered by ROW_ID. Queries with an ORDER BY, GROUP BY,
+	 * DISTINCT, aggregation, UNNEST or their own LIMIT/OFFSET cannot.
+	 * 
+	 * @param model
+	 * @return
+	 */
+	public static boolean isSeekPaginationSupported(QuerySpecification model) {
+		ValidateArgument.required(model, "QuerySpecification");
+		TableExpression tableExpression = model.getTableExpression();
+		if (tableExpression.getOrderByClause() != null || tableExpression.getGroupByClause() != null
+				|| tableExpression.getPagination() != null) {
+			return false;
+		}
+		if (model.hasAnyAggregateElements()) {
+			return false;
+		}
+		// UNNEST returns multiple rows for a single ROW_ID
+		return model.getFirstElementOfType(ArrayFunctionSpecification.class) == null;
+	}
+
+	/**
+	 * Convert the given query to a seek paginated query. The rows are ordered by
+	 * ROW_ID and only the rows after the given ROW_ID are selected, so a page can
+	 * be read from the primary key without scanning the rows of the previous
+	 * pages. Any pagination of the given query is preserved.
+	 * 
+	 * @param model      The query before pagination was applied must be supported,
+	 *                   see: {@link #isSeekPaginationSupported(QuerySpecification)}
+	 * @param afterRowId The ROW_ID of the last row of the previous page. Null for
+	 *                   the first page.
+	 * @return
+	 * @throws ParseException
+	 */
+	public static QuerySpecification convertToSeekQuery(QuerySpecification model, Long afterRowId) throws ParseException {
+		ValidateArgument.required(model, "QuerySpecification");
+		TableExpression currentTableExpression = model.getTableExpression();
+		ValidateArgument.requirement(currentTableExpression.getOrderByClause() == null,
+				"A seek paginated query cannot include an ORDER BY");
+		WhereClause whereClause = currentTableExpression.getWhereClause();
+		if (afterRowId != null) {
+			whereClause = createCombinedWhereClause(whereClause, createSearchCondition(TableConstants.ROW_ID + " > " + afterRowId));
+		}
+		OrderByClause orderByClause = new OrderByClause(createSortSpecificationList(TableConstants.ROW_ID + " ASC"));
+		TableExpression tableExpression = new TableExpression(currentTableExpression.getFromClause(), whereClause,
+				currentTableExpression.getGroupByClause(), orderByClause, currentTableExpression.getPagination());
+		return new QuerySpecification(model.getSetQuantifier(), model.getSelectList(), tableExpression);
+	}
+
 	/**
 	 * Create SQL that can be used for a count query from the given query model.
 	 * 
@@ -791,4 +859,91 @@ public class SqlElementUntils {
 			}
 		}
 	}
+
+	/**
+	 * Create a WHERE clause that combines the original WHERE clause with the
+	 * given search condition: 'WHERE ( original ) AND ( searchCondition )'. This
+	 * is the element equivalent of
+	 * {@link #appendCombinedWhereClauseToStringBuilder(StringBuilder, String, WhereClause)},
+	 * the elements of the original clause are reused rather than written to SQL
+	 * and parsed again.
+	 * 
+	 * @param originalWhereClause The WHERE clause of the original query. Null if
+	 *                            it does not exist.
+	 * @param searchCondition     The search condition to combine. Null if none.
+	 * @return Null if there is neither an original clause nor a search condition.
+	 */
+	public static WhereClause createCombinedWhereClause(WhereClause originalWhereClause, SearchCondition searchCondition) {
+		if (searchCondition == null) {
+			return originalWhereClause;
+		}
+		if (originalWhereClause == null) {
+			return new WhereClause(searchCondition);
+		}
+		return createCombinedWhereClause(originalWhereClause, new BooleanPrimary(searchCondition));
+	}
+
+	/**
+	 * Create a WHERE clause that combines the original WHERE clause with the
+	 * given condition: 'WHERE ( original ) AND condition'. The elements of the
+	 * original clause are reused rather than written to SQL and parsed again.
+	 * 
+	 * @param originalWhereClause The WHERE clause of the original query. Null if
+	 *                            it does not exist.
+	 * @param condition
+	 * @return
+	 */
+	public static WhereClause createCombinedWhereClause(WhereClause originalWhereClause, BooleanPrimary condition) {
+		ValidateArgument.required(condition, "condition");
+		BooleanTerm booleanTerm = new BooleanTerm();
+		if (originalWhereClause != null) {
+			booleanTerm.addAndBooleanFactor(createBooleanFactor(new BooleanPrimary(originalWhereClause.getSearchCondition())));
+		}
+		booleanTerm.addAndBooleanFactor(createBooleanFactor(condition));
+		SearchCondition searchCondition = new SearchCondition();
+		searchCondition.addOrBooleanTerm(booleanTerm);
+		return new WhereClause(searchCondition);
+	}
+
+	private static BooleanFactor createBooleanFactor(BooleanPrimary booleanPrimary) {
+		return new BooleanFactor(null, new BooleanTest(booleanPrimary, null, null, null));
+	}
+
+	/**
+	 * Create the predicate: 'columnName IN ( value1, value2, ... )' from the given
+	 * values, without writing the predicate to SQL and parsing it. This is the
+	 * same predicate the parser would create for the SQL.
+	 * 
+	 * @param columnName A regular identifier such as
+	 *                   {@link TableConstants#ROW_BENEFACTOR}.
+	 * @param values
+	 * @return
+	 */
+	public static BooleanPrimary createInPredicate(String columnName, Collection<Long> values) {
+		ValidateArgument.required(columnName, "columnName");
+		ValidateArgument.requiredNotEmpty(values, "values");
+		ColumnReference columnReference = new ColumnReference(
+				new ColumnName(new Identifier(new ActualIdentifier(new RegularIdentifier(columnName)))), null);
+		InValueList inValueList = new InValueList();
+		for (Long value : values) {
+			inValueList.addValueExpression(createValueExpression(value));
+		}
+		return new BooleanPrimary(new Predicate(new InPredicate(columnReference, null, new InPredicateValue(inValueList))));
+	}
+
+	/**
+	 * Create the value expression of the given number, as the parser would.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static ValueExpression createValueExpression(Long value) {
+		ValidateArgument.required(value, "value");
+		// the parser reads a negative number as a sign followed by an unsigned number.
+		Sign sign = value < 0 ? Sign.MINUS : null;
+		ExactNumericLiteral literal = new ExactNumericLiteral(Math.abs(value));
+		NumericPrimary numericPrimary = new NumericPrimary(new ValueExpressionPrimary(
+				new UnsignedValueSpecification(new UnsignedLiteral(new UnsignedNumericLiteral(literal)))));
+		return new ValueExpression(new NumericValueExpression(new Term(new Factor(sign, numericPrimary))));
+	}
 }
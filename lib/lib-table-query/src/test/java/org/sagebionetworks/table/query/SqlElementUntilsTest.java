@@ -2,17 +2,29 @@ package org.sagebionetworks.table.query;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.common.collect.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sagebionetworks.repo.model.table.SortDirection;
 import org.sagebionetworks.repo.model.table.SortItem;
+import org.sagebionetworks.table.query.model.BooleanPrimary;
 import org.sagebionetworks.table.query.model.ComparisonPredicate;
 import org.sagebionetworks.table.query.model.DerivedColumn;
+import org.sagebionetworks.table.query.model.Element;
 import org.sagebionetworks.table.query.model.QuerySpecification;
+import org.sagebionetworks.table.query.model.SQLElement;
+import org.sagebionetworks.table.query.model.SearchCondition;
 import org.sagebionetworks.table.query.model.SortKey;
 import org.sagebionetworks.table.query.model.WhereClause;
 import org.sagebionetworks.table.query.util.SimpleAggregateQueryException;
@@ -225,6 +237,58 @@ public class SqlElementUntilsTest {
 		QuerySpecification converted = SqlElementUntils.overridePagination(model, offset, limit, maxRowsPerPage);
 		assertEquals("SELECT * FROM syn123 LIMIT 100 OFFSET 75", converted.toString());
 	}
+
+	@Test
+	public void testIsSeekPaginationSupported() throws ParseException{
+		assertTrue(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select * from syn123")));
+		assertTrue(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select foo, bar from syn123 where foo = 1")));
+	}
+
+	@Test
+	public void testIsSeekPaginationSupportedUnsupported() throws ParseException{
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select * from syn123 order by foo")));
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select foo from syn123 group by foo")));
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select distinct foo from syn123")));
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select count(*) from syn123")));
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select unnest(foo) from syn123")));
+		assertFalse(SqlElementUntils.isSeekPaginationSupported(TableQueryParser.parserQuery("select * from syn123 limit 10")));
+	}
+
+	@Test
+	public void testConvertToSeekQueryFirstPage() throws ParseException{
+		QuerySpecification model = TableQueryParser.parserQuery("select * from syn123 where foo = 1 limit 100 offset 10");
+		Long afterRowId = null;
+		// call under test
+		QuerySpecification converted = SqlElementUntils.convertToSeekQuery(model, afterRowId);
+		assertEquals("SELECT * FROM syn123 WHERE foo = 1 ORDER BY ROW_ID ASC LIMIT 100 OFFSET 10", converted.toString());
+	}
+
+	@Test
+	public void testConvertToSeekQueryNextPage() throws ParseException{
+		QuerySpecification model = TableQueryParser.parserQuery("select * from syn123 where foo = 1 or bar = 2 limit 100 offset 0");
+		Long afterRowId = 123L;
+		// call under test
+		QuerySpecification converted = SqlElementUntils.convertToSeekQuery(model, afterRowId);
+		assertEquals("SELECT * FROM syn123 WHERE ( foo = 1 OR bar = 2 ) AND ( ROW_ID > 123 ) ORDER BY ROW_ID ASC LIMIT 100 OFFSET 0", converted.toString());
+	}
+
+	@Test
+	public void testConvertToSeekQueryNextPageNoWhere() throws ParseException{
+		QuerySpecification model = TableQueryParser.parserQuery("select * from syn123 limit 100 offset 0");
+		Long afterRowId = 123L;
+		// call under test
+		QuerySpecification converted = SqlElementUntils.convertToSeekQuery(model, afterRowId);
+		assertEquals("SELECT * FROM syn123 WHERE ROW_ID > 123 ORDER BY ROW_ID ASC LIMIT 100 OFFSET 0", converted.toString());
+	}
+
+	@Test
+	public void testConvertToSeekQueryWithOrderBy() throws ParseException{
+		QuerySpecification model = TableQueryParser.parserQuery("select * from syn123 order by foo");
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			SqlElementUntils.convertToSeekQuery(model, 123L);
+		});
+	}
 	
 	@Test
 	public void testEntityIdRightHandSide() throws ParseException{
@@ -440,4 +504,73 @@ public class SqlElementUntilsTest {
 		assertEquals(" WHERE ("+ whereClause.getSearchCondition().toSql() + ") AND (" + searchConditionString + ")", stringBuilder.toString());
 	}
 
+	@Test
+	public void testCreateCombinedWhereClause() throws ParseException {
+		WhereClause whereClause = new TableQueryParser("where foo = 1 or bar = 2").whereClause();
+		// call under test
+		WhereClause combined = SqlElementUntils.createCombinedWhereClause(whereClause, SqlElementUntils.createSearchCondition("a > 1 and b < 2"));
+		assertEquals("WHERE ( foo = 1 OR bar = 2 ) AND ( a > 1 AND b < 2 )", combined.toSql());
+		// same as the parsed SQL
+		StringBuilder builder = new StringBuilder();
+		SqlElementUntils.appendCombinedWhereClauseToStringBuilder(builder, "a > 1 and b < 2", whereClause);
+		assertEquals(new TableQueryParser(builder.toString()).whereClause().toSql(), combined.toSql());
+	}
+
+	@Test
+	public void testCreateCombinedWhereClauseNoOriginal() throws ParseException {
+		// call under test
+		WhereClause combined = SqlElementUntils.createCombinedWhereClause(null, SqlElementUntils.createSearchCondition("a > 1 and b < 2"));
+		assertEquals("WHERE a > 1 AND b < 2", combined.toSql());
+	}
+
+	@Test
+	public void testCreateCombinedWhereClauseNoSearchCondition() throws ParseException {
+		WhereClause whereClause = new TableQueryParser("where foo = 1").whereClause();
+		SearchCondition searchCondition = null;
+		// call under test
+		assertSame(whereClause, SqlElementUntils.createCombinedWhereClause(whereClause, searchCondition));
+		assertNull(SqlElementUntils.createCombinedWhereClause(null, searchCondition));
+	}
+
+	@Test
+	public void testCreateCombinedWhereClauseWithPrimary() throws ParseException {
+		WhereClause whereClause = new TableQueryParser("where foo = 1 or bar = 2").whereClause();
+		// call under test
+		WhereClause combined = SqlElementUntils.createCombinedWhereClause(whereClause, SqlElementUntils.createBooleanPrimary("a > 1"));
+		assertEquals("WHERE ( foo = 1 OR bar = 2 ) AND a > 1", combined.toSql());
+		// call under test
+		combined = SqlElementUntils.createCombinedWhereClause(null, SqlElementUntils.createBooleanPrimary("a > 1"));
+		assertEquals("WHERE a > 1", combined.toSql());
+	}
+
+	@Test
+	public void testCreateInPredicate() throws ParseException {
+		List<Long> values = Lists.newArrayList(456L, 123L, -1L);
+		// call under test
+		BooleanPrimary predicate = SqlElementUntils.createInPredicate("ROW_BENEFACTOR", values);
+		assertEquals("ROW_BENEFACTOR IN ( 456, 123, -1 )", predicate.toSql());
+		// the elements must match the parsed elements
+		BooleanPrimary parsed = SqlElementUntils.createBooleanPrimary("ROW_BENEFACTOR IN (456, 123, -1)");
+		assertEquals(elementTypes(parsed), elementTypes(predicate));
+	}
+
+	@Test
+	public void testCreateInPredicateEmpty() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Collections.emptyList());
+		});
+	}
+
+	/**
+	 * The types of all of the elements of the given tree, in order.
+	 */
+	static List<String> elementTypes(SQLElement element) {
+		List<String> types = new ArrayList<>();
+		for (Element child : element.createAllElementsIterable()) {
+			types.add(child.getClass().getSimpleName());
+		}
+		return types;
+	}
+
 }
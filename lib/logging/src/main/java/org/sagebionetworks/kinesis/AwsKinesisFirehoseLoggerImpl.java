@@ -1,9 +1,8 @@
 package org.sagebionetworks.kinesis;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.ListUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.StackConfiguration;
@@ -13,6 +12,7 @@ import org.springframework.stereotype.Component;
 import com.amazonaws.services.kinesisfirehose.AmazonKinesisFirehose;
 import com.amazonaws.services.kinesisfirehose.model.AmazonKinesisFirehoseException;
 import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchRequest;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResponseEntry;
 import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResult;
 import com.amazonaws.services.kinesisfirehose.model.Record;
 
@@ -23,6 +23,13 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 
 	// Kinesis has a record limit of 500 for each batch
 	private static final int FIREHOSE_MAX_RECORD_LIMIT = 500;
+	// Kinesis has a limit of 4 MiB for each batch
+	static final long FIREHOSE_MAX_BATCH_BYTES = 4 * 1024 * 1024;
+	// Kinesis has a limit of 1000 KiB for each record
+	static final int FIREHOSE_MAX_RECORD_BYTES = 1000 * 1024;
+	// The number of times a record is sent before it is dropped
+	static final int MAX_ATTEMPTS = 3;
+	static final long DEFAULT_RETRY_BACKOFF_MS = 200;
 
 	private AmazonKinesisFirehose kinesisFirehoseClient;
 
@@ -30,6 +37,11 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 
 	private StackConfiguration stackConfiguration;
 
+	/**
+	 * The wait before the first retry, doubled for each retry after that.
+	 */
+	long retryBackoffMS = DEFAULT_RETRY_BACKOFF_MS;
+
 	@Autowired
 	public AwsKinesisFirehoseLoggerImpl(AmazonKinesisFirehose kinesisFirehoseClient, AwsKinesisLogRecordSerializer kinesisRecordSerializer, StackConfiguration stackConfiguration) {
 		this.kinesisFirehoseClient = kinesisFirehoseClient;
@@ -37,30 +49,95 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 		this.stackConfiguration = stackConfiguration;
 	}
 
+	/**
+	 * Records are sent in batches that are under both the record count and the
+	 * byte size limits of Firehose. Only the records that fail are sent again,
+	 * with a backoff between attempts.
+	 */
 	@Override
 	public void logBatch(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecordList) {
+		String streamName = kinesisStreamName(kinesisDataStreamSuffix);
+		List<Record> batch = new ArrayList<>();
+		long batchBytes = 0;
+		for (AwsKinesisLogRecord logRecord : logRecordList) {
+			Record record = updateWithStackInfoAndConvertToRecord(logRecord);
+			int recordBytes = record.getData().remaining();
+			if (recordBytes > FIREHOSE_MAX_RECORD_BYTES) {
+				LOG.error("Dropping a record of {} bytes that is over the size limit of stream {}", recordBytes, kinesisDataStreamSuffix);
+				continue;
+			}
+			if (batch.size() >= FIREHOSE_MAX_RECORD_LIMIT || batchBytes + recordBytes > FIREHOSE_MAX_BATCH_BYTES) {
+				sendBatch(streamName, batch);
+				batch = new ArrayList<>();
+				batchBytes = 0;
+			}
+			batch.add(record);
+			batchBytes += recordBytes;
+		}
+		if (!batch.isEmpty()) {
+			sendBatch(streamName, batch);
+		}
+	}
 
-		List<? extends List<? extends AwsKinesisLogRecord>> partitionedRecords = ListUtils.partition(logRecordList,
-				FIREHOSE_MAX_RECORD_LIMIT);
-
-		for (List<? extends AwsKinesisLogRecord> batch : partitionedRecords) {
-			PutRecordBatchRequest batchRequest = buildBatchRequest(kinesisDataStreamSuffix, batch);
+	/**
+	 * Send a single batch, retrying the records that fail.
+	 *
+	 * @param streamName
+	 * @param batch
+	 */
+	void sendBatch(String streamName, List<Record> batch) {
+		List<Record> toSend = batch;
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			if (attempt > 1) {
+				sleep(retryBackoffMS << (attempt - 2));
+			}
 			try {
-				PutRecordBatchResult result = kinesisFirehoseClient.putRecordBatch(batchRequest);
-				if (result.getFailedPutCount() > 0) {
-					LOG.warn("Could not send {} records to stream {}", result.getFailedPutCount(), kinesisDataStreamSuffix);
+				PutRecordBatchResult result = kinesisFirehoseClient
+						.putRecordBatch(new PutRecordBatchRequest().withDeliveryStreamName(streamName).withRecords(toSend));
+				toSend = getFailedRecords(toSend, result);
+				if (toSend.isEmpty()) {
+					return;
 				}
+				LOG.warn("Could not send {} records to stream {} on attempt {}", toSend.size(), streamName, attempt);
 			} catch (AmazonKinesisFirehoseException e) {
-				LOG.error(e.getMessage(), e);
+				LOG.warn("Could not send {} records to stream {} on attempt {}: {}", toSend.size(), streamName, attempt, e.getMessage());
 			}
 		}
+		LOG.error("Dropping {} records that could not be sent to stream {} after {} attempts", toSend.size(), streamName, MAX_ATTEMPTS);
 	}
 
-	private PutRecordBatchRequest buildBatchRequest(String kinesisDataStreamSuffix,
-			List<? extends AwsKinesisLogRecord> batch) {
-		return new PutRecordBatchRequest()
-				.withDeliveryStreamName(kinesisStreamName(kinesisDataStreamSuffix))
-				.withRecords(batch.stream().map(this::updateWithStackInfoAndConvertToRecord).collect(Collectors.toList()));
+	/**
+	 * Get the records that failed from the given result. The response entries are
+	 * in the same order as the records that were sent.
+	 *
+	 * @param sent
+	 * @param result
+	 * @return
+	 */
+	static List<Record> getFailedRecords(List<Record> sent, PutRecordBatchResult result) {
+		Integer failedCount = result.getFailedPutCount();
+		if (failedCount == null || failedCount < 1) {
+			return new ArrayList<>();
+		}
+		List<Record> failed = new ArrayList<>(failedCount);
+		List<PutRecordBatchResponseEntry> responses = result.getRequestResponses();
+		for (int i = 0; i < sent.size(); i++) {
+			if (responses == null || i >= responses.size() || responses.get(i).getErrorCode() != null) {
+				failed.add(sent.get(i));
+			}
+		}
+		return failed;
+	}
+
+	private static void sleep(long millis) {
+		if (millis < 1) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	private String kinesisStreamName(String kinesisDataStreamSuffix) {
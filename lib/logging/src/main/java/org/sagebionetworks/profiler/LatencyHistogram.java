@@ -0,0 +1,159 @@
+package org.sagebionetworks.profiler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the style of an HDR
+ * histogram. Values are recorded in microseconds. Each power of two is split in
+ * 8 buckets, so any value read from the histogram is within 12.5% of the
+ * recorded value. Values over 2^41 microseconds (about 25 days) are counted in
+ * the last bucket.
+ * <p>
+ * Recording a value is a single atomic increment, so this class can be shared
+ * by all of the threads calling a method.
+ *
+ */
+public class LatencyHistogram {
+
+	static final int SUB_BUCKET_BITS = 3;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	static final int MAX_EXPONENT = 40;
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets;
+
+	public LatencyHistogram() {
+		this.buckets = new AtomicLongArray(BUCKET_COUNT);
+	}
+
+	/**
+	 * Record a single duration.
+	 *
+	 * @param durationNanos
+	 */
+	public void record(long durationNanos) {
+		buckets.incrementAndGet(getBucketIndex(durationNanos / 1000L));
+	}
+
+	/**
+	 * Take a snapshot of the values recorded since the last snapshot, and reset
+	 * the histogram. Values recorded while the snapshot is taken are counted in
+	 * either this snapshot or the next one.
+	 *
+	 * @return
+	 */
+	public Snapshot snapshotAndReset() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.getAndSet(i, 0L);
+		}
+		return new Snapshot(counts);
+	}
+
+	/**
+	 * The index of the bucket for the given value.
+	 *
+	 * @param valueMicros
+	 * @return
+	 */
+	static int getBucketIndex(long valueMicros) {
+		if (valueMicros < SUB_BUCKET_COUNT) {
+			return (int) Math.max(valueMicros, 0L);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(valueMicros);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (valueMicros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * The highest value counted in the bucket with the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	static long getHighestValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowest = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * The counts of a histogram at a point in time.
+	 *
+	 */
+	public static class Snapshot {
+
+		private final long[] counts;
+		private final long totalCount;
+
+		Snapshot(long[] counts) {
+			this.counts = counts;
+			long total = 0L;
+			for (long count : counts) {
+				total += count;
+			}
+			this.totalCount = total;
+		}
+
+		/**
+		 * @return The number of values in this snapshot.
+		 */
+		public long getCount() {
+			return totalCount;
+		}
+
+		/**
+		 * The value in microseconds under which the given percentage of the values
+		 * fall.
+		 *
+		 * @param percentile Between 0 and 100.
+		 * @return Zero if the snapshot is empty.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (totalCount < 1) {
+				return 0L;
+			}
+			long target = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+			long cumulative = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+				if (cumulative >= target) {
+					return getHighestValue(i);
+				}
+			}
+			return getMaxValue();
+		}
+
+		/**
+		 * @return An upper bound of the sum of the values in microseconds.
+		 */
+		public long getTotalValue() {
+			long total = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					total += counts[i] * getHighestValue(i);
+				}
+			}
+			return total;
+		}
+
+		/**
+		 * @return The highest value in microseconds, or zero if the snapshot is
+		 *         empty.
+		 */
+		public long getMaxValue() {
+			for (int i = counts.length - 1; i >= 0; i--) {
+				if (counts[i] > 0) {
+					return getHighestValue(i);
+				}
+			}
+			return 0L;
+		}
+	}
+}
@@ -4,7 +4,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * This profiler logs data to the log.
+ * This profiler logs data to the log. Profiles that were requested with
+ * {@link ProfilerFrameStackManager#setCaptureRequested(boolean)} are logged
+ * like slow calls.
  * 
  * @author jmhill
  * 
@@ -26,7 +28,7 @@ public class LoggingProfiler implements ProfileHandler {
 
 	@Override
 	public void fireProfile(Frame data) {
-		if (data.getTotalTimeMilis() < elapseTimeThresholdMilis) {
+		if (data.getTotalTimeMilis() < elapseTimeThresholdMilis && !ProfilerFrameStackManager.isCaptureRequested()) {
 			if (log.isTraceEnabled())
 				log.trace(data.toString());
 		} else {
@@ -0,0 +1,237 @@
+package org.sagebionetworks.profiler;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Always-on, low-overhead profiling of the controller, manager and DAO methods.
+ * A random sample of the calls is timed and recorded in a
+ * {@link LatencyHistogram} for each method and for each layer (controller,
+ * manager or DAO). When the timer fires, the latency percentiles of each layer
+ * and of the methods that took the most time are pushed to cloud watch, and
+ * the histograms are reset.
+ * <p>
+ * Unlike the frame stack of {@link ProfilerFrameStackManager}, a call that is
+ * not sampled costs a single random number. This class is thread safe.
+ *
+ */
+public class MethodLatencyRecorder {
+
+	public static final String DIMENSION_METHOD = "method";
+	public static final String DIMENSION_LAYER = "layer";
+	public static final String METRIC_SAMPLES = "samples";
+	public static final String METRIC_P50 = "p50";
+	public static final String METRIC_P90 = "p90";
+	public static final String METRIC_P99 = "p99";
+	public static final String METRIC_MAX = "max";
+
+	public static final String LAYER_CONTROLLER = "Controller";
+	public static final String LAYER_MANAGER = "Manager";
+	public static final String LAYER_DAO = "DAO";
+
+	/**
+	 * New methods are not tracked once this number of methods are tracked.
+	 */
+	public static final int MAX_TRACKED_METHODS = 5_000;
+
+	/**
+	 * Only the methods of the classes with these name suffixes are recorded.
+	 */
+	private static final Pattern PROFILED_CLASS_NAME = Pattern.compile(".*(Controller|Manager|ManagerImpl|DAO|DAOImpl|Dao|DaoImpl)");
+	/**
+	 * The layer of the classes that are not recorded.
+	 */
+	private static final String NOT_PROFILED = "";
+
+	@Autowired
+	Consumer consumer;
+	@Autowired
+	StackConfiguration stackConfig;
+
+	private final String nameSpacePrefix;
+	private final int sampleRate;
+	private final int maxPublishedMethods;
+	private final Map<Class<?>, String> classLayers;
+	private final Map<String, LatencyHistogram> layerHistograms;
+	private final Map<String, LatencyHistogram> histograms;
+
+	/**
+	 *
+	 * @param nameSpacePrefix
+	 * @param sampleRate          One call in this number of calls is recorded.
+	 * @param maxPublishedMethods Only this number of methods, the ones with the
+	 *                            most sampled time, are pushed each time the
+	 *                            timer fires.
+	 */
+	public MethodLatencyRecorder(String nameSpacePrefix, int sampleRate, int maxPublishedMethods) {
+		if (nameSpacePrefix == null) {
+			throw new IllegalArgumentException("NamespacePrefix cannot be null");
+		}
+		if (sampleRate < 1) {
+			throw new IllegalArgumentException("SampleRate must be at least one");
+		}
+		if (maxPublishedMethods < 0) {
+			throw new IllegalArgumentException("MaxPublishedMethods cannot be negative");
+		}
+		this.nameSpacePrefix = nameSpacePrefix;
+		this.sampleRate = sampleRate;
+		this.maxPublishedMethods = maxPublishedMethods;
+		this.classLayers = new ConcurrentHashMap<>();
+		this.layerHistograms = new ConcurrentHashMap<>();
+		this.histograms = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Should the current call be timed?
+	 *
+	 * @return
+	 */
+	public boolean shouldSample() {
+		return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+	}
+
+	/**
+	 * Record the duration of a sampled call. Calls to classes that are not a
+	 * controller, manager or DAO are ignored.
+	 *
+	 * @param targetClass
+	 * @param methodName
+	 * @param durationNanos
+	 */
+	public void record(Class<?> targetClass, String methodName, long durationNanos) {
+		String layer = classLayers.computeIfAbsent(targetClass, MethodLatencyRecorder::getLayer);
+		if (NOT_PROFILED.equals(layer)) {
+			return;
+		}
+		layerHistograms.computeIfAbsent(layer, (key) -> new LatencyHistogram()).record(durationNanos);
+		String name = targetClass.getSimpleName() + "." + methodName;
+		LatencyHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			if (histograms.size() >= MAX_TRACKED_METHODS) {
+				return;
+			}
+			histogram = histograms.computeIfAbsent(name, (key) -> new LatencyHistogram());
+		}
+		histogram.record(durationNanos);
+	}
+
+	/**
+	 * The layer of the given class.
+	 *
+	 * @param type
+	 * @return {@link #NOT_PROFILED} if the class is not a controller, manager or
+	 *         DAO.
+	 */
+	static String getLayer(Class<?> type) {
+		Matcher matcher = PROFILED_CLASS_NAME.matcher(type.getSimpleName());
+		if (!matcher.matches()) {
+			return NOT_PROFILED;
+		}
+		String suffix = matcher.group(1);
+		if (suffix.startsWith(LAYER_CONTROLLER)) {
+			return LAYER_CONTROLLER;
+		}
+		if (suffix.startsWith(LAYER_MANAGER)) {
+			return LAYER_MANAGER;
+		}
+		return LAYER_DAO;
+	}
+
+	/**
+	 * Call from a timer to push the latency of each layer, and of the methods
+	 * with the most sampled time since the last timer, to cloud watch.
+	 */
+	public void onTimerFired() {
+		Date now = new Date();
+		List<ProfileData> metrics = new ArrayList<>();
+		for (Map.Entry<String, LatencyHistogram> entry : layerHistograms.entrySet()) {
+			LatencyHistogram.Snapshot snapshot = entry.getValue().snapshotAndReset();
+			if (snapshot.getCount() > 0) {
+				metrics.addAll(createMetrics(DIMENSION_LAYER, entry.getKey(), snapshot, now));
+			}
+		}
+		List<Map.Entry<String, LatencyHistogram.Snapshot>> methods = new ArrayList<>();
+		for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+			LatencyHistogram.Snapshot snapshot = entry.getValue().snapshotAndReset();
+			if (snapshot.getCount() > 0) {
+				methods.add(new SimpleEntry<>(entry.getKey(), snapshot));
+			}
+		}
+		// The methods that took the most time first.
+		methods.sort(Comparator.comparingLong(
+				(Map.Entry<String, LatencyHistogram.Snapshot> entry) -> entry.getValue().getTotalValue()).reversed());
+		for (Map.Entry<String, LatencyHistogram.Snapshot> entry : methods.subList(0, Math.min(maxPublishedMethods, methods.size()))) {
+			metrics.addAll(createMetrics(DIMENSION_METHOD, entry.getKey(), entry.getValue(), now));
+		}
+		if (!metrics.isEmpty()) {
+			consumer.addProfileData(metrics);
+		}
+	}
+
+	/**
+	 * Create the metrics of a single layer or method.
+	 *
+	 * @param dimension Either {@link #DIMENSION_LAYER} or {@link #DIMENSION_METHOD}.
+	 * @param name
+	 * @param snapshot
+	 * @param timestamp
+	 * @return
+	 */
+	List<ProfileData> createMetrics(String dimension, String name, LatencyHistogram.Snapshot snapshot, Date timestamp) {
+		Map<String, String> dimensions = Collections.singletonMap(dimension, name);
+		List<ProfileData> metrics = new ArrayList<>(5);
+		metrics.add(createMetric(dimensions, METRIC_SAMPLES, snapshot.getCount(), StandardUnit.Count, timestamp));
+		metrics.add(createLatencyMetric(dimensions, METRIC_P50, snapshot.getValueAtPercentile(50.0), timestamp));
+		metrics.add(createLatencyMetric(dimensions, METRIC_P90, snapshot.getValueAtPercentile(90.0), timestamp));
+		metrics.add(createLatencyMetric(dimensions, METRIC_P99, snapshot.getValueAtPercentile(99.0), timestamp));
+		metrics.add(createLatencyMetric(dimensions, METRIC_MAX, snapshot.getMaxValue(), timestamp));
+		return metrics;
+	}
+
+	private ProfileData createLatencyMetric(Map<String, String> dimensions, String metricName, long valueMicros, Date timestamp) {
+		return createMetric(dimensions, metricName, valueMicros / 1000.0, StandardUnit.Milliseconds, timestamp);
+	}
+
+	private ProfileData createMetric(Map<String, String> dimensions, String metricName, double value, StandardUnit unit, Date timestamp) {
+		ProfileData pd = new ProfileData();
+		pd.setNamespace(getNamespace());
+		pd.setName(metricName);
+		pd.setValue(value);
+		pd.setUnit(unit.name());
+		pd.setTimestamp(timestamp);
+		pd.setDimension(dimensions);
+		return pd;
+	}
+
+	/**
+	 * The metric name space.
+	 *
+	 * @return
+	 */
+	public String getNamespace() {
+		return nameSpacePrefix + "-Method-Latency-" + stackConfig.getStackInstance();
+	}
+
+	/**
+	 * @return The number of methods currently tracked.
+	 */
+	public int getTrackedMethodCount() {
+		return histograms.size();
+	}
+}
@@ -7,7 +7,10 @@ import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
- * This is a Profiler that logs the results.
+ * This is a Profiler that logs the results. The full frame stack is only
+ * captured when the {@link ProfilerFrameStackManager} asks for it, otherwise a
+ * sample of the calls is timed by the {@link MethodLatencyRecorder} if there is
+ * one, and the time of the outermost call is passed to the frame stack manager.
  * 
  * @author jmhill
  * 
@@ -17,14 +20,28 @@ public class Profiler {
 	@Autowired
 	private ProfilerFrameStackManager frameStackManager;
 
+	@Autowired(required = false)
+	private MethodLatencyRecorder latencyRecorder;
+
 	// execution(* org.sagebionetworks..*.*(..)) means profile any bean in the
 	// package org.sagebionetworks or any sub-packages
 	@Around("execution(* org.sagebionetworks..*.*(..)) && !within(org.sagebionetworks.profiler.*)")
 	public Object doBasicProfiling(ProceedingJoinPoint pjp) throws Throwable {
 		// Do nothing if logging is not on
 		if (!frameStackManager.shouldCaptureData()) {
-			// Just proceed if logging is off.
-			return pjp.proceed();
+			boolean sampled = latencyRecorder != null && latencyRecorder.shouldSample();
+			long startTime = System.nanoTime();
+			frameStackManager.startUncapturedCall();
+			try {
+				return pjp.proceed();
+			} finally {
+				long elapsedNanos = System.nanoTime() - startTime;
+				frameStackManager.endUncapturedCall(pjp.getTarget().getClass(), pjp.getSignature().getName(),
+						elapsedNanos / 1000000);
+				if (sampled) {
+					latencyRecorder.record(pjp.getTarget().getClass(), pjp.getSignature().getName(), elapsedNanos);
+				}
+			}
 		}
 
 		Signature signature = pjp.getSignature();
@@ -6,9 +6,15 @@ import java.util.Stack;
 public class ProfilerFrameStackManager {
 	// Each thread gets its own stack.
 	private static ThreadLocal<Stack<Frame>> threadFrameStack = ThreadLocal.withInitial(Stack::new);
+	// Set for the threads of the requests that asked to be profiled.
+	private static final ThreadLocal<Boolean> captureRequested = new ThreadLocal<>();
+	// Depth of the calls that are not captured on each thread.
+	private static final ThreadLocal<int[]> uncapturedCallDepth = ThreadLocal.withInitial(() -> new int[1]);
 
 	private List<ProfileHandler> handlers = null;
 
+	private boolean captureOnlyWhenRequested = false;
+
 
 	public List<ProfileHandler> getHandlers() {
 		return handlers;
@@ -23,6 +29,38 @@ public class ProfilerFrameStackManager {
 		this.handlers = handlers;
 	}
 
+	/**
+	 * When true, the frame stack is only captured on the threads where
+	 * {@link #setCaptureRequested(boolean)} was called. Injected via Spring.
+	 *
+	 * @param captureOnlyWhenRequested
+	 */
+	public void setCaptureOnlyWhenRequested(boolean captureOnlyWhenRequested) {
+		this.captureOnlyWhenRequested = captureOnlyWhenRequested;
+	}
+
+	/**
+	 * Request (or stop) the capture of the full frame stack on the current
+	 * thread.
+	 *
+	 * @param requested
+	 */
+	public static void setCaptureRequested(boolean requested) {
+		if (requested) {
+			captureRequested.set(Boolean.TRUE);
+		} else {
+			captureRequested.remove();
+		}
+	}
+
+	/**
+	 * @return True if the capture of the full frame stack was requested on the
+	 *         current thread.
+	 */
+	public static boolean isCaptureRequested() {
+		return captureRequested.get() != null;
+	}
+
 	public void startProfiling(String methodName){
 		Stack<Frame> parentFramesStack = threadFrameStack.get();
 
@@ -50,6 +88,38 @@ public class ProfilerFrameStackManager {
 		}
 	}
 
+	/**
+	 * Called before a call that is not captured. See
+	 * {@link #endUncapturedCall(Class, String, long)}.
+	 */
+	public void startUncapturedCall() {
+		if (captureOnlyWhenRequested) {
+			uncapturedCallDepth.get()[0]++;
+		}
+	}
+
+	/**
+	 * Called after a call that is not captured. When only the requested calls
+	 * are captured, the outermost call of each thread is still passed to the
+	 * handlers as a single frame, so that slow calls are still logged.
+	 * 
+	 * @param declaring
+	 * @param methodName
+	 * @param elapsedTimeMillis
+	 */
+	public void endUncapturedCall(Class<?> declaring, String methodName, long elapsedTimeMillis) {
+		if (!captureOnlyWhenRequested) {
+			return;
+		}
+		int[] depth = uncapturedCallDepth.get();
+		depth[0]--;
+		if (depth[0] == 0) {
+			Frame frame = new Frame(declaring.getName() + "." + methodName);
+			frame.addElapsedTime(elapsedTimeMillis);
+			doFireProfile(frame);
+		}
+	}
+
 	/**
 	 * Should we even profile.
 	 *
@@ -59,6 +129,9 @@ public class ProfilerFrameStackManager {
 		if (handlers == null) {
 			return false;
 		}
+		if (captureOnlyWhenRequested && !isCaptureRequested()) {
+			return false;
+		}
 		for (ProfileHandler handler : this.handlers) {
 			if (handler.shouldCaptureProfile()) {
 				return true;
@@ -1,6 +1,9 @@
 package org.sagebionetworks.kinesis;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -22,8 +25,10 @@ import org.sagebionetworks.StackConfiguration;
 
 import com.amazonaws.services.kinesisfirehose.AmazonKinesisFirehoseClient;
 import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchRequest;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResponseEntry;
 import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResult;
 import com.amazonaws.services.kinesisfirehose.model.Record;
+import com.amazonaws.services.kinesisfirehose.model.ServiceUnavailableException;
 import com.google.common.collect.Lists;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,6 +69,7 @@ class AwsKinesisFirehoseLoggerImplTest {
 		when(mockRecord2.withStack(stack)).thenReturn(mockRecord2);
 		when(mockStackConfig.getStackInstance()).thenReturn(instance);
 		when(mockKinesisFirehoseClient.putRecordBatch(any())).thenReturn(mockRecordResult);
+		kinesisFirehoseLogger.retryBackoffMS = 0L;
 	}
 
 
@@ -126,4 +132,121 @@ class AwsKinesisFirehoseLoggerImplTest {
 
 		verifyNoMoreInteractions(mockKinesisFirehoseClient);
 	}
+
+	@Test
+	public void testPartitioningByBytes(){
+		// only four of these records fit under the byte limit of a single batch.
+		ByteBuffer mockRecord1Bytes = ByteBuffer.wrap(new byte[900 * 1024]);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(mockRecord1Bytes);
+
+		//method under test
+		kinesisFirehoseLogger.logBatch(kinesisStreamSuffix, Collections.nCopies(5, mockRecord1));
+
+		verify(mockKinesisFirehoseClient).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Collections.nCopies(4,
+								new Record().withData(mockRecord1Bytes)))
+		);
+		verify(mockKinesisFirehoseClient).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Collections.nCopies(1,
+								new Record().withData(mockRecord1Bytes)))
+		);
+		verifyNoMoreInteractions(mockKinesisFirehoseClient);
+	}
+
+	@Test
+	public void testRecordOverSizeLimit(){
+		ByteBuffer mockRecord1Bytes = ByteBuffer.wrap(new byte[AwsKinesisFirehoseLoggerImpl.FIREHOSE_MAX_RECORD_BYTES + 1]);
+		ByteBuffer mockRecord2Bytes = ByteBuffer.wrap(new byte[2]);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(mockRecord1Bytes);
+		when(mockRecordSerializer.toBytes(mockRecord2)).thenReturn(mockRecord2Bytes);
+
+		//method under test
+		kinesisFirehoseLogger.logBatch(kinesisStreamSuffix, Lists.newArrayList(mockRecord1, mockRecord2));
+
+		// the record that is too large is dropped.
+		verify(mockKinesisFirehoseClient).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Arrays.asList(new Record().withData(mockRecord2Bytes)))
+		);
+		verifyNoMoreInteractions(mockKinesisFirehoseClient);
+	}
+
+	@Test
+	public void testRetryFailedRecords(){
+		ByteBuffer mockRecord1Bytes = ByteBuffer.wrap(new byte[1]);
+		ByteBuffer mockRecord2Bytes = ByteBuffer.wrap(new byte[2]);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(mockRecord1Bytes);
+		when(mockRecordSerializer.toBytes(mockRecord2)).thenReturn(mockRecord2Bytes);
+		// the second record is throttled on the first attempt.
+		PutRecordBatchResult partialFailure = new PutRecordBatchResult().withFailedPutCount(1).withRequestResponses(
+				new PutRecordBatchResponseEntry().withRecordId("one"),
+				new PutRecordBatchResponseEntry().withErrorCode("ServiceUnavailableException"));
+		when(mockKinesisFirehoseClient.putRecordBatch(any())).thenReturn(partialFailure, mockRecordResult);
+
+		//method under test
+		kinesisFirehoseLogger.logBatch(kinesisStreamSuffix, Lists.newArrayList(mockRecord1, mockRecord2));
+
+		verify(mockKinesisFirehoseClient).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Arrays.asList(
+								new Record().withData(mockRecord1Bytes),
+								new Record().withData(mockRecord2Bytes)))
+		);
+		// only the failed record is sent again.
+		verify(mockKinesisFirehoseClient).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Arrays.asList(new Record().withData(mockRecord2Bytes)))
+		);
+		verifyNoMoreInteractions(mockKinesisFirehoseClient);
+	}
+
+	@Test
+	public void testRetryOnException(){
+		ByteBuffer mockRecord1Bytes = ByteBuffer.wrap(new byte[1]);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(mockRecord1Bytes);
+		when(mockKinesisFirehoseClient.putRecordBatch(any())).thenThrow(new ServiceUnavailableException("slow down"))
+				.thenReturn(mockRecordResult);
+
+		//method under test
+		kinesisFirehoseLogger.logBatch(kinesisStreamSuffix, Lists.newArrayList(mockRecord1));
+
+		verify(mockKinesisFirehoseClient, times(2)).putRecordBatch(
+				new PutRecordBatchRequest()
+						.withDeliveryStreamName("devtestmyKinesisStream")
+						.withRecords(Arrays.asList(new Record().withData(mockRecord1Bytes)))
+		);
+		verifyNoMoreInteractions(mockKinesisFirehoseClient);
+	}
+
+	@Test
+	public void testRetryGivesUp(){
+		ByteBuffer mockRecord1Bytes = ByteBuffer.wrap(new byte[1]);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(mockRecord1Bytes);
+		when(mockKinesisFirehoseClient.putRecordBatch(any())).thenThrow(new ServiceUnavailableException("slow down"));
+
+		//method under test
+		kinesisFirehoseLogger.logBatch(kinesisStreamSuffix, Lists.newArrayList(mockRecord1));
+
+		verify(mockKinesisFirehoseClient, times(AwsKinesisFirehoseLoggerImpl.MAX_ATTEMPTS)).putRecordBatch(any());
+	}
+
+	@Test
+	public void testGetFailedRecords(){
+		List<Record> sent = Lists.newArrayList(new Record().withData(ByteBuffer.wrap(new byte[1])),
+				new Record().withData(ByteBuffer.wrap(new byte[2])));
+		PutRecordBatchResult result = new PutRecordBatchResult().withFailedPutCount(1).withRequestResponses(
+				new PutRecordBatchResponseEntry().withErrorCode("InternalFailure"),
+				new PutRecordBatchResponseEntry().withRecordId("two"));
+		// call under test
+		assertEquals(Arrays.asList(sent.get(0)), AwsKinesisFirehoseLoggerImpl.getFailedRecords(sent, result));
+		// call under test
+		assertTrue(AwsKinesisFirehoseLoggerImpl.getFailedRecords(sent, new PutRecordBatchResult().withFailedPutCount(0)).isEmpty());
+	}
 }
\ No newline at end of file
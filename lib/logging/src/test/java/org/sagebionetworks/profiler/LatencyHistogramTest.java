@@ -0,0 +1,81 @@
+package org.sagebionetworks.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	LatencyHistogram histogram;
+
+	@Before
+	public void before() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testBucketIndexContiguous() {
+		int lastIndex = -1;
+		for (long value = 0; value < 100_000; value++) {
+			int index = LatencyHistogram.getBucketIndex(value);
+			// each value is in the same bucket as the previous value or the next bucket
+			assertTrue(index == lastIndex || index == lastIndex + 1);
+			assertTrue(value <= LatencyHistogram.getHighestValue(index));
+			lastIndex = index;
+		}
+	}
+
+	@Test
+	public void testBucketPrecision() {
+		for (long value = 1; value < Long.MAX_VALUE / 4; value = value * 3 + 1) {
+			if (value >= 1L << (LatencyHistogram.MAX_EXPONENT + 1)) {
+				break;
+			}
+			long highest = LatencyHistogram.getHighestValue(LatencyHistogram.getBucketIndex(value));
+			// within 12.5%
+			assertTrue(highest >= value);
+			assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+		}
+	}
+
+	@Test
+	public void testBucketIndexOverMax() {
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex((1L << (LatencyHistogram.MAX_EXPONENT + 1)) - 1));
+	}
+
+	@Test
+	public void testBucketIndexNegative() {
+		assertEquals(0, LatencyHistogram.getBucketIndex(-5L));
+	}
+
+	@Test
+	public void testSnapshotAndReset() {
+		// 1 to 100 ms
+		for (long ms = 1; ms <= 100; ms++) {
+			histogram.record(ms * 1_000_000L);
+		}
+		// call under test
+		LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+		assertEquals(100L, snapshot.getCount());
+		assertWithinPrecision(50_000L, snapshot.getValueAtPercentile(50.0));
+		assertWithinPrecision(90_000L, snapshot.getValueAtPercentile(90.0));
+		assertWithinPrecision(99_000L, snapshot.getValueAtPercentile(99.0));
+		assertWithinPrecision(100_000L, snapshot.getMaxValue());
+		assertWithinPrecision(1_000L, snapshot.getValueAtPercentile(0.0));
+		// the sum of 1 to 100 ms
+		assertWithinPrecision(5_050_000L, snapshot.getTotalValue());
+		// the histogram is reset
+		LatencyHistogram.Snapshot next = histogram.snapshotAndReset();
+		assertEquals(0L, next.getCount());
+		assertEquals(0L, next.getValueAtPercentile(50.0));
+		assertEquals(0L, next.getMaxValue());
+		assertEquals(0L, next.getTotalValue());
+	}
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKET_COUNT);
+	}
+}
@@ -0,0 +1,169 @@
+package org.sagebionetworks.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+
+import com.google.common.collect.Sets;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MethodLatencyRecorderTest {
+
+	@Mock
+	Consumer mockConsumer;
+	@Mock
+	StackConfiguration mockStackConfig;
+	@Captor
+	ArgumentCaptor<List<ProfileData>> metricsCaptor;
+
+	MethodLatencyRecorder recorder;
+
+	static class FakeManagerImpl {
+	}
+
+	static class FakeHelper {
+	}
+
+	static class FakeController {
+	}
+
+	static class FakeDaoImpl {
+	}
+
+	@Before
+	public void before() {
+		recorder = new MethodLatencyRecorder("Repository", 1, 10);
+		recorder.consumer = mockConsumer;
+		recorder.stackConfig = mockStackConfig;
+	}
+
+	@Test
+	public void testShouldSampleRateOne() {
+		for (int i = 0; i < 10; i++) {
+			assertTrue(recorder.shouldSample());
+		}
+	}
+
+	@Test
+	public void testRecordAndPush() {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		recorder.record(FakeManagerImpl.class, "doIt", 2_000_000L);
+		recorder.record(FakeManagerImpl.class, "doIt", 4_000_000L);
+		// not a controller, manager or DAO
+		recorder.record(FakeHelper.class, "help", 1_000_000L);
+		assertEquals(1, recorder.getTrackedMethodCount());
+		// call under test
+		recorder.onTimerFired();
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		List<ProfileData> metrics = metricsCaptor.getValue();
+		// the manager layer followed by the method
+		assertEquals(10, metrics.size());
+		for (ProfileData pd : metrics) {
+			assertEquals("Repository-Method-Latency-123", pd.getNamespace());
+		}
+		for (ProfileData pd : metrics.subList(0, 5)) {
+			assertEquals(Collections.singletonMap(MethodLatencyRecorder.DIMENSION_LAYER, MethodLatencyRecorder.LAYER_MANAGER), pd.getDimension());
+		}
+		List<ProfileData> methodMetrics = metrics.subList(5, 10);
+		for (ProfileData pd : methodMetrics) {
+			assertEquals(Collections.singletonMap(MethodLatencyRecorder.DIMENSION_METHOD, "FakeManagerImpl.doIt"), pd.getDimension());
+		}
+		assertEquals(MethodLatencyRecorder.METRIC_SAMPLES, methodMetrics.get(0).getName());
+		assertEquals(new Double(2), methodMetrics.get(0).getValue());
+		assertEquals(MethodLatencyRecorder.METRIC_P50, methodMetrics.get(1).getName());
+		assertTrue(methodMetrics.get(1).getValue() >= 2.0 && methodMetrics.get(1).getValue() < 2.5);
+		assertEquals(MethodLatencyRecorder.METRIC_MAX, methodMetrics.get(4).getName());
+		assertTrue(methodMetrics.get(4).getValue() >= 4.0 && methodMetrics.get(4).getValue() < 4.5);
+	}
+
+	@Test
+	public void testPushOnlyTopMethods() {
+		recorder = new MethodLatencyRecorder("Repository", 1, 1);
+		recorder.consumer = mockConsumer;
+		recorder.stackConfig = mockStackConfig;
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		recorder.record(FakeManagerImpl.class, "fast", 1_000_000L);
+		recorder.record(FakeManagerImpl.class, "fast", 1_000_000L);
+		recorder.record(FakeManagerImpl.class, "slow", 50_000_000L);
+		recorder.record(FakeController.class, "get", 60_000_000L);
+		recorder.record(FakeDaoImpl.class, "query", 40_000_000L);
+		// call under test
+		recorder.onTimerFired();
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		List<ProfileData> metrics = metricsCaptor.getValue();
+		// three layers and a single method
+		assertEquals(20, metrics.size());
+		Set<String> layers = new HashSet<>();
+		Set<String> methods = new HashSet<>();
+		for (ProfileData pd : metrics) {
+			if (pd.getDimension().containsKey(MethodLatencyRecorder.DIMENSION_LAYER)) {
+				layers.add(pd.getDimension().get(MethodLatencyRecorder.DIMENSION_LAYER));
+			} else {
+				methods.add(pd.getDimension().get(MethodLatencyRecorder.DIMENSION_METHOD));
+			}
+		}
+		assertEquals(Sets.newHashSet(MethodLatencyRecorder.LAYER_CONTROLLER, MethodLatencyRecorder.LAYER_MANAGER,
+				MethodLatencyRecorder.LAYER_DAO), layers);
+		assertEquals(Collections.singleton("FakeController.get"), methods);
+	}
+
+	@Test
+	public void testGetLayer() {
+		assertEquals(MethodLatencyRecorder.LAYER_CONTROLLER, MethodLatencyRecorder.getLayer(FakeController.class));
+		assertEquals(MethodLatencyRecorder.LAYER_MANAGER, MethodLatencyRecorder.getLayer(FakeManagerImpl.class));
+		assertEquals(MethodLatencyRecorder.LAYER_DAO, MethodLatencyRecorder.getLayer(FakeDaoImpl.class));
+		assertEquals("", MethodLatencyRecorder.getLayer(FakeHelper.class));
+	}
+
+	@Test
+	public void testPushNothingRecorded() {
+		// call under test
+		recorder.onTimerFired();
+		verify(mockConsumer, never()).addProfileData(anyList());
+	}
+
+	@Test
+	public void testPushResets() {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		recorder.record(FakeManagerImpl.class, "doIt", 2_000_000L);
+		recorder.onTimerFired();
+		// call under test
+		recorder.onTimerFired();
+		// only the first timer pushed metrics
+		verify(mockConsumer).addProfileData(anyList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSampleRate() {
+		new MethodLatencyRecorder("Repository", 0, 10);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeMaxPublishedMethods() {
+		new MethodLatencyRecorder("Repository", 1, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullPrefix() {
+		new MethodLatencyRecorder(null, 1, 10);
+	}
+}
@@ -23,6 +23,7 @@ import java.util.Stack;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -92,6 +93,33 @@ public class ProfilerFrameStackManagerTest {
 		verify(mockProfileHandler2).shouldCaptureProfile();
 	}
 
+	@Test
+	public void testShouldCaptureData_captureOnlyWhenRequested_notRequested(){
+		spyProfilerFrameStackManager.setHandlers(profileHandlers);
+		spyProfilerFrameStackManager.setCaptureOnlyWhenRequested(true);
+
+		assertFalse(spyProfilerFrameStackManager.shouldCaptureData());
+
+		verify(mockProfileHandler1, never()).shouldCaptureProfile();
+		verify(mockProfileHandler2, never()).shouldCaptureProfile();
+	}
+
+	@Test
+	public void testShouldCaptureData_captureOnlyWhenRequested_requested(){
+		spyProfilerFrameStackManager.setHandlers(profileHandlers);
+		spyProfilerFrameStackManager.setCaptureOnlyWhenRequested(true);
+		ProfilerFrameStackManager.setCaptureRequested(true);
+		try {
+			assertTrue(spyProfilerFrameStackManager.shouldCaptureData());
+		} finally {
+			ProfilerFrameStackManager.setCaptureRequested(false);
+		}
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+
+		verify(mockProfileHandler1).shouldCaptureProfile();
+		verify(mockProfileHandler2).shouldCaptureProfile();
+	}
+
 	@Test
 	public void testDoFireProfile_nullHandlers(){
 		spyProfilerFrameStackManager.setHandlers(null);
@@ -241,5 +269,34 @@ public class ProfilerFrameStackManagerTest {
 		verifyNoMoreInteractions(mockProfileHandler2);
 	}
 
+	@Test
+	public void testEndUncapturedCall_captureOnlyWhenRequested(){
+		spyProfilerFrameStackManager.setCaptureOnlyWhenRequested(true);
+		doNothing().when(spyProfilerFrameStackManager).doFireProfile(any(Frame.class));
+
+		spyProfilerFrameStackManager.startUncapturedCall();
+		spyProfilerFrameStackManager.startUncapturedCall();
+		spyProfilerFrameStackManager.endUncapturedCall(String.class, "inner", 1L);
+		// only the outermost call is fired
+		verify(spyProfilerFrameStackManager, never()).doFireProfile(any(Frame.class));
+		spyProfilerFrameStackManager.endUncapturedCall(Object.class, "outer", elapsedTime);
+
+		ArgumentCaptor<Frame> frameCaptor = ArgumentCaptor.forClass(Frame.class);
+		verify(spyProfilerFrameStackManager).doFireProfile(frameCaptor.capture());
+		assertEquals("java.lang.Object.outer", frameCaptor.getValue().getName());
+		assertEquals(elapsedTime, frameCaptor.getValue().getTotalTimeMilis());
+	}
+
+	@Test
+	public void testEndUncapturedCall_captureAll(){
+		spyProfilerFrameStackManager.setCaptureOnlyWhenRequested(false);
+
+		spyProfilerFrameStackManager.startUncapturedCall();
+		spyProfilerFrameStackManager.endUncapturedCall(Object.class, "outer", elapsedTime);
+
+		// the calls are already captured by the frame stack.
+		verify(spyProfilerFrameStackManager, never()).doFireProfile(any(Frame.class));
+	}
+
 
 }
@@ -1,9 +1,14 @@
 package org.sagebionetworks.profiler;
 
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -27,8 +32,13 @@ public class ProfilerTest {
 	@Mock
 	ProfilerFrameStackManager mockProfilerFrameStackManager;
 
+	@Mock
+	MethodLatencyRecorder mockLatencyRecorder;
+
 	Profiler spyProfiler;
 
+	String signatureName = "fakename()";
+
 	@Before
 	public void setUp(){
 		Profiler profiler = new Profiler();
@@ -37,19 +47,77 @@ public class ProfilerTest {
 		spyProfiler = spy(profiler);
 	}
 
+	/**
+	 * Setup the target and signature of the join point.
+	 */
+	void setupJoinPoint() {
+		Signature mockSignature = mock(Signature.class);
+		when(mockSignature.getName()).thenReturn(signatureName);
+		when(mockProceedingJoinPoint.getTarget()).thenReturn(new Object());
+		when(mockProceedingJoinPoint.getSignature()).thenReturn(mockSignature);
+	}
+
 	@Test
 	public void testDoBasicProfiling_shouldNotCaptureData() throws Throwable{
 		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		setupJoinPoint();
 
 		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
 
 		verify(mockProfilerFrameStackManager).shouldCaptureData();
+		verify(mockProfilerFrameStackManager).startUncapturedCall();
 		verify(mockProceedingJoinPoint).proceed();
+		verify(mockProfilerFrameStackManager).endUncapturedCall(eq(Object.class), eq(signatureName), anyLong());
 
-		verifyNoMoreInteractions(mockProceedingJoinPoint);
 		verifyNoMoreInteractions(mockProfilerFrameStackManager);
 	}
 
+	@Test
+	public void testDoBasicProfiling_sampled() throws Throwable{
+		ReflectionTestUtils.setField(spyProfiler, "latencyRecorder", mockLatencyRecorder);
+		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		when(mockLatencyRecorder.shouldSample()).thenReturn(true);
+		setupJoinPoint();
+
+		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+
+		verify(mockProceedingJoinPoint).proceed();
+		verify(mockLatencyRecorder).record(eq(Object.class), eq(signatureName), anyLong());
+		verify(mockProfilerFrameStackManager).endUncapturedCall(eq(Object.class), eq(signatureName), anyLong());
+		verify(mockProfilerFrameStackManager, never()).startProfiling(anyString());
+	}
+
+	@Test
+	public void testDoBasicProfiling_notSampled() throws Throwable{
+		ReflectionTestUtils.setField(spyProfiler, "latencyRecorder", mockLatencyRecorder);
+		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		when(mockLatencyRecorder.shouldSample()).thenReturn(false);
+		setupJoinPoint();
+
+		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+
+		verify(mockProceedingJoinPoint).proceed();
+		verify(mockLatencyRecorder, never()).record(any(), anyString(), anyLong());
+		verify(mockProfilerFrameStackManager).endUncapturedCall(eq(Object.class), eq(signatureName), anyLong());
+	}
+
+	@Test
+	public void testDoBasicProfiling_shouldNotCaptureDataException() throws Throwable{
+		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		setupJoinPoint();
+		IllegalStateException error = new IllegalStateException("failed");
+		when(mockProceedingJoinPoint.proceed()).thenThrow(error);
+
+		try {
+			spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+			fail();
+		} catch (IllegalStateException e) {
+			assertSame(error, e);
+		}
+		// the call still ends
+		verify(mockProfilerFrameStackManager).endUncapturedCall(eq(Object.class), eq(signatureName), anyLong());
+	}
+
 	@Test
 	public void testDoBasicProfiling_shouldCaptureData() throws Throwable{
 		doReturn(true).when(mockProfilerFrameStackManager).shouldCaptureData();
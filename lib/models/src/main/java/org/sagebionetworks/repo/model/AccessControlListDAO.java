@@ -1,6 +1,7 @@
 package org.sagebionetworks.repo.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
@@ -112,6 +113,18 @@ public interface AccessControlListDAO  {
 	 */
 	int delete(List<Long> ids, ObjectType ownerType) throws DatastoreException;
 
+	/**
+	 * Get all of the access types that any of the given principals are granted on
+	 * each of the given resources, with a single query.
+	 * 
+	 * @param groups
+	 * @param resourceIds
+	 * @param resourceType
+	 * @return Map of resource ID to the access types granted on that resource.
+	 *         Resources that grant nothing to the principals are not included.
+	 */
+	public Map<Long, Set<ACCESS_TYPE>> getAccessTypes(Set<Long> groups, Set<Long> resourceIds, ObjectType resourceType);
+
 	/**
 	 * Given a set of benefactors, and benefactors, return the sub-set of benefactors the that any given principal can see.
 	 * @param groups
@@ -35,6 +35,16 @@ public interface AsynchronousJobStatusDAO {
 	 */
 	public AsynchronousJobStatus getJobStatus(String jobId) throws DatastoreException, NotFoundException;
 	
+	/**
+	 * Get the current etag of a job without reading its request and response
+	 * bodies. The etag changes each time the status of the job changes.
+	 * 
+	 * @param jobId
+	 * @return
+	 * @throws NotFoundException
+	 */
+	public String getJobEtag(String jobId) throws NotFoundException;
+	
 	/**
 	 * Update the progress of a job.
 	 * @param jobId
@@ -3,6 +3,7 @@ package org.sagebionetworks.repo.model.dao.table;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.sagebionetworks.repo.model.table.ColumnChange;
 import org.sagebionetworks.repo.model.table.ColumnModel;
@@ -137,6 +138,50 @@ public interface TableRowTruthDAO {
 	 * @return
 	 */
 	public List<TableRowChange> listRowSetsKeysForTableGreaterThanVersion(String tableId, long version);
+	
+	/**
+	 * Find the given rows that were changed by a version greater than the given
+	 * version (exclusive) according to the row version index. Only the versions
+	 * included in the index are considered, see
+	 * {@link #listRowSetsKeysNotInRowVersionIndex(String, long)}.
+	 * 
+	 * @param tableId
+	 * @param rowIds
+	 * @param version
+	 * @return
+	 */
+	public Set<Long> getRowIdsChangedAfterVersion(String tableId, Set<Long> rowIds, long version);
+	
+	/**
+	 * List the row changes for a table with a version number greater than the
+	 * given value (exclusive) that are not included in the row version index.
+	 * 
+	 * @param tableId
+	 * @param version
+	 * @return
+	 */
+	public List<TableRowChange> listRowSetsKeysNotInRowVersionIndex(String tableId, long version);
+	
+	/**
+	 * Start maintaining the row version index of the given table, beginning with
+	 * the given version. Only tables that receive row updates need the index, so
+	 * tables that are only appended to never pay for it. Does nothing if the
+	 * index was already started.
+	 * 
+	 * @param tableId
+	 * @param versionNumber The first version to include in the index.
+	 */
+	public void startRowVersionIndex(String tableId, long versionNumber);
+	
+	/**
+	 * Delete the row version index of the given tables. The index is removed
+	 * with the table's sequence by cascade, but migration deletes and restores
+	 * the sequence with foreign key checks disabled, so a restored table must
+	 * have its index deleted explicitly.
+	 * 
+	 * @param tableIds
+	 */
+	public void deleteRowVersionIndex(List<Long> tableIds);
 
 	/**
 	 * Get the TableRowChange for a given tableId and row version number.
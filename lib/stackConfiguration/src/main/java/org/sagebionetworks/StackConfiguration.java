@@ -536,6 +536,14 @@ public interface StackConfiguration {
 	 */
 	public long getTableReadTimeoutMS();
 
+	/**
+	 * The minimum amount of time in MS between two activity signals sent by a
+	 * single machine for the same view.
+	 * 
+	 * @return
+	 */
+	public long getViewActivitySignalWindowMS();
+
 	public Integer getMaxConcurrentRepoConnections();
 
 	/**
@@ -627,6 +635,13 @@ public interface StackConfiguration {
 	 */
 	public boolean getDeliverEmail();
 
+	/**
+	 * The maximum number of broadcast emails sent per second by a single machine.
+	 * 
+	 * @return
+	 */
+	public double getBroadcastEmailMaxPerSecond();
+
 	/*
 	 * Credentials used by CloudMailIn to send authenticated requests to the repo
 	 * services.
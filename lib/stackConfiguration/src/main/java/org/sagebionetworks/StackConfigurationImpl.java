@@ -835,6 +835,16 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.read.timeout.ms"));
 	}
 
+	/**
+	 * The minimum amount of time in MS between two activity signals sent by a
+	 * single machine for the same view.
+	 * 
+	 * @return
+	 */
+	public long getViewActivitySignalWindowMS() {
+		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.view.activity.signal.window.ms"));
+	}
+
 	public Integer getMaxConcurrentRepoConnections() {
 		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.max.concurrent.repo.connections"));
 	}
@@ -952,6 +962,15 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Boolean.parseBoolean(emailDeliveredString);
 	}
 
+	/**
+	 * The maximum number of broadcast emails sent per second by a single machine.
+	 * 
+	 * @return
+	 */
+	public double getBroadcastEmailMaxPerSecond() {
+		return Double.parseDouble(configuration.getProperty("org.sagebionetworks.broadcast.email.max.per.second"));
+	}
+
 	/*
 	 * Credentials used by CloudMailIn to send authenticated requests to the repo
 	 * services.
@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager;
 
+import java.util.List;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
@@ -97,6 +98,18 @@ public interface EntityPermissionsManager {
 	 */
 	public UserEntityPermissions getUserPermissionsForEntity(UserInfo userInfo,	String entityId) throws NotFoundException, DatastoreException;
 
+	/**
+	 * Get the user permissions for a batch of entities. The ACLs of all of the
+	 * benefactors are read with a single query.
+	 * 
+	 * @param userInfo
+	 * @param entityIds
+	 * @return The permissions of each entity, in the same order as the given IDs.
+	 * @throws DatastoreException
+	 * @throws NotFoundException
+	 */
+	public List<UserEntityPermissions> getUserPermissionsForEntities(UserInfo userInfo, List<String> entityIds) throws NotFoundException, DatastoreException;
+
 	/**
 	 * Check whether or not a given resource/entity has a local ACL. Such
 	 * resources/entities are self-benefactors.
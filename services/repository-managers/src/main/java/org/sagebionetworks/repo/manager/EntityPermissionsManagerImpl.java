@@ -10,8 +10,12 @@ import static org.sagebionetworks.repo.model.ACCESS_TYPE.READ;
 import static org.sagebionetworks.repo.model.ACCESS_TYPE.UPDATE;
 import static org.sagebionetworks.repo.model.ACCESS_TYPE.UPLOAD;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -369,31 +373,88 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@Override
 	public UserEntityPermissions getUserPermissionsForEntity(UserInfo userInfo,	String entityId)
 			throws NotFoundException, DatastoreException {
+		return getUserPermissionsForEntities(userInfo, Collections.singletonList(entityId)).get(0);
+	}
 
-		Node node = nodeDao.getNode(entityId);
-		
-		String benefactor = nodeDao.getBenefactor(entityId);
+	@Override
+	public List<UserEntityPermissions> getUserPermissionsForEntities(UserInfo userInfo, List<String> entityIds)
+			throws NotFoundException, DatastoreException {
+		ValidateArgument.required(userInfo, "userInfo");
+		ValidateArgument.required(entityIds, "entityIds");
+
+		List<Node> nodes = new ArrayList<>(entityIds.size());
+		List<Long> benefactorIds = new ArrayList<>(entityIds.size());
+		for (String entityId : entityIds) {
+			nodes.add(nodeDao.getNode(entityId));
+			Long benefactorId = KeyFactory.stringToKey(nodeDao.getBenefactor(entityId));
+			// Changing the permissions of an entity in the trash is never allowed.
+			if (TRASH_FOLDER_ID.equals(benefactorId)) {
+				throw new EntityInTrashCanException("Entity " + entityId + " is in trash can.");
+			}
+			benefactorIds.add(benefactorId);
+		}
+
+		// The ACL of each benefactor is read once for the user and once for the public.
+		Set<Long> distinctBenefactorIds = new HashSet<>(benefactorIds);
+		Map<Long, Set<ACCESS_TYPE>> userAccessTypes = userInfo.isAdmin() ? Collections.emptyMap()
+				: aclDAO.getAccessTypes(userInfo.getGroups(), distinctBenefactorIds, ObjectType.ENTITY);
+		UserInfo anonymousUser = UserInfoHelper.createAnonymousUserInfo();
+		Map<Long, Set<ACCESS_TYPE>> publicAccessTypes = anonymousUser.getGroups().equals(userInfo.getGroups()) ? userAccessTypes
+				: aclDAO.getAccessTypes(anonymousUser.getGroups(), distinctBenefactorIds, ObjectType.ENTITY);
+		boolean acceptedTermsOfUse = userInfo.isAdmin() || agreesToTermsOfUse(userInfo);
+
+		List<UserEntityPermissions> results = new ArrayList<>(entityIds.size());
+		for (int i = 0; i < entityIds.size(); i++) {
+			Long benefactorId = benefactorIds.get(i);
+			results.add(evaluatePermissions(userInfo, entityIds.get(i), nodes.get(i),
+					userAccessTypes.getOrDefault(benefactorId, Collections.emptySet()),
+					publicAccessTypes.getOrDefault(benefactorId, Collections.emptySet()), acceptedTermsOfUse));
+		}
+		return results;
+	}
+
+	/**
+	 * Answers every permission of the given entity in memory from the access
+	 * types granted by its benefactor's ACL. The rules match those applied by
+	 * {@link #hasAccess(String, ACCESS_TYPE, UserInfo)}.
+	 * 
+	 * @param userInfo
+	 * @param entityId
+	 * @param node
+	 * @param userAccessTypes    The access types the benefactor's ACL grants to the user.
+	 * @param publicAccessTypes  The access types the benefactor's ACL grants to anonymous.
+	 * @param acceptedTermsOfUse
+	 * @return
+	 */
+	private UserEntityPermissions evaluatePermissions(UserInfo userInfo, String entityId, Node node,
+			Set<ACCESS_TYPE> userAccessTypes, Set<ACCESS_TYPE> publicAccessTypes, boolean acceptedTermsOfUse) {
+		boolean isCertificationRequired = isCertificationRequired(userInfo, entityId);
+		Boolean featureIsDisabled = configuration.getDisableCertifiedUser();
+		boolean certifiedUserOrFeatureDisabled = featureIsDisabled == null || featureIsDisabled
+				|| AuthorizationUtils.isCertifiedUser(userInfo) || !isCertificationRequired;
+		// Only CREATE and UPDATE of non-projects require certification.
+		boolean certificationMissing = !userInfo.isAdmin() && !certifiedUserOrFeatureDisabled;
 
 		UserEntityPermissions permissions = new UserEntityPermissions();
-		permissions.setCanAddChild(hasAccess(entityId, CREATE, userInfo).isAuthorized());
-		permissions.setCanCertifiedUserAddChild(certifiedUserHasAccess(entityId, node.getNodeType(), CREATE, userInfo).isAuthorized());
-		permissions.setCanChangePermissions(hasAccess(entityId, CHANGE_PERMISSIONS, userInfo).isAuthorized());
-		permissions.setCanChangeSettings(hasAccess(entityId, CHANGE_SETTINGS, userInfo).isAuthorized());
-		permissions.setCanDelete(hasAccess(entityId, DELETE, userInfo).isAuthorized());
-		permissions.setCanEdit(hasAccess(entityId, UPDATE, userInfo).isAuthorized());
-		permissions.setCanCertifiedUserEdit(certifiedUserHasAccess(entityId, node.getNodeType(), UPDATE, userInfo).isAuthorized());
-		permissions.setCanView(hasAccess(entityId, READ, userInfo).isAuthorized());
-		permissions.setCanDownload(canDownload(userInfo, entityId, benefactor, node.getNodeType()).isAuthorized());
-		permissions.setCanUpload(canUpload(userInfo, entityId).isAuthorized());
-		permissions.setCanModerate(hasAccess(entityId, MODERATE, userInfo).isAuthorized());
-		permissions.setIsCertificationRequired(isCertificationRequired(userInfo, entityId));
+		permissions.setCanAddChild(!certificationMissing && certifiedUserHasAccess(userInfo, userAccessTypes, CREATE));
+		permissions.setCanCertifiedUserAddChild(certifiedUserHasAccess(userInfo, userAccessTypes, CREATE));
+		permissions.setCanChangePermissions(certifiedUserHasAccess(userInfo, userAccessTypes, CHANGE_PERMISSIONS));
+		permissions.setCanChangeSettings(certifiedUserHasAccess(userInfo, userAccessTypes, CHANGE_SETTINGS));
+		permissions.setCanDelete(certifiedUserHasAccess(userInfo, userAccessTypes, DELETE));
+		permissions.setCanEdit((!certificationMissing || EntityType.project == node.getNodeType())
+				&& certifiedUserHasAccess(userInfo, userAccessTypes, UPDATE));
+		permissions.setCanCertifiedUserEdit(certifiedUserHasAccess(userInfo, userAccessTypes, UPDATE));
+		permissions.setCanView(certifiedUserHasAccess(userInfo, userAccessTypes, READ));
+		permissions.setCanDownload(canDownload(userInfo, entityId, userAccessTypes, acceptedTermsOfUse));
+		permissions.setCanUpload(userInfo.isAdmin() || acceptedTermsOfUse);
+		permissions.setCanModerate(certifiedUserHasAccess(userInfo, userAccessTypes, MODERATE));
+		permissions.setIsCertificationRequired(isCertificationRequired);
 
 		permissions.setOwnerPrincipalId(node.getCreatedByPrincipalId());
 		
 		permissions.setIsCertifiedUser(AuthorizationUtils.isCertifiedUser(userInfo));
 
-		UserInfo anonymousUser = UserInfoHelper.createAnonymousUserInfo();
-		permissions.setCanPublicRead(hasAccess(entityId, READ, anonymousUser).isAuthorized());
+		permissions.setCanPublicRead(publicAccessTypes.contains(READ));
 
 		final boolean parentIsRoot = nodeDao.isNodesParentRoot(entityId);
 		if (userInfo.isAdmin()) {
@@ -406,6 +467,41 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 		return permissions;
 	}
 
+	/**
+	 * In memory version of
+	 * {@link #certifiedUserHasAccess(String, EntityType, ACCESS_TYPE, UserInfo)}
+	 * for any access type other than DOWNLOAD and UPLOAD.
+	 */
+	private static boolean certifiedUserHasAccess(UserInfo userInfo, Set<ACCESS_TYPE> grantedAccessTypes, ACCESS_TYPE accessType) {
+		// Anonymous can at most READ
+		if (AuthorizationUtils.isUserAnonymous(userInfo) && accessType != READ && accessType != DOWNLOAD) {
+			return false;
+		}
+		if (userInfo.isAdmin()) {
+			return true;
+		}
+		return grantedAccessTypes.contains(accessType);
+	}
+
+	/**
+	 * In memory version of
+	 * {@link #canDownload(UserInfo, String, String, EntityType)}.
+	 */
+	private boolean canDownload(UserInfo userInfo, String entityId, Set<ACCESS_TYPE> grantedAccessTypes, boolean acceptedTermsOfUse) {
+		if (userInfo.isAdmin()) {
+			return true;
+		}
+		if (!AuthorizationUtils.isUserAnonymous(userInfo) && !acceptedTermsOfUse) {
+			return false;
+		}
+		// See PLFM-6059
+		ACCESS_TYPE accessTypeCheck = DataType.OPEN_DATA == objectTypeManager.getObjectsDataType(entityId, ObjectType.ENTITY) ? READ : DOWNLOAD;
+		if (!grantedAccessTypes.contains(accessTypeCheck)) {
+			return false;
+		}
+		return meetsAccessRequirements(userInfo, entityId).isAuthorized();
+	}
+
 	@Override
 	public boolean hasLocalACL(String resourceId) {
 		try {
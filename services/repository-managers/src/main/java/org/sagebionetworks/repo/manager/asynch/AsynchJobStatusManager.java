@@ -39,6 +39,23 @@ public interface AsynchJobStatusManager {
 	 */
 	public AsynchronousJobStatus getJobStatus(UserInfo user, String jobId) throws DatastoreException, NotFoundException;
 	
+	/**
+	 * Wait for the status of a job to change. Returns as soon as the etag of the
+	 * job no longer matches the given etag or the job is no longer processing, or
+	 * with the current status once the wait is over. The current status is also
+	 * returned right away when too many callers are already waiting.
+	 * 
+	 * @param user
+	 * @param jobId
+	 * @param etag      The etag of the last status seen by the caller.
+	 * @param maxWaitMS The maximum amount of time to wait, capped on the server.
+	 * @return
+	 * @throws DatastoreException
+	 * @throws NotFoundException
+	 */
+	public AsynchronousJobStatus waitForJobStatusChange(UserInfo user, String jobId, String etag, long maxWaitMS)
+			throws DatastoreException, NotFoundException;
+	
 	/**
 	 * Lookup an job status using only the ID.
 	 * This method is for server-side calls only.  For user requests use {@link #getJobStatus(UserInfo, String)}
@@ -5,6 +5,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,9 +35,12 @@ import org.sagebionetworks.repo.model.status.StatusEnum;
 import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	
@@ -50,6 +56,23 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	
 	
 	private static final String JOB_ABORTED_MESSAGE = "Job aborted because the stack was not in: "+StatusEnum.READ_WRITE;
+	
+	/**
+	 * A cached etag is used without reading it again for this amount of time.
+	 */
+	public static final long ETAG_CACHE_FRESH_MS = 1000L;
+	public static final int ETAG_CACHE_MAX_SIZE = 10_000;
+	public static final long ETAG_CACHE_EXPIRE_MINUTES = 1L;
+	/**
+	 * The maximum amount of time a caller can wait for the status of a job to change.
+	 */
+	public static final long MAX_WAIT_MS = 30_000L;
+	public static final long WAIT_POLL_INTERVAL_MS = 500L;
+	/**
+	 * Each waiting caller holds a request thread, so only this many callers can
+	 * wait at a time. Other callers get the current status right away.
+	 */
+	public static final int MAX_CONCURRENT_WAITERS = 50;
 
 	@Autowired
 	AsynchronousJobStatusDAO asynchJobStatusDao;
@@ -67,7 +90,34 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	StackConfiguration stackConfig;
 	@Autowired
 	Consumer cloudeWatch;
+	@Autowired
+	Clock clock;
 	String metricNamespace;
+	
+	/**
+	 * The etag of each job that callers are waiting on, so that all of the
+	 * callers waiting on a job share the reads of its etag. Only the etag is
+	 * cached, the full status is read from the database once it changes.
+	 */
+	private final Cache<String, CachedJobEtag> etagCache = CacheBuilder.newBuilder()
+			.maximumSize(ETAG_CACHE_MAX_SIZE).expireAfterWrite(ETAG_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+	
+	final Semaphore waiters = new Semaphore(MAX_CONCURRENT_WAITERS);
+	
+	/**
+	 * An etag along with the time it was read.
+	 */
+	private static class CachedJobEtag {
+		
+		private final String etag;
+		private final long checkedOnMS;
+		
+		CachedJobEtag(String etag, long checkedOnMS) {
+			this.etag = etag;
+			this.checkedOnMS = checkedOnMS;
+		}
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager#lookupJobStatus(java.lang.String)
@@ -99,6 +149,55 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 		}
 		return status;
 	}
+	
+	@Override
+	public AsynchronousJobStatus waitForJobStatusChange(UserInfo userInfo, String jobId, String etag, long maxWaitMS)
+			throws DatastoreException, NotFoundException {
+		if(maxWaitMS < 0) throw new IllegalArgumentException("MaxWaitMS cannot be negative");
+		AsynchronousJobStatus status = getJobStatus(userInfo, jobId);
+		// Every change to a job, including its completion, changes its etag.
+		if(!AsynchJobState.PROCESSING.equals(status.getJobState()) || !Objects.equals(etag, status.getEtag())) {
+			return status;
+		}
+		if(!waiters.tryAcquire()) {
+			// The caller will try again.
+			return status;
+		}
+		try {
+			long waitMS = Math.min(maxWaitMS, MAX_WAIT_MS);
+			long start = clock.currentTimeMillis();
+			while(true) {
+				long remainingMS = waitMS - (clock.currentTimeMillis() - start);
+				if(remainingMS <= 0) {
+					return status;
+				}
+				clock.sleepNoInterrupt(Math.min(remainingMS, WAIT_POLL_INTERVAL_MS));
+				if(!Objects.equals(etag, getCachedJobEtag(jobId))) {
+					return getJobStatus(userInfo, jobId);
+				}
+			}
+		} finally {
+			waiters.release();
+		}
+	}
+	
+	/**
+	 * Get the etag of a job, reading it from the database at most once per
+	 * {@link #ETAG_CACHE_FRESH_MS}.
+	 * 
+	 * @param jobId
+	 * @return
+	 */
+	String getCachedJobEtag(String jobId) {
+		long now = clock.currentTimeMillis();
+		CachedJobEtag cached = etagCache.getIfPresent(jobId);
+		if(cached != null && now - cached.checkedOnMS < ETAG_CACHE_FRESH_MS) {
+			return cached.etag;
+		}
+		String etag = asynchJobStatusDao.getJobEtag(jobId);
+		etagCache.put(jobId, new CachedJobEtag(etag, now));
+		return etag;
+	}
 
 	@Override
 	public void cancelJob(UserInfo userInfo, String jobId) throws DatastoreException, NotFoundException {
@@ -111,6 +210,7 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 			throw new UnauthorizedException("Only the user that created a job can stop the job.");
 		}
 		asynchJobStatusDao.setJobCanceling(jobId);
+		etagCache.invalidate(jobId);
 	}
 
 	@Override
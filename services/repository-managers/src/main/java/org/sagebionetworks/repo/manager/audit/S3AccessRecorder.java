@@ -1,39 +1,100 @@
 package org.sagebionetworks.repo.manager.audit;
 
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.audit.AccessRecord;
 import org.sagebionetworks.repo.model.audit.AccessRecorder;
+import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
 /**
  * This implementation writes the records to S3
- * 
+ *
  * @author jmhill
- * 
+ *
  */
 public class S3AccessRecorder implements AccessRecorder {
 
 	static private Log log = LogFactory.getLog(S3AccessRecorder.class);
 
+	/**
+	 * The maximum number of records waiting to be written. Records saved while
+	 * the queue is full are dropped.
+	 */
+	public static final int MAX_QUEUED_RECORDS = 100_000;
+	/**
+	 * The maximum number of records written to a single file.
+	 */
+	public static final int MAX_BATCH_SIZE = 25_000;
+	/**
+	 * The maximum number of batches written each time the timer fires, so a
+	 * single timer cannot keep writing while records keep arriving. This is enough
+	 * to write a full queue.
+	 */
+	public static final int MAX_BATCHES_PER_TIMER = MAX_QUEUED_RECORDS / MAX_BATCH_SIZE;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Access-Records-";
+	public static final String METRIC_QUEUE_DEPTH = "Queued access records";
+	public static final String METRIC_DROPPED = "Dropped access records";
+
 	/**
 	 * At any given time, there are multiple threads creating new AccessRecords
 	 * as new web services request come in. These AccessRecords are added to
 	 * this batch from the threads where they originated. The batch is then
-	 * processed from a separate timer thread.
+	 * processed from a separate timer thread. The queue is bounded so a slow
+	 * S3 cannot cause it to use all of the memory.
 	 */
-	private ConcurrentLinkedQueue<AccessRecord> recordBatch = new ConcurrentLinkedQueue<AccessRecord>();
-	
+	private final BlockingQueue<AccessRecord> recordBatch;
+	private final int maxBatchSize;
+	private final int maxBatchesPerTimer;
+	private final AtomicLong droppedCount;
+
 	@Autowired
 	AccessRecordManager accessRecordManager;
 
+	@Autowired
+	Consumer cloudWatch;
+
+	@Autowired
+	StackConfiguration stackConfig;
+
 	boolean shouldAccessRecordsBePushedToS3 = true;
 
+	public S3AccessRecorder() {
+		this(MAX_QUEUED_RECORDS, MAX_BATCH_SIZE, MAX_BATCHES_PER_TIMER);
+	}
+
+	/**
+	 *
+	 * @param maxQueuedRecords   The maximum number of records waiting to be
+	 *                           written.
+	 * @param maxBatchSize       The maximum number of records written to a single
+	 *                           file.
+	 * @param maxBatchesPerTimer The maximum number of batches written each time
+	 *                           the timer fires.
+	 */
+	S3AccessRecorder(int maxQueuedRecords, int maxBatchSize, int maxBatchesPerTimer) {
+		ValidateArgument.requirement(maxQueuedRecords > 0, "maxQueuedRecords must be greater than zero");
+		ValidateArgument.requirement(maxBatchSize > 0, "maxBatchSize must be greater than zero");
+		ValidateArgument.requirement(maxBatchesPerTimer > 0, "maxBatchesPerTimer must be greater than zero");
+		this.recordBatch = new ArrayBlockingQueue<AccessRecord>(maxQueuedRecords);
+		this.maxBatchSize = maxBatchSize;
+		this.maxBatchesPerTimer = maxBatchesPerTimer;
+		this.droppedCount = new AtomicLong(0L);
+	}
 
 	/**
 	 * This allows us to turn off pushing access data to S3 during build and test.
@@ -46,53 +107,96 @@ public class S3AccessRecorder implements AccessRecorder {
 	}
 
 	/**
-	 * New AccessRecords will come in from 
+	 * New AccessRecords will come in from the web service request threads. This
+	 * call never blocks the request. When the queue is full the record is dropped
+	 * and counted.
 	 */
 	@Override
 	public void save(AccessRecord record) {
 		// add the messages to the queue;
-		recordBatch.add(record);
+		if (!recordBatch.offer(record)) {
+			droppedCount.incrementAndGet();
+		}
 	}
 
 	/**
-	 * When the timer fires we send the messages to S3.
-	 * @throws IOException 
-	 * 
+	 * When the timer fires we send the messages to S3. The queue is written in
+	 * batches of at most maxBatchSize records, and at most maxBatchesPerTimer
+	 * batches are written. Any remaining records are written by the next timer.
+	 *
+	 * @return The key of the last batch written, or null if nothing was written.
+	 * @throws IOException
+	 *
 	 */
 	public String timerFired() throws IOException {
-		// Poll all data currently on the queue.
-		List<AccessRecord> currentBatch = pollListFromQueue();
-		// There is nothing to do if the batch is empty.
-		if(currentBatch.isEmpty()) return null;
-		// Check to see if the data should be sent to S3
-		if(!shouldAccessRecordsBePushedToS3){
-			if(log.isDebugEnabled() && currentBatch.size() > 0){
-				log.debug("S3AccessRecorder.shouldAccessMessagesBePushedToS3 = false.  So "+currentBatch.size()+" AccessRecords will be thrown away.");
+		pushMetrics(recordBatch.size(), droppedCount.getAndSet(0L));
+		String lastKey = null;
+		for (int batchCount = 0; batchCount < maxBatchesPerTimer; batchCount++) {
+			List<AccessRecord> currentBatch = pollListFromQueue();
+			if (currentBatch.isEmpty()) {
+				break;
+			}
+			// Check to see if the data should be sent to S3
+			if(!shouldAccessRecordsBePushedToS3){
+				if(log.isDebugEnabled()){
+					log.debug("S3AccessRecorder.shouldAccessMessagesBePushedToS3 = false.  So "+currentBatch.size()+" AccessRecords will be thrown away.");
+				}
+				continue;
+			}
+			try{
+				// We are now free to process the current batch with out synchronization or data loss
+				lastKey = accessRecordManager.saveBatch(currentBatch);
+			}catch(Exception e){
+				log.error("Failed to write batch", e);
 			}
-			return null;
-		}
-		try{
-			// We are now free to process the current batch with out synchronization or data loss
-			return accessRecordManager.saveBatch(currentBatch);
-		}catch(Exception e){
-			log.error("Failed to write batch", e);
-			return null;
 		}
+		return lastKey;
 	}
-	
+
 	/**
-	 * Poll all data currently on the queue and add it to a list.
+	 * Poll up to maxBatchSize records from the queue and add them to a list.
 	 * @return
 	 */
 	private List<AccessRecord> pollListFromQueue(){
-		List<AccessRecord> list = new LinkedList<AccessRecord>();
-		for(AccessRecord ac = this.recordBatch.poll(); ac != null; ac = this.recordBatch.poll()){
-			// Add to the list
-			list.add(ac);
-		}
+		List<AccessRecord> list = new ArrayList<AccessRecord>(Math.min(maxBatchSize, recordBatch.size()));
+		this.recordBatch.drainTo(list, maxBatchSize);
 		return list;
 	}
-	
-	
-	
+
+	/**
+	 * Push the depth of the queue and the number of records dropped since the
+	 * last timer to CloudWatch. Nothing is pushed while the queue is idle.
+	 *
+	 * @param queueDepth
+	 * @param dropped
+	 */
+	void pushMetrics(long queueDepth, long dropped) {
+		if (queueDepth < 1 && dropped < 1) {
+			return;
+		}
+		if (dropped > 0) {
+			log.warn("The access record queue was full. " + dropped + " AccessRecords were dropped.");
+		}
+		String namespace = METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance();
+		cloudWatch.addProfileData(createProfileData(namespace, METRIC_QUEUE_DEPTH, queueDepth));
+		cloudWatch.addProfileData(createProfileData(namespace, METRIC_DROPPED, dropped));
+	}
+
+	private static ProfileData createProfileData(String namespace, String name, long count) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(namespace);
+		profileData.setName(name);
+		profileData.setValue((double) count);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(new Date());
+		return profileData;
+	}
+
+	/**
+	 * @return The number of records dropped since the last timer.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
 }
@@ -247,6 +247,25 @@ public interface FileHandleManager {
 	 */
 	S3FileHandle multipartUploadLocalFile(LocalFileUploadRequest request);
 
+	/**
+	 * Prepare a multi-part upload to S3 of the data written to the returned
+	 * stream, without a local file. The upload is started in S3 when the first
+	 * part is uploaded. This is used by workers.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	MultipartUploadOutputStream startMultipartUploadStream(LocalFileUploadRequest request);
+
+	/**
+	 * Complete the upload of all of the data written to the given stream and
+	 * create its FileHandle.
+	 * 
+	 * @param stream
+	 * @return
+	 */
+	S3FileHandle completeMultipartUploadStream(MultipartUploadOutputStream stream);
+
 	/**
 	 * Get the list of upload destinations for this parent
 	 * 
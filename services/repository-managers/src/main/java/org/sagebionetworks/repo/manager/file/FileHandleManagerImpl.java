@@ -791,6 +791,16 @@ public class FileHandleManagerImpl implements FileHandleManager {
 		return multipartManager.multipartUploadLocalFile(request);
 	}
 
+	@Override
+	public MultipartUploadOutputStream startMultipartUploadStream(LocalFileUploadRequest request) {
+		return multipartManager.startMultipartUploadStream(request);
+	}
+
+	@Override
+	public S3FileHandle completeMultipartUploadStream(MultipartUploadOutputStream stream) {
+		return multipartManager.completeMultipartUploadStream(stream);
+	}
+
 	@Override
 	public UploadDaemonStatus getUploadDaemonStatus(UserInfo userInfo,
 			String daemonId) throws DatastoreException, NotFoundException {
@@ -91,4 +91,25 @@ public interface MultipartManager {
 	 * @return
 	 */
 	S3FileHandle multipartUploadLocalFile(LocalFileUploadRequest request);
+
+	/**
+	 * Prepare a multi-part upload to S3 of data that is not yet known. Parts are
+	 * uploaded as the data is written to the returned stream, and the upload is
+	 * only started in S3 when the first part is uploaded. The file to upload of
+	 * the request is ignored and the file name is required.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	MultipartUploadOutputStream startMultipartUploadStream(LocalFileUploadRequest request);
+
+	/**
+	 * Complete an upload started with
+	 * {@link #startMultipartUploadStream(LocalFileUploadRequest)} once all of the
+	 * data is written to the stream, and create its FileHandle.
+	 * 
+	 * @param stream
+	 * @return
+	 */
+	S3FileHandle completeMultipartUploadStream(MultipartUploadOutputStream stream);
 }
@@ -1,10 +1,12 @@
 package org.sagebionetworks.repo.manager.file;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.ids.IdGenerator;
@@ -22,6 +24,7 @@ import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.project.StorageLocationSetting;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.ContentDispositionUtils;
+import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.utils.MD5ChecksumHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -51,6 +54,11 @@ import com.amazonaws.util.BinaryUtils;
  */
 public class MultipartManagerImpl implements MultipartManager {
 	
+	// The size of the first parts of a streamed upload, the parts grow as the upload grows
+	static final int STREAM_PART_SIZE_BYTES = MultipartUploadOutputStream.MIN_PART_SIZE_BYTES;
+	// The maximum number of parts of a single streamed upload waiting to be uploaded
+	static final int STREAM_MAX_PENDING_PARTS = 3;
+	
 	@Autowired
 	SynapseS3Client s3Client;
 	@Autowired
@@ -61,6 +69,8 @@ public class MultipartManagerImpl implements MultipartManager {
 	ProjectSettingsManager projectSettingsManager;
 	@Autowired
 	IdGenerator idGenerator;
+	@Autowired
+	ExecutorService multipartUploadStreamThreadPool;
 
 	@Override
 	public ChunkResult copyPart(ChunkedFileToken token, int partNumber, Long storageLocationId) throws DatastoreException, NotFoundException {
@@ -266,4 +276,44 @@ public class MultipartManagerImpl implements MultipartManager {
 		} 
 	}
 
+	@Override
+	public MultipartUploadOutputStream startMultipartUploadStream(LocalFileUploadRequest request) {
+		ValidateArgument.required(request, "request");
+		ValidateArgument.required(request.getUserId(), "request.userId");
+		ValidateArgument.required(request.getFileName(), "request.fileName");
+		StorageLocationSetting storageLocationSetting = getStorageLocationSetting(request.getStorageLocationId());
+		String key = MultipartUtils.createNewKey(request.getUserId(), request.getFileName(), storageLocationSetting);
+		// The size and MD5 are only known once the upload is complete
+		S3FileHandle handle = new S3FileHandle();
+		handle.setBucketName(MultipartUtils.getBucket(storageLocationSetting));
+		handle.setKey(key);
+		handle.setContentType(request.getContentType());
+		handle.setCreatedBy(request.getUserId());
+		handle.setFileName(request.getFileName());
+		handle.setStorageLocationId(request.getStorageLocationId());
+		// The upload is started by the stream when its first part is uploaded
+		InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(handle.getBucketName(), key)
+				.withObjectMetadata(TransferUtils.prepareObjectMetadata(handle))
+				.withCannedACL(CannedAccessControlList.BucketOwnerFullControl);
+		return new MultipartUploadOutputStream(s3Client, multipartUploadStreamThreadPool, handle, initiateRequest,
+				STREAM_PART_SIZE_BYTES, STREAM_MAX_PENDING_PARTS);
+	}
+
+	@Override
+	public S3FileHandle completeMultipartUploadStream(MultipartUploadOutputStream stream) {
+		ValidateArgument.required(stream, "stream");
+		try {
+			stream.complete();
+		} catch (IOException e) {
+			throw new DatastoreException(e);
+		}
+		S3FileHandle handle = stream.getFileHandle();
+		handle.setContentMd5(stream.getContentMd5());
+		handle.setContentSize(stream.getBytesWritten());
+		handle.setCreatedOn(new Date(System.currentTimeMillis()));
+		handle.setEtag(UUID.randomUUID().toString());
+		handle.setId(idGenerator.generateNewId(IdType.FILE_IDS).toString());
+		return (S3FileHandle) fileHandleDao.createFile(handle);
+	}
+
 }
@@ -0,0 +1,366 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.manager.file.transfer.TransferUtils;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * An OutputStream that uploads the bytes written to it to S3 as a multi-part
+ * upload, while the bytes are still being written. The data is cut into parts
+ * and each full part is uploaded from a pool of threads, so
+ * nothing is written to the local disk and the upload overlaps with the work
+ * producing the data. The multi-part upload is only started when the first
+ * part is uploaded, so a stream that is closed before any part is full costs
+ * nothing in S3.
+ * <p>
+ * S3 allows at most {@link #MAX_PART_COUNT} parts, so the size of the parts
+ * doubles every {@link #PARTS_PER_SIZE_DOUBLING} parts, up to
+ * {@link #MAX_PART_SIZE_BYTES}. Small uploads use small parts while the size of
+ * an upload is only limited by S3.
+ * <p>
+ * The number of parts of a single stream waiting to be uploaded is bounded:
+ * writing blocks while the maximum number of parts are pending. The memory used
+ * by a stream is therefore at most (maxPendingParts + 1) times the current part
+ * size.
+ * <p>
+ * Call {@link MultipartManager#completeMultipartUploadStream(MultipartUploadOutputStream)}
+ * once all of the data is written. Closing a stream that was not completed
+ * aborts the upload. This class is not thread safe, it must be written by a
+ * single thread.
+ *
+ */
+public class MultipartUploadOutputStream extends OutputStream {
+
+	static private Logger log = LogManager.getLogger(MultipartUploadOutputStream.class);
+
+	/**
+	 * S3 requires all parts but the last one to be at least 5 MB.
+	 */
+	public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+	/**
+	 * S3 allows at most 10,000 parts per upload.
+	 */
+	public static final int MAX_PART_COUNT = 10_000;
+	/**
+	 * The part size doubles each time this number of parts are uploaded.
+	 */
+	public static final int PARTS_PER_SIZE_DOUBLING = 1_000;
+	/**
+	 * Parts never grow past 1 GB.
+	 */
+	public static final int MAX_PART_SIZE_BYTES = 1024 * 1024 * 1024;
+
+	private final SynapseS3Client s3Client;
+	private final ExecutorService executorService;
+	private final S3FileHandle fileHandle;
+	private final InitiateMultipartUploadRequest initiateRequest;
+	private final int partSizeBytes;
+	private final Semaphore pendingParts;
+	private final MessageDigest md5Digest;
+	private final List<Future<PartETag>> parts;
+	private final AtomicLong bytesUploaded;
+	private final AtomicReference<Exception> partFailure;
+
+	private String uploadId;
+	private byte[] buffer;
+	private int bufferSize;
+	private long bytesWritten;
+	private String contentMd5;
+	private boolean completed;
+	// read by the threads uploading the parts.
+	private volatile boolean aborted;
+
+	/**
+	 *
+	 * @param s3Client
+	 * @param executorService The threads used to upload the parts.
+	 * @param fileHandle      The bucket and key of the upload.
+	 * @param initiateRequest The request used to start the multi-part upload
+	 *                        when the first part is uploaded.
+	 * @param partSizeBytes   The size of the first parts, see:
+	 *                        {@link #getPartSizeBytes(int, int)}.
+	 * @param maxPendingParts The maximum number of parts waiting to be uploaded.
+	 */
+	public MultipartUploadOutputStream(SynapseS3Client s3Client, ExecutorService executorService, S3FileHandle fileHandle,
+			InitiateMultipartUploadRequest initiateRequest, int partSizeBytes, int maxPendingParts) {
+		ValidateArgument.required(s3Client, "s3Client");
+		ValidateArgument.required(executorService, "executorService");
+		ValidateArgument.required(fileHandle, "fileHandle");
+		ValidateArgument.required(fileHandle.getBucketName(), "fileHandle.bucketName");
+		ValidateArgument.required(fileHandle.getKey(), "fileHandle.key");
+		ValidateArgument.required(initiateRequest, "initiateRequest");
+		ValidateArgument.requirement(partSizeBytes >= MIN_PART_SIZE_BYTES, "partSizeBytes must be at least " + MIN_PART_SIZE_BYTES);
+		ValidateArgument.requirement(partSizeBytes <= MAX_PART_SIZE_BYTES, "partSizeBytes must be at most " + MAX_PART_SIZE_BYTES);
+		ValidateArgument.requirement(maxPendingParts > 0, "maxPendingParts must be greater than zero");
+		this.s3Client = s3Client;
+		this.executorService = executorService;
+		this.fileHandle = fileHandle;
+		this.initiateRequest = initiateRequest;
+		this.partSizeBytes = partSizeBytes;
+		this.pendingParts = new Semaphore(maxPendingParts);
+		this.md5Digest = TransferUtils.createMD5Digest();
+		this.parts = new ArrayList<>();
+		this.bytesUploaded = new AtomicLong(0L);
+		this.partFailure = new AtomicReference<>();
+		this.buffer = new byte[partSizeBytes];
+		this.bufferSize = 0;
+		this.bytesWritten = 0L;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		checkOpen();
+		if (bufferSize == buffer.length) {
+			uploadPart(false);
+		}
+		buffer[bufferSize++] = (byte) b;
+		bytesWritten++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkOpen();
+		ValidateArgument.required(b, "bytes");
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			if (bufferSize == buffer.length) {
+				uploadPart(false);
+			}
+			int toCopy = Math.min(len, buffer.length - bufferSize);
+			System.arraycopy(b, off, buffer, bufferSize, toCopy);
+			bufferSize += toCopy;
+			bytesWritten += toCopy;
+			off += toCopy;
+			len -= toCopy;
+		}
+	}
+
+	/**
+	 * Upload the last part and wait for all of the parts to be uploaded, then
+	 * complete the multi-part upload. The upload is aborted if any part failed.
+	 *
+	 * @throws IOException
+	 */
+	void complete() throws IOException {
+		checkOpen();
+		// An upload needs at least one part, even when nothing was written.
+		if (bufferSize > 0 || parts.isEmpty()) {
+			uploadPart(true);
+		}
+		List<PartETag> partETags = new ArrayList<>(parts.size());
+		try {
+			for (Future<PartETag> part : parts) {
+				partETags.add(part.get());
+			}
+			s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(fileHandle.getBucketName(), fileHandle.getKey(), uploadId, partETags));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abort();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			abort();
+			throw new IOException(e.getCause());
+		} catch (RuntimeException e) {
+			abort();
+			throw e;
+		}
+		contentMd5 = BinaryUtils.toHex(md5Digest.digest());
+		completed = true;
+	}
+
+	/**
+	 * Abort the upload, discarding any parts that were already uploaded. Parts
+	 * that did not start uploading are skipped, and the upload is aborted once the
+	 * parts being uploaded finish, since S3 keeps a part that finishes after the
+	 * upload is aborted.
+	 */
+	public void abort() {
+		if (completed || aborted) {
+			return;
+		}
+		aborted = true;
+		buffer = null;
+		if (uploadId == null) {
+			// the upload was never started.
+			return;
+		}
+		boolean interrupted = false;
+		for (Future<PartETag> part : parts) {
+			try {
+				part.get();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			} catch (ExecutionException e) {
+				// the part is discarded with the upload.
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(fileHandle.getBucketName(), fileHandle.getKey(), uploadId));
+		} catch (RuntimeException e) {
+			log.warn("Failed to abort the multi-part upload of " + fileHandle.getKey() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Aborts the upload unless it was completed.
+	 */
+	@Override
+	public void close() {
+		abort();
+	}
+
+	/**
+	 * @return The number of bytes written to this stream.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return The number of bytes of the parts uploaded so far.
+	 */
+	public long getBytesUploaded() {
+		return bytesUploaded.get();
+	}
+
+	/**
+	 * The MD5 of all of the bytes written.
+	 *
+	 * @return Hex-encoded MD5, only available once the upload is complete.
+	 */
+	String getContentMd5() {
+		ValidateArgument.requirement(completed, "The upload is not complete");
+		return contentMd5;
+	}
+
+	/**
+	 * @return The request used to start the multi-part upload.
+	 */
+	InitiateMultipartUploadRequest getInitiateRequest() {
+		return initiateRequest;
+	}
+
+	/**
+	 * @return True once the multi-part upload was started in S3.
+	 */
+	boolean isStarted() {
+		return uploadId != null;
+	}
+
+	/**
+	 * The file handle of this upload, before it is saved.
+	 *
+	 * @return
+	 */
+	S3FileHandle getFileHandle() {
+		return fileHandle;
+	}
+
+	private void checkOpen() throws IOException {
+		if (completed || aborted) {
+			throw new IOException("The upload of " + fileHandle.getKey() + " is closed");
+		}
+	}
+
+	/**
+	 * Submit the current buffer as the next part, starting the multi-part upload
+	 * for the first part. Blocks while the maximum number of parts are waiting to
+	 * be uploaded.
+	 *
+	 * @param lastPart
+	 * @throws IOException If a previous part failed to upload.
+	 */
+	private void uploadPart(boolean lastPart) throws IOException {
+		Exception failure = partFailure.get();
+		if (failure != null) {
+			abort();
+			throw new IOException(failure);
+		}
+		if (parts.size() >= MAX_PART_COUNT) {
+			abort();
+			throw new IOException("The upload of " + fileHandle.getKey() + " is over the limit of " + MAX_PART_COUNT + " parts");
+		}
+		if (uploadId == null) {
+			uploadId = s3Client.initiateMultipartUpload(initiateRequest).getUploadId();
+		}
+		final byte[] data = buffer;
+		final int size = bufferSize;
+		md5Digest.update(data, 0, size);
+		UploadPartRequest request = new UploadPartRequest()
+				.withBucketName(fileHandle.getBucketName())
+				.withKey(fileHandle.getKey())
+				.withUploadId(uploadId)
+				.withPartNumber(parts.size() + 1)
+				.withInputStream(new ByteArrayInputStream(data, 0, size))
+				.withPartSize(size)
+				.withLastPart(lastPart);
+		pendingParts.acquireUninterruptibly();
+		try {
+			parts.add(executorService.submit(() -> {
+				try {
+					if (aborted) {
+						throw new IOException("The upload of " + fileHandle.getKey() + " was aborted");
+					}
+					PartETag etag = s3Client.uploadPart(request).getPartETag();
+					bytesUploaded.addAndGet(size);
+					return etag;
+				} catch (Exception e) {
+					partFailure.compareAndSet(null, e);
+					throw e;
+				} finally {
+					pendingParts.release();
+				}
+			}));
+		} catch (RejectedExecutionException e) {
+			pendingParts.release();
+			abort();
+			throw new IOException(e);
+		}
+		// the submitted buffer now belongs to the upload of the part
+		buffer = lastPart ? null : new byte[getPartSizeBytes(partSizeBytes, parts.size())];
+		bufferSize = 0;
+	}
+
+	/**
+	 * The size of the next part of an upload: the size of the first parts doubled
+	 * for every {@link #PARTS_PER_SIZE_DOUBLING} parts already uploaded, up to
+	 * {@link #MAX_PART_SIZE_BYTES}.
+	 * 
+	 * @param firstPartSizeBytes
+	 * @param partCount          The number of parts already uploaded.
+	 * @return
+	 */
+	static int getPartSizeBytes(int firstPartSizeBytes, int partCount) {
+		int doublings = Math.min(partCount / PARTS_PER_SIZE_DOUBLING, Integer.SIZE);
+		return (int) Math.min((long) firstPartSizeBytes << doublings, MAX_PART_SIZE_BYTES);
+	}
+}
@@ -0,0 +1,134 @@
+package org.sagebionetworks.repo.manager.message;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Sends the emails of a broadcast from a pool of threads, so a broadcast to
+ * many subscribers is not bound by the latency of each SES call. All of the
+ * emails sent by this machine share a single rate limit that should be kept
+ * under the send rate of the SES account.
+ * <p>
+ * Each broadcast sends its emails through its own {@link Batch}, which bounds
+ * the number of emails waiting to be sent and allows the caller to wait for all
+ * of them. This class is thread safe.
+ *
+ */
+public class BroadcastEmailSender {
+
+	static private Logger log = LogManager.getLogger(BroadcastEmailSender.class);
+
+	private final SynapseEmailService emailService;
+	private final ExecutorService executorService;
+	private final RateLimiter rateLimiter;
+	private final int maxPendingPerBatch;
+
+	/**
+	 *
+	 * @param emailService
+	 * @param executorService    The threads used to send the emails.
+	 * @param maxEmailsPerSecond The maximum number of emails sent per second by
+	 *                           this machine.
+	 * @param maxPendingPerBatch The maximum number of emails of a single batch
+	 *                           waiting to be sent. Adding an email to a full
+	 *                           batch blocks until one is sent.
+	 */
+	public BroadcastEmailSender(SynapseEmailService emailService, ExecutorService executorService,
+			double maxEmailsPerSecond, int maxPendingPerBatch) {
+		ValidateArgument.required(emailService, "emailService");
+		ValidateArgument.required(executorService, "executorService");
+		ValidateArgument.requirement(maxEmailsPerSecond > 0, "maxEmailsPerSecond must be greater than zero");
+		ValidateArgument.requirement(maxPendingPerBatch > 0, "maxPendingPerBatch must be greater than zero");
+		this.emailService = emailService;
+		this.executorService = executorService;
+		this.rateLimiter = RateLimiter.create(maxEmailsPerSecond);
+		this.maxPendingPerBatch = maxPendingPerBatch;
+	}
+
+	/**
+	 * Start a new batch for the emails of a single broadcast.
+	 *
+	 * @return
+	 */
+	public Batch startBatch() {
+		return new Batch();
+	}
+
+	/**
+	 * The emails of a single broadcast. Emails that cannot be sent are logged and
+	 * counted, they do not stop the rest of the batch.
+	 *
+	 */
+	public class Batch {
+
+		private final Semaphore pending;
+		private final AtomicLong sentCount;
+		private final AtomicLong failedCount;
+
+		private Batch() {
+			this.pending = new Semaphore(maxPendingPerBatch);
+			this.sentCount = new AtomicLong(0L);
+			this.failedCount = new AtomicLong(0L);
+		}
+
+		/**
+		 * Queue the given email to be sent. Blocks while the batch already has the
+		 * maximum number of emails waiting to be sent.
+		 *
+		 * @param request
+		 */
+		public void send(SendRawEmailRequest request) {
+			ValidateArgument.required(request, "request");
+			pending.acquireUninterruptibly();
+			try {
+				executorService.execute(() -> {
+					try {
+						rateLimiter.acquire();
+						emailService.sendRawEmail(request);
+						sentCount.incrementAndGet();
+					} catch (Exception e) {
+						failedCount.incrementAndGet();
+						log.error("Failed to send a broadcast email to " + request.getDestinations(), e);
+					} finally {
+						pending.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				pending.release();
+				throw e;
+			}
+		}
+
+		/**
+		 * Wait until every email of this batch has been sent or has failed.
+		 */
+		public void awaitCompletion() {
+			pending.acquireUninterruptibly(maxPendingPerBatch);
+			pending.release(maxPendingPerBatch);
+		}
+
+		/**
+		 * @return The number of emails of this batch that were sent.
+		 */
+		public long getSentCount() {
+			return sentCount.get();
+		}
+
+		/**
+		 * @return The number of emails of this batch that could not be sent.
+		 */
+		public long getFailedCount() {
+			return failedCount.get();
+		}
+	}
+}
@@ -4,7 +4,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.http.client.ClientProtocolException;
 import org.apache.logging.log4j.LogManager;
@@ -14,7 +16,7 @@ import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.markdown.MarkdownClientException;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
 import org.sagebionetworks.repo.manager.UserManager;
-import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
+import org.sagebionetworks.repo.manager.message.BroadcastEmailSender.Batch;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
@@ -61,7 +63,7 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 	private BroadcastMessageDao broadcastMessageDao;
 	
 	@Autowired
-	private SynapseEmailService sesClient;
+	private BroadcastEmailSender emailSender;
 	
 	@Autowired
 	private DBOChangeDAO changeDao;
@@ -124,23 +126,35 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 		// Get all of the email subscribers for this topic.
 		List<Subscriber> subscribers = subscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType());
 		List<String> subscriberIds = new ArrayList<String>();
-		// The builder will prepare an email for each subscriber
-		for(Subscriber subscriber: subscribers){
-			subscriberIds.add(subscriber.getSubscriberId());
-			// do not send an email to the user who created this change
-			if (subscriber.getSubscriberId().equals(changeMessage.getUserId().toString())) {
-				continue;
-			}
-			if (emailQuarantineDao.isQuarantined(subscriber.getNotificationEmail())) {
-				log.warn("Cannot send message to quarantined address: {}", subscriber.getNotificationEmail());
-				continue;
+		// A single lookup for all of the quarantined addresses
+		Set<String> quarantinedEmails = getQuarantinedEmails(subscribers.stream().map(Subscriber::getNotificationEmail).collect(Collectors.toList()));
+		// The emails are built on this thread and sent concurrently by the batch
+		Batch batch = emailSender.startBatch();
+		try {
+			// The builder will prepare an email for each subscriber
+			for(Subscriber subscriber: subscribers){
+				subscriberIds.add(subscriber.getSubscriberId());
+				// do not send an email to the user who created this change
+				if (subscriber.getSubscriberId().equals(changeMessage.getUserId().toString())) {
+					continue;
+				}
+				if (quarantinedEmails.contains(subscriber.getNotificationEmail())) {
+					log.warn("Cannot send message to quarantined address: {}", subscriber.getNotificationEmail());
+					continue;
+				}
+				SendRawEmailRequest emailRequest = builder.buildEmailForSubscriber(subscriber);
+				log.debug("sending email to "+subscriber.getNotificationEmail());
+				batch.send(emailRequest);
 			}
-			SendRawEmailRequest emailRequest = builder.buildEmailForSubscriber(subscriber);
-			log.debug("sending email to "+subscriber.getNotificationEmail());
-			sesClient.sendRawEmail(emailRequest);
-		}
 
-		sendMessageToNonSubscribers(progressCallback, changeMessage, builder, subscriberIds, topic);
+			sendMessageToNonSubscribers(progressCallback, changeMessage, builder, subscriberIds, topic, batch);
+		} finally {
+			// Do not return while the emails of this broadcast are still being sent
+			batch.awaitCompletion();
+		}
+		if (batch.getFailedCount() > 0) {
+			log.warn("Failed to send {} of {} emails for change {}", batch.getFailedCount(), batch.getFailedCount() + batch.getSentCount(), changeMessage.getChangeNumber());
+		}
 	}
 
 	/*
@@ -151,7 +165,7 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 	 */
 	public void sendMessageToNonSubscribers(ProgressCallback progressCallback,
 			ChangeMessage changeMessage, BroadcastMessageBuilder builder, List<String> subscriberIds,
-			Topic topic)
+			Topic topic, Batch batch)
 			throws ClientProtocolException, JSONException, IOException, MarkdownClientException {
 		Set<String> mentionedUserIds = builder.getRelatedUsers();
 		if (mentionedUserIds == null || mentionedUserIds.isEmpty()) {
@@ -161,13 +175,14 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 		mentionedUserIds.removeAll(subscriberIds);
 		// create list of MentionedUser from their ids
 		List<UserNotificationInfo> mentionedUsers = userProfileDao.getUserNotificationInfo(mentionedUserIds);
+		Set<String> quarantinedEmails = getQuarantinedEmails(mentionedUsers.stream().map(UserNotificationInfo::getNotificationEmail).collect(Collectors.toList()));
 		// build and send email to each mentioned user
 		for(UserNotificationInfo userNotificationInfo: mentionedUsers){
 			// do not send an email to the user who created this change
 			if (userNotificationInfo.getUserId().equals(changeMessage.getUserId().toString())) {
 				continue;
 			}
-			if (emailQuarantineDao.isQuarantined(userNotificationInfo.getNotificationEmail())) {
+			if (quarantinedEmails.contains(userNotificationInfo.getNotificationEmail())) {
 				log.warn("Cannot send message to quarantined address: {}", userNotificationInfo.getNotificationEmail());
 				continue;
 			}
@@ -175,11 +190,21 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 			if (authManager.canSubscribe(userInfo, topic.getObjectId(), topic.getObjectType()).isAuthorized()) {
 				SendRawEmailRequest emailRequest = builder.buildEmailForNonSubscriber(userNotificationInfo);
 				log.debug("sending email to "+userNotificationInfo.getNotificationEmail());
-				sesClient.sendRawEmail(emailRequest);
+				batch.send(emailRequest);
 			}
 		}
 	}
 	
+	/**
+	 * Get the subset of the given emails that are quarantined, with a single lookup.
+	 * 
+	 * @param emails
+	 * @return
+	 */
+	Set<String> getQuarantinedEmails(List<String> emails) {
+		return emailQuarantineDao.getQuarantinedEmails(emails.stream().filter(Objects::nonNull).collect(Collectors.toSet()));
+	}
+	
 	/**
 	 * Validate the given topic.
 	 * @param topic
@@ -19,6 +19,7 @@ import org.sagebionetworks.repo.model.subscription.Topic;
 import org.sagebionetworks.util.ValidateArgument;
 
 import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import com.google.common.html.HtmlEscapers;
 
 public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilder {
 	
@@ -26,6 +27,9 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 	public static final long MAX_USER_IDS_PER_MESSAGE = 1000L;
 	public static final String GREETING = "Hello %1$s,\n\n";
 	public static final String SUBSCRIBE_THREAD = "[Subscribe to the thread](https://www.synapse.org/#!Subscription:objectID=%1$s&objectType=THREAD)\n";
+	// The markdown is rendered once with these placeholders, that are then replaced for each recipient.
+	public static final String RECIPIENT_NAME_PLACEHOLDER = "SYNAPSEBROADCASTRECIPIENTNAME";
+	public static final String SUBSCRIPTION_ID_PLACEHOLDER = "SYNAPSEBROADCASTSUBSCRIPTIONID";
 	MarkdownDao markdownDao;
 	String actorUsername;
 	String actorUserId;
@@ -39,6 +43,8 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 	String unsubscribe;
 	Topic broadcastTopic;
 	UserManager userManager;
+	String subscriberHtmlTemplate;
+	String nonSubscriberHtmlTemplate;
 
 	public DiscussionBroadcastMessageBuilder(String actorUsername, String actorUserId,
 			String threadTitle, String threadId, String projectId, String projectName,
@@ -79,11 +85,17 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 
 	@Override
 	public SendRawEmailRequest buildEmailForSubscriber(Subscriber subscriber) throws ClientProtocolException, JSONException, IOException, MarkdownClientException {
-		// build the email body
-		String body = buildRawBodyForSubscriber(subscriber);
+		// the markdown is the same for each subscriber so it is only rendered once.
+		if (subscriberHtmlTemplate == null) {
+			subscriberHtmlTemplate = markdownDao.convertMarkdown(buildRawBodyForSubscriber(RECIPIENT_NAME_PLACEHOLDER, SUBSCRIPTION_ID_PLACEHOLDER), null);
+		}
+		String recipientName = EmailUtils.getDisplayNameWithUsername(subscriber.getFirstName(), subscriber.getLastName(), subscriber.getUsername());
+		String body = subscriberHtmlTemplate
+				.replace(RECIPIENT_NAME_PLACEHOLDER, HtmlEscapers.htmlEscaper().escape(recipientName))
+				.replace(SUBSCRIPTION_ID_PLACEHOLDER, subscriber.getSubscriptionId());
 		return new SendRawEmailRequestBuilder()
 		.withSubject(subject)
-		.withBody(markdownDao.convertMarkdown(body, null), BodyType.HTML)
+		.withBody(body, BodyType.HTML)
 		.withSenderDisplayName("noreply")
 		.withRecipientEmail(subscriber.getNotificationEmail())
 		.build();
@@ -91,11 +103,15 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 
 	@Override
 	public SendRawEmailRequest buildEmailForNonSubscriber(UserNotificationInfo user) throws ClientProtocolException, JSONException, IOException, MarkdownClientException {
-		// build the email body
-		String body = buildRawBodyForNonSubscriber(user);
+		// the markdown is the same for each user so it is only rendered once.
+		if (nonSubscriberHtmlTemplate == null) {
+			nonSubscriberHtmlTemplate = markdownDao.convertMarkdown(buildRawBodyForNonSubscriber(RECIPIENT_NAME_PLACEHOLDER), null);
+		}
+		String recipientName = EmailUtils.getDisplayNameWithUsername(user.getFirstName(), user.getLastName(), user.getUsername());
+		String body = nonSubscriberHtmlTemplate.replace(RECIPIENT_NAME_PLACEHOLDER, HtmlEscapers.htmlEscaper().escape(recipientName));
 		return new SendRawEmailRequestBuilder()
 		.withSubject(subject)
-		.withBody(markdownDao.convertMarkdown(body, null), BodyType.HTML)
+		.withBody(body, BodyType.HTML)
 		.withSenderDisplayName("noreply")
 		.withRecipientEmail(user.getNotificationEmail())
 		.build();
@@ -107,8 +123,18 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 	 * @return
 	 */
 	public String buildRawBodyForSubscriber(Subscriber subscriber){
-		StringBuilder sb = new StringBuilder();
 		String recipientName = EmailUtils.getDisplayNameWithUsername(subscriber.getFirstName(), subscriber.getLastName(), subscriber.getUsername());
+		return buildRawBodyForSubscriber(recipientName, subscriber.getSubscriptionId());
+	}
+
+	/**
+	 * Build the email body for the given recipient name and subscription.
+	 * @param recipientName
+	 * @param subscriptionId
+	 * @return
+	 */
+	String buildRawBodyForSubscriber(String recipientName, String subscriptionId){
+		StringBuilder sb = new StringBuilder();
 		sb.append(String.format(GREETING, recipientName));
 		sb.append(String.format(emailTemplate, actorUsername, actorUserId, threadTitleTruncated, projectId, threadId, projectName));
 		sb.append(markdown+"\n\n");
@@ -116,7 +142,7 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 		if (broadcastTopic.getObjectType() != SubscriptionObjectType.THREAD) {
 			sb.append(String.format(SUBSCRIBE_THREAD, threadId));
 		}
-		sb.append(String.format(unsubscribe, subscriber.getSubscriptionId()));
+		sb.append(String.format(unsubscribe, subscriptionId));
 		return sb.toString();
 	}
 
@@ -126,8 +152,17 @@ public class DiscussionBroadcastMessageBuilder implements BroadcastMessageBuilde
 	 * @return
 	 */
 	public String buildRawBodyForNonSubscriber(UserNotificationInfo user){
-		StringBuilder sb = new StringBuilder();
 		String recipientName = EmailUtils.getDisplayNameWithUsername(user.getFirstName(), user.getLastName(), user.getUsername());
+		return buildRawBodyForNonSubscriber(recipientName);
+	}
+
+	/**
+	 * Build the email body for the given recipient name.
+	 * @param recipientName
+	 * @return
+	 */
+	String buildRawBodyForNonSubscriber(String recipientName){
+		StringBuilder sb = new StringBuilder();
 		sb.append(String.format(GREETING, recipientName));
 		sb.append(String.format(emailTemplate, actorUsername, actorUserId, threadTitleTruncated, projectId, threadId, projectName));
 		sb.append(markdown+"\n\n");
@@ -1,14 +1,22 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeMessages;
@@ -20,6 +28,7 @@ import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.CreateTopicRequest;
 import com.amazonaws.services.sns.model.CreateTopicResult;
@@ -36,6 +45,9 @@ import com.google.common.collect.Lists;
 public class RepositoryMessagePublisherImpl implements RepositoryMessagePublisher {
 	
 	public static final String SEMAPHORE_KEY = "UNSENT_MESSAGE_WORKER";
+	public static final String METRIC_NAMESPACE_PREFIX = "Repository-Messages-";
+	public static final String METRIC_NAME_MESSAGES_PUBLISHED = "Messages Published Per Timer";
+	public static final String METRIC_NAME_PUBLISH_LAG = "Publish Lag";
 	static private Log log = LogFactory.getLog(RepositoryMessagePublisherImpl.class);
 
 	@Autowired
@@ -47,11 +59,26 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	@Autowired
 	StackConfiguration stackConfiguration;
 
-	// Maps each object type to its topic
-	Map<ObjectType, TopicInfo> typeToTopicMap = new HashMap<ObjectType, TopicInfo>();;
+	@Autowired
+	Consumer consumer;
+
+	// Maps each object type to its topic. Each type is published concurrently.
+	Map<ObjectType, TopicInfo> typeToTopicMap = new ConcurrentHashMap<ObjectType, TopicInfo>();
 
 	private ConcurrentLinkedQueue<Message> messageQueue = new ConcurrentLinkedQueue<Message>();
 
+	private ExecutorService publishExecutorService;
+
+	/**
+	 * Injected. The pool used to publish the object types of a single timer
+	 * event concurrently.
+	 * 
+	 * @param publishExecutorService
+	 */
+	public void setPublishExecutorService(ExecutorService publishExecutorService) {
+		this.publishExecutorService = publishExecutorService;
+	}
+
 
 	/**
 	 * Used by tests to inject a mock client.
@@ -111,20 +138,95 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 			}
 			return;
 		}
-		// Publish each message to the topic
-		for (Message queueItem : currentQueue) {
+		if (currentQueue.isEmpty()) {
+			return;
+		}
+		pushQueueMetrics(currentQueue);
+		// Each batch is registered as sent and published to the topic as a single SNS message.
+		Map<ObjectType, List<List<ChangeMessage>>> batchesByType = groupIntoBatches(currentQueue);
+		List<Future<?>> futures = new ArrayList<>(batchesByType.size());
+		for (Map.Entry<ObjectType, List<List<ChangeMessage>>> entry : batchesByType.entrySet()) {
+			// The batches of a single type are published in order on one task.
+			futures.add(publishExecutorService.submit(() -> publishBatchesToTopic(entry.getKey(), entry.getValue())));
+		}
+		for (Future<?> future : futures) {
 			try {
-				if (queueItem instanceof ChangeMessage) {
-					ChangeMessage message = (ChangeMessage) queueItem;
-					publishToTopic(message);
-				} else {
-					throw new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName());
-				}
-			} catch (Throwable e) {
-				// If one messages fails, we must send the rest.
-				log.error("Failed to publish message.", e);
+				future.get();
+			} catch (ExecutionException e) {
+				// If one type fails, the other types are still sent.
+				log.error("Failed to publish batch.", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.error("Interrupted while publishing batches.", e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Publish the given batches of a single type in order. A failed batch stops
+	 * the remaining batches so they are not published ahead of it; messages that
+	 * were not registered as sent will be sent again later.
+	 * 
+	 * @param type
+	 * @param batches
+	 */
+	private void publishBatchesToTopic(ObjectType type, List<List<ChangeMessage>> batches) {
+		for (List<ChangeMessage> batch : batches) {
+			publishBatchToTopic(type, batch);
+		}
+	}
+
+	/**
+	 * Group the given messages by object type, preserving their order, and split
+	 * each group into batches that fit in a single SQS message body.
+	 * 
+	 * @param messages
+	 * @return The batches of each type, in order.
+	 */
+	static Map<ObjectType, List<List<ChangeMessage>>> groupIntoBatches(List<Message> messages) {
+		Map<ObjectType, List<ChangeMessage>> byType = new LinkedHashMap<>();
+		for (Message queueItem : messages) {
+			if (queueItem instanceof ChangeMessage) {
+				ChangeMessage message = (ChangeMessage) queueItem;
+				byType.computeIfAbsent(message.getObjectType(), (ObjectType type) -> new ArrayList<>()).add(message);
+			} else {
+				log.error("Unknown message type " + queueItem.getClass().getName());
+			}
+		}
+		Map<ObjectType, List<List<ChangeMessage>>> batches = new LinkedHashMap<>();
+		for (Map.Entry<ObjectType, List<ChangeMessage>> entry : byType.entrySet()) {
+			batches.put(entry.getKey(), Lists.partition(entry.getValue(), ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE));
+		}
+		return batches;
+	}
+
+	/**
+	 * Push the number of messages published by this timer event and the age of
+	 * the oldest message to CloudWatch.
+	 * 
+	 * @param messages
+	 */
+	private void pushQueueMetrics(List<Message> messages) {
+		Date now = new Date();
+		long oldest = now.getTime();
+		for (Message message : messages) {
+			if (message.getTimestamp() != null) {
+				oldest = Math.min(oldest, message.getTimestamp().getTime());
 			}
 		}
+		consumer.addProfileData(createProfileData(METRIC_NAME_MESSAGES_PUBLISHED, messages.size(), StandardUnit.Count, now));
+		consumer.addProfileData(createProfileData(METRIC_NAME_PUBLISH_LAG, now.getTime() - oldest, StandardUnit.Milliseconds, now));
+	}
+
+	private ProfileData createProfileData(String name, double value, StandardUnit unit, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfiguration.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue(value);
+		profileData.setUnit(unit.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
 	}
 	
 	/**
@@ -132,7 +234,7 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	 * @return
 	 */
 	private List<Message> pollListFromQueue() {
-		List<Message> list = Lists.newLinkedList();
+		List<Message> list = new ArrayList<>();
 		for (Message cm = this.messageQueue.poll(); cm != null; cm = this.messageQueue.poll()) {
 			// Add to the list
 			list.add(cm);
@@ -150,16 +252,12 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 		if(type == null){
 			throw new IllegalArgumentException("ObjectType cannot be null");
 		}
-		TopicInfo info = this.typeToTopicMap.get(type);
-		if(info == null){
+		return this.typeToTopicMap.computeIfAbsent(type, (ObjectType key) -> {
 			// Create the topic
-			String name = stackConfiguration.getRepositoryChangeTopic(type.name());
+			String name = stackConfiguration.getRepositoryChangeTopic(key.name());
 			CreateTopicResult result = awsSNSClient.createTopic(new CreateTopicRequest(name));
-			String arn = result.getTopicArn();
-			info = new TopicInfo(name, arn);
-			this.typeToTopicMap.put(type, info);
-		}
-		return info;
+			return new TopicInfo(name, result.getTopicArn());
+		});
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager.oauth;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.util.Arrays;
@@ -8,6 +9,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.manager.KeyPairUtil;
@@ -17,9 +19,14 @@ import org.sagebionetworks.repo.model.oauth.JsonWebKeySet;
 import org.sagebionetworks.repo.model.oauth.OAuthScope;
 import org.sagebionetworks.repo.model.oauth.OIDCClaimName;
 import org.sagebionetworks.repo.model.oauth.OIDCClaimsRequestDetails;
+import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Header;
 import io.jsonwebtoken.JwsHeader;
@@ -32,10 +39,20 @@ public class OIDCTokenHelperImpl implements InitializingBean, OIDCTokenHelper {
 	// the time window during which the client will consider the returned claims to be valid
 	private static final long ID_TOKEN_EXPIRATION_TIME_SECONDS = 60L; // a minute
 	private static final long ACCESS_TOKEN_EXPIRATION_TIME_SECONDS = 3600*24L; // a day
+	// the number of verified tokens kept, so the signature of a token is checked once per node rather than once per request
+	static final long VERIFIED_TOKEN_CACHE_MAX_SIZE = 20_000L;
+	// an upper bound on the time a verified token is kept; a cached token is never used past its own expiration
+	static final long VERIFIED_TOKEN_CACHE_EXPIRATION_MINUTES = 60L;
 	
 	private String oidcSignatureKeyId;
 	private PrivateKey oidcSignaturePrivateKey;
 	private JsonWebKeySet jsonWebKeySet;
+	
+	// verified tokens, keyed by the SHA-256 hash of the token so the cache does not hold any credentials
+	private final Cache<String, Jwt<JwsHeader,Claims>> verifiedTokenCache = CacheBuilder.newBuilder()
+			.maximumSize(VERIFIED_TOKEN_CACHE_MAX_SIZE)
+			.expireAfterWrite(VERIFIED_TOKEN_CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+			.build();
 
 	@Autowired
 	private StackConfiguration stackConfiguration;
@@ -49,6 +66,9 @@ public class OIDCTokenHelperImpl implements InitializingBean, OIDCTokenHelper {
 		KeyPair keyPair = KeyPairUtil.getRSAKeyPairFromPrivateKey(pemEncodedRsaPrivateKeys.get(pemEncodedRsaPrivateKeys.size()-1));
 		this.oidcSignaturePrivateKey=keyPair.getPrivate();
 		this.oidcSignatureKeyId = KeyPairUtil.computeKeyId(keyPair.getPublic());
+		
+		// tokens verified with the previous keys must be verified again
+		verifiedTokenCache.invalidateAll();
 	}
 
 	@Override
@@ -135,13 +155,41 @@ public class OIDCTokenHelperImpl implements InitializingBean, OIDCTokenHelper {
 	}
 
 	
+	/**
+	 * The signature of a token is only checked the first time the token is seen.
+	 * Tokens that fail the check are not cached. The returned object is shared by
+	 * all of the callers parsing the same token and must not be modified.
+	 */
 	@Override
 	public Jwt<JwsHeader,Claims> parseJWT(String token) {
-		return JSONWebTokenHelper.parseJWT(token, jsonWebKeySet);
+		ValidateArgument.required(token, "JSON Web Token");
+		String tokenHash = hashToken(token);
+		Jwt<JwsHeader,Claims> cached = verifiedTokenCache.getIfPresent(tokenHash);
+		if (cached != null) {
+			if (System.currentTimeMillis()>cached.getBody().getExpiration().getTime()) {
+				verifiedTokenCache.invalidate(tokenHash);
+				throw new IllegalArgumentException("Token has expired.");
+			}
+			return cached;
+		}
+		Jwt<JwsHeader,Claims> result = JSONWebTokenHelper.parseJWT(token, jsonWebKeySet);
+		verifiedTokenCache.put(tokenHash, result);
+		return result;
 	}
 	
 	@Override
 	public void validateJWT(String token) {
-		JSONWebTokenHelper.parseJWT(token, jsonWebKeySet);
+		parseJWT(token);
+	}
+	
+	static String hashToken(String token) {
+		return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+	}
+	
+	/**
+	 * @return The number of verified tokens currently cached.
+	 */
+	long getVerifiedTokenCacheSize() {
+		return verifiedTokenCache.size();
 	}
 }
@@ -120,11 +120,10 @@ public class ReplicationManagerImpl implements ReplicationManager {
 
 		List<ObjectDataDTO> objectDTOs = provider.getObjectData(ids, MAX_ANNOTATION_CHARS);
 
-		// Connect only to the index for this table
-
-		TableIndexDAO indexDao = connectionFactory.getConnection(IdAndVersion.parse(objectId));
-
-		replicateInIndex(indexDao, objectType, objectDTOs, ids);
+		// The replicated data is used by views on every index database.
+		for (TableIndexDAO indexDao : connectionFactory.getAllConnections()) {
+			replicateInIndex(indexDao, objectType, objectDTOs, ids);
+		}
 	}
 
 	@Override
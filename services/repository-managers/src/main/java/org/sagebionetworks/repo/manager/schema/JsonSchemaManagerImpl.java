@@ -12,6 +12,7 @@ import java.util.Date;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -46,6 +47,8 @@ import org.sagebionetworks.repo.model.schema.Organization;
 import org.sagebionetworks.repo.model.schema.SubSchemaIterable;
 import org.sagebionetworks.repo.model.util.AccessControlListUtil;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
 import org.sagebionetworks.schema.id.OrganizationName;
 import org.sagebionetworks.schema.id.SchemaId;
 import org.sagebionetworks.schema.parser.SchemaIdParser;
@@ -53,6 +56,8 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
 
 @Service
@@ -62,6 +67,8 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 
 	public static final int MAX_ORGANZIATION_NAME_CHARS = 250;
 	public static final int MIN_ORGANZIATION_NAME_CHARS = 6;
+	
+	public static final int MAX_CACHED_VALIDATION_SCHEMAS = 1000;
 
 	@Autowired
 	private OrganizationDao organizationDao;
@@ -71,6 +78,44 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 
 	@Autowired
 	private JsonSchemaDao jsonSchemaDao;
+	
+	/**
+	 * Validation schemas keyed by the versionId of their root schema.
+	 */
+	private final Cache<String, CachedValidationSchema> validationSchemaCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_VALIDATION_SCHEMAS).build();
+	
+	/**
+	 * A validation schema along with the versionId that each $id referenced by the
+	 * schema resolved to when it was built. The content of a schema version never
+	 * changes, but an $id without a semantic version resolves to the latest
+	 * version, which can change.
+	 */
+	private static class CachedValidationSchema {
+		
+		private final String validationSchemaJson;
+		private final Map<String, String> versionIds;
+		
+		CachedValidationSchema(JsonSchema validationSchema, Map<String, String> versionIds) {
+			try {
+				this.validationSchemaJson = EntityFactory.createJSONStringForEntity(validationSchema);
+			} catch (JSONObjectAdapterException e) {
+				throw new IllegalStateException(e);
+			}
+			this.versionIds = versionIds;
+		}
+		
+		/**
+		 * @return A new copy of the validation schema.
+		 */
+		JsonSchema getValidationSchema() {
+			try {
+				return EntityFactory.createEntityFromJSONString(validationSchemaJson, JsonSchema.class);
+			} catch (JSONObjectAdapterException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
 
 	public static final Set<ACCESS_TYPE> ADMIN_PERMISSIONS = Sets.newHashSet(READ, CREATE, CHANGE_PERMISSIONS, UPDATE,
 			DELETE);
@@ -297,6 +342,7 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 	public void truncateAll() {
 		jsonSchemaDao.truncateAll();
 		organizationDao.truncateAll();
+		validationSchemaCache.invalidateAll();
 	}
 
 	@WriteTransaction
@@ -312,6 +358,7 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 					.checkAuthorizationOrElseThrow();
 		}
 		jsonSchemaDao.deleteSchema(versionInfo.getSchemaId());
+		validationSchemaCache.invalidateAll();
 	}
 
 	@WriteTransaction
@@ -328,6 +375,7 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 					.checkAuthorizationOrElseThrow();
 		}
 		jsonSchemaDao.deleteSchemaVersion(versionInfo.getVersionId());
+		validationSchemaCache.invalidateAll();
 	}
 
 	@Override
@@ -378,31 +426,60 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 	}
 	
 	/**
-
+	 * Validation schemas are cached by the versionId of their root schema. A
+	 * cached validation schema is only used if each $id it references still
+	 * resolves to the same version, which only requires a lookup of each versionId.
 	 * 
 	 * @param id
 	 * @return
 	 */
 	@Override
 	public JsonSchema getValidationSchema(String id) {
+		ValidateArgument.required(id, "id");
+		CachedValidationSchema cached = validationSchemaCache.getIfPresent(getSchemaVersionId(id));
+		if (cached != null && isCurrent(cached)) {
+			return cached.getValidationSchema();
+		}
 		Deque<String> visitedStack = new ArrayDeque<String>();
-		return getValidationSchema(visitedStack, id);
+		Map<String, String> versionIds = new LinkedHashMap<String, String>();
+		JsonSchema validationSchema = getValidationSchema(visitedStack, id, versionIds);
+		validationSchemaCache.put(versionIds.get(id), new CachedValidationSchema(validationSchema, versionIds));
+		return validationSchema;
+	}
+	
+	/**
+	 * Does each $id referenced by the given validation schema still resolve to the
+	 * same version?
+	 * 
+	 * @param cached
+	 * @return
+	 */
+	boolean isCurrent(CachedValidationSchema cached) {
+		for (Map.Entry<String, String> entry : cached.versionIds.entrySet()) {
+			if (!entry.getValue().equals(getSchemaVersionId(entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
 	}
 	
 	/**
 	 * Recursively 
 	 * @param visitedSchemas
 	 * @param id
+	 * @param versionIds Gathers the versionId that each visited $id resolved to.
 	 * @return
 	 */
-	JsonSchema getValidationSchema(Deque<String> visitedStack, String id) {
+	JsonSchema getValidationSchema(Deque<String> visitedStack, String id, Map<String, String> versionIds) {
 		// duplicates are allowed but cycles are not
 		if(visitedStack.contains(id)) {
 			throw new IllegalArgumentException("Schema $id: '"+id+"' has a circular dependency");
 		}
 		visitedStack.push(id);
 		// get the base schema
-		JsonSchema baseSchema = getSchema(id);
+		String versionId = getSchemaVersionId(id);
+		versionIds.put(id, versionId);
+		JsonSchema baseSchema = jsonSchemaDao.getSchema(versionId);
 		if(baseSchema.get$defs() == null) {
 			baseSchema.set$defs(new LinkedHashMap<String, JsonSchema>());
 		}
@@ -411,7 +488,7 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 				String local$defsId = createLocal$defsId(subSchema.get$ref());
 				if (!baseSchema.get$defs().containsKey(local$defsId)) {
 					// Load the sub-schema's validation schema
-					JsonSchema validationSubSchema = getValidationSchema(visitedStack, subSchema.get$ref());
+					JsonSchema validationSubSchema = getValidationSchema(visitedStack, subSchema.get$ref(), versionIds);
 					// Merge the $defs from the new schema with the current
 					if (validationSubSchema.get$defs() != null) {
 						baseSchema.get$defs().putAll(validationSubSchema.get$defs());
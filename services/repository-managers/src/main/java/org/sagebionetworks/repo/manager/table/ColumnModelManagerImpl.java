@@ -3,8 +3,10 @@ package org.sagebionetworks.repo.manager.table;
 import static org.sagebionetworks.repo.model.table.ColumnConstants.MY_SQL_MAX_BYTES_PER_ROW;
 import static org.sagebionetworks.repo.model.table.ColumnConstants.MY_SQL_MAX_COLUMNS_PER_TABLE;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +39,8 @@ import org.sagebionetworks.table.query.util.ColumnTypeListMappings;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 
 /**
@@ -48,6 +52,28 @@ import com.google.common.collect.Lists;
 public class ColumnModelManagerImpl implements ColumnModelManager {
 
 	public static final String COLUMN_TYPE_ERROR_TEMPLATE = "A %1$s column cannot be changed to %2$s";
+	/**
+	 * The maximum number of ColumnModels cached by this machine.
+	 */
+	public static final int MAX_CACHED_COLUMN_MODELS = 50_000;
+	/**
+	 * The maximum number of table/view schemas cached by this machine.
+	 */
+	public static final int MAX_CACHED_SCHEMAS = 5_000;
+
+	/**
+	 * ColumnModels are immutable once created so they can be cached by ID
+	 * without any invalidation.
+	 */
+	private final Cache<String, ColumnModel> columnModelCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_COLUMN_MODELS).build();
+	/**
+	 * The schema of each table/view. An entry is only used while the column IDs
+	 * bound to the object still match.
+	 */
+	private final Cache<IdAndVersion, CachedSchema> schemaCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_SCHEMAS).build();
+
 	@Autowired
 	ColumnModelDAO columnModelDao;
 	
@@ -180,6 +206,55 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 		return columnModelDao.getColumnModel(columnId);
 	}
 
+	/**
+	 * Get the ColumnModels for the given IDs. Only the columns that are not
+	 * already cached are loaded from the database. Any ID that does not exist is
+	 * not included in the results.
+	 * 
+	 * @param ids
+	 * @return Map of column ID to a copy of the ColumnModel.
+	 */
+	Map<String, ColumnModel> getCachedColumnModels(List<String> ids) {
+		Map<String, ColumnModel> results = new HashMap<>(ids.size());
+		Set<String> missing = new LinkedHashSet<>();
+		for (String id : ids) {
+			ColumnModel cached = columnModelCache.getIfPresent(id);
+			if (cached != null) {
+				results.put(id, copyColumnModel(cached));
+			} else {
+				missing.add(id);
+			}
+		}
+		if (!missing.isEmpty()) {
+			for (ColumnModel loaded : columnModelDao.getColumnModels(new ArrayList<>(missing))) {
+				columnModelCache.put(loaded.getId(), loaded);
+				results.put(loaded.getId(), copyColumnModel(loaded));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Cached ColumnModels are shared so each caller is given its own copy.
+	 * 
+	 * @param toCopy
+	 * @return
+	 */
+	static ColumnModel copyColumnModel(ColumnModel toCopy) {
+		ColumnModel copy = new ColumnModel();
+		copy.setId(toCopy.getId());
+		copy.setName(toCopy.getName());
+		copy.setDefaultValue(toCopy.getDefaultValue());
+		copy.setColumnType(toCopy.getColumnType());
+		copy.setMaximumSize(toCopy.getMaximumSize());
+		copy.setMaximumListLength(toCopy.getMaximumListLength());
+		copy.setFacetType(toCopy.getFacetType());
+		if (toCopy.getEnumValues() != null) {
+			copy.setEnumValues(new ArrayList<>(toCopy.getEnumValues()));
+		}
+		return copy;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.repo.manager.table.ColumnModelManager#getColumnModels(java.util.List)
@@ -188,12 +263,11 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 	public List<ColumnModel> getAndValidateColumnModels(List<String> ids)
 			throws DatastoreException, NotFoundException {
 		ValidateArgument.required(ids, "ColumnModel IDs");
-		List<ColumnModel> fromDb =  columnModelDao.getColumnModels(ids);
-		Map<String, ColumnModel> resultMap = TableModelUtils.createIdToColumnModelMap(fromDb);
+		Map<String, ColumnModel> resultMap = getCachedColumnModels(ids);
 		// column IDs must be unique.
-		Set<String> visitedIds = new HashSet<>(fromDb.size());
+		Set<String> visitedIds = new HashSet<>(resultMap.size());
 		// column names must be unique.
-		Set<String> visitedNames = new HashSet<>(fromDb.size());
+		Set<String> visitedNames = new HashSet<>(resultMap.size());
 		List<ColumnModel> results = new LinkedList<>();
 		for(String id: ids) {
 			ColumnModel cm = resultMap.get(id);
@@ -235,6 +309,7 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 		// Get the columns and validate the size
 		List<ColumnModel> schema = validateSchemaSize(columnIds);
 		columnModelDao.bindColumnToObject(schema, idAndVersion);
+		schemaCache.invalidate(idAndVersion);
 		return schema;
 	}
 	
@@ -382,12 +457,16 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 	@Override
 	public void unbindAllColumnsAndOwnerFromObject(String objectId) {
 		columnModelDao.deleteOwner(objectId);
+		Long id = KeyFactory.stringToKey(objectId);
+		schemaCache.asMap().keySet().removeIf(key -> key.getId().equals(id));
 	}
 
 	@Override
 	public boolean truncateAllColumnData(UserInfo user) {
 		if(user == null) throw new IllegalArgumentException("User cannot be null");
 		if(!user.isAdmin()) throw new UnauthorizedException("Only an Administrator can call this method");
+		columnModelCache.invalidateAll();
+		schemaCache.invalidateAll();
 		return this.columnModelDao.truncateAllColumnData();
 	}
 
@@ -431,8 +510,7 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 				columnIds.add(change.getOldColumnId());
 			}
 		}
-		List<ColumnModel> models = columnModelDao.getColumnModels(columnIds);
-		Map<String, ColumnModel> map = TableModelUtils.createIdToColumnModelMap(models);
+		Map<String, ColumnModel> map = getCachedColumnModels(columnIds);
 		// Build up the results
 		List<ColumnChangeDetails> details = new LinkedList<>();
 		for(ColumnChange change: changes){
@@ -483,14 +561,64 @@ public class ColumnModelManagerImpl implements ColumnModelManager {
 		return columnModelDao.getColumnModelIdsForObject(removeVersionAsNeeded(idAndVersion));
 	}
 
+	/**
+	 * Only the IDs of the columns bound to the object are read from the database.
+	 * The ColumnModels come from the cache. A cached schema is used only while
+	 * its column IDs, in order, match the current binding. The schema MD5 ignores
+	 * the column order so it cannot be used for this check. This keeps each
+	 * machine correct when the schema is bound on another machine.
+	 */
 	@Override
 	public List<ColumnModel> getColumnModelsForObject(IdAndVersion idAndVersion) {
-		return columnModelDao.getColumnModelsForObject(removeVersionAsNeeded(idAndVersion));
+		IdAndVersion key = removeVersionAsNeeded(idAndVersion);
+		List<String> columnIds = columnModelDao.getColumnModelIdsForObject(key);
+		CachedSchema cached = schemaCache.getIfPresent(key);
+		if (cached != null && cached.getColumnIds().equals(columnIds)) {
+			List<ColumnModel> results = new ArrayList<>(cached.getSchema().size());
+			for (ColumnModel cm : cached.getSchema()) {
+				results.add(copyColumnModel(cm));
+			}
+			return results;
+		}
+		Map<String, ColumnModel> idToModel = getCachedColumnModels(columnIds);
+		List<ColumnModel> results = new ArrayList<>(columnIds.size());
+		List<ColumnModel> toCache = new ArrayList<>(columnIds.size());
+		for (String id : columnIds) {
+			ColumnModel cm = idToModel.get(id);
+			if (cm != null) {
+				results.add(cm);
+				toCache.add(copyColumnModel(cm));
+			}
+		}
+		schemaCache.put(key, new CachedSchema(columnIds, toCache));
+		return results;
 	}
 
 	@Override
 	public ColumnModel createColumnModel(ColumnModel columnModel) {
 		return columnModelDao.createColumnModel(columnModel);
 	}
+
+	/**
+	 * The schema of a table/view with the column IDs it was built from.
+	 */
+	private static class CachedSchema {
+
+		private final List<String> columnIds;
+		private final List<ColumnModel> schema;
+
+		CachedSchema(List<String> columnIds, List<ColumnModel> schema) {
+			this.columnIds = new ArrayList<>(columnIds);
+			this.schema = schema;
+		}
+
+		List<String> getColumnIds() {
+			return columnIds;
+		}
+
+		List<ColumnModel> getSchema() {
+			return schema;
+		}
+	}
 	
 }
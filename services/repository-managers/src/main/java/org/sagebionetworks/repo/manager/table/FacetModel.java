@@ -140,9 +140,21 @@ public class FacetModel {
 		return result;
 	}
 	
+	/**
+	 * The given query filtered by the search conditions of the given facets. The
+	 * given query is returned as is when none of the facets filter it, so it is
+	 * not copied and translated again.
+	 * 
+	 * @param sqlQuery
+	 * @param validatedFacets
+	 * @return
+	 */
 	static SqlQuery generateFacetFilteredQuery(SqlQuery sqlQuery, List<FacetRequestColumnModel> validatedFacets){
 		ValidateArgument.required(sqlQuery, "sqlQuery");
 		ValidateArgument.required(validatedFacets, "validatedFacets");
+		if (FacetUtils.concatFacetSearchConditionStrings(validatedFacets, null) == null) {
+			return sqlQuery;
+		}
 		try{
 			QuerySpecification modifiedQuerySpecification = FacetUtils.appendFacetSearchConditionToQuerySpecification(sqlQuery.getModel(), validatedFacets);
 
@@ -152,6 +164,8 @@ public class FacetModel {
 					.includeRowIdAndRowVersion(sqlQuery.includesRowIdAndVersion())
 					.tableType(sqlQuery.getTableType())
 					.selectedFacets(sqlQuery.getSelectedFacets())
+					.seekPagination(sqlQuery.isSeekPagination())
+					.afterRowId(sqlQuery.getAfterRowId())
 					.build();
 		}catch (ParseException e){
 			throw new RuntimeException(e);
@@ -0,0 +1,47 @@
+package org.sagebionetworks.repo.manager.table;
+
+import org.sagebionetworks.repo.model.table.Query;
+
+/**
+ * The next page of a query, as captured by a
+ * {@link org.sagebionetworks.repo.model.table.QueryNextPageToken}.
+ *
+ */
+public class NextPageQuery {
+
+	Query query;
+	Long afterRowId;
+
+	/**
+	 *
+	 * @param query      The query of the next page.
+	 * @param afterRowId For a query paginated by ROW_ID, the ROW_ID of the last
+	 *                   row of the previous page. Null for a query paginated with
+	 *                   an offset.
+	 */
+	public NextPageQuery(Query query, Long afterRowId) {
+		super();
+		this.query = query;
+		this.afterRowId = afterRowId;
+	}
+
+	/**
+	 * The query of the next page.
+	 *
+	 * @return
+	 */
+	public Query getQuery() {
+		return query;
+	}
+
+	/**
+	 * For a query paginated by ROW_ID, the ROW_ID of the last row of the previous
+	 * page. Null for a query paginated with an offset.
+	 *
+	 * @return
+	 */
+	public Long getAfterRowId() {
+		return afterRowId;
+	}
+
+}
@@ -0,0 +1,249 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * An Iterator over the rows of a CSV that parses the CSV on a background thread
+ * and validates the values of the rows in chunks on a pool of threads, so
+ * parsing and validating the CSV overlaps with appending the rows to the table.
+ * The rows are returned in the order of the CSV.
+ * <p>
+ * Each value is replaced with the value produced by
+ * {@link TableModelUtils#validateRowValue(String, ColumnModel, int, int)}, so
+ * an invalid value is reported with its row number in the CSV. The number of
+ * chunks read ahead of the consumer is bounded.
+ * <p>
+ * The CSV must be consumed by a single thread. The iterator must be closed
+ * before closing the source of the CSV, {@link #close()} waits for the thread
+ * reading the source to stop.
+ *
+ */
+public class ParallelCSVRowIterator implements Iterator<SparseRowDto>, Closeable {
+
+	private final Iterator<SparseRowDto> source;
+	private final ExecutorService validationExecutor;
+	private final int chunkSize;
+	private final Map<String, ColumnModel> schemaMap;
+	private final Map<String, Integer> columnIndexMap;
+	private final BlockingQueue<Future<List<SparseRowDto>>> chunks;
+	private final CountDownLatch readerStopped;
+	/**
+	 * The thread reading the source while it runs, guarded by this lock.
+	 */
+	private final Object readerLock;
+	private Thread readerThread;
+
+	private Iterator<SparseRowDto> currentChunk;
+	private boolean done;
+	private volatile boolean closed;
+
+	/**
+	 *
+	 * @param source             The rows of the CSV. Read from the reader
+	 *                           executor.
+	 * @param schema
+	 * @param readerExecutor     Runs the thread reading the source, which blocks
+	 *                           while the maximum number of chunks are waiting to
+	 *                           be consumed.
+	 * @param validationExecutor The threads validating the chunks.
+	 * @param chunkSize          The number of rows in each chunk.
+	 * @param maxPendingChunks   The maximum number of chunks read ahead of the
+	 *                           consumer.
+	 */
+	public ParallelCSVRowIterator(Iterator<SparseRowDto> source, List<ColumnModel> schema, ExecutorService readerExecutor,
+			ExecutorService validationExecutor, int chunkSize, int maxPendingChunks) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(schema, "schema");
+		ValidateArgument.required(readerExecutor, "readerExecutor");
+		ValidateArgument.required(validationExecutor, "validationExecutor");
+		ValidateArgument.requirement(chunkSize > 0, "chunkSize must be greater than zero");
+		ValidateArgument.requirement(maxPendingChunks > 0, "maxPendingChunks must be greater than zero");
+		this.source = source;
+		this.validationExecutor = validationExecutor;
+		this.chunkSize = chunkSize;
+		this.schemaMap = new HashMap<>(schema.size());
+		this.columnIndexMap = new HashMap<>(schema.size());
+		for (int i = 0; i < schema.size(); i++) {
+			ColumnModel cm = schema.get(i);
+			schemaMap.put(cm.getId(), cm);
+			columnIndexMap.put(cm.getId(), i);
+		}
+		this.chunks = new ArrayBlockingQueue<>(maxPendingChunks);
+		this.currentChunk = Collections.emptyIterator();
+		this.done = false;
+		this.closed = false;
+		this.readerStopped = new CountDownLatch(1);
+		this.readerLock = new Object();
+		readerExecutor.execute(this::readChunks);
+	}
+
+	/**
+	 * Read the source in chunks, submitting each chunk to be validated. An empty
+	 * chunk marks the end of the source.
+	 */
+	private void readChunks() {
+		synchronized (readerLock) {
+			readerThread = Thread.currentThread();
+		}
+		long rowIndex = 0;
+		try {
+			while (!closed) {
+				List<SparseRowDto> chunk = new ArrayList<>(chunkSize);
+				while (chunk.size() < chunkSize && source.hasNext()) {
+					chunk.add(source.next());
+				}
+				if (chunk.isEmpty()) {
+					chunks.put(CompletableFuture.completedFuture(chunk));
+					return;
+				}
+				final long firstRowIndex = rowIndex;
+				rowIndex += chunk.size();
+				chunks.put(validationExecutor.submit(() -> validateChunk(chunk, firstRowIndex)));
+			}
+		} catch (InterruptedException e) {
+			// closed by the consumer
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			CompletableFuture<List<SparseRowDto>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			try {
+				chunks.put(failed);
+			} catch (InterruptedException e1) {
+				Thread.currentThread().interrupt();
+			}
+		} finally {
+			synchronized (readerLock) {
+				readerThread = null;
+				// the thread goes back to the pool, so it must not be interrupted by close() anymore.
+				Thread.interrupted();
+			}
+			readerStopped.countDown();
+		}
+	}
+
+	/**
+	 * Validate each value of the given chunk, replacing it with the validated
+	 * value.
+	 *
+	 * @param chunk
+	 * @param firstRowIndex The index in the CSV of the first row of the chunk.
+	 * @return
+	 */
+	List<SparseRowDto> validateChunk(List<SparseRowDto> chunk, long firstRowIndex) {
+		int rowIndex = (int) firstRowIndex;
+		for (SparseRowDto row : chunk) {
+			if (row.getValues() != null) {
+				for (Map.Entry<String, String> entry : row.getValues().entrySet()) {
+					ColumnModel cm = schemaMap.get(entry.getKey());
+					if (cm != null) {
+						entry.setValue(TableModelUtils.validateRowValue(entry.getValue(), cm, rowIndex, columnIndexMap.get(entry.getKey())));
+					}
+				}
+			}
+			rowIndex++;
+		}
+		return chunk;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentChunk.hasNext()) {
+			if (done) {
+				return false;
+			}
+			List<SparseRowDto> chunk = takeNextChunk();
+			if (chunk.isEmpty()) {
+				done = true;
+				return false;
+			}
+			currentChunk = chunk.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public SparseRowDto next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentChunk.next();
+	}
+
+	private List<SparseRowDto> takeNextChunk() {
+		try {
+			return chunks.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			done = true;
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Stop reading the source and discard any chunk that was not consumed. Waits
+	 * for the thread reading the source to stop, so the source can be closed once
+	 * this returns.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		done = true;
+		synchronized (readerLock) {
+			if (readerThread != null) {
+				readerThread.interrupt();
+			}
+		}
+		// unblock a reader waiting for space in the queue.
+		discardPendingChunks();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				readerStopped.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		discardPendingChunks();
+	}
+
+	private void discardPendingChunks() {
+		Future<List<SparseRowDto>> pending;
+		while ((pending = chunks.poll()) != null) {
+			pending.cancel(true);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Not supported");
+	}
+}
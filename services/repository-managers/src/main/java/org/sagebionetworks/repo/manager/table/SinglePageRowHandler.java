@@ -1,6 +1,6 @@
 package org.sagebionetworks.repo.manager.table;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.dao.table.RowHandler;
@@ -11,14 +11,28 @@ import org.sagebionetworks.repo.model.table.Row;
  *
  */
 public class SinglePageRowHandler implements RowHandler {
-	
-	List<Row> rows = new LinkedList<Row>();
+
+	List<Row> rows;
+
+	public SinglePageRowHandler() {
+		this.rows = new ArrayList<Row>();
+	}
+
+	/**
+	 * Create a handler with the given initial capacity. The handler still grows
+	 * if more rows are captured.
+	 *
+	 * @param initialCapacity
+	 */
+	public SinglePageRowHandler(int initialCapacity) {
+		this.rows = new ArrayList<Row>(initialCapacity);
+	}
 
 	@Override
 	public void nextRow(Row row) {
 		rows.add(row);
 	}
-	
+
 	/**
 	 * Get the captured rows.
 	 * @return
@@ -344,6 +344,8 @@ public class TableEntityManagerImpl implements TableEntityManager {
 		if (coutToReserver < delta.getRowCount()) {
 			// Validate that this update does not contain any row level conflicts.
 			checkForRowLevelConflict(delta.getTableId(), delta);
+			// Later updates can use the row version index starting with this version.
+			tableRowTruthDao.startRowVersionIndex(delta.getTableId(), range.getVersionNumber());
 		}
 		// Now assign the rowIds and set the version number
 		TableModelUtils.assignRowIdsAndVersionNumbers(delta, range);
@@ -429,22 +431,30 @@ public class TableEntityManagerImpl implements TableEntityManager {
 		}
 		final Set<Long> deltaRowIds = rowIdToRowVersionNumberFromUpdate.keySet();
 		if(!deltaRowIds.isEmpty()){
-			// Need to check all changes that have been applied since the version of the delta?
-			List<TableRowChange> rowChanges = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersion(tableIdString, versionOfDelta);
-			// scan all changes greater than this row.
+			// The row version index covers most changes applied since the version of the delta.
+			Set<Long> changedRowIds = tableRowTruthDao.getRowIdsChangedAfterVersion(tableIdString, deltaRowIds, versionOfDelta);
+			if (!changedRowIds.isEmpty()) {
+				throwRowConflict(changedRowIds.iterator().next());
+			}
+			// Changes that are not in the index must be scanned.
+			List<TableRowChange> rowChanges = tableRowTruthDao.listRowSetsKeysNotInRowVersionIndex(tableIdString, versionOfDelta);
 			for (final TableRowChange rowChange : rowChanges) {
 				if(TableChangeType.ROW.equals(rowChange.getChangeType())){
 					SparseChangeSetDto change = tableRowTruthDao.getRowSet(rowChange);
 					for(SparseRowDto row: change.getRows()){
 						if (deltaRowIds.contains(row.getRowId())) {
-							throw new ConflictingUpdateException("Row id: " + row.getRowId()
-									+ " has been changed since last read.  Please get the latest value for this row and then attempt to update it again.");
+							throwRowConflict(row.getRowId());
 						}			
 					}
 				}
 			}
 		}
 	}
+	
+	private static void throwRowConflict(Long rowId) {
+		throw new ConflictingUpdateException("Row id: " + rowId
+				+ " has been changed since last read.  Please get the latest value for this row and then attempt to update it again.");
+	}
 
 	@Deprecated
 	@Override
@@ -929,6 +939,11 @@ public class TableEntityManagerImpl implements TableEntityManager {
 			return wrapped.getEtag();
 		}
 
+		@Override
+		public Long getRowCount() {
+			return wrapped.getRowCount();
+		}
+
 		@Override
 		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
 				throws NotFoundException, IOException {
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -16,6 +17,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.table.change.ListColumnIndexTableChange;
+import org.sagebionetworks.repo.manager.table.change.PrefetchingTableChangeIterator;
 import org.sagebionetworks.repo.manager.table.change.TableChangeMetaData;
 import org.sagebionetworks.repo.manager.table.metadata.DefaultColumnModel;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
@@ -62,13 +64,23 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	public static final int MAX_MYSQL_INDEX_COUNT = 60; // mysql only supports a max of 64 secondary indices per table.
 
 	public static final long MAX_BYTES_PER_BATCH = 1024*1024*5;// 5MB
+	
+	/**
+	 * The maximum number of table changes loaded ahead of time while building a table index.
+	 */
+	public static final int MAX_PREFETCH_CHANGES = 4;
+	/**
+	 * The maximum total number of rows of the table changes loaded ahead of time while building a table index.
+	 */
+	public static final long MAX_PREFETCH_ROWS = 500_000L;
 
 	private final TableIndexDAO tableIndexDao;
 	private final TableManagerSupport tableManagerSupport;
 	private final MetadataIndexProviderFactory metadataIndexProviderFactory;
 	private final ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+	private final ExecutorService tableChangePrefetchExecutorService;
 
-	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory){
+	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory, ExecutorService tableChangePrefetchExecutorService){
 		if(dao == null){
 			throw new IllegalArgumentException("TableIndexDAO cannot be null");
 		}
@@ -81,10 +93,14 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		if (objectFieldModelResolverFactory == null) {
 			throw new IllegalArgumentException("ObjectFieldModelResolverFactory cannot be null");
 		}
+		if (tableChangePrefetchExecutorService == null) {
+			throw new IllegalArgumentException("ExecutorService cannot be null");
+		}
 		this.tableIndexDao = dao;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metadataIndexProviderFactory = metadataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
+		this.tableChangePrefetchExecutorService = tableChangePrefetchExecutorService;
 	}
 	/*
 	 * (non-Javadoc)
@@ -591,6 +607,9 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	/**
 	 * Build the table index up to the latest change.  The caller must hold the table's exclusive lock and manage
 	 * the status of the table.
+	 * <p>
+	 * The data of the next few changes is loaded in the background while the current change is applied, see
+	 * {@link PrefetchingTableChangeIterator}.
 	 * @param tableId
 	 * @param iterator
 	 * @param lastChangeNumber
@@ -601,20 +620,29 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	String buildIndexToLatestChange(final IdAndVersion idAndVersion, final Iterator<TableChangeMetaData> iterator,
 			final long targetChangeNumber, final String tableResetToken) throws NotFoundException, IOException {
 		String lastEtag = null;
-		// Inspect each change.
-		while(iterator.hasNext()) {
-			TableChangeMetaData changeMetadata = iterator.next();
-			if(changeMetadata.getChangeNumber() > targetChangeNumber) {
-				// all changes have been applied to the index.
-				break;
-			}
-			if(!isVersionAppliedToIndex(idAndVersion, changeMetadata.getChangeNumber())) {
-				// This change needs to be applied to the table
-				tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
-						tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
-						targetChangeNumber);
-				applyChangeToIndex(idAndVersion, changeMetadata);
-				lastEtag = changeMetadata.getETag();
+		/*
+		 * Changes are applied in order while holding the exclusive lock, so any change
+		 * after the current version of the index still needs to be applied.
+		 */
+		final long currentIndexVersion = getCurrentVersionOfIndex(idAndVersion);
+		try (PrefetchingTableChangeIterator prefetchIterator = new PrefetchingTableChangeIterator(iterator,
+				tableChangePrefetchExecutorService, currentIndexVersion, targetChangeNumber, MAX_PREFETCH_CHANGES,
+				MAX_PREFETCH_ROWS)) {
+			// Inspect each change.
+			while(prefetchIterator.hasNext()) {
+				TableChangeMetaData changeMetadata = prefetchIterator.next();
+				if(changeMetadata.getChangeNumber() > targetChangeNumber) {
+					// all changes have been applied to the index.
+					break;
+				}
+				if(changeMetadata.getChangeNumber() > currentIndexVersion) {
+					// This change needs to be applied to the table
+					tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
+							tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
+							targetChangeNumber);
+					applyChangeToIndex(idAndVersion, changeMetadata);
+					lastEtag = changeMetadata.getETag();
+				}
 			}
 		}
 
@@ -0,0 +1,27 @@
+package org.sagebionetworks.repo.manager.table;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.table.cluster.TableIndexPlacementListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds the index of a table that was moved to another database.
+ *
+ */
+@Service
+public class TableIndexPlacementListenerImpl implements TableIndexPlacementListener {
+
+	private TableManagerSupport tableManagerSupport;
+
+	@Autowired
+	public TableIndexPlacementListenerImpl(TableManagerSupport tableManagerSupport) {
+		this.tableManagerSupport = tableManagerSupport;
+	}
+
+	@Override
+	public void placementChanged(IdAndVersion tableId) {
+		tableManagerSupport.setTableToProcessingAndTriggerUpdate(tableId);
+	}
+
+}
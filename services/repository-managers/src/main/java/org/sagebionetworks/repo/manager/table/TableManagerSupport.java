@@ -363,7 +363,9 @@ public interface TableManagerSupport {
 
 	/**
 	 * Only Administrator can perform this action.
-	 * Trigger a table/ view to be rebuilt.
+	 * Trigger a table/ view to be rebuilt. The table is first moved to the index
+	 * database currently selected for it, see:
+	 * {@link org.sagebionetworks.table.cluster.ConnectionFactory#rebalance(IdAndVersion)}
 	 * 
 	 * @param userInfo
 	 * @param tableId
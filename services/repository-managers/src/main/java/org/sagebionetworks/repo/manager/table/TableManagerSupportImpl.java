@@ -33,6 +33,7 @@ import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.MessageToSend;
+import org.sagebionetworks.repo.model.message.TransactionSynchronizationProxy;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.TableState;
@@ -51,6 +52,7 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.workers.util.semaphore.WriteReadSemaphoreRunner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
 
 @Service
 public class TableManagerSupportImpl implements TableManagerSupport {
@@ -85,6 +87,10 @@ public class TableManagerSupportImpl implements TableManagerSupport {
 	private MetadataIndexProviderFactory metadataIndexProviderFactory;
 	@Autowired
 	private DefaultColumnModelMapper defaultColumnMapper;
+	@Autowired
+	private ViewActivitySignalDebouncer viewActivitySignalDebouncer;
+	@Autowired
+	private TransactionSynchronizationProxy transactionSynchronization;
 	
 	/*
 	 * (non-Javadoc)
@@ -132,10 +138,25 @@ public class TableManagerSupportImpl implements TableManagerSupport {
 		
 		// Currently we only signal non-snapshot views.
 		if(ObjectType.ENTITY_VIEW.equals(tableType) && !idAndVersion.getVersion().isPresent()) {
+			// A view queried many times in a row only needs to be signaled once per window.
+			if(!viewActivitySignalDebouncer.shouldSendSignal(idAndVersion.getId())) {
+				return;
+			}
 			// notify all listeners.
 			transactionalMessenger.sendMessageAfterCommit( new MessageToSend().withObjectId(idAndVersion.getId().toString())
 					.withObjectVersion(idAndVersion.getVersion().orElse(null))
 					.withObjectType(tableType).withChangeType(ChangeType.UPDATE));
+			// The message is only sent if the transaction commits.
+			if (transactionSynchronization.isActualTransactionActive()) {
+				transactionSynchronization.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						viewActivitySignalDebouncer.signalSent(idAndVersion.getId());
+					}
+				});
+			} else {
+				viewActivitySignalDebouncer.signalSent(idAndVersion.getId());
+			}
 		}
 	}
 
@@ -494,8 +515,9 @@ public class TableManagerSupportImpl implements TableManagerSupport {
 	public void rebuildTable(UserInfo userInfo, IdAndVersion idAndVersion) {
 		if (!userInfo.isAdmin())
 			throw new UnauthorizedException("Only an administrator may access this service.");
+		// The table is moved to the database selected for it, which drops the index on the old database.
+		TableIndexDAO indexDao = tableConnectionFactory.rebalance(idAndVersion);
 		// purge
-		TableIndexDAO indexDao = tableConnectionFactory.getConnection(idAndVersion);
 		if (indexDao != null) {
 			indexDao.deleteTable(idAndVersion);
 		}
@@ -1,11 +1,22 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.common.util.progress.ProgressingCallable;
@@ -45,7 +56,7 @@ import org.sagebionetworks.table.query.ParseException;
 import org.sagebionetworks.table.query.TableQueryParser;
 import org.sagebionetworks.table.query.model.Pagination;
 import org.sagebionetworks.table.query.model.QuerySpecification;
-import org.sagebionetworks.table.query.model.WhereClause;
+import org.sagebionetworks.table.query.model.TableExpression;
 import org.sagebionetworks.table.query.util.SimpleAggregateQueryException;
 import org.sagebionetworks.table.query.util.SqlElementUntils;
 import org.sagebionetworks.util.ValidateArgument;
@@ -54,9 +65,57 @@ import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 public class TableQueryManagerImpl implements TableQueryManager {
 
 	public static final long MAX_ROWS_PER_CALL = 100;
+	/**
+	 * Upper bound on the number of row slots allocated up front for a single
+	 * page. Pages larger than this grow the buffer as rows arrive.
+	 */
+	public static final int MAX_PREALLOCATED_ROWS = 1000;
+	/**
+	 * The maximum number of bytes of query results cached by this machine.
+	 */
+	public static final long MAX_CACHED_QUERY_RESULT_BYTES = 100L * 1024L * 1024L;
+	/**
+	 * Cached query results are dropped after this number of minutes, even when
+	 * the table did not change.
+	 */
+	public static final long QUERY_RESULT_CACHE_EXPIRE_MINUTES = 10;
+	/**
+	 * The estimated size of a cached count or sum of file sizes.
+	 */
+	static final int CACHED_VALUE_SIZE_BYTES = 100;
+
+	/**
+	 * The results of the count, facet, sum-file-size and page queries run
+	 * against the table indices, shared by all users. Each key includes the
+	 * status of the index the query ran against, so an entry is never used once
+	 * the index changes. See: {@link #createQueryCacheKey(TableStatus, String, String, Map)}
+	 */
+	private final Cache<String, CachedQueryResult> queryResultCache = CacheBuilder.newBuilder()
+			.maximumWeight(MAX_CACHED_QUERY_RESULT_BYTES)
+			.weigher((String key, CachedQueryResult value) -> value.sizeBytes)
+			.expireAfterWrite(QUERY_RESULT_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+
+	/**
+	 * The result of a query along with its estimated size.
+	 */
+	private static class CachedQueryResult {
+
+		private final Object result;
+		private final int sizeBytes;
+
+		CachedQueryResult(Object result, int sizeBytes) {
+			this.result = result;
+			this.sizeBytes = sizeBytes;
+		}
+	}
 
 	@Autowired
 	TableManagerSupport tableManagerSupport;
@@ -67,11 +126,29 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	 * Injected via spring
 	 */
 	long maxBytesPerRequest;
+	
+	/**
+	 * Injected via spring
+	 */
+	ExecutorService tableQueryExecutorService;
+	
+	/**
+	 * Injected via spring
+	 */
+	int maxConcurrentSubQueriesPerRequest = 1;
 
 	public void setMaxBytesPerRequest(long maxBytesPerRequest) {
 		this.maxBytesPerRequest = maxBytesPerRequest;
 	}
 
+	public void setTableQueryExecutorService(ExecutorService tableQueryExecutorService) {
+		this.tableQueryExecutorService = tableQueryExecutorService;
+	}
+
+	public void setMaxConcurrentSubQueriesPerRequest(int maxConcurrentSubQueriesPerRequest) {
+		this.maxConcurrentSubQueriesPerRequest = maxConcurrentSubQueriesPerRequest;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -83,16 +160,36 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	@Override
 	public QueryResultBundle querySinglePage(ProgressCallback progressCallback, UserInfo user, Query query, QueryOptions options)
 			throws TableUnavailableException, TableFailedException, LockUnavilableException {
+		return querySinglePage(progressCallback, user, query, null, options);
+	}
+
+	/**
+	 * Query a single page of the given query.
+	 * 
+	 * @param progressCallback
+	 * @param user
+	 * @param query
+	 * @param afterRowId       For the next page of a query paginated by ROW_ID,
+	 *                         the ROW_ID of the last row of the previous page.
+	 * @param options
+	 * @return
+	 * @throws TableUnavailableException
+	 * @throws TableFailedException
+	 * @throws LockUnavilableException
+	 */
+	QueryResultBundle querySinglePage(ProgressCallback progressCallback, UserInfo user, Query query, Long afterRowId,
+			QueryOptions options) throws TableUnavailableException, TableFailedException, LockUnavilableException {
 		try {
 			// Set the default values
 			TableQueryManagerImpl.setDefaultsValues(query);
+			// pre-flight includes parsing and authorization.
+			boolean seekPagination = afterRowId != null || isFirstPage(query);
+			SqlQuery sqlQuery = queryPreflight(user, query, this.maxBytesPerRequest, seekPagination, afterRowId);
 			// handler will capture the results of the query.
 			SinglePageRowHandler rowHandler = null;
 			if (options.runQuery()) {
-				rowHandler = new SinglePageRowHandler();
+				rowHandler = new SinglePageRowHandler(getCapturedRowCapacity(sqlQuery));
 			}
-			// pre-flight includes parsing and authorization
-			SqlQuery sqlQuery = queryPreflight(user, query, this.maxBytesPerRequest);
 
 			// run the query as a stream.
 			QueryResultBundle bundle = queryAsStream(progressCallback, user, sqlQuery, rowHandler, options);
@@ -108,9 +205,18 @@ public class TableQueryManagerImpl implements TableQueryManager {
 			int maxRowsPerPage = sqlQuery.getMaxRowsPerPage().intValue();
 			// add the next page token if needed
 			if (isRowCountEqualToMaxRowsPerPage(bundle, maxRowsPerPage)) {
-				long nextOffset = (query.getOffset() == null ? 0 : query.getOffset()) + maxRowsPerPage;
-				QueryNextPageToken nextPageToken = TableQueryUtils.createNextPageToken(query.getSql(), query.getSort(),
-						nextOffset, query.getLimit(), query.getIsConsistent(), query.getSelectedFacets());
+				QueryNextPageToken nextPageToken;
+				List<Row> rows = bundle.getQueryResult().getQueryResults().getRows();
+				Long lastRowId = rows.get(rows.size() - 1).getRowId();
+				if (sqlQuery.isSeekPagination() && lastRowId != null) {
+					// the next page starts after the last row of this page.
+					nextPageToken = TableQueryUtils.createNextPageToken(query.getSql(), query.getSort(), null,
+							query.getLimit(), query.getIsConsistent(), query.getSelectedFacets(), lastRowId);
+				} else {
+					long nextOffset = (query.getOffset() == null ? 0 : query.getOffset()) + maxRowsPerPage;
+					nextPageToken = TableQueryUtils.createNextPageToken(query.getSql(), query.getSort(), nextOffset,
+							query.getLimit(), query.getIsConsistent(), query.getSelectedFacets());
+				}
 				bundle.getQueryResult().setNextPageToken(nextPageToken);
 			}
 			return bundle;
@@ -121,6 +227,36 @@ public class TableQueryManagerImpl implements TableQueryManager {
 
 	}
 
+	/**
+	 * Is the given query the first page of its results? The first page of a query
+	 * that supports it is ordered by ROW_ID, so the next page can seek past its
+	 * last row. A page reached with an offset keeps offset paging since the
+	 * previous pages were not ordered by ROW_ID.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	static boolean isFirstPage(Query query) {
+		return query.getOffset() == null || query.getOffset() == 0L;
+	}
+
+	/**
+	 * The initial capacity of the buffer that captures a single page of the
+	 * given query: the number of rows the page can return, capped at
+	 * {@link #MAX_PREALLOCATED_ROWS}.
+	 *
+	 * @param query
+	 * @return
+	 */
+	static int getCapturedRowCapacity(SqlQuery query) {
+		long capacity = query.getMaxRowsPerPage() == null ? MAX_ROWS_PER_CALL : query.getMaxRowsPerPage();
+		if (query.getOverrideLimit() != null) {
+			capacity = Math.min(capacity, query.getOverrideLimit());
+		}
+		capacity = Math.min(capacity, MAX_PREALLOCATED_ROWS);
+		return (int) Math.max(0, capacity);
+	}
+
 	/**
 	 * Query pre-flight includes the following:
 	 * <ol>
@@ -142,6 +278,27 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	 */
 	SqlQuery queryPreflight(UserInfo user, Query query, Long maxBytesPerPage)
 			throws EmptyResultException, NotFoundException, TableUnavailableException, TableFailedException {
+		return queryPreflight(user, query, maxBytesPerPage, false, null);
+	}
+
+	/**
+	 * See: {@link #queryPreflight(UserInfo, Query, Long)}
+	 * 
+	 * @param user
+	 * @param query
+	 * @param maxBytesPerPage
+	 * @param seekPagination  When true, a query that supports it is paginated by
+	 *                        ROW_ID.
+	 * @param afterRowId      The ROW_ID of the last row of the previous page of a
+	 *                        query paginated by ROW_ID.
+	 * @return
+	 * @throws EmptyResultException
+	 * @throws NotFoundException
+	 * @throws TableUnavailableException
+	 * @throws TableFailedException
+	 */
+	SqlQuery queryPreflight(UserInfo user, Query query, Long maxBytesPerPage, boolean seekPagination, Long afterRowId)
+			throws EmptyResultException, NotFoundException, TableUnavailableException, TableFailedException {
 		ValidateArgument.required(user, "UserInfo");
 		ValidateArgument.required(query, "Query");
 		ValidateArgument.required(query.getSql(), "Query");
@@ -169,7 +326,8 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		return new SqlQueryBuilder(model).tableSchema(columnModels).overrideOffset(query.getOffset())
 				.overrideLimit(query.getLimit()).maxBytesPerPage(maxBytesPerPage).isConsistent(query.getIsConsistent())
 				.includeEntityEtag(query.getIncludeEntityEtag()).selectedFacets(query.getSelectedFacets())
-				.sortList(query.getSort()).additionalFilters(query.getAdditionalFilters()).tableType(tableType).build();
+				.sortList(query.getSort()).additionalFilters(query.getAdditionalFilters()).tableType(tableType)
+				.seekPagination(seekPagination).afterRowId(afterRowId).build();
 	}
 
 	/**
@@ -206,7 +364,7 @@ public class TableQueryManagerImpl implements TableQueryManager {
 						final TableStatus status = validateTableIsAvailable(query.getTableId());
 						// run the query
 						QueryResultBundle bundle = queryAsStreamAfterAuthorization(progressCallback, query,
-								rowHandler, options);
+								rowHandler, options, status);
 						// add the status to the result
 						if (rowHandler != null) {
 							// the etag is only returned for consistent queries.
@@ -268,6 +426,28 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	QueryResultBundle queryAsStreamAfterAuthorization(ProgressCallback progressCallback, SqlQuery query,
 			RowHandler rowHandler, final QueryOptions options)
 			throws TableUnavailableException, TableFailedException, LockUnavilableException {
+		return queryAsStreamAfterAuthorization(progressCallback, query, rowHandler, options, null);
+	}
+
+	/**
+	 * See: {@link #queryAsStreamAfterAuthorization(ProgressCallback, SqlQuery, RowHandler, QueryOptions)}
+	 * 
+	 * @param progressCallback
+	 * @param query
+	 * @param rowHandler
+	 * @param options
+	 * @param status           The status of the index while the read lock of the
+	 *                         table is held. The results of the queries are cached
+	 *                         for this status. Null for a query run without a read
+	 *                         lock, which is never cached.
+	 * @return
+	 * @throws TableUnavailableException
+	 * @throws TableFailedException
+	 * @throws LockUnavilableException
+	 */
+	QueryResultBundle queryAsStreamAfterAuthorization(ProgressCallback progressCallback, SqlQuery query,
+			RowHandler rowHandler, final QueryOptions options, final TableStatus status)
+			throws TableUnavailableException, TableFailedException, LockUnavilableException {
 		// build up the response.
 		QueryResultBundle bundle = new QueryResultBundle();
 		if(options.returnColumnModels()) {
@@ -290,33 +470,67 @@ public class TableQueryManagerImpl implements TableQueryManager {
 			queryToRun = query;
 		}
 
-		// run the actual query if needed.
-		if (rowHandler != null) {
-			// run the query
-			RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao);
-			QueryResult queryResult = new QueryResult();
-			queryResult.setQueryResults(rowSet);
-			bundle.setQueryResult(queryResult);
-		}
-
+		/*
+		 * The count, facet and sum-file-size queries are independent read-only
+		 * queries, so they are started on the query executor and run while the main
+		 * query is streamed on this thread.
+		 */
+		List<Callable<Void>> subQueries = new ArrayList<>();
 		// run the count query if needed.
 		if (options.runCount()) {
-			// count requested.
-			Long count = runCountQuery(queryToRun, indexDao);
-			bundle.setQueryCount(count);
+			subQueries.add(() -> {
+				// count requested.
+				Long count = runCountQuery(queryToRun, indexDao, status);
+				bundle.setQueryCount(count);
+				return null;
+			});
 		}
 
 		// run the facet counts if needed
+		FacetColumnResult[] facetResults = null;
 		if (options.returnFacets()) {
 			// use original query instead of queryToRun because need the where clause that
 			// was not modified by any facets
-			List<FacetColumnResult> facetResults = runFacetQueries(facetModel, indexDao);
-			bundle.setFacets(facetResults);
+			List<FacetTransformer> transformers = facetModel.getFacetInformationQueries();
+			facetResults = new FacetColumnResult[transformers.size()];
+			for (int i = 0; i < transformers.size(); i++) {
+				final int index = i;
+				final FacetColumnResult[] results = facetResults;
+				subQueries.add(() -> {
+					results[index] = runFacetQuery(transformers.get(index), indexDao, status);
+					return null;
+				});
+			}
 		}
 		
 		if(options.runSumFileSizes()) {
-			SumFileSizes sumFileSizes = runSumFileSize(queryToRun, indexDao);
-			bundle.setSumFileSizes(sumFileSizes);
+			subQueries.add(() -> {
+				SumFileSizes sumFileSizes = runSumFileSize(queryToRun, indexDao, status);
+				bundle.setSumFileSizes(sumFileSizes);
+				return null;
+			});
+		}
+
+		List<Future<Void>> subQueryFutures = startSubQueries(subQueries);
+		try {
+			// run the actual query if needed.
+			if (rowHandler != null) {
+				// run the query
+				RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao, status);
+				QueryResult queryResult = new QueryResult();
+				queryResult.setQueryResults(rowSet);
+				bundle.setQueryResult(queryResult);
+			}
+			waitForSubQueries(subQueryFutures);
+		} finally {
+			// cancel anything still running if the main query or a sub-query failed.
+			for (Future<Void> future : subQueryFutures) {
+				future.cancel(true);
+			}
+		}
+
+		if (facetResults != null) {
+			bundle.setFacets(new ArrayList<>(Arrays.asList(facetResults)));
 		}
 		
 		if(options.returnLastUpdatedOn()) {
@@ -343,12 +557,91 @@ public class TableQueryManagerImpl implements TableQueryManager {
 
 		List<FacetColumnResult> facetResults = new ArrayList<>();
 		for (FacetTransformer facetQueryTransformer : facetModel.getFacetInformationQueries()) {
-			RowSet rowSet = indexDao.query(null, facetQueryTransformer.getFacetSqlQuery());
-			facetResults.add(facetQueryTransformer.translateToResult(rowSet));
+			facetResults.add(runFacetQuery(facetQueryTransformer, indexDao, null));
 		}
 		return facetResults;
 	}
 
+	/**
+	 * Run a single facet query (enumeration count or range min/max), using the
+	 * cached rows of the facet query for the given status of the index.
+	 * 
+	 * @param facetQueryTransformer
+	 * @param indexDao
+	 * @param status                Null to always run the query.
+	 * @return
+	 */
+	FacetColumnResult runFacetQuery(FacetTransformer facetQueryTransformer, TableIndexDAO indexDao, TableStatus status) {
+		SqlQuery facetQuery = facetQueryTransformer.getFacetSqlQuery();
+		// the selected values are applied to the rows, so only the rows are cached.
+		RowSet rowSet = runCachedQuery(status, "facet", facetQuery.getOutputSQL(), facetQuery.getParameters(),
+				() -> indexDao.query(null, facetQuery),
+				(RowSet rows) -> estimateSizeBytes(rows.getRows() == null ? 0 : rows.getRows().size(), facetQuery));
+		return facetQueryTransformer.translateToResult(rowSet);
+	}
+
+	/**
+	 * Start the given sub-queries on the query executor. At most
+	 * {@link #maxConcurrentSubQueriesPerRequest} of the sub-queries for a single
+	 * request will run at the same time; the rest are chained behind them so one
+	 * faceted query cannot take over the executor (or the index connection pool).
+	 * 
+	 * @param subQueries
+	 * @return A future for each sub-query, in the same order as the sub-queries.
+	 */
+	List<Future<Void>> startSubQueries(List<Callable<Void>> subQueries) {
+		int lanes = Math.max(1, Math.min(maxConcurrentSubQueriesPerRequest, subQueries.size()));
+		List<List<Callable<Void>>> laneQueries = new ArrayList<>(lanes);
+		for (int i = 0; i < lanes; i++) {
+			laneQueries.add(new ArrayList<>());
+		}
+		for (int i = 0; i < subQueries.size(); i++) {
+			laneQueries.get(i % lanes).add(subQueries.get(i));
+		}
+		List<Future<Void>> futures = new ArrayList<>(lanes);
+		for (List<Callable<Void>> lane : laneQueries) {
+			if (!lane.isEmpty()) {
+				futures.add(tableQueryExecutorService.submit(() -> {
+					for (Callable<Void> subQuery : lane) {
+						if (Thread.currentThread().isInterrupted()) {
+							throw new InterruptedException("Query was cancelled");
+						}
+						subQuery.call();
+					}
+					return null;
+				}));
+			}
+		}
+		return futures;
+	}
+
+	/**
+	 * Wait for all of the given sub-queries to finish. An interruption of the
+	 * calling thread (the worker was stopped) or a failure of any sub-query is
+	 * propagated to the caller.
+	 * 
+	 * @param futures
+	 */
+	static void waitForSubQueries(List<Future<Void>> futures) {
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+	}
+
 	/**
 	 * For the given bundle, is the number of rows equal to the maximum rows per
 	 * page? This is used to determine if a next page token should be included with
@@ -374,9 +667,9 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	@Override
 	public QueryResult queryNextPage(ProgressCallback progressCallback, UserInfo user, QueryNextPageToken nextPageToken)
 			throws TableUnavailableException, TableFailedException, LockUnavilableException {
-		Query query = TableQueryUtils.createQueryFromNextPageToken(nextPageToken);
+		NextPageQuery nextPage = TableQueryUtils.createNextPageQueryFromToken(nextPageToken);
 		QueryOptions options = new QueryOptions().withRunQuery(true).withRunCount(false).withReturnFacets(false).withRunSumFileSizes(false);;
-		QueryResultBundle queryResult = querySinglePage(progressCallback, user, query, options);
+		QueryResultBundle queryResult = querySinglePage(progressCallback, user, nextPage.getQuery(), nextPage.getAfterRowId(), options);
 		return queryResult.getQueryResult();
 	}
 
@@ -481,17 +774,41 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	}
 
 	/**
-	 * The last step to running an actaul query against the table as a stream.
+	 * The last step to running an actaul query against the table as a stream,
+	 * using the cached rows of the page for the given status of the index. Only
+	 * the rows of a single page are cached, the rows streamed to any other handler
+	 * (a download) are always read from the index.
 	 * 
 	 * @param callback
 	 * @param query
 	 * @param rowHandler
+	 * @param indexDao
+	 * @param status     Null to always run the query.
 	 * @return
 	 */
-	RowSet runQueryAsStream(ProgressCallback callback, SqlQuery query, RowHandler rowHandler, TableIndexDAO indexDao) {
+	RowSet runQueryAsStream(ProgressCallback callback, SqlQuery query, RowHandler rowHandler, TableIndexDAO indexDao,
+			TableStatus status) {
 		ValidateArgument.required(query, "query");
 		ValidateArgument.required(rowHandler, "rowHandler");
-		indexDao.queryAsStream(callback, query, rowHandler);
+		if (status == null || !(rowHandler instanceof SinglePageRowHandler)) {
+			indexDao.queryAsStream(callback, query, rowHandler);
+		} else {
+			SinglePageRowHandler pageHandler = (SinglePageRowHandler) rowHandler;
+			List<Row> cachedRows = runCachedQuery(status, "page", query.getOutputSQL(), query.getParameters(), () -> {
+				indexDao.queryAsStream(callback, query, pageHandler);
+				List<Row> rows = new ArrayList<>(pageHandler.getRows().size());
+				for (Row row : pageHandler.getRows()) {
+					rows.add(copyRow(row));
+				}
+				return rows;
+			}, (List<Row> rows) -> estimateSizeBytes(rows.size(), query));
+			if (pageHandler.getRows().isEmpty()) {
+				// The query was not run, each caller is given its own copy of the cached rows.
+				for (Row row : cachedRows) {
+					pageHandler.nextRow(copyRow(row));
+				}
+			}
+		}
 		RowSet results = new RowSet();
 		results.setHeaders(query.getSelectColumns());
 		results.setTableId(query.getTableId());
@@ -499,17 +816,21 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	}
 
 	/**
-	 * Run a count query.
+	 * Run a count query, using the cached count for the given status of the
+	 * index.
 	 * 
 	 * @param query
+	 * @param indexDao
+	 * @param status   Null to always run the query.
 	 * @return
 	 */
-	long runCountQuery(SqlQuery query, TableIndexDAO indexDao) {
+	long runCountQuery(SqlQuery query, TableIndexDAO indexDao, TableStatus status) {
 		try {
 			// create the count SQL from the already transformed model.
 			String countSql = SqlElementUntils.createCountSql(query.getTransformedModel());
 			// execute the count query
-			Long count = indexDao.countQuery(countSql, query.getParameters());
+			Long count = runCachedQuery(status, "count", countSql, query.getParameters(),
+					() -> indexDao.countQuery(countSql, query.getParameters()), (Long value) -> CACHED_VALUE_SIZE_BYTES);
 
 			/*
 			 * Post processing for count. When a limit and/or offset is specified in a
@@ -536,13 +857,15 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	}
 	
 	/**
-	 * Run the queries to get the sum of the file sizes (bytes) for the given query.
+	 * Run the queries to get the sum of the file sizes (bytes) for the given
+	 * query, using the cached sum for the given status of the index.
 	 * 
 	 * @param query
 	 * @param indexDao
+	 * @param status   Null to always run the query.
 	 * @return
 	 */
-	SumFileSizes runSumFileSize(SqlQuery query, TableIndexDAO indexDao) {
+	SumFileSizes runSumFileSize(SqlQuery query, TableIndexDAO indexDao, TableStatus status) {
 		SumFileSizes result = new SumFileSizes();
 		result.setGreaterThan(false);
 		result.setSumFileSizesBytes(0L);
@@ -551,12 +874,16 @@ public class TableQueryManagerImpl implements TableQueryManager {
 			try {
 				// first get the rowIds for the given query up to the limit + 1.
 				String sqlSelectIds = SqlElementUntils.buildSqlSelectRowIds(query.getTransformedModel(), MAX_ROWS_PER_CALL+1L);
-				List<Long> rowIds = indexDao.getRowIds(sqlSelectIds, query.getParameters());
-				boolean isGreaterThan = rowIds.size() > MAX_ROWS_PER_CALL;
-				result.setGreaterThan(isGreaterThan);
-				// Use the rowIds to calculate the sum of the file sizes.
-				long sumFileSizesBytes = indexDao.getSumOfFileSizes(ViewObjectType.ENTITY, rowIds);
-				result.setSumFileSizesBytes(sumFileSizesBytes);
+				SumFileSizes sum = runCachedQuery(status, "sumFileSizes", sqlSelectIds, query.getParameters(), () -> {
+					List<Long> rowIds = indexDao.getRowIds(sqlSelectIds, query.getParameters());
+					SumFileSizes loaded = new SumFileSizes();
+					loaded.setGreaterThan(rowIds.size() > MAX_ROWS_PER_CALL);
+					// Use the rowIds to calculate the sum of the file sizes.
+					loaded.setSumFileSizesBytes(indexDao.getSumOfFileSizes(ViewObjectType.ENTITY, rowIds));
+					return loaded;
+				}, (SumFileSizes value) -> CACHED_VALUE_SIZE_BYTES);
+				result.setGreaterThan(sum.getGreaterThan());
+				result.setSumFileSizesBytes(sum.getSumFileSizesBytes());
 			} catch (SimpleAggregateQueryException e) {
 				// zero results will be returned for this case.
 				result.setGreaterThan(false);
@@ -568,6 +895,105 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	
 	
 
+	/**
+	 * Run the given query against the index, unless the result of the same query
+	 * against the given status of the index is cached. The result is only cached
+	 * when a status is provided.
+	 * 
+	 * @param status     The status of the index while the read lock of the table
+	 *                   is held. Null to always run the query.
+	 * @param queryType  Distinguishes the results of different types of queries
+	 *                   with the same SQL.
+	 * @param sql        The SQL run against the index.
+	 * @param parameters The parameters bound to the SQL.
+	 * @param query      Runs the query against the index.
+	 * @param sizer      Estimates the size of a result in bytes.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T runCachedQuery(TableStatus status, String queryType, String sql, Map<String, Object> parameters,
+			Supplier<T> query, ToIntFunction<T> sizer) {
+		if (status == null) {
+			return query.get();
+		}
+		String key = createQueryCacheKey(status, queryType, sql, parameters);
+		CachedQueryResult cached = queryResultCache.getIfPresent(key);
+		if (cached != null) {
+			return (T) cached.result;
+		}
+		T result = query.get();
+		if (result != null) {
+			queryResultCache.put(key, new CachedQueryResult(result, sizer.applyAsInt(result)));
+		}
+		return result;
+	}
+
+	/**
+	 * Create the key of a query run against the given status of a table's index.
+	 * The status includes the etag of the last change applied to the index, the
+	 * reset token of the index, and the time the index last changed, which is
+	 * updated when the rows of a view change. A row level filter is bound to the
+	 * parameters, so each set of accessible benefactors has its own key.
+	 * 
+	 * @param status
+	 * @param queryType
+	 * @param sql
+	 * @param parameters
+	 * @return
+	 */
+	static String createQueryCacheKey(TableStatus status, String queryType, String sql, Map<String, Object> parameters) {
+		Hasher hasher = Hashing.sha256().newHasher();
+		putKeyPart(hasher, status.getTableId());
+		putKeyPart(hasher, status.getVersion());
+		putKeyPart(hasher, status.getLastTableChangeEtag());
+		putKeyPart(hasher, status.getResetToken());
+		putKeyPart(hasher, status.getChangedOn() == null ? null : status.getChangedOn().getTime());
+		putKeyPart(hasher, queryType);
+		putKeyPart(hasher, sql);
+		if (parameters != null) {
+			for (Map.Entry<String, Object> entry : new TreeMap<>(parameters).entrySet()) {
+				putKeyPart(hasher, entry.getKey());
+				putKeyPart(hasher, entry.getValue());
+			}
+		}
+		return hasher.hash().toString();
+	}
+
+	private static void putKeyPart(Hasher hasher, Object part) {
+		hasher.putString(String.valueOf(part), StandardCharsets.UTF_8);
+		// separate the parts so the concatenation of two parts cannot collide.
+		hasher.putChar('\0');
+	}
+
+	/**
+	 * Estimate the size of the given number of rows of the given query.
+	 * 
+	 * @param rowCount
+	 * @param query
+	 * @return
+	 */
+	static int estimateSizeBytes(int rowCount, SqlQuery query) {
+		long size = CACHED_VALUE_SIZE_BYTES + ((long) rowCount) * query.getMaxRowSizeBytes();
+		return (int) Math.min(Integer.MAX_VALUE, size);
+	}
+
+	/**
+	 * Copy the given row, including its values.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	static Row copyRow(Row row) {
+		Row copy = new Row();
+		copy.setRowId(row.getRowId());
+		copy.setVersionNumber(row.getVersionNumber());
+		copy.setEtag(row.getEtag());
+		if (row.getValues() != null) {
+			copy.setValues(new ArrayList<>(row.getValues()));
+		}
+		return copy;
+	}
+
 	/**
 	 * Parser a query and convert ParseExceptions to IllegalArgumentExceptions
 	 * 
@@ -681,56 +1107,30 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		ViewScopeType scopeType = tableManagerSupport.getViewScopeType(idAndVersion);
 		// Get the sub-set of benefactors visible to the user.
 		Set<Long> accessibleBenefactors = tableManagerSupport.getAccessibleBenefactors(user, scopeType, tableBenefactors);
-		return buildBenefactorFilter(query, accessibleBenefactors);
+		// the query was parsed for this request, so the filter is applied to it directly.
+		appendBenefactorFilter(query, accessibleBenefactors);
+		return query;
 	}
 
 	/**
-	 * Build a new query with a benefactor filter applied to the SQL from the passed
-	 * query.
+	 * Append a benefactor filter to the WHERE clause of the given query:
+	 * 'WHERE ( original ) AND ROW_BENEFACTOR IN ( ... )'. The filter is built
+	 * from elements, so neither the original WHERE clause nor the (potentially
+	 * long) list of benefactors is written to SQL and parsed.
 	 * 
-	 * @param originalQuery
+	 * @param query                 The query is modified.
 	 * @param accessibleBenefactors
-	 * @return
-	 * @throws EmptyResultException
 	 */
-	public static QuerySpecification buildBenefactorFilter(QuerySpecification originalQuery,
-			Set<Long> accessibleBenefactors) {
-		ValidateArgument.required(originalQuery, "originalQuery");
+	static void appendBenefactorFilter(QuerySpecification query, Set<Long> accessibleBenefactors) {
+		ValidateArgument.required(query, "query");
 		ValidateArgument.required(accessibleBenefactors, "accessibleBenefactors");
 		if (accessibleBenefactors.isEmpty()) {
 			// There are no negative benefactorIds so this set would create a filter that
 			// matches no rows
 			accessibleBenefactors = Collections.singleton(-1L);
 		}
-		// copy the original model
-		try {
-			QuerySpecification modelCopy = new TableQueryParser(originalQuery.toSql()).querySpecification();
-			WhereClause where = originalQuery.getTableExpression().getWhereClause();
-			StringBuilder filterBuilder = new StringBuilder();
-			filterBuilder.append("WHERE ");
-			if (where != null) {
-				filterBuilder.append("(");
-				filterBuilder.append(where.getSearchCondition().toSql());
-				filterBuilder.append(") AND ");
-			}
-			filterBuilder.append(TableConstants.ROW_BENEFACTOR);
-			filterBuilder.append(" IN (");
-			boolean isFirst = true;
-			for (Long id : accessibleBenefactors) {
-				if (!isFirst) {
-					filterBuilder.append(",");
-				}
-				filterBuilder.append(id);
-				isFirst = false;
-			}
-			filterBuilder.append(")");
-			// create the new where
-			where = new TableQueryParser(filterBuilder.toString()).whereClause();
-			modelCopy.getTableExpression().replaceWhere(where);
-			// return a copy
-			return modelCopy;
-		} catch (ParseException e) {
-			throw new RuntimeException(e);
-		}
+		TableExpression tableExpression = query.getTableExpression();
+		tableExpression.replaceWhere(SqlElementUntils.createCombinedWhereClause(tableExpression.getWhereClause(),
+				SqlElementUntils.createInPredicate(TableConstants.ROW_BENEFACTOR, accessibleBenefactors)));
 	}
 }
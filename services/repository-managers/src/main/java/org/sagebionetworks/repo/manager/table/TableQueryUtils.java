@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.List;
 
@@ -21,7 +22,8 @@ public class TableQueryUtils {
 
 	private static final UnmodifiableXStream X_STREAM = UnmodifiableXStream.builder()
 			.alias("Query", Query.class)
-			.allowTypes(Query.class)
+			.alias("NextPageQuery", NextPageQuery.class)
+			.allowTypes(Query.class, NextPageQuery.class)
 			.build();
 
 	/**
@@ -30,15 +32,37 @@ public class TableQueryUtils {
 	 * @return
 	 */
 	public static Query createQueryFromNextPageToken(QueryNextPageToken nextPageToken) {
+		return createNextPageQueryFromToken(nextPageToken).getQuery();
+	}
+	
+	/**
+	 * Extract the query and the ROW_ID to start after from a next page token.
+	 * @param nextPageToken
+	 * @return
+	 */
+	public static NextPageQuery createNextPageQueryFromToken(QueryNextPageToken nextPageToken) {
 		if (nextPageToken == null || StringUtils.isEmpty(nextPageToken.getToken())) {
 			throw new IllegalArgumentException("Next page token cannot be empty");
 		}
+		Object next;
 		try {
-			Query query = (Query) X_STREAM.fromXML(nextPageToken.getToken(), new Query());
-			return query;
+			next = X_STREAM.fromXML(new StringReader(nextPageToken.getToken()));
 		} catch (Throwable t) {
 			throw new IllegalArgumentException("Not a valid next page token", t);
 		}
+		NextPageQuery nextPage;
+		if (next instanceof NextPageQuery) {
+			nextPage = (NextPageQuery) next;
+		} else if (next instanceof Query) {
+			// the next page of a query paginated with an offset.
+			nextPage = new NextPageQuery((Query) next, null);
+		} else {
+			throw new IllegalArgumentException("Not a valid next page token");
+		}
+		if (nextPage.getQuery() == null) {
+			throw new IllegalArgumentException("Not a valid next page token");
+		}
+		return nextPage;
 	}
 	
 	/**
@@ -50,6 +74,19 @@ public class TableQueryUtils {
 	 * @return
 	 */
 	public static QueryNextPageToken createNextPageToken(String sql, List<SortItem> sortList, Long nextOffset, Long limit, boolean isConsistent, List<FacetColumnRequest> selectedFacets) {
+		return createNextPageToken(sql, sortList, nextOffset, limit, isConsistent, selectedFacets, null);
+	}
+	
+	/**
+	 * Create a QueryNextPageToken from a sql string.
+	 * @param sql
+	 * @param nextOffset
+	 * @param limit
+	 * @param isConsistent
+	 * @param afterRowId For a query paginated by ROW_ID, the ROW_ID of the last row of the current page.
+	 * @return
+	 */
+	public static QueryNextPageToken createNextPageToken(String sql, List<SortItem> sortList, Long nextOffset, Long limit, boolean isConsistent, List<FacetColumnRequest> selectedFacets, Long afterRowId) {
 		Query query = new Query();
 		query.setSql(sql);
 		query.setSort(sortList);
@@ -59,7 +96,11 @@ public class TableQueryUtils {
 		query.setSelectedFacets(selectedFacets);
 
 		StringWriter writer = new StringWriter(sql.length() + 50);
-		X_STREAM.toXML(query, writer);
+		if (afterRowId == null) {
+			X_STREAM.toXML(query, writer);
+		} else {
+			X_STREAM.toXML(new NextPageQuery(query, afterRowId), writer);
+		}
 		QueryNextPageToken nextPageToken = new QueryNextPageToken();
 		nextPageToken.setToken(writer.toString());
 		return nextPageToken;
@@ -0,0 +1,42 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.sagebionetworks.repo.manager.migration.MigrationTypeListener;
+import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableIdSequence;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * The row version index is not migrated. Migration deletes and restores the
+ * table sequences with foreign key checks disabled so the index is not removed
+ * by cascade and would no longer match the restored row changes. The index of
+ * each restored table is deleted and will be started again with the next row
+ * update of the table.
+ *
+ */
+@Service
+public class TableRowVersionIndexMigrationListener implements MigrationTypeListener {
+
+	private TableRowTruthDAO tableRowTruthDao;
+
+	@Autowired
+	public TableRowVersionIndexMigrationListener(TableRowTruthDAO tableRowTruthDao) {
+		this.tableRowTruthDao = tableRowTruthDao;
+	}
+
+	@Override
+	public <D extends DatabaseObject<?>> void afterCreateOrUpdate(MigrationType type, List<D> delta) {
+		if (!MigrationType.TABLE_SEQUENCE.equals(type)) {
+			return;
+		}
+		List<Long> tableIds = delta.stream().map(d -> ((DBOTableIdSequence) d).getTableId())
+				.collect(Collectors.toList());
+		tableRowTruthDao.deleteRowVersionIndex(tableIds);
+	}
+
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
@@ -27,6 +28,11 @@ import au.com.bytecode.opencsv.CSVReader;
 
 public class TableUploadManagerImpl implements TableUploadManager {
 	
+	// The number of rows validated as a single unit of work.
+	static final int VALIDATION_CHUNK_SIZE = 1000;
+	// The maximum number of chunks read ahead of the rows appended to the table.
+	static final int MAX_PENDING_CHUNKS = 8;
+	
 	@Autowired
 	private TableManagerSupport tableManagerSupport;
 	@Autowired
@@ -35,10 +41,15 @@ public class TableUploadManagerImpl implements TableUploadManager {
 	private SynapseS3Client s3Client;
 	@Autowired
 	private FileProvider fileProvider;
+	@Autowired
+	private ExecutorService tableUploadReaderThreadPool;
+	@Autowired
+	private ExecutorService tableUploadValidationThreadPool;
 
 	@Override
 	public TableUpdateResponse uploadCSV(ProgressCallback progressCallback, UserInfo user, UploadToTableRequest request, UploadRowProcessor rowProcessor) {
 		CSVReader reader = null;
+		ParallelCSVRowIterator rowIterator = null;
 		File tempFile = null;
 		try{
 			// Get the filehandle
@@ -66,14 +77,21 @@ public class TableUploadManagerImpl implements TableUploadManager {
 			// Create the iterator
 			boolean isFirstLineHeader = CSVUtils.isFirstRowHeader(request.getCsvTableDescriptor());
 			CSVToRowIterator iterator = new CSVToRowIterator(tableSchema, reader, isFirstLineHeader, request.getLinesToSkip());
+			// The CSV is parsed and validated ahead of the rows appended to the table
+			rowIterator = new ParallelCSVRowIterator(iterator, tableSchema, tableUploadReaderThreadPool,
+					tableUploadValidationThreadPool, VALIDATION_CHUNK_SIZE, MAX_PENDING_CHUNKS);
 			// Append the data to the table
 			return rowProcessor.processRows(user, request.getTableId(),
-					tableSchema, iterator, request.getUpdateEtag(), progressCallback);
+					tableSchema, rowIterator, request.getUpdateEtag(), progressCallback);
 		} catch (UnsupportedEncodingException e) {
 			throw new RuntimeException(e);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}finally{
+			if(rowIterator != null){
+				// Stop reading the file before it is closed.
+				rowIterator.close();
+			}
 			if(reader != null){
 				try {
 					// Unconditionally close the stream to the S3 file.
@@ -0,0 +1,161 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Limits the activity signals sent for each view on this machine to at most one
+ * per window. A view that is queried many times a second would otherwise send a
+ * change message for every query, even though the view worker only needs to
+ * know that the view is still in use.
+ * <p>
+ * A signal is only recorded with {@link #signalSent(Long)} once it was
+ * actually sent, so a rolled back signal does not suppress the next one. The
+ * state is kept in memory, so each machine sends its own signals. This class
+ * is thread safe.
+ *
+ */
+public class ViewActivitySignalDebouncer {
+
+	/**
+	 * Expired entries are removed once more than this number of views are
+	 * tracked.
+	 */
+	public static final int MAX_TRACKED_VIEWS = 10_000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "View-Activity-Signals-";
+	public static final String METRIC_SENT = "Sent view activity signals";
+	public static final String METRIC_SUPPRESSED = "Suppressed view activity signals";
+
+	private final Clock clock;
+	private final long windowMS;
+	/**
+	 * The time of the last signal sent for each view.
+	 */
+	private final ConcurrentMap<Long, Long> lastSignalMS;
+	private final AtomicLong sentCount;
+	private final AtomicLong suppressedCount;
+
+	@Autowired
+	Consumer cloudWatch;
+
+	@Autowired
+	StackConfiguration stackConfig;
+
+	/**
+	 *
+	 * @param clock
+	 * @param windowMS The minimum amount of time in MS between two signals for
+	 *                 the same view.
+	 */
+	public ViewActivitySignalDebouncer(Clock clock, long windowMS) {
+		ValidateArgument.required(clock, "clock");
+		ValidateArgument.requirement(windowMS >= 0, "windowMS cannot be negative");
+		this.clock = clock;
+		this.windowMS = windowMS;
+		this.lastSignalMS = new ConcurrentHashMap<>();
+		this.sentCount = new AtomicLong(0L);
+		this.suppressedCount = new AtomicLong(0L);
+	}
+
+	/**
+	 * Should a signal be sent for the given view now? True if no signal was sent
+	 * for the view within the window. The caller is expected to call
+	 * {@link #signalSent(Long)} once the signal is sent.
+	 *
+	 * @param viewId
+	 * @return
+	 */
+	public boolean shouldSendSignal(Long viewId) {
+		ValidateArgument.required(viewId, "viewId");
+		Long last = lastSignalMS.get(viewId);
+		if (last == null || clock.currentTimeMillis() - last >= windowMS) {
+			return true;
+		}
+		suppressedCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Record that a signal was sent for the given view, so no other signal is
+	 * allowed for the view until the window has passed.
+	 *
+	 * @param viewId
+	 */
+	public void signalSent(Long viewId) {
+		ValidateArgument.required(viewId, "viewId");
+		long now = clock.currentTimeMillis();
+		lastSignalMS.merge(viewId, now, Math::max);
+		sentCount.incrementAndGet();
+		if (lastSignalMS.size() > MAX_TRACKED_VIEWS) {
+			removeExpired(now);
+		}
+	}
+
+	/**
+	 * Remove the views whose window has passed.
+	 *
+	 * @param now
+	 */
+	void removeExpired(long now) {
+		lastSignalMS.entrySet().removeIf(entry -> now - entry.getValue() >= windowMS);
+	}
+
+	/**
+	 * Called when the timer fires. Push the number of signals sent and suppressed
+	 * since the last timer to CloudWatch. Nothing is pushed while no view is
+	 * queried.
+	 */
+	public void timerFired() {
+		long sent = sentCount.getAndSet(0L);
+		long suppressed = suppressedCount.getAndSet(0L);
+		if (sent < 1 && suppressed < 1) {
+			return;
+		}
+		String namespace = METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance();
+		cloudWatch.addProfileData(createProfileData(namespace, METRIC_SENT, sent));
+		cloudWatch.addProfileData(createProfileData(namespace, METRIC_SUPPRESSED, suppressed));
+	}
+
+	private static ProfileData createProfileData(String namespace, String name, long count) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(namespace);
+		profileData.setName(name);
+		profileData.setValue((double) count);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(new Date());
+		return profileData;
+	}
+
+	/**
+	 * @return The number of signals sent since the last timer.
+	 */
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	/**
+	 * @return The number of signals suppressed since the last timer.
+	 */
+	public long getSuppressedCount() {
+		return suppressedCount.get();
+	}
+
+	/**
+	 * @return The number of views currently tracked.
+	 */
+	public int getTrackedViewCount() {
+		return lastSignalMS.size();
+	}
+}
@@ -0,0 +1,274 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SchemaChange;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.TableChange;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Wraps an iterator of table changes and loads the data of the next few changes
+ * on the provided executor while the caller is applying the current change.
+ * Changes are returned in the same order as the wrapped iterator.
+ * <p>
+ * The read-ahead window is bounded both by the number of changes and by the
+ * total number of rows of the changes in the window, so a run of large change
+ * sets cannot exhaust the heap. The window always holds at least one change, so
+ * a single change that is larger than the row budget is still loaded.
+ * <p>
+ * Only changes with a change number in the range (afterChangeNumber,
+ * lastChangeNumber] are loaded ahead of time; any other change is returned
+ * as-is. The wrapped iterator is not read past the first change after
+ * lastChangeNumber.
+ * <p>
+ * This class is not thread safe, it must only be used by a single thread.
+ *
+ */
+public class PrefetchingTableChangeIterator implements Iterator<TableChangeMetaData>, AutoCloseable {
+
+	private final Iterator<TableChangeMetaData> source;
+	private final ExecutorService executorService;
+	private final long afterChangeNumber;
+	private final long lastChangeNumber;
+	private final int maxChangesInWindow;
+	private final long maxRowsInWindow;
+	private final Deque<PrefetchedChange> window;
+	private long rowsInWindow;
+	/**
+	 * A change read from the source that did not fit in the window yet.
+	 */
+	private TableChangeMetaData pending;
+	private boolean sourceDone;
+
+	/**
+	 *
+	 * @param source             The changes to iterate over, in order.
+	 * @param executorService    Used to load the data of each change.
+	 * @param afterChangeNumber  Changes with a number less than or equal to this
+	 *                           number are not loaded.
+	 * @param lastChangeNumber   Changes with a number greater than this number
+	 *                           are not loaded.
+	 * @param maxChangesInWindow The maximum number of changes loaded ahead of
+	 *                           time.
+	 * @param maxRowsInWindow    The maximum total number of rows of the changes
+	 *                           loaded ahead of time.
+	 */
+	public PrefetchingTableChangeIterator(Iterator<TableChangeMetaData> source, ExecutorService executorService,
+			long afterChangeNumber, long lastChangeNumber, int maxChangesInWindow, long maxRowsInWindow) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(executorService, "executorService");
+		ValidateArgument.requirement(maxChangesInWindow > 0, "maxChangesInWindow must be greater than zero");
+		ValidateArgument.requirement(maxRowsInWindow > 0, "maxRowsInWindow must be greater than zero");
+		this.source = source;
+		this.executorService = executorService;
+		this.afterChangeNumber = afterChangeNumber;
+		this.lastChangeNumber = lastChangeNumber;
+		this.maxChangesInWindow = maxChangesInWindow;
+		this.maxRowsInWindow = maxRowsInWindow;
+		this.window = new ArrayDeque<>(maxChangesInWindow);
+		this.rowsInWindow = 0L;
+		this.pending = null;
+		this.sourceDone = false;
+	}
+
+	@Override
+	public boolean hasNext() {
+		fillWindow();
+		return !window.isEmpty();
+	}
+
+	@Override
+	public TableChangeMetaData next() {
+		fillWindow();
+		if (window.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		PrefetchedChange next = window.removeFirst();
+		rowsInWindow -= next.getRows();
+		// start loading the next change while the caller works on this one.
+		fillWindow();
+		return next.getChange();
+	}
+
+	/**
+	 * Cancel the loading of any change that has not been returned.
+	 */
+	@Override
+	public void close() {
+		for (PrefetchedChange change : window) {
+			change.cancel();
+		}
+		window.clear();
+		rowsInWindow = 0L;
+		pending = null;
+		sourceDone = true;
+	}
+
+	/**
+	 * Pull changes from the source until the window is full.
+	 */
+	void fillWindow() {
+		while (window.size() < maxChangesInWindow) {
+			if (pending == null) {
+				if (sourceDone || !source.hasNext()) {
+					sourceDone = true;
+					return;
+				}
+				pending = source.next();
+			}
+			TableChangeMetaData change = pending;
+			long changeNumber = change.getChangeNumber();
+			if (changeNumber <= afterChangeNumber || changeNumber > lastChangeNumber) {
+				window.addLast(new PrefetchedChange(change, 0L, null));
+				pending = null;
+				if (changeNumber > lastChangeNumber) {
+					// Nothing after this change will be needed.
+					sourceDone = true;
+				}
+				continue;
+			}
+			long rows = getRows(change);
+			if (!window.isEmpty() && rowsInWindow + rows > maxRowsInWindow) {
+				// Wait for the caller to make room before loading this change.
+				return;
+			}
+			window.addLast(new PrefetchedChange(change, rows, executorService.submit(() -> load(change))));
+			rowsInWindow += rows;
+			pending = null;
+		}
+	}
+
+	/**
+	 * The number of rows counted against the row budget for the given change.
+	 *
+	 * @param change
+	 * @return
+	 */
+	static long getRows(TableChangeMetaData change) {
+		Long rowCount = change.getRowCount();
+		if (rowCount == null || rowCount < 1L) {
+			return 1L;
+		}
+		return rowCount;
+	}
+
+	/**
+	 * Load the data of the given change.
+	 *
+	 * @param change
+	 * @return
+	 * @throws NotFoundException
+	 * @throws IOException
+	 */
+	static ChangeData<? extends TableChange> load(TableChangeMetaData change) throws NotFoundException, IOException {
+		TableChangeType type = change.getChangeType();
+		switch (type) {
+		case ROW:
+			return change.loadChangeData(SparseChangeSet.class);
+		case COLUMN:
+			return change.loadChangeData(SchemaChange.class);
+		default:
+			throw new IllegalArgumentException("Unknown type: " + type);
+		}
+	}
+
+	/**
+	 * A single change in the window along with its pending data.
+	 */
+	private static class PrefetchedChange {
+
+		private final TableChangeMetaData change;
+		private final long rows;
+		private final Future<ChangeData<? extends TableChange>> future;
+
+		PrefetchedChange(TableChangeMetaData change, long rows, Future<ChangeData<? extends TableChange>> future) {
+			this.change = change;
+			this.rows = rows;
+			this.future = future;
+		}
+
+		long getRows() {
+			return rows;
+		}
+
+		void cancel() {
+			if (future != null) {
+				future.cancel(true);
+			}
+		}
+
+		TableChangeMetaData getChange() {
+			if (future == null) {
+				return change;
+			}
+			return new PrefetchedTableChangeMetaData(change, future);
+		}
+	}
+
+	/**
+	 * Metadata of a change whose data was loaded ahead of time.
+	 */
+	private static class PrefetchedTableChangeMetaData implements TableChangeMetaData {
+
+		private final TableChangeMetaData wrapped;
+		private final Future<ChangeData<? extends TableChange>> future;
+
+		PrefetchedTableChangeMetaData(TableChangeMetaData wrapped, Future<ChangeData<? extends TableChange>> future) {
+			this.wrapped = wrapped;
+			this.future = future;
+		}
+
+		@Override
+		public Long getChangeNumber() {
+			return wrapped.getChangeNumber();
+		}
+
+		@Override
+		public TableChangeType getChangeType() {
+			return wrapped.getChangeType();
+		}
+
+		@Override
+		public String getETag() {
+			return wrapped.getETag();
+		}
+
+		@Override
+		public Long getRowCount() {
+			return wrapped.getRowCount();
+		}
+
+		@Override
+		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
+				throws NotFoundException, IOException {
+			ChangeData<? extends TableChange> data;
+			try {
+				data = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IOException(cause);
+			}
+			return new ChangeData<>(data.getChangeNumber(), clazz.cast(data.getChange()));
+		}
+	}
+}
@@ -43,4 +43,12 @@ public interface TableChangeMetaData {
 	 * @return
 	 */
 	String getETag();
+
+	/**
+	 * The number of rows in this change, if known. Used to estimate the memory
+	 * needed to hold the change.
+	 * 
+	 * @return
+	 */
+	Long getRowCount();
 }
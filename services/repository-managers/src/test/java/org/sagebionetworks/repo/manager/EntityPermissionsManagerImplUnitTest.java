@@ -14,9 +14,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -26,6 +29,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.StackConfigurationSingleton;
+import org.sagebionetworks.repo.manager.trash.EntityInTrashCanException;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.AccessControlListDAO;
@@ -43,6 +48,7 @@ import org.sagebionetworks.repo.model.UserGroupDAO;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
 import org.sagebionetworks.repo.model.auth.UserEntityPermissions;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.model.project.ProjectCertificationSetting;
@@ -178,6 +184,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		when(mockNodeDao.getBenefactor(projectParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
+		mockAccessTypes(certifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
 				any(ACCESS_TYPE.class))).thenReturn(true);
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
@@ -220,6 +227,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		when(mockNodeDao.getBenefactor(projectParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
+		mockAccessTypes(nonCertifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAclDAO.canAccess(eq(nonCertifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
 				any(ACCESS_TYPE.class))).thenReturn(true);
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(nonCertifiedUserInfo.getId())).thenReturn(true);
@@ -259,10 +267,8 @@ public class EntityPermissionsManagerImplUnitTest {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(projectId)).thenReturn(project);
 		when(mockNodeDao.getBenefactor(projectId)).thenReturn(benefactorId);
-		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
-		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
-				any(ACCESS_TYPE.class))).thenReturn(true);
+		mockAccessTypes(certifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
 
 		restrictionInfoRqst.setObjectId(projectId);
@@ -287,6 +293,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		when(mockNodeDao.getBenefactor(folderParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
+		mockAccessTypes(certifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
 				any(ACCESS_TYPE.class))).thenReturn(true);
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
@@ -329,18 +336,11 @@ public class EntityPermissionsManagerImplUnitTest {
 		when(mockNodeDao.getBenefactor(folderParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
+		// if READ is in the ACL but DOWNLOAD is not in the ACL, then I can't download
+		mockAccessTypes(certifiedUserInfo, EnumSet.complementOf(EnumSet.of(ACCESS_TYPE.DOWNLOAD)));
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
 				any(ACCESS_TYPE.class))).thenReturn(true);
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
-
-		// if READ is in the ACL but DOWNLOAD is not in the ACL, then I can't download
-		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), 
-				eq(ObjectType.ENTITY), eq(ACCESS_TYPE.DOWNLOAD))).thenReturn(false);
-		// check that my mocks are set up correctly
-		assertTrue(mockAclDAO.canAccess(certifiedUserInfo.getGroups(), benefactorId, 
-				ObjectType.ENTITY, ACCESS_TYPE.READ));
-		assertFalse(mockAclDAO.canAccess(certifiedUserInfo.getGroups(), benefactorId, 
-				ObjectType.ENTITY, ACCESS_TYPE.DOWNLOAD));
 		
 		// now on to the test:
 		UserEntityPermissions uep = entityPermissionsManager.
@@ -374,8 +374,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
-		when(mockAclDAO.canAccess(eq(nonCertifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
-				any(ACCESS_TYPE.class))).thenReturn(true);
+		mockAccessTypes(nonCertifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(nonCertifiedUserInfo.getId())).thenReturn(true);
 
 		restrictionInfoRqst.setObjectId(folderId);
@@ -419,11 +418,9 @@ public class EntityPermissionsManagerImplUnitTest {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
 		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
-		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
 		// Simulate full access
-		when(mockAclDAO.canAccess(eq(nonCertifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
-				any(ACCESS_TYPE.class))).thenReturn(true);
+		mockAccessTypes(nonCertifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(nonCertifiedUserInfo.getId())).thenReturn(true);
 		
@@ -472,9 +469,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(dockerRepoId)).thenReturn(dockerRepo);
 		when(mockNodeDao.getBenefactor(dockerRepoId)).thenReturn(benefactorId);
-		when(mockNodeDao.getNodeTypeById(dockerRepoId)).thenReturn(EntityType.dockerrepo);
-		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
-				any(ACCESS_TYPE.class))).thenReturn(true);
+		mockAccessTypes(certifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
 		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
 		restrictionInfoRqst.setObjectId(dockerRepoId);
 		when(mockRestrictionInformationManager.
@@ -503,6 +498,80 @@ public class EntityPermissionsManagerImplUnitTest {
 		
 	}
 
+	@Test
+	public void testGetUserPermissionsForEntityWithPublicRead() {
+		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
+		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
+		mockAccessTypes(certifiedUserInfo, EnumSet.of(ACCESS_TYPE.READ));
+		mockAccessTypes(UserInfoHelper.createAnonymousUserInfo(), EnumSet.of(ACCESS_TYPE.READ));
+		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
+
+		// Method under test.
+		UserEntityPermissions uep = entityPermissionsManager.
+				getUserPermissionsForEntity(certifiedUserInfo, folderId);
+
+		assertTrue(uep.getCanPublicRead());
+		assertTrue(uep.getCanView());
+		assertFalse(uep.getCanEdit());
+		assertFalse(uep.getCanDownload());
+	}
+
+	@Test
+	public void testGetUserPermissionsForEntityInTrash() {
+		String trashId = StackConfigurationSingleton.singleton().getTrashFolderEntityId();
+		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
+		when(mockNodeDao.getBenefactor(folderId)).thenReturn(trashId);
+
+		assertThrows(EntityInTrashCanException.class, () -> {
+			// Method under test.
+			entityPermissionsManager.getUserPermissionsForEntity(certifiedUserInfo, folderId);
+		});
+		verify(mockAclDAO, never()).getAccessTypes(anySet(), anySet(), any(ObjectType.class));
+	}
+
+	@Test
+	public void testGetUserPermissionsForEntities() {
+		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
+		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockNodeDao.getNode(fileId)).thenReturn(file);
+		when(mockNodeDao.getBenefactor(fileId)).thenReturn(benefactorId);
+		mockAccessTypes(certifiedUserInfo, EnumSet.allOf(ACCESS_TYPE.class));
+		when(mockAuthenticationManager.hasUserAcceptedTermsOfUse(certifiedUserInfo.getId())).thenReturn(true);
+		restrictionInfoRqst.setObjectId(folderId);
+		when(mockRestrictionInformationManager.
+				getRestrictionInformation(certifiedUserInfo, restrictionInfoRqst)).
+					thenReturn(noUnmetAccessRqmtResponse);
+		RestrictionInformationRequest fileRestrictionInfoRqst = new RestrictionInformationRequest();
+		fileRestrictionInfoRqst.setRestrictableObjectType(RestrictableObjectType.ENTITY);
+		fileRestrictionInfoRqst.setObjectId(fileId);
+		when(mockRestrictionInformationManager.
+				getRestrictionInformation(certifiedUserInfo, fileRestrictionInfoRqst)).
+					thenReturn(hasUnmetAccessRqmtResponse);
+
+		// Method under test.
+		List<UserEntityPermissions> results = entityPermissionsManager.
+				getUserPermissionsForEntities(certifiedUserInfo, Arrays.asList(folderId, fileId));
+
+		assertEquals(2, results.size());
+		assertTrue(results.get(0).getCanEdit());
+		assertTrue(results.get(0).getCanDownload());
+		assertTrue(results.get(1).getCanEdit());
+		assertFalse(results.get(1).getCanDownload());
+		// both entities share the benefactor so its ACL is only read once.
+		verify(mockAclDAO).getAccessTypes(certifiedUserInfo.getGroups(),
+				Collections.singleton(KeyFactory.stringToKey(benefactorId)), ObjectType.ENTITY);
+		verify(mockAuthenticationManager).hasUserAcceptedTermsOfUse(certifiedUserInfo.getId());
+	}
+
+	/**
+	 * Mock the access types granted to the given user by the ACL of the benefactor.
+	 */
+	private void mockAccessTypes(UserInfo user, Set<ACCESS_TYPE> accessTypes) {
+		Long benefactorKey = KeyFactory.stringToKey(benefactorId);
+		when(mockAclDAO.getAccessTypes(user.getGroups(), Collections.singleton(benefactorKey), ObjectType.ENTITY))
+				.thenReturn(Collections.singletonMap(benefactorKey, accessTypes));
+	}
+	
 	@Test
 	public void testGetNonvisibleChildrenNonAdmin(){
 		// Mock dependencies.
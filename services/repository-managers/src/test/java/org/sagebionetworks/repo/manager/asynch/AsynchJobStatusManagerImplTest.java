@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.manager.asynch;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -50,6 +51,7 @@ import org.sagebionetworks.repo.model.table.DownloadFromTableResult;
 import org.sagebionetworks.repo.model.table.UploadToTableRequest;
 import org.sagebionetworks.repo.model.table.UploadToTableResult;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
 
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 
@@ -78,6 +80,8 @@ public class AsynchJobStatusManagerImplTest {
 	StackConfiguration mockStackConfig;
 	@Mock
 	Consumer mockConsumer;
+	@Mock
+	Clock mockClock;
 	@Captor
 	ArgumentCaptor<ProfileData> profileCaptor;
 	
@@ -554,5 +558,120 @@ public class AsynchJobStatusManagerImplTest {
 		verify(mockAsynchJobQueuePublisher, times(1)).publishMessage(status);
 		verify(mockAsynchJobStatusDao, never()).findCompletedJobStatus(anyString(), anyLong());
 	}
+	
+	/**
+	 * Setup a processing job that can be read by the user.
+	 * 
+	 * @return
+	 */
+	AsynchronousJobStatus setupProcessingJob() {
+		when(mockAuthorizationManager.isUserCreatorOrAdmin(any(UserInfo.class), anyString())).thenReturn(true);
+		AsynchronousJobStatus status = new AsynchronousJobStatus();
+		status.setStartedByUserId(user.getId());
+		status.setJobId("999");
+		status.setEtag("etag-one");
+		status.setJobState(AsynchJobState.PROCESSING);
+		when(mockAsynchJobStatusDao.getJobStatus("999")).thenReturn(status);
+		return status;
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeDifferentEtag() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		// call under test
+		assertSame(status, manager.waitForJobStatusChange(user, "999", "old-etag", 10_000L));
+		verify(mockClock, never()).sleepNoInterrupt(anyLong());
+		verify(mockAsynchJobStatusDao, never()).getJobEtag(anyString());
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeNotProcessing() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		status.setJobState(AsynchJobState.COMPLETE);
+		// call under test
+		assertSame(status, manager.waitForJobStatusChange(user, "999", status.getEtag(), 10_000L));
+		verify(mockClock, never()).sleepNoInterrupt(anyLong());
+	}
+	
+	@Test
+	public void testWaitForJobStatusChange() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		AsynchronousJobStatus changed = new AsynchronousJobStatus();
+		changed.setStartedByUserId(user.getId());
+		changed.setJobId("999");
+		changed.setEtag("etag-two");
+		changed.setJobState(AsynchJobState.COMPLETE);
+		when(mockAsynchJobStatusDao.getJobStatus("999")).thenReturn(status, changed);
+		when(mockAsynchJobStatusDao.getJobEtag("999")).thenReturn("etag-two");
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 0L, 500L);
+		// call under test
+		assertSame(changed, manager.waitForJobStatusChange(user, "999", status.getEtag(), 10_000L));
+		verify(mockClock).sleepNoInterrupt(AsynchJobStatusManagerImpl.WAIT_POLL_INTERVAL_MS);
+		assertEquals(AsynchJobStatusManagerImpl.MAX_CONCURRENT_WAITERS, manager.waiters.availablePermits());
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeSharesEtagReads() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		when(mockAsynchJobStatusDao.getJobEtag("999")).thenReturn(status.getEtag());
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 0L, 500L, 500L, 1000L, 1000L);
+		// call under test
+		assertSame(status, manager.waitForJobStatusChange(user, "999", status.getEtag(), 1000L));
+		verify(mockClock, times(2)).sleepNoInterrupt(AsynchJobStatusManagerImpl.WAIT_POLL_INTERVAL_MS);
+		// the second check uses the cached etag
+		verify(mockAsynchJobStatusDao, times(1)).getJobEtag("999");
+		verify(mockAsynchJobStatusDao, times(1)).getJobStatus("999");
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeTimeout() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		when(mockAsynchJobStatusDao.getJobEtag("999")).thenReturn(status.getEtag());
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 0L, 300L, 300L);
+		// call under test
+		assertSame(status, manager.waitForJobStatusChange(user, "999", status.getEtag(), 300L));
+		verify(mockClock).sleepNoInterrupt(300L);
+		assertEquals(AsynchJobStatusManagerImpl.MAX_CONCURRENT_WAITERS, manager.waiters.availablePermits());
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeMaxWait() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		when(mockClock.currentTimeMillis()).thenReturn(0L, AsynchJobStatusManagerImpl.MAX_WAIT_MS);
+		// call under test
+		assertSame(status, manager.waitForJobStatusChange(user, "999", status.getEtag(), Long.MAX_VALUE));
+		verify(mockClock, never()).sleepNoInterrupt(anyLong());
+	}
+	
+	@Test
+	public void testWaitForJobStatusChangeTooManyWaiters() {
+		AsynchronousJobStatus status = setupProcessingJob();
+		int permits = manager.waiters.drainPermits();
+		try {
+			// call under test
+			assertSame(status, manager.waitForJobStatusChange(user, "999", status.getEtag(), 10_000L));
+		} finally {
+			manager.waiters.release(permits);
+		}
+		verify(mockClock, never()).sleepNoInterrupt(anyLong());
+		verify(mockAsynchJobStatusDao, never()).getJobEtag(anyString());
+	}
+	
+	@Test (expected=IllegalArgumentException.class)
+	public void testWaitForJobStatusChangeNegativeWait() {
+		manager.waitForJobStatusChange(user, "999", "etag", -1L);
+	}
+	
+	@Test
+	public void testGetCachedJobEtagAfterCancel() {
+		setupProcessingJob();
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		when(mockAsynchJobStatusDao.getJobEtag("999")).thenReturn("etag-one", "etag-two");
+		assertEquals("etag-one", manager.getCachedJobEtag("999"));
+		manager.cancelJob(user, "999");
+		// call under test
+		assertEquals("etag-two", manager.getCachedJobEtag("999"));
+		verify(mockAsynchJobStatusDao, times(2)).getJobEtag("999");
+	}
 
 }
@@ -0,0 +1,161 @@
+package org.sagebionetworks.repo.manager.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.audit.AccessRecord;
+
+@ExtendWith(MockitoExtension.class)
+public class S3AccessRecorderUnitTest {
+
+	@Mock
+	AccessRecordManager mockAccessRecordManager;
+	@Mock
+	Consumer mockCloudWatch;
+	@Mock
+	StackConfiguration mockStackConfig;
+	@Captor
+	ArgumentCaptor<List<AccessRecord>> batchCaptor;
+	@Captor
+	ArgumentCaptor<ProfileData> profileCaptor;
+
+	S3AccessRecorder recorder;
+	List<AccessRecord> records;
+
+	@BeforeEach
+	public void before() {
+		recorder = new S3AccessRecorder(4, 2, 2);
+		recorder.accessRecordManager = mockAccessRecordManager;
+		recorder.cloudWatch = mockCloudWatch;
+		recorder.stackConfig = mockStackConfig;
+		records = AuditTestUtils.createList(5, 100);
+	}
+
+	@Test
+	public void testTimerFiredInBatches() throws IOException {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		when(mockAccessRecordManager.saveBatch(anyList())).thenReturn("one", "two");
+		for (AccessRecord record : records.subList(0, 3)) {
+			recorder.save(record);
+		}
+		// call under test
+		String key = recorder.timerFired();
+		assertEquals("two", key);
+		verify(mockAccessRecordManager, times(2)).saveBatch(batchCaptor.capture());
+		assertEquals(records.subList(0, 2), batchCaptor.getAllValues().get(0));
+		assertEquals(records.subList(2, 3), batchCaptor.getAllValues().get(1));
+	}
+
+	@Test
+	public void testTimerFiredMaxBatches() throws IOException {
+		recorder = new S3AccessRecorder(4, 1, 2);
+		recorder.accessRecordManager = mockAccessRecordManager;
+		recorder.cloudWatch = mockCloudWatch;
+		recorder.stackConfig = mockStackConfig;
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		when(mockAccessRecordManager.saveBatch(anyList())).thenReturn("one", "two", "three");
+		for (AccessRecord record : records.subList(0, 3)) {
+			recorder.save(record);
+		}
+		// call under test
+		assertEquals("two", recorder.timerFired());
+		verify(mockAccessRecordManager, times(2)).saveBatch(anyList());
+		// the remaining record is written by the next timer.
+		assertEquals("three", recorder.timerFired());
+		verify(mockAccessRecordManager, times(3)).saveBatch(batchCaptor.capture());
+		assertEquals(records.subList(2, 3), batchCaptor.getAllValues().get(2));
+	}
+
+	@Test
+	public void testSaveWhenFull() throws IOException {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		// call under test
+		for (AccessRecord record : records) {
+			recorder.save(record);
+		}
+		assertEquals(1L, recorder.getDroppedCount());
+		recorder.timerFired();
+		// the dropped count is reset each time the metrics are pushed.
+		assertEquals(0L, recorder.getDroppedCount());
+		verify(mockAccessRecordManager, times(2)).saveBatch(batchCaptor.capture());
+		assertEquals(records.subList(0, 2), batchCaptor.getAllValues().get(0));
+		assertEquals(records.subList(2, 4), batchCaptor.getAllValues().get(1));
+		verify(mockCloudWatch, times(2)).addProfileData(profileCaptor.capture());
+		ProfileData depth = profileCaptor.getAllValues().get(0);
+		assertEquals("Access-Records-123", depth.getNamespace());
+		assertEquals(S3AccessRecorder.METRIC_QUEUE_DEPTH, depth.getName());
+		assertEquals(new Double(4), depth.getValue());
+		ProfileData dropped = profileCaptor.getAllValues().get(1);
+		assertEquals(S3AccessRecorder.METRIC_DROPPED, dropped.getName());
+		assertEquals(new Double(1), dropped.getValue());
+	}
+
+	@Test
+	public void testTimerFiredEmpty() throws IOException {
+		// call under test
+		assertNull(recorder.timerFired());
+		verifyZeroInteractions(mockAccessRecordManager);
+		verifyZeroInteractions(mockCloudWatch);
+	}
+
+	@Test
+	public void testTimerFiredNotPushedToS3() throws IOException {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		recorder.setShouldAccessRecordsBePushedToS3(false);
+		recorder.save(records.get(0));
+		// call under test
+		assertNull(recorder.timerFired());
+		verify(mockAccessRecordManager, never()).saveBatch(anyList());
+		// the queue is drained
+		assertNull(recorder.timerFired());
+		verify(mockCloudWatch, times(2)).addProfileData(any(ProfileData.class));
+	}
+
+	@Test
+	public void testTimerFiredSaveFailure() throws IOException {
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		when(mockAccessRecordManager.saveBatch(anyList())).thenThrow(new IOException("nope")).thenReturn("two");
+		for (AccessRecord record : records.subList(0, 3)) {
+			recorder.save(record);
+		}
+		// call under test
+		String key = recorder.timerFired();
+		// the next batch is still written.
+		assertEquals("two", key);
+		verify(mockAccessRecordManager, times(2)).saveBatch(anyList());
+	}
+
+	@Test
+	public void testConstructorInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3AccessRecorder(0, 1, 1);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3AccessRecorder(1, 0, 1);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3AccessRecorder(1, 1, 0);
+		});
+	}
+}
@@ -1,8 +1,19 @@
 package org.sagebionetworks.repo.manager.file;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -10,9 +21,12 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.ids.IdGenerator;
+import org.sagebionetworks.ids.IdType;
 import org.sagebionetworks.repo.manager.ProjectSettingsManager;
+import org.sagebionetworks.repo.model.DatastoreException;
 import org.sagebionetworks.repo.model.dao.FileHandleDao;
 import org.sagebionetworks.repo.model.file.CreateChunkedFileTokenRequest;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.project.S3StorageLocationSetting;
 import org.sagebionetworks.repo.model.project.StorageLocationSetting;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -40,6 +54,12 @@ public class MultipartManagerImplTest {
 	
 	@Mock
 	private IdGenerator idGenerator;
+	
+	@Mock
+	private ExecutorService executorService;
+	
+	@Mock
+	private MultipartUploadOutputStream mockUploadStream;
 
 	private MultipartManager manager;
 	
@@ -52,6 +72,7 @@ public class MultipartManagerImplTest {
 		ReflectionTestUtils.setField(manager, "transferManager", transferManager);
 		ReflectionTestUtils.setField(manager, "projectSettingsManager", projectSettingsManager);
 		ReflectionTestUtils.setField(manager, "idGenerator", idGenerator);
+		ReflectionTestUtils.setField(manager, "multipartUploadStreamThreadPool", executorService);
 	}
 
 	@Test
@@ -74,4 +95,65 @@ public class MultipartManagerImplTest {
 
 	}
 
+	@Test
+	public void testStartMultipartUploadStream() {
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withUserId("123").withFileName("Job-1.csv").withContentType("text/csv");
+		
+		// method under test
+		MultipartUploadOutputStream stream = manager.startMultipartUploadStream(request);
+		
+		// the upload is only started with the first part
+		verify(s3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+		assertFalse(stream.isStarted());
+		InitiateMultipartUploadRequest initiate = stream.getInitiateRequest();
+		assertEquals(CannedAccessControlList.BucketOwnerFullControl, initiate.getCannedACL());
+		assertEquals("text/csv", initiate.getObjectMetadata().getContentType());
+		assertTrue(initiate.getKey().endsWith("Job-1.csv"));
+		S3FileHandle handle = stream.getFileHandle();
+		assertEquals(initiate.getBucketName(), handle.getBucketName());
+		assertEquals(initiate.getKey(), handle.getKey());
+		assertEquals("123", handle.getCreatedBy());
+		assertEquals("Job-1.csv", handle.getFileName());
+		assertNull(handle.getId());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testStartMultipartUploadStreamNoFileName() {
+		// method under test
+		manager.startMultipartUploadStream(new LocalFileUploadRequest().withUserId("123"));
+	}
+	
+	@Test
+	public void testCompleteMultipartUploadStream() throws Exception {
+		S3FileHandle handle = new S3FileHandle();
+		handle.setFileName("Job-1.csv");
+		when(mockUploadStream.getFileHandle()).thenReturn(handle);
+		when(mockUploadStream.getContentMd5()).thenReturn("md5");
+		when(mockUploadStream.getBytesWritten()).thenReturn(1234L);
+		when(idGenerator.generateNewId(IdType.FILE_IDS)).thenReturn(888L);
+		when(fileHandleDao.createFile(handle)).thenReturn(handle);
+		
+		// method under test
+		S3FileHandle result = manager.completeMultipartUploadStream(mockUploadStream);
+		
+		verify(mockUploadStream).complete();
+		assertEquals(handle, result);
+		assertEquals("888", result.getId());
+		assertEquals("md5", result.getContentMd5());
+		assertEquals(new Long(1234L), result.getContentSize());
+	}
+	
+	@Test
+	public void testCompleteMultipartUploadStreamFailed() throws Exception {
+		doThrow(new IOException("nope")).when(mockUploadStream).complete();
+		try {
+			// method under test
+			manager.completeMultipartUploadStream(mockUploadStream);
+			fail();
+		} catch (DatastoreException e) {
+			// expected
+		}
+		verify(fileHandleDao, never()).createFile(any(S3FileHandle.class));
+	}
+
 }
@@ -0,0 +1,281 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.BinaryUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MultipartUploadOutputStreamTest {
+
+	@Mock
+	SynapseS3Client mockS3Client;
+	@Captor
+	ArgumentCaptor<UploadPartRequest> uploadPartCaptor;
+	@Captor
+	ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor;
+
+	ExecutorService executorService;
+	S3FileHandle fileHandle;
+	InitiateMultipartUploadRequest initiateRequest;
+	String uploadId;
+	int partSize;
+
+	@BeforeEach
+	public void before() {
+		executorService = Executors.newFixedThreadPool(2);
+		fileHandle = new S3FileHandle();
+		fileHandle.setBucketName("bucket");
+		fileHandle.setKey("123/456/Job-1.csv");
+		initiateRequest = new InitiateMultipartUploadRequest("bucket", fileHandle.getKey());
+		uploadId = "upload-id";
+		partSize = MultipartUploadOutputStream.MIN_PART_SIZE_BYTES;
+	}
+
+	@AfterEach
+	public void after() {
+		executorService.shutdownNow();
+	}
+
+	void setupInitiate() {
+		InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+		result.setUploadId(uploadId);
+		when(mockS3Client.initiateMultipartUpload(initiateRequest)).thenReturn(result);
+	}
+
+	void setupUploadPart() {
+		setupInitiate();
+		when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer((invocation) -> {
+			UploadPartRequest request = invocation.getArgument(0);
+			UploadPartResult result = new UploadPartResult();
+			result.setPartNumber(request.getPartNumber());
+			result.setETag("etag-" + request.getPartNumber());
+			return result;
+		});
+	}
+
+	MultipartUploadOutputStream createStream() {
+		return new MultipartUploadOutputStream(mockS3Client, executorService, fileHandle, initiateRequest, partSize, 2);
+	}
+
+	@Test
+	public void testWriteAndComplete() throws Exception {
+		setupUploadPart();
+		byte[] data = new byte[partSize * 2 + 100];
+		Arrays.fill(data, (byte) 'a');
+		data[partSize] = 'b';
+		MultipartUploadOutputStream stream = createStream();
+		// call under test
+		stream.write(data, 0, partSize - 1);
+		stream.write(data[partSize - 1]);
+		stream.write(data, partSize, data.length - partSize);
+		stream.complete();
+
+		verify(mockS3Client).initiateMultipartUpload(initiateRequest);
+		verify(mockS3Client, times(3)).uploadPart(uploadPartCaptor.capture());
+		List<UploadPartRequest> parts = uploadPartCaptor.getAllValues();
+		assertEquals(1, parts.get(0).getPartNumber());
+		assertEquals(partSize, parts.get(0).getPartSize());
+		assertEquals(false, parts.get(0).isLastPart());
+		assertEquals(2, parts.get(1).getPartNumber());
+		assertEquals(partSize, parts.get(1).getPartSize());
+		assertEquals(3, parts.get(2).getPartNumber());
+		assertEquals(100L, parts.get(2).getPartSize());
+		assertEquals(true, parts.get(2).isLastPart());
+		assertEquals(uploadId, parts.get(2).getUploadId());
+
+		verify(mockS3Client).completeMultipartUpload(completeCaptor.capture());
+		CompleteMultipartUploadRequest complete = completeCaptor.getValue();
+		assertEquals("bucket", complete.getBucketName());
+		assertEquals(fileHandle.getKey(), complete.getKey());
+		assertEquals(uploadId, complete.getUploadId());
+		List<PartETag> etags = complete.getPartETags();
+		assertEquals(3, etags.size());
+		for (int i = 0; i < etags.size(); i++) {
+			assertEquals(i + 1, etags.get(i).getPartNumber());
+			assertEquals("etag-" + (i + 1), etags.get(i).getETag());
+		}
+		assertEquals(data.length, stream.getBytesWritten());
+		assertEquals(data.length, stream.getBytesUploaded());
+		assertEquals(BinaryUtils.toHex(MessageDigest.getInstance("MD5").digest(data)), stream.getContentMd5());
+
+		// closing a completed upload does not abort it.
+		stream.close();
+		verify(mockS3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+	}
+
+	@Test
+	public void testCompleteEmpty() throws Exception {
+		setupUploadPart();
+		MultipartUploadOutputStream stream = createStream();
+		// call under test
+		stream.complete();
+		// an upload needs at least one part
+		verify(mockS3Client).uploadPart(uploadPartCaptor.capture());
+		assertEquals(0L, uploadPartCaptor.getValue().getPartSize());
+		assertEquals(true, uploadPartCaptor.getValue().isLastPart());
+		verify(mockS3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+		assertEquals(0L, stream.getBytesWritten());
+	}
+
+	@Test
+	public void testPartFailed() throws Exception {
+		setupInitiate();
+		when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(new AmazonS3Exception("nope"));
+		MultipartUploadOutputStream stream = createStream();
+		stream.write(new byte[10]);
+		assertThrows(IOException.class, () -> {
+			// call under test
+			stream.complete();
+		});
+		verify(mockS3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+		verify(mockS3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+	}
+
+	@Test
+	public void testCloseWithoutComplete() throws Exception {
+		MultipartUploadOutputStream stream = createStream();
+		stream.write(new byte[10]);
+		// call under test
+		stream.close();
+		stream.close();
+		// the upload was never started so there is nothing to abort.
+		assertFalse(stream.isStarted());
+		verify(mockS3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+		verify(mockS3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(mockS3Client, never()).uploadPart(any(UploadPartRequest.class));
+		assertThrows(IOException.class, () -> {
+			stream.write(1);
+		});
+		assertThrows(IOException.class, () -> {
+			stream.complete();
+		});
+	}
+
+	@Test
+	public void testCloseAfterFirstPart() throws Exception {
+		setupUploadPart();
+		MultipartUploadOutputStream stream = createStream();
+		// the first part is uploaded when the next byte is written.
+		stream.write(new byte[partSize + 1]);
+		assertTrue(stream.isStarted());
+		// call under test
+		stream.close();
+		stream.close();
+		verify(mockS3Client).initiateMultipartUpload(initiateRequest);
+		ArgumentCaptor<AbortMultipartUploadRequest> abortCaptor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+		verify(mockS3Client, times(1)).abortMultipartUpload(abortCaptor.capture());
+		assertEquals(uploadId, abortCaptor.getValue().getUploadId());
+	}
+
+	@Test
+	public void testCloseWaitsForPartsBeingUploaded() throws Exception {
+		setupInitiate();
+		CountDownLatch partStarted = new CountDownLatch(1);
+		CountDownLatch releasePart = new CountDownLatch(1);
+		when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer((invocation) -> {
+			partStarted.countDown();
+			releasePart.await();
+			return new UploadPartResult();
+		});
+		MultipartUploadOutputStream stream = createStream();
+		stream.write(new byte[partSize + 1]);
+		partStarted.await();
+		Thread closer = new Thread(() -> stream.close());
+		// call under test
+		closer.start();
+		// the upload must not be aborted while a part is being uploaded.
+		closer.join(100);
+		assertTrue(closer.isAlive());
+		verify(mockS3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		releasePart.countDown();
+		closer.join();
+		verify(mockS3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+	}
+
+	@Test
+	public void testGetPartSizeBytes() {
+		assertEquals(partSize, MultipartUploadOutputStream.getPartSizeBytes(partSize, 0));
+		assertEquals(partSize, MultipartUploadOutputStream.getPartSizeBytes(partSize, MultipartUploadOutputStream.PARTS_PER_SIZE_DOUBLING - 1));
+		assertEquals(partSize * 2, MultipartUploadOutputStream.getPartSizeBytes(partSize, MultipartUploadOutputStream.PARTS_PER_SIZE_DOUBLING));
+		assertEquals(partSize * 4, MultipartUploadOutputStream.getPartSizeBytes(partSize, MultipartUploadOutputStream.PARTS_PER_SIZE_DOUBLING * 2));
+		// the size is capped
+		assertEquals(MultipartUploadOutputStream.MAX_PART_SIZE_BYTES,
+				MultipartUploadOutputStream.getPartSizeBytes(partSize, MultipartUploadOutputStream.MAX_PART_COUNT));
+	}
+
+	@Test
+	public void testMaxUploadSize() {
+		long maxBytes = 0;
+		for (int i = 0; i < MultipartUploadOutputStream.MAX_PART_COUNT; i++) {
+			maxBytes += MultipartUploadOutputStream.getPartSizeBytes(partSize, i);
+		}
+		// a fixed part size would limit the upload to about 48.8 GB.
+		assertTrue(maxBytes > 1024L * 1024 * 1024 * 1024, "" + maxBytes);
+	}
+
+	@Test
+	public void testGetContentMd5BeforeComplete() {
+		MultipartUploadOutputStream stream = createStream();
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			stream.getContentMd5();
+		});
+	}
+
+	@Test
+	public void testConstructorPartTooSmall() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new MultipartUploadOutputStream(mockS3Client, executorService, fileHandle, initiateRequest, partSize - 1, 2);
+		});
+	}
+
+	@Test
+	public void testConstructorPartTooLarge() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new MultipartUploadOutputStream(mockS3Client, executorService, fileHandle, initiateRequest,
+					MultipartUploadOutputStream.MAX_PART_SIZE_BYTES + 1, 2);
+		});
+	}
+
+	@Test
+	public void testConstructorNoPendingParts() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new MultipartUploadOutputStream(mockS3Client, executorService, fileHandle, initiateRequest, partSize, 0);
+		});
+	}
+}
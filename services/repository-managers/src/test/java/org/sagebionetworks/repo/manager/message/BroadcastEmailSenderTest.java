@@ -0,0 +1,113 @@
+package org.sagebionetworks.repo.manager.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
+
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+
+@ExtendWith(MockitoExtension.class)
+public class BroadcastEmailSenderTest {
+
+	@Mock
+	SynapseEmailService mockEmailService;
+
+	ExecutorService executorService;
+	BroadcastEmailSender sender;
+	SendRawEmailRequest request;
+
+	@BeforeEach
+	public void before() {
+		executorService = Executors.newFixedThreadPool(2);
+		sender = new BroadcastEmailSender(mockEmailService, executorService, 1000.0, 2);
+		request = new SendRawEmailRequest().withDestinations("someone@example.com");
+	}
+
+	@AfterEach
+	public void after() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testSend() {
+		BroadcastEmailSender.Batch batch = sender.startBatch();
+		// call under test
+		for (int i = 0; i < 5; i++) {
+			batch.send(request);
+		}
+		batch.awaitCompletion();
+		verify(mockEmailService, times(5)).sendRawEmail(request);
+		assertEquals(5L, batch.getSentCount());
+		assertEquals(0L, batch.getFailedCount());
+	}
+
+	@Test
+	public void testSendWithFailure() {
+		doThrow(new IllegalStateException("nope")).doNothing().when(mockEmailService).sendRawEmail(any(SendRawEmailRequest.class));
+		BroadcastEmailSender.Batch batch = sender.startBatch();
+		// call under test
+		batch.send(request);
+		batch.awaitCompletion();
+		batch.send(request);
+		batch.awaitCompletion();
+		// a failure does not stop the rest of the batch
+		assertEquals(1L, batch.getSentCount());
+		assertEquals(1L, batch.getFailedCount());
+	}
+
+	@Test
+	public void testAwaitCompletionEmpty() {
+		BroadcastEmailSender.Batch batch = sender.startBatch();
+		// call under test
+		batch.awaitCompletion();
+		assertEquals(0L, batch.getSentCount());
+	}
+
+	@Test
+	public void testSendRejected() throws InterruptedException {
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.SECONDS);
+		BroadcastEmailSender.Batch batch = sender.startBatch();
+		assertThrows(RejectedExecutionException.class, () -> {
+			// call under test
+			batch.send(request);
+		});
+		// the rejected email is not pending
+		batch.awaitCompletion();
+	}
+
+	@Test
+	public void testSendNullRequest() {
+		BroadcastEmailSender.Batch batch = sender.startBatch();
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			batch.send(null);
+		});
+	}
+
+	@Test
+	public void testConstructorInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new BroadcastEmailSender(mockEmailService, executorService, 0.0, 1);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			new BroadcastEmailSender(mockEmailService, executorService, 1.0, 0);
+		});
+	}
+}
@@ -29,7 +29,6 @@ import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.markdown.MarkdownClientException;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
 import org.sagebionetworks.repo.manager.UserManager;
-import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
@@ -61,7 +60,9 @@ public class BroadcastMessageManagerImplTest {
 	@Mock
 	private DBOChangeDAO mockChangeDao;
 	@Mock
-	private SynapseEmailService mockSesClient;
+	private BroadcastEmailSender mockEmailSender;
+	@Mock
+	private BroadcastEmailSender.Batch mockBatch;
 	@Mock
 	private TimeoutUtils mockTimeoutUtils;
 	@Mock
@@ -117,6 +118,7 @@ public class BroadcastMessageManagerImplTest {
 		lenient().when(mockBroadcastMessageDao.wasBroadcast(change.getChangeNumber())).thenReturn(false);
 		lenient().when(mockFactory.createMessageBuilder(change.getObjectId(), change.getChangeType(), change.getUserId())).thenReturn(mockBroadcastMessageBuilder);
 		lenient().when(mockBroadcastMessageBuilder.getBroadcastTopic()).thenReturn(topic);
+		lenient().when(mockEmailSender.startBatch()).thenReturn(mockBatch);
 		
 		Subscriber sub1 = new Subscriber();
 		sub1.setSubscriptionId("1");
@@ -141,7 +143,23 @@ public class BroadcastMessageManagerImplTest {
 		// The message state should be sent.
 		verify(mockBroadcastMessageDao).setBroadcast(change.getChangeNumber());
 		// two messages should be sent
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch, times(2)).send(any(SendRawEmailRequest.class));
+		verify(mockBatch).awaitCompletion();
+	}
+	
+	@Test
+	public void testBroadcastWithSingleQuarantineLookup() throws Exception{
+		subscribers.get(0).setNotificationEmail("one@example.com");
+		subscribers.get(1).setNotificationEmail("two@example.com");
+		
+		when(mockSubscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType())).thenReturn(subscribers);
+		when(mockBroadcastMessageBuilder.buildEmailForSubscriber(any(Subscriber.class))).thenReturn(new SendRawEmailRequest());
+		when(mockBroadcastMessageBuilder.getRelatedUsers()).thenReturn(Collections.emptySet());
+		// call under test
+		manager.broadcastMessage(mockUser, mockCallback, change);
+		
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(new HashSet<>(Arrays.asList("one@example.com", "two@example.com")));
+		verify(mockBatch, times(2)).send(any(SendRawEmailRequest.class));
 	}
 
 	@Test
@@ -181,7 +199,7 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager, never()).getUserInfo(2L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(accessDeniedUserInfo, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch, times(2)).send(any(SendRawEmailRequest.class));
 	}
 	
 	@Test
@@ -190,15 +208,15 @@ public class BroadcastMessageManagerImplTest {
 		
 		subscribers.get(0).setNotificationEmail(quarantinedEmail);
 		
-		when(mockEmailQuarantineDao.isQuarantined(quarantinedEmail)).thenReturn(true);
+		when(mockEmailQuarantineDao.getQuarantinedEmails(Collections.singleton(quarantinedEmail))).thenReturn(Collections.singleton(quarantinedEmail));
 		when(mockSubscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType())).thenReturn(subscribers);
 		when(mockBroadcastMessageBuilder.buildEmailForSubscriber(any(Subscriber.class))).thenReturn(new SendRawEmailRequest());
 		// call under test
 		manager.broadcastMessage(mockUser, mockCallback, change);
 
-		verify(mockEmailQuarantineDao).isQuarantined(quarantinedEmail);
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Collections.singleton(quarantinedEmail));
 		// Only one message should be sent
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch).send(any(SendRawEmailRequest.class));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -207,7 +225,7 @@ public class BroadcastMessageManagerImplTest {
 		when(mockBroadcastMessageBuilder.getRelatedUsers()).thenReturn(new HashSet<String>());
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao, never()).getUserNotificationInfo(any(Set.class));
@@ -219,7 +237,7 @@ public class BroadcastMessageManagerImplTest {
 		when(mockBroadcastMessageBuilder.getRelatedUsers()).thenReturn(null);
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao, never()).getUserNotificationInfo(any(Set.class));
@@ -233,7 +251,7 @@ public class BroadcastMessageManagerImplTest {
 		when(mockUserProfileDao.getUserNotificationInfo(userIds)).thenReturn(new ArrayList<UserNotificationInfo>());
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao).getUserNotificationInfo(userIds);
@@ -265,7 +283,7 @@ public class BroadcastMessageManagerImplTest {
 				.thenReturn(AuthorizationStatus.accessDenied(""));
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao).getUserNotificationInfo(userIds);
@@ -273,7 +291,7 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager).getUserInfo(222L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(accessDeniedUserInfo, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch).send(any(SendRawEmailRequest.class));
 	}
 
 	@Test
@@ -300,7 +318,7 @@ public class BroadcastMessageManagerImplTest {
 				.thenReturn(AuthorizationStatus.authorized());
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao).getUserNotificationInfo(userIds);
@@ -308,7 +326,7 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager).getUserInfo(222L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo1, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo2, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch, times(2)).send(any(SendRawEmailRequest.class));
 	}
 	
 	@Test
@@ -316,7 +334,7 @@ public class BroadcastMessageManagerImplTest {
 		
 		String quarantinedEmail = "quarantined@example.com";
 
-		when(mockEmailQuarantineDao.isQuarantined(quarantinedEmail)).thenReturn(true);
+		when(mockEmailQuarantineDao.getQuarantinedEmails(Collections.singleton(quarantinedEmail))).thenReturn(Collections.singleton(quarantinedEmail));
 		when(mockBroadcastMessageBuilder.buildEmailForNonSubscriber(any(UserNotificationInfo.class))).thenReturn(new SendRawEmailRequest());
 		
 		
@@ -334,15 +352,15 @@ public class BroadcastMessageManagerImplTest {
 		when(mockAuthManager.canSubscribe(any(), any(), any())).thenReturn(AuthorizationStatus.authorized());
 		
 		// Call under test
-		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic);
+		manager.sendMessageToNonSubscribers(mockCallback, change, mockBroadcastMessageBuilder, new ArrayList<String>(), topic, mockBatch);
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao).getUserNotificationInfo(userIds);
-		verify(mockEmailQuarantineDao).isQuarantined(quarantinedEmail);
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Collections.singleton(quarantinedEmail));
 		verify(mockUserManager).getUserInfo(222L);
 		
 		// Only one should have been sent
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockBatch).send(any(SendRawEmailRequest.class));
 	}
 
 	@Test
@@ -354,6 +372,8 @@ public class BroadcastMessageManagerImplTest {
 			// call under test
 			manager.broadcastMessage(mockUser, mockCallback, change);
 		});
+		// any email already queued is still sent
+		verify(mockBatch).awaitCompletion();
 	}
 	
 	@Test
@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -177,6 +178,46 @@ public class DiscussionBroadcastMessageBuilderTest {
 		assertNotNull(request);
 	}
 
+	@Test
+	public void testBuildEmailForSubscriberRendersMarkdownOnce() throws Exception{
+		when(mockMarkdownDao.convertMarkdown(anyString(), isNull())).thenReturn("content");
+		Subscriber other = new Subscriber();
+		other.setFirstName("otherFirstName");
+		other.setLastName("otherLastName");
+		other.setNotificationEmail("other@domain.org");
+		other.setSubscriberId("124");
+		other.setUsername("otherUsername");
+		other.setSubscriptionId("1000");
+		assertNotNull(builder.buildEmailForSubscriber(subscriber));
+		assertNotNull(builder.buildEmailForSubscriber(other));
+		// the markdown is rendered once with the placeholders of the recipient
+		verify(mockMarkdownDao, times(1)).convertMarkdown(anyString(), isNull());
+		verify(mockMarkdownDao).convertMarkdown(eq(builder.buildRawBodyForSubscriber(
+				DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER,
+				DiscussionBroadcastMessageBuilder.SUBSCRIPTION_ID_PLACEHOLDER)), isNull());
+	}
+
+	@Test
+	public void testBuildRawBodyForSubscriberWithPlaceholders(){
+		String body = builder.buildRawBodyForSubscriber(DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER,
+				DiscussionBroadcastMessageBuilder.SUBSCRIPTION_ID_PLACEHOLDER);
+		assertTrue(body.startsWith(String.format(DiscussionBroadcastMessageBuilder.GREETING, DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER)));
+		assertTrue(body.contains("https://www.synapse.org/#!Subscription:subscriptionID="+DiscussionBroadcastMessageBuilder.SUBSCRIPTION_ID_PLACEHOLDER));
+		// the subscriber body is the template with the placeholders replaced
+		assertEquals(builder.buildRawBodyForSubscriber(subscriber), body
+				.replace(DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER, "subscriberFirstName subscriberLastName (subscriberUsername)")
+				.replace(DiscussionBroadcastMessageBuilder.SUBSCRIPTION_ID_PLACEHOLDER, "999"));
+	}
+
+	@Test
+	public void testBuildEmailForNonSubscriberRendersMarkdownOnce() throws Exception{
+		when(mockMarkdownDao.convertMarkdown(anyString(), isNull())).thenReturn("content");
+		assertNotNull(builder.buildEmailForNonSubscriber(user));
+		assertNotNull(builder.buildEmailForNonSubscriber(user));
+		verify(mockMarkdownDao).convertMarkdown(eq(builder.buildRawBodyForNonSubscriber(
+				DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER)), isNull());
+	}
+
 	@Test
 	public void testTruncateStringOver(){
 		String input = "123456789";
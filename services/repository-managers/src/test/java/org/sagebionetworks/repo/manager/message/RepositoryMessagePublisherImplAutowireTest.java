@@ -4,19 +4,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.dbo.dao.DBOChangeDAO;
@@ -126,7 +128,7 @@ public class RepositoryMessagePublisherImplAutowireTest {
 	@Test
 	public void testFireStaggaredMessage() throws InterruptedException, JSONObjectAdapterException{
 		// Fire multiple messages
-		List<String> messageBodyList = new LinkedList<String>();
+		List<ChangeMessage> sent = new ArrayList<ChangeMessage>();
 		for(int i=0; i<5; i++){
 			ChangeMessage message = new ChangeMessage();
 			message.setChangeType(ChangeType.CREATE);
@@ -136,24 +138,23 @@ public class RepositoryMessagePublisherImplAutowireTest {
 			message.setTimestamp(new Date());
 			message = changeDao.replaceChange(message);
 			messagePublisher.fireChangeMessage(message);
-			
-			// Keep this body for the check
-			ChangeMessages messages = new ChangeMessages();
-			messages.setList(Arrays.asList(message));
-			String json = EntityFactory.createJSONStringForEntity(messages);
-			messageBodyList.add(json);
+			sent.add(message);
 			// Sleep between messages.
 			Thread.sleep(50);
 		}
 
 		// The message will be published on a timer, so we wait for that to occur.
 		Thread.sleep(2000);
-		// Validate that all of the messages were fired.
-		for(String messageBody: messageBodyList){
-			System.out.println("Checking for message body: "+messageBody);
-			// The message should be published once and only once.
-			verify(mockSNSClient, times(1)).publish(new PublishRequest(messagePublisher.getTopicArn(ObjectType.ENTITY), messageBody));
+		// Messages that arrive between timer events are published together in a batch.
+		ArgumentCaptor<PublishRequest> captor = ArgumentCaptor.forClass(PublishRequest.class);
+		verify(mockSNSClient, atLeastOnce()).publish(captor.capture());
+		List<ChangeMessage> published = new ArrayList<ChangeMessage>();
+		for(PublishRequest request: captor.getAllValues()){
+			assertEquals(messagePublisher.getTopicArn(ObjectType.ENTITY), request.getTopicArn());
+			published.addAll(EntityFactory.createEntityFromJSONString(request.getMessage(), ChangeMessages.class).getList());
 		}
+		// Validate that each message was published once and only once.
+		assertEquals(sent, published);
 	}
 
 }
@@ -1,19 +1,45 @@
 package org.sagebionetworks.repo.manager.message;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
+import org.sagebionetworks.repo.model.message.Message;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.CreateTopicRequest;
+import com.amazonaws.services.sns.model.CreateTopicResult;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Unit test for RepositoryMessagePublisherImpl.
@@ -29,6 +55,10 @@ public class RepositoryMessagePublisherImplTest {
 	TransactionalMessenger mockTransactionalMessanger;
 	@Mock
 	AmazonSNS mockAwsSNSClient;
+	@Mock
+	StackConfiguration mockStackConfiguration;
+	@Mock
+	Consumer mockConsumer;
 
 	@InjectMocks
 	RepositoryMessagePublisherImpl messagePublisher;
@@ -41,6 +71,17 @@ public class RepositoryMessagePublisherImplTest {
 		message.setChangeType(ChangeType.CREATE);
 		message.setObjectId("syn456");
 		message.setObjectType(ObjectType.ENTITY);
+		messagePublisher.setPublishExecutorService(MoreExecutors.newDirectExecutorService());
+	}
+
+	private ChangeMessage createMessage(long changeNumber, ObjectType type) {
+		ChangeMessage message = new ChangeMessage();
+		message.setChangeNumber(changeNumber);
+		message.setTimestamp(new Date());
+		message.setChangeType(ChangeType.UPDATE);
+		message.setObjectId("" + changeNumber);
+		message.setObjectType(type);
+		return message;
 	}
 	
 	@Test (expected=IllegalArgumentException.class)
@@ -78,4 +119,123 @@ public class RepositoryMessagePublisherImplTest {
 		messagePublisher.fireChangeMessage(message);
 	}
 	
+	@Test
+	public void testTimerFiredBatchesByType(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("arn"));
+		ChangeMessage one = createMessage(1L, ObjectType.ENTITY);
+		ChangeMessage two = createMessage(2L, ObjectType.FILE);
+		ChangeMessage three = createMessage(3L, ObjectType.ENTITY);
+		messagePublisher.fireChangeMessage(one);
+		messagePublisher.fireChangeMessage(two);
+		messagePublisher.fireChangeMessage(three);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(one, three));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(two));
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+		// messages published and publish lag
+		verify(mockConsumer, times(2)).addProfileData(any(ProfileData.class));
+	}
+
+	@Test
+	public void testTimerFiredBatchFailure(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("arn"));
+		ChangeMessage one = createMessage(1L, ObjectType.ENTITY);
+		ChangeMessage two = createMessage(2L, ObjectType.FILE);
+		doThrow(new IllegalStateException("Something went wrong")).when(mockTransactionalMessanger)
+				.registerMessagesSent(eq(ObjectType.ENTITY), anyList());
+		messagePublisher.fireChangeMessage(one);
+		messagePublisher.fireChangeMessage(two);
+		// call under test
+		messagePublisher.timerFired();
+		// the failure of one batch should not stop the others.
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(two));
+		verify(mockAwsSNSClient, times(1)).publish(any(PublishRequest.class));
+	}
+
+	@Test
+	public void testTimerFiredShouldNotPublish(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(false);
+		messagePublisher.fireChangeMessage(message);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockTransactionalMessanger, never()).registerMessagesSent(any(ObjectType.class), anyList());
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+	}
+
+	@Test
+	public void testTimerFiredEmpty(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockConsumer, never()).addProfileData(any(ProfileData.class));
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+	}
+
+	@Test
+	public void testGroupIntoBatches(){
+		int max = ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE;
+		List<Message> messages = new ArrayList<>();
+		for (long i = 0; i < max + 1; i++) {
+			messages.add(createMessage(i, ObjectType.ENTITY));
+		}
+		ChangeMessage file = createMessage(max + 1, ObjectType.FILE);
+		messages.add(file);
+		// call under test
+		Map<ObjectType, List<List<ChangeMessage>>> batches = RepositoryMessagePublisherImpl.groupIntoBatches(messages);
+		assertEquals(2, batches.size());
+		List<List<ChangeMessage>> entityBatches = batches.get(ObjectType.ENTITY);
+		assertEquals(2, entityBatches.size());
+		assertEquals(max, entityBatches.get(0).size());
+		assertEquals(messages.get(0), entityBatches.get(0).get(0));
+		assertEquals(Arrays.asList(messages.get(max)), entityBatches.get(1));
+		assertEquals(Arrays.asList(Arrays.asList(file)), batches.get(ObjectType.FILE));
+	}
+
+	@Test
+	public void testTimerFiredPublishesBatchesOfTypeInOrder(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("arn"));
+		int max = ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE;
+		List<ChangeMessage> first = new ArrayList<>();
+		for (long i = 0; i < max; i++) {
+			ChangeMessage next = createMessage(i, ObjectType.ENTITY);
+			first.add(next);
+			messagePublisher.fireChangeMessage(next);
+		}
+		ChangeMessage last = createMessage(max, ObjectType.ENTITY);
+		messagePublisher.fireChangeMessage(last);
+		// submit each type as a single task.
+		ExecutorService mockExecutor = Mockito.mock(ExecutorService.class);
+		when(mockExecutor.submit(any(Runnable.class))).thenAnswer(invocation -> {
+			((Runnable) invocation.getArgument(0)).run();
+			return CompletableFuture.completedFuture(null);
+		});
+		messagePublisher.setPublishExecutorService(mockExecutor);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockExecutor, times(1)).submit(any(Runnable.class));
+		InOrder inOrder = Mockito.inOrder(mockTransactionalMessanger);
+		inOrder.verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, first);
+		inOrder.verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(last));
+	}
+
+	@Test
+	public void testTimerFiredBatchFailureStopsType(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		int max = ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE;
+		for (long i = 0; i < max + 1; i++) {
+			messagePublisher.fireChangeMessage(createMessage(i, ObjectType.ENTITY));
+		}
+		doThrow(new IllegalStateException("Something went wrong")).when(mockTransactionalMessanger)
+				.registerMessagesSent(eq(ObjectType.ENTITY), anyList());
+		// call under test
+		messagePublisher.timerFired();
+		// the second batch must not be published ahead of the first.
+		verify(mockTransactionalMessanger, times(1)).registerMessagesSent(eq(ObjectType.ENTITY), anyList());
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+	}
+
 }
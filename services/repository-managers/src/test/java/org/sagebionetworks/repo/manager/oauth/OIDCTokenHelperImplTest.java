@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -262,5 +264,73 @@ public class OIDCTokenHelperImplTest {
 		assertNotNull(claims.getId());
 		assertEquals(Arrays.asList(OAuthScope.values()), ClaimsJsonUtil.getScopeFromClaims(claims));
 	}
+	
+	@Test
+	public void testParseJWTCached() {
+		String accessToken = oidcTokenHelper.createTotalAccessToken(101L);
+		// call under test
+		Jwt<JwsHeader,Claims> first = oidcTokenHelper.parseJWT(accessToken);
+		Jwt<JwsHeader,Claims> second = oidcTokenHelper.parseJWT(accessToken);
+		assertSame(first, second);
+		assertEquals(1L, oidcTokenHelper.getVerifiedTokenCacheSize());
+		assertEquals("101", second.getBody().getSubject());
+	}
+	
+	@Test
+	public void testValidateJWTCached() {
+		String accessToken = oidcTokenHelper.createTotalAccessToken(101L);
+		// call under test
+		oidcTokenHelper.validateJWT(accessToken);
+		assertEquals(1L, oidcTokenHelper.getVerifiedTokenCacheSize());
+		assertNotNull(oidcTokenHelper.parseJWT(accessToken));
+		assertEquals(1L, oidcTokenHelper.getVerifiedTokenCacheSize());
+	}
+	
+	@Test
+	public void testParseJWTInvalidSignatureNotCached() {
+		String accessToken = oidcTokenHelper.createTotalAccessToken(101L);
+		String[] pieces = accessToken.split("\\.");
+		String otherToken = oidcTokenHelper.createTotalAccessToken(202L);
+		String forged = pieces[0]+"."+otherToken.split("\\.")[1]+"."+pieces[2];
+		assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			oidcTokenHelper.parseJWT(forged);
+		});
+		assertEquals(0L, oidcTokenHelper.getVerifiedTokenCacheSize());
+	}
+	
+	@Test
+	public void testParseJWTCachedTokenExpired() throws Exception {
+		// a token that expires in a short time
+		long now = System.currentTimeMillis() - 60_000L + 500L;
+		String idToken = oidcTokenHelper.createOIDCIdToken(ISSUER, SUBJECT_ID, CLIENT_ID, now, NONCE, AUTH_TIME, TOKEN_ID, USER_CLAIMS);
+		oidcTokenHelper.parseJWT(idToken);
+		assertEquals(1L, oidcTokenHelper.getVerifiedTokenCacheSize());
+		Thread.sleep(1000L);
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			oidcTokenHelper.parseJWT(idToken);
+		});
+		assertEquals("Token has expired.", e.getMessage());
+		assertEquals(0L, oidcTokenHelper.getVerifiedTokenCacheSize());
+	}
+	
+	@Test
+	public void testVerifiedTokenCacheInvalidatedOnKeyChange() {
+		String accessToken = oidcTokenHelper.createTotalAccessToken(101L);
+		oidcTokenHelper.parseJWT(accessToken);
+		assertEquals(1L, oidcTokenHelper.getVerifiedTokenCacheSize());
+		// call under test
+		oidcTokenHelper.afterPropertiesSet();
+		assertEquals(0L, oidcTokenHelper.getVerifiedTokenCacheSize());
+	}
+	
+	@Test
+	public void testHashToken() {
+		String hash = OIDCTokenHelperImpl.hashToken("some.token.value");
+		assertEquals(64, hash.length());
+		assertEquals(hash, OIDCTokenHelperImpl.hashToken("some.token.value"));
+		assertFalse(hash.equals(OIDCTokenHelperImpl.hashToken("some.token.valuf")));
+	}
 
 }
@@ -33,7 +33,6 @@ import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProviderFactory;
 import org.sagebionetworks.repo.model.IdAndEtag;
 import org.sagebionetworks.repo.model.ObjectType;
-import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
@@ -269,13 +268,12 @@ public class ReplicationManagerTest {
 	@Test
 	public void testReplicateSingle() {
 		String entityId = "syn123";
-		IdAndVersion ideAndVersion = IdAndVersion.parse(entityId);
 		List<Long> entityids = Collections.singletonList(KeyFactory.stringToKey(entityId));
 		
 		int count = 1;
 		List<ObjectDataDTO> entityData = createEntityDtos(count);
 
-		when(mockConnectionFactory.getConnection(any())).thenReturn(mockIndexDao);
+		when(mockConnectionFactory.getAllConnections()).thenReturn(Collections.singletonList(mockIndexDao));
 		when(mockMetadataIndexProviderFactory.getMetadataIndexProvider(any())).thenReturn(mockMetadataIndexProvider);
 		when(mockMetadataIndexProvider.getObjectData(any(), anyInt())).thenReturn(entityData);
 		
@@ -284,7 +282,7 @@ public class ReplicationManagerTest {
 		// call under test
 		manager.replicate(viewObjectType, entityId);
 		
-		verify(mockConnectionFactory).getConnection(ideAndVersion);
+		verify(mockConnectionFactory).getAllConnections();
 		verify(mockMetadataIndexProviderFactory).getMetadataIndexProvider(viewObjectType);
 		verify(mockMetadataIndexProvider).getObjectData(entityids, ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
 		verify(mockIndexDao).deleteObjectData(viewObjectType, Collections.singletonList(123L));
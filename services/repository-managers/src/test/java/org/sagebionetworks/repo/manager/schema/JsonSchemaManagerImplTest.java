@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.manager.schema;
 
 import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -75,6 +76,8 @@ import com.google.common.collect.Lists;
 
 @ExtendWith(MockitoExtension.class)
 public class JsonSchemaManagerImplTest {
+	
+	static final String VERSION_SUFFIX = "-version";
 
 	@Mock
 	OrganizationDao mockOrganizationDao;
@@ -1241,9 +1244,9 @@ public class JsonSchemaManagerImplTest {
 		JsonSchema three = createSchema("three");
 		three.setItems(refToTwo);
 
-		Mockito.doReturn(cloneSchema(one)).when(managerSpy).getSchema(one.get$id());
-		Mockito.doReturn(cloneSchema(two)).when(managerSpy).getSchema(two.get$id());
-		Mockito.doReturn(cloneSchema(three)).when(managerSpy).getSchema(three.get$id());
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
+		setupSchemaVersion(three);
 
 		// call under test
 		JsonSchema validationSchema = managerSpy.getValidationSchema(three.get$id());
@@ -1269,9 +1272,9 @@ public class JsonSchemaManagerImplTest {
 		assertNotNull(fooBar);
 		assertEquals(Type.string, fooBar.getType());
 
-		verify(managerSpy).getSchema(one.get$id());
-		verify(managerSpy).getSchema(two.get$id());
-		verify(managerSpy).getSchema(three.get$id());
+		verify(mockSchemaDao).getSchema(one.get$id() + VERSION_SUFFIX);
+		verify(mockSchemaDao).getSchema(two.get$id() + VERSION_SUFFIX);
+		verify(mockSchemaDao).getSchema(three.get$id() + VERSION_SUFFIX);
 	}
 
 	@Test
@@ -1283,8 +1286,8 @@ public class JsonSchemaManagerImplTest {
 		JsonSchema two = createSchema("two");
 		two.setItems(refToOne);
 
-		Mockito.doReturn(cloneSchema(one)).when(managerSpy).getSchema(one.get$id());
-		Mockito.doReturn(cloneSchema(two)).when(managerSpy).getSchema(two.get$id());
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
 
 		// call under test
 		JsonSchema validationSchema = managerSpy.getValidationSchema(two.get$id());
@@ -1301,8 +1304,8 @@ public class JsonSchemaManagerImplTest {
 		assertEquals(one.getDescription(), oneFrom$defs.getDescription());
 		assertNull(oneFrom$defs.get$defs());
 
-		verify(managerSpy).getSchema(one.get$id());
-		verify(managerSpy).getSchema(two.get$id());
+		verify(mockSchemaDao).getSchema(one.get$id() + VERSION_SUFFIX);
+		verify(mockSchemaDao).getSchema(two.get$id() + VERSION_SUFFIX);
 	}
 
 	@Test
@@ -1322,9 +1325,9 @@ public class JsonSchemaManagerImplTest {
 		three.setProperties(new LinkedHashMap<String, JsonSchema>());
 		three.getProperties().put("threeRefToTwo", refToTwo);
 
-		Mockito.doReturn(cloneSchema(one)).when(managerSpy).getSchema(one.get$id());
-		Mockito.doReturn(cloneSchema(two)).when(managerSpy).getSchema(two.get$id());
-		Mockito.doReturn(cloneSchema(three)).when(managerSpy).getSchema(three.get$id());
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
+		setupSchemaVersion(three);
 
 		// call under test
 		JsonSchema validationSchema = managerSpy.getValidationSchema(three.get$id());
@@ -1353,9 +1356,9 @@ public class JsonSchemaManagerImplTest {
 		// one refs to three creates a cycle
 		one.setItems(refToThree);
 
-		Mockito.doReturn(cloneSchema(one)).when(managerSpy).getSchema(one.get$id());
-		Mockito.doReturn(cloneSchema(two)).when(managerSpy).getSchema(two.get$id());
-		Mockito.doReturn(cloneSchema(three)).when(managerSpy).getSchema(three.get$id());
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
+		setupSchemaVersion(three);
 
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
@@ -1365,12 +1368,72 @@ public class JsonSchemaManagerImplTest {
 		assertEquals("Schema $id: 'three' has a circular dependency", message);
 	}
 
+	@Test
+	public void testGetValidationSchemaCached() throws JSONObjectAdapterException {
+		JsonSchema one = createSchema("one");
+		one.setDescription("about one");
+		JsonSchema refToOne = create$RefSchema(one);
+		JsonSchema two = createSchema("two");
+		two.setItems(refToOne);
+
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
+
+		JsonSchema first = managerSpy.getValidationSchema(two.get$id());
+		// call under test
+		JsonSchema second = managerSpy.getValidationSchema(two.get$id());
+		assertEquals(first, second);
+		// each call gets its own copy
+		assertFalse(first == second);
+		verify(mockSchemaDao).getSchema(one.get$id() + VERSION_SUFFIX);
+		verify(mockSchemaDao).getSchema(two.get$id() + VERSION_SUFFIX);
+	}
+
+	@Test
+	public void testGetValidationSchemaCachedWithNewVersionOfReference() throws JSONObjectAdapterException {
+		JsonSchema one = createSchema("one");
+		one.setDescription("about one");
+		JsonSchema refToOne = create$RefSchema(one);
+		JsonSchema two = createSchema("two");
+		two.setItems(refToOne);
+
+		setupSchemaVersion(one);
+		setupSchemaVersion(two);
+		managerSpy.getValidationSchema(two.get$id());
+
+		// a new version of one is now the latest.
+		JsonSchema newOne = createSchema("one");
+		newOne.setDescription("new one");
+		Mockito.doReturn("new-one").when(managerSpy).getSchemaVersionId(one.get$id());
+		when(mockSchemaDao.getSchema("new-one")).thenReturn(newOne);
+
+		// call under test
+		JsonSchema validationSchema = managerSpy.getValidationSchema(two.get$id());
+		assertEquals("new one", validationSchema.get$defs().get("#/$defs/one").getDescription());
+		verify(mockSchemaDao, times(2)).getSchema(two.get$id() + VERSION_SUFFIX);
+	}
+
+	@Test
+	public void testGetValidationSchemaCachedClearedOnDelete() throws JSONObjectAdapterException {
+		JsonSchema one = createSchema("one");
+		setupSchemaVersion(one);
+		managerSpy.getValidationSchema(one.get$id());
+		when(mockSchemaDao.getVersionInfo(any(), any(), any())).thenReturn(versionInfo);
+		when(mockAclDao.canAccess(any(UserInfo.class), any(), any(), any()))
+				.thenReturn(AuthorizationStatus.authorized());
+		managerSpy.deleteSchemaVersion(user, organizationName, schemaName, semanticVersionString);
+
+		// call under test
+		managerSpy.getValidationSchema(one.get$id());
+		verify(mockSchemaDao, times(2)).getSchema(one.get$id() + VERSION_SUFFIX);
+	}
+
 	@Test
 	public void testGetValidationWithSchemaNoReferences() throws JSONObjectAdapterException {
 		JsonSchema one = createSchema("one");
 		one.setDescription("about one");
 
-		Mockito.doReturn(cloneSchema(one)).when(managerSpy).getSchema(one.get$id());
+		setupSchemaVersion(one);
 
 		// call under test
 		JsonSchema validationSchema = managerSpy.getValidationSchema(one.get$id());
@@ -1378,7 +1441,7 @@ public class JsonSchemaManagerImplTest {
 		assertNull(validationSchema.get$defs());
 		assertEquals("one", validationSchema.get$id());
 
-		verify(managerSpy).getSchema(one.get$id());
+		verify(mockSchemaDao).getSchema(one.get$id() + VERSION_SUFFIX);
 	}
 
 	@Test
@@ -1460,6 +1523,21 @@ public class JsonSchemaManagerImplTest {
 		return schema;
 	}
 
+	/**
+	 * Helper to setup the given schema as the latest version of its $id.
+	 * 
+	 * @param schema
+	 * @throws JSONObjectAdapterException
+	 */
+	public void setupSchemaVersion(JsonSchema schema) throws JSONObjectAdapterException {
+		String versionId = schema.get$id() + VERSION_SUFFIX;
+		Mockito.doReturn(versionId).when(managerSpy).getSchemaVersionId(schema.get$id());
+		// each load returns a new copy, like the database.
+		String json = EntityFactory.createJSONStringForEntity(schema);
+		when(mockSchemaDao.getSchema(versionId))
+				.thenAnswer(invocation -> EntityFactory.createEntityFromJSONString(json, JsonSchema.class));
+	}
+
 	/**
 	 * Helper to create a $ref to the given schema
 	 * 
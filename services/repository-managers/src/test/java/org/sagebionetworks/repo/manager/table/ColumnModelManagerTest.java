@@ -11,6 +11,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyListOf;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.repo.model.table.ColumnConstants.MAX_NUMBER_OF_LARGE_TEXT_COLUMNS_PER_TABLE;
@@ -1246,27 +1247,124 @@ public class ColumnModelManagerTest {
 		}
 	}
 	
+	/**
+	 * Setup the current schema to be bound to the given object.
+	 * 
+	 * @param idAndVersion
+	 * @return The IDs of the bound columns.
+	 */
+	private List<String> setupBoundSchema(IdAndVersion idAndVersion) {
+		List<String> columnIds = Lists.newArrayList("111", "222", "333");
+		when(mockColumnModelDAO.getColumnModelIdsForObject(idAndVersion)).thenReturn(columnIds);
+		when(mockColumnModelDAO.getColumnModels(columnIds)).thenReturn(currentSchema);
+		return columnIds;
+	}
+
 	@Test
 	public void testGetColumnModelsForObjectWithoutVersion() {
 		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
-		when(mockColumnModelDAO.getColumnModelsForObject(idAndVersion)).thenReturn(currentSchema);
+		List<String> columnIds = setupBoundSchema(idAndVersion);
 		// call under test
 		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
 		assertEquals(currentSchema, results);
-		verify(mockColumnModelDAO).getColumnModelsForObject(idAndVersion);
+		verify(mockColumnModelDAO).getColumnModelIdsForObject(idAndVersion);
+		verify(mockColumnModelDAO).getColumnModels(columnIds);
 		verify(mockNodeDao, never()).getCurrentRevisionNumber(any(String.class));
 	}
+
+	@Test
+	public void testGetColumnModelsForObjectCached() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		List<String> columnIds = setupBoundSchema(idAndVersion);
+		columnModelManager.getColumnModelsForObject(idAndVersion);
+		// call under test
+		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
+		assertEquals(currentSchema, results);
+		// the bound IDs are checked on each call but the columns are only loaded once.
+		verify(mockColumnModelDAO, times(2)).getColumnModelIdsForObject(idAndVersion);
+		verify(mockColumnModelDAO).getColumnModels(columnIds);
+	}
+
+	@Test
+	public void testGetColumnModelsForObjectCachedReturnsCopies() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		setupBoundSchema(idAndVersion);
+		List<ColumnModel> first = columnModelManager.getColumnModelsForObject(idAndVersion);
+		first.get(0).setName("changed");
+		// call under test
+		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
+		assertEquals(currentSchema.get(0).getName(), results.get(0).getName());
+	}
+
+	@Test
+	public void testGetColumnModelsForObjectWithBindingChanged() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		setupBoundSchema(idAndVersion);
+		columnModelManager.getColumnModelsForObject(idAndVersion);
+		// the columns are reordered on another machine.
+		when(mockColumnModelDAO.getColumnModelIdsForObject(idAndVersion))
+				.thenReturn(Lists.newArrayList("333", "222", "111"));
+		// call under test
+		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
+		assertEquals(Lists.reverse(currentSchema), results);
+		// each column is only loaded once.
+		verify(mockColumnModelDAO, times(1)).getColumnModels(anyListOf(String.class));
+	}
+
+	@Test
+	public void testGetAndValidateColumnModelsCached() {
+		columnModelManager.getAndValidateColumnModels(expectedNewSchemaIds);
+		// call under test
+		List<ColumnModel> results = columnModelManager.getAndValidateColumnModels(Lists.newArrayList("333", "444"));
+		assertEquals(Lists.newArrayList(newSchema.get(1), newSchema.get(0)), results);
+		verify(mockColumnModelDAO, times(1)).getColumnModels(anyListOf(String.class));
+	}
+
+	@Test
+	public void testGetAndValidateColumnModelsLoadsOnlyMissing() {
+		when(mockColumnModelDAO.getColumnModels(Lists.newArrayList("444"))).thenReturn(Lists.newArrayList(newSchema.get(0)));
+		columnModelManager.getAndValidateColumnModels(Lists.newArrayList("444"));
+		// call under test
+		columnModelManager.getAndValidateColumnModels(expectedNewSchemaIds);
+		verify(mockColumnModelDAO).getColumnModels(Lists.newArrayList("444"));
+		verify(mockColumnModelDAO).getColumnModels(Lists.newArrayList("333", "555"));
+	}
+
+	@Test
+	public void testTruncateAllColumnDataClearsCache() {
+		columnModelManager.getAndValidateColumnModels(expectedNewSchemaIds);
+		user = new UserInfo(true, 123L);
+		columnModelManager.truncateAllColumnData(user);
+		// call under test
+		columnModelManager.getAndValidateColumnModels(expectedNewSchemaIds);
+		verify(mockColumnModelDAO, times(2)).getColumnModels(expectedNewSchemaIds);
+	}
+
+	@Test
+	public void testCopyColumnModel() {
+		ColumnModel cm = TableModelTestUtils.createColumn(123L, "foo", ColumnType.STRING);
+		cm.setDefaultValue("bar");
+		cm.setMaximumSize(12L);
+		cm.setMaximumListLength(3L);
+		cm.setFacetType(FacetType.enumeration);
+		cm.setEnumValues(Lists.newArrayList("bar", "baz"));
+		// call under test
+		ColumnModel copy = ColumnModelManagerImpl.copyColumnModel(cm);
+		assertEquals(cm, copy);
+		copy.getEnumValues().add("other");
+		assertEquals(2, cm.getEnumValues().size());
+	}
 	
 	@Test
 	public void testGetColumnModelsForObjectWithVersionNotCurrent() {
 		IdAndVersion idAndVersion = IdAndVersion.parse("syn123.45");
 		// the current version does not match the passed version
 		when(mockNodeDao.getCurrentRevisionNumber("123")).thenReturn(46L);
-		when(mockColumnModelDAO.getColumnModelsForObject(idAndVersion)).thenReturn(currentSchema);
+		setupBoundSchema(idAndVersion);
 		// call under test
 		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
 		assertEquals(currentSchema, results);
-		verify(mockColumnModelDAO).getColumnModelsForObject(idAndVersion);
+		verify(mockColumnModelDAO).getColumnModelIdsForObject(idAndVersion);
 		verify(mockNodeDao).getCurrentRevisionNumber("123");
 	}
 	
@@ -1279,11 +1377,11 @@ public class ColumnModelManagerTest {
 		// the current version matches the passed version.
 		when(mockNodeDao.getCurrentRevisionNumber("123")).thenReturn(45L);
 		IdAndVersion expectedIdAndVersion = IdAndVersion.parse("syn123");
-		when(mockColumnModelDAO.getColumnModelsForObject(expectedIdAndVersion)).thenReturn(currentSchema);
+		setupBoundSchema(expectedIdAndVersion);
 		// call under test
 		List<ColumnModel> results = columnModelManager.getColumnModelsForObject(idAndVersion);
 		assertEquals(currentSchema, results);
-		verify(mockColumnModelDAO).getColumnModelsForObject(expectedIdAndVersion);
+		verify(mockColumnModelDAO).getColumnModelIdsForObject(expectedIdAndVersion);
 		verify(mockNodeDao).getCurrentRevisionNumber("123");
 	}
 	
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -282,13 +283,20 @@ public class FacetModelTest {
 	public void testGenerateFacetFilteredQueryEmptyFacetColumnsList() throws ParseException {
 		assertTrue(validatedQueryFacetColumns.isEmpty());
 		SqlQuery copy = FacetModel.generateFacetFilteredQuery(simpleQuery, validatedQueryFacetColumns);
-		// not same reference, are different object instances
-		assertTrue(simpleQuery != copy);
-		// but are essentially the same
-		assertEquals(simpleQuery.getOutputSQL(), copy.getOutputSQL());
+		// there is nothing to filter so the query is reused.
+		assertSame(simpleQuery, copy);
 
 	}
 
+	@Test
+	public void testGenerateFacetFilteredQueryNoFacetSelected() throws ParseException {
+		// a facet that is returned without a selection does not filter the query.
+		validatedQueryFacetColumns.add(new FacetRequestColumnModel(facetColumnModel, null));
+		// call under test
+		SqlQuery copy = FacetModel.generateFacetFilteredQuery(simpleQuery, validatedQueryFacetColumns);
+		assertSame(simpleQuery, copy);
+	}
+
 	@Test
 	public void testGenerateFacetFilteredQueryNonEmptyFacetColumnsList() throws ParseException {
 		SqlQuery query = new SqlQueryBuilder("select * from " + tableId + " where asdf <> 'ayy' and asdf < 'taco bell'",
@@ -308,6 +316,23 @@ public class FacetModelTest {
 		assertEquals(min, modifiedQuery.getParameters().get("b2"));
 		assertEquals(max, modifiedQuery.getParameters().get("b3"));
 	}
+
+	@Test
+	public void testGenerateFacetFilteredQuerySeekPagination() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId + " where asdf <> 'ayy'", facetSchema)
+				.seekPagination(true).afterRowId(99L).build();
+
+		validatedQueryFacetColumns.add(new FacetRequestColumnModel(facetColumnModel, rangeRequest));
+
+		SqlQuery modifiedQuery = FacetModel.generateFacetFilteredQuery(query, validatedQueryFacetColumns);
+		assertTrue(modifiedQuery.isSeekPagination());
+		assertEquals(new Long(99), modifiedQuery.getAfterRowId());
+		String expectedTransformedQuery = "SELECT _C890_, _C098_, ROW_ID, ROW_VERSION FROM T123"
+				+ " WHERE ( ( _C890_ <> :b0 ) AND ( ( ( _C890_ BETWEEN :b1 AND :b2 ) ) ) ) AND ( ROW_ID > :b3 )"
+				+ " ORDER BY ROW_ID ASC";
+		assertEquals(expectedTransformedQuery, modifiedQuery.getOutputSQL());
+		assertEquals(99L, modifiedQuery.getParameters().get("b3"));
+	}
 	
 	///////////////////////////////////////////
 	// generateFacetQueryTransformers() tests
@@ -0,0 +1,236 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+
+public class ParallelCSVRowIteratorTest {
+
+	ExecutorService readerExecutor;
+	ExecutorService validationExecutor;
+	List<ColumnModel> schema;
+	ColumnModel number;
+	ColumnModel flag;
+
+	@BeforeEach
+	public void before() {
+		readerExecutor = Executors.newCachedThreadPool();
+		validationExecutor = Executors.newFixedThreadPool(3);
+		number = new ColumnModel();
+		number.setId("1");
+		number.setName("number");
+		number.setColumnType(ColumnType.INTEGER);
+		flag = new ColumnModel();
+		flag.setId("2");
+		flag.setName("flag");
+		flag.setColumnType(ColumnType.BOOLEAN);
+		flag.setDefaultValue("false");
+		schema = new ArrayList<>();
+		schema.add(number);
+		schema.add(flag);
+	}
+
+	@AfterEach
+	public void after() {
+		readerExecutor.shutdownNow();
+		validationExecutor.shutdownNow();
+	}
+
+	SparseRowDto createRow(String number, String flag) {
+		SparseRowDto row = new SparseRowDto();
+		Map<String, String> values = new HashMap<>();
+		values.put("1", number);
+		values.put("2", flag);
+		row.setValues(values);
+		return row;
+	}
+
+	List<SparseRowDto> createRows(int count) {
+		List<SparseRowDto> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			rows.add(createRow("" + i, "True"));
+		}
+		return rows;
+	}
+
+	ParallelCSVRowIterator createIterator(Iterator<SparseRowDto> source) {
+		return new ParallelCSVRowIterator(source, schema, readerExecutor, validationExecutor, 3, 2);
+	}
+
+	@Test
+	public void testIterateInOrder() {
+		List<SparseRowDto> rows = createRows(10);
+		try (ParallelCSVRowIterator iterator = createIterator(rows.iterator())) {
+			// call under test
+			for (int i = 0; i < rows.size(); i++) {
+				assertTrue(iterator.hasNext());
+				SparseRowDto row = iterator.next();
+				assertSame(rows.get(i), row);
+				assertEquals("" + i, row.getValues().get("1"));
+				// values are replaced with the validated values.
+				assertEquals("true", row.getValues().get("2"));
+			}
+			assertFalse(iterator.hasNext());
+			assertThrows(NoSuchElementException.class, () -> {
+				iterator.next();
+			});
+		}
+	}
+
+	@Test
+	public void testEmptySource() {
+		try (ParallelCSVRowIterator iterator = createIterator(new ArrayList<SparseRowDto>().iterator())) {
+			// call under test
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	public void testDefaultAndEmptyValues() {
+		List<SparseRowDto> rows = new ArrayList<>();
+		rows.add(createRow("", null));
+		// a row without values is a delete
+		rows.add(new SparseRowDto());
+		try (ParallelCSVRowIterator iterator = createIterator(rows.iterator())) {
+			// call under test
+			SparseRowDto row = iterator.next();
+			assertNull(row.getValues().get("1"));
+			assertEquals("false", row.getValues().get("2"));
+			assertNull(iterator.next().getValues());
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	public void testInvalidValue() {
+		List<SparseRowDto> rows = createRows(10);
+		rows.get(7).getValues().put("1", "not a number");
+		try (ParallelCSVRowIterator iterator = createIterator(rows.iterator())) {
+			// the chunks before the invalid row are returned.
+			for (int i = 0; i < 6; i++) {
+				iterator.next();
+			}
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+				// call under test
+				iterator.hasNext();
+			});
+			// the row index is the index of the row in the CSV
+			assertTrue(e.getMessage().startsWith("Value at [7,0]"), e.getMessage());
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	public void testSourceFailure() {
+		IllegalStateException failure = new IllegalStateException("cannot read");
+		Iterator<SparseRowDto> source = new Iterator<SparseRowDto>() {
+			int count = 0;
+
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public SparseRowDto next() {
+				if (count++ < 4) {
+					return createRow("1", "true");
+				}
+				throw failure;
+			}
+		};
+		try (ParallelCSVRowIterator iterator = createIterator(source)) {
+			// the first chunk is returned
+			for (int i = 0; i < 3; i++) {
+				iterator.next();
+			}
+			IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+				// call under test
+				iterator.hasNext();
+			});
+			assertSame(failure, e);
+		}
+	}
+
+	@Test
+	public void testCloseStopsReading() throws InterruptedException {
+		AtomicLong rowsRead = new AtomicLong(0);
+		// an endless source
+		Iterator<SparseRowDto> source = new Iterator<SparseRowDto>() {
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public SparseRowDto next() {
+				rowsRead.incrementAndGet();
+				return createRow("1", "true");
+			}
+		};
+		ParallelCSVRowIterator iterator = createIterator(source);
+		iterator.next();
+		// call under test
+		iterator.close();
+		assertFalse(iterator.hasNext());
+		Thread.sleep(100L);
+		long readAfterClose = rowsRead.get();
+		Thread.sleep(100L);
+		assertEquals(readAfterClose, rowsRead.get());
+		// the reader only reads a bounded number of chunks ahead
+		assertTrue(readAfterClose <= 3 * 5, "Read: " + readAfterClose);
+	}
+
+	@Test
+	public void testCloseWaitsForReader() throws InterruptedException {
+		CountDownLatch reading = new CountDownLatch(1);
+		AtomicBoolean inSource = new AtomicBoolean(false);
+		// a source that ignores interrupts while reading, like a blocking stream
+		Iterator<SparseRowDto> source = new Iterator<SparseRowDto>() {
+			@Override
+			public boolean hasNext() {
+				inSource.set(true);
+				reading.countDown();
+				long end = System.currentTimeMillis() + 200L;
+				while (System.currentTimeMillis() < end) {
+					Thread.yield();
+				}
+				inSource.set(false);
+				return true;
+			}
+
+			@Override
+			public SparseRowDto next() {
+				return createRow("1", "true");
+			}
+		};
+		ParallelCSVRowIterator iterator = createIterator(source);
+		assertTrue(reading.await(5, TimeUnit.SECONDS));
+		// call under test
+		iterator.close();
+		assertFalse(inSource.get());
+	}
+}
@@ -397,7 +397,8 @@ public class TableEntityManagerTest {
 		assertEquals(rowCount, fileHandes.size());
 		verify(mockTruthDao).reserveIdsInRange(tableId, new Long(rowCount-1));
 		// row level conflict test
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, 0L);
+		verify(mockTruthDao).listRowSetsKeysNotInRowVersionIndex(tableId, 0L);
+		verify(mockTruthDao).startRowVersionIndex(tableId, range.getVersionNumber());
 		// save the row set
 		verify(mockTruthDao).appendRowSetToTable(""+user.getId(), tableId, range.getEtag(), range.getVersionNumber(), models, sparseChangeSet.writeToDto(), transactionId);
 		verify(mockStatisticsCollector, times(1)).collectEvents(any(List.class));
@@ -1417,7 +1418,7 @@ public class TableEntityManagerTest {
 		TableRowChange change = new TableRowChange();
 		change.setKey("someKey");
 		change.setChangeType(TableChangeType.ROW);
-		when(mockTruthDao.listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion)).thenReturn(Lists.newArrayList(change));
+		when(mockTruthDao.listRowSetsKeysNotInRowVersionIndex(tableId, etagVersion)).thenReturn(Lists.newArrayList(change));
 		SparseChangeSetDto conflictUpdate = new SparseChangeSetDto();
 		SparseRowDto conflictRow = new SparseRowDto();
 		conflictRow.setRowId(0L);
@@ -1446,7 +1447,7 @@ public class TableEntityManagerTest {
 			assertTrue(e.getMessage().startsWith(""));
 		}
 		// The etag version should be used to list the values
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion);
+		verify(mockTruthDao).listRowSetsKeysNotInRowVersionIndex(tableId, etagVersion);
 	}
 	
 	
@@ -1468,8 +1469,36 @@ public class TableEntityManagerTest {
 		row.setCellValue("1", "2.1");
 		
 		manager.checkForRowLevelConflict(tableId, changeSet);
-		// All versions greater than two should be scanned
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, 2L);
+		// All versions greater than two should be checked
+		verify(mockTruthDao).getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), 2L);
+		verify(mockTruthDao).listRowSetsKeysNotInRowVersionIndex(tableId, 2L);
+	}
+	
+	@Test
+	public void testCheckForRowLevelConflictWithIndexConflict() throws IOException{
+		when(mockTruthDao.getRowIdsChangedAfterVersion(tableId, Sets.newHashSet(0L, 1L), 2L)).thenReturn(Sets.newHashSet(1L));
+		List<ColumnModel> columns = TableModelTestUtils.createOneOfEachType();
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, columns);
+		
+		// add some rows
+		SparseRow row = changeSet.addEmptyRow();
+		row.setRowId(0L);
+		row.setVersionNumber(2L);
+		row.setCellValue("1", "1.1");
+		
+		row = changeSet.addEmptyRow();
+		row.setRowId(1L);
+		row.setVersionNumber(1L);
+		row.setCellValue("1", "2.1");
+		
+		ConflictingUpdateException exception = assertThrows(ConflictingUpdateException.class, ()->{
+			// call under test
+			manager.checkForRowLevelConflict(tableId, changeSet);
+		});
+		assertTrue(exception.getMessage().startsWith("Row id: 1 has been changed since last read."));
+		// no need to scan change sets once a conflict is found.
+		verify(mockTruthDao, never()).listRowSetsKeysNotInRowVersionIndex(anyString(), anyLong());
+		verify(mockTruthDao, never()).getRowSet(any(TableRowChange.class));
 	}
 	
 	@Test
@@ -1494,7 +1523,7 @@ public class TableEntityManagerTest {
 		
 		manager.checkForRowLevelConflict(tableId, changeSet);
 		// The etag version should be used to list the values
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion);
+		verify(mockTruthDao).listRowSetsKeysNotInRowVersionIndex(tableId, etagVersion);
 	}
 	
 	@Test
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.ExecutorService;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +31,8 @@ public class TableIndexConnectionFactoryImplTest {
 	private MetadataIndexProviderFactory mockMetaDataIndexProviderFactory;
 	@Mock
 	private ObjectFieldModelResolverFactory mockObjectFieldModelResolverFactory;
+	@Mock
+	private ExecutorService mockExecutorService;
 	
 	@InjectMocks
 	private TableIndexConnectionFactoryImpl indexFactory;
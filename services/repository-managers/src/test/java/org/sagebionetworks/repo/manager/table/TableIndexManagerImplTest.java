@@ -30,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -93,6 +94,7 @@ import org.springframework.transaction.support.TransactionCallback;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @ExtendWith(MockitoExtension.class)
 public class TableIndexManagerImplTest {
@@ -150,13 +152,15 @@ public class TableIndexManagerImplTest {
 	ViewScopeType scopeType;
 	ViewScopeFilterBuilder scopeFilterBuilder;
 	ObjectFieldModelResolver objectFieldModelResolver;
+	ExecutorService executorService;
 	
 	@BeforeEach
 	public void before() throws Exception{
 		
 		objectType = ViewObjectType.ENTITY;
 		tableId = IdAndVersion.parse("syn123");
-		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);
+		executorService = MoreExecutors.newDirectExecutorService();
+		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, executorService);
 		managerSpy = Mockito.spy(manager);
 		versionNumber = 99L;		
 		schema = Arrays.asList(
@@ -214,7 +218,7 @@ public class TableIndexManagerImplTest {
 	@Test
 	public void testNullDao(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);	
+			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, executorService);	
 		});
 	}
 	
@@ -222,21 +226,28 @@ public class TableIndexManagerImplTest {
 	@Test
 	public void testNullSupport(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);			
+			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, executorService);			
 		});
 	}
 	
 	@Test
 	public void testNullProviderFactory(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory);			
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory, executorService);			
 		});
 	}
 	
 	@Test
 	public void testNullObjectFieldFactory(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null);			
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null, executorService);			
+		});
+	}
+	
+	@Test
+	public void testNullExecutorService(){
+		assertThrows(IllegalArgumentException.class, ()->{
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, null);
 		});
 	}
 	
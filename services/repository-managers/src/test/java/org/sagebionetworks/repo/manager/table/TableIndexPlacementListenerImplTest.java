@@ -0,0 +1,28 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+@ExtendWith(MockitoExtension.class)
+public class TableIndexPlacementListenerImplTest {
+
+	@Mock
+	private TableManagerSupport mockTableManagerSupport;
+
+	@InjectMocks
+	private TableIndexPlacementListenerImpl listener;
+
+	@Test
+	public void testPlacementChanged() {
+		IdAndVersion tableId = IdAndVersion.parse("syn123.4");
+		// call under test
+		listener.placementChanged(tableId);
+		verify(mockTableManagerSupport).setTableToProcessingAndTriggerUpdate(tableId);
+	}
+}
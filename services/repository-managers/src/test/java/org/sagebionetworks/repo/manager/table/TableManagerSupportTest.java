@@ -58,6 +58,7 @@ import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.MessageToSend;
+import org.sagebionetworks.repo.model.message.TransactionSynchronizationProxy;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.TableRowChange;
@@ -72,6 +73,7 @@ import org.sagebionetworks.table.cluster.ConnectionFactory;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.TimeoutUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -109,6 +111,10 @@ public class TableManagerSupportTest {
 	MetadataIndexProvider mockMetadataIndexProvider;
 	@Mock
 	DefaultColumnModelMapper mockDefaultColumnModelMapper;
+	@Mock
+	ViewActivitySignalDebouncer mockViewActivitySignalDebouncer;
+	@Mock
+	TransactionSynchronizationProxy mockTransactionSynchronization;
 	
 	@InjectMocks
 	TableManagerSupportImpl manager;
@@ -813,13 +819,14 @@ public class TableManagerSupportTest {
 
 	@Test
 	public void testRebuildTableAuthorizedForTableEntity() throws Exception {
-		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableConnectionFactory.rebalance(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableStatusDAO.resetTableStatusToProcessing(idAndVersion)).thenReturn(etag);
 		when(mockNodeDao.getNodeTypeById(tableId)).thenReturn(EntityType.table);
 		UserInfo mockAdmin = Mockito.mock(UserInfo.class);
 		when(mockAdmin.isAdmin()).thenReturn(true);
 		// call under test
 		manager.rebuildTable(mockAdmin, idAndVersion);
+		verify(mockTableConnectionFactory).rebalance(idAndVersion);
 		verify(mockTableIndexDAO).deleteTable(idAndVersion);
 		verify(mockTableStatusDAO).resetTableStatusToProcessing(idAndVersion);
 		ArgumentCaptor<ChangeMessage> captor = ArgumentCaptor.forClass(ChangeMessage.class);
@@ -832,7 +839,7 @@ public class TableManagerSupportTest {
 
 	@Test
 	public void testRebuildTableAuthorizedForFileView() throws Exception {
-		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableConnectionFactory.rebalance(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableStatusDAO.resetTableStatusToProcessing(idAndVersion)).thenReturn(etag);
 		when(mockNodeDao.getNodeTypeById(tableId)).thenReturn(EntityType.table);
 		UserInfo mockAdmin = Mockito.mock(UserInfo.class);
@@ -840,6 +847,7 @@ public class TableManagerSupportTest {
 		when(mockNodeDao.getNodeTypeById(tableId)).thenReturn(EntityType.entityview);
 		// call under test
 		manager.rebuildTable(mockAdmin, idAndVersion);
+		verify(mockTableConnectionFactory).rebalance(idAndVersion);
 		verify(mockTableIndexDAO).deleteTable(idAndVersion);
 		verify(mockTableStatusDAO).resetTableStatusToProcessing(idAndVersion);
 		ArgumentCaptor<ChangeMessage> captor = ArgumentCaptor.forClass(ChangeMessage.class);
@@ -913,6 +921,61 @@ public class TableManagerSupportTest {
 		verify(mockTableStatusDAO).resetTableStatusToProcessing(idAndVersion);
 	}
 	
+	@Test
+	public void testSendAsynchronousActivitySignal() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		when(mockNodeDao.getNodeTypeById("123")).thenReturn(EntityType.entityview);
+		when(mockViewActivitySignalDebouncer.shouldSendSignal(123L)).thenReturn(true);
+		when(mockTransactionSynchronization.isActualTransactionActive()).thenReturn(true);
+		// call under test
+		manager.sendAsynchronousActivitySignal(idAndVersion);
+		verify(mockTransactionalMessenger)
+				.sendMessageAfterCommit(new MessageToSend().withObjectId("123").withObjectVersion(null)
+						.withObjectType(ObjectType.ENTITY_VIEW).withChangeType(ChangeType.UPDATE));
+		ArgumentCaptor<TransactionSynchronization> captor = ArgumentCaptor.forClass(TransactionSynchronization.class);
+		verify(mockTransactionSynchronization).registerSynchronization(captor.capture());
+		// the signal is only recorded once the transaction commits
+		verify(mockViewActivitySignalDebouncer, never()).signalSent(anyLong());
+		captor.getValue().afterCommit();
+		verify(mockViewActivitySignalDebouncer).signalSent(123L);
+	}
+	
+	@Test
+	public void testSendAsynchronousActivitySignalNoTransaction() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		when(mockNodeDao.getNodeTypeById("123")).thenReturn(EntityType.entityview);
+		when(mockViewActivitySignalDebouncer.shouldSendSignal(123L)).thenReturn(true);
+		when(mockTransactionSynchronization.isActualTransactionActive()).thenReturn(false);
+		// call under test
+		manager.sendAsynchronousActivitySignal(idAndVersion);
+		verify(mockTransactionalMessenger)
+				.sendMessageAfterCommit(new MessageToSend().withObjectId("123").withObjectVersion(null)
+						.withObjectType(ObjectType.ENTITY_VIEW).withChangeType(ChangeType.UPDATE));
+		verify(mockTransactionSynchronization, never()).registerSynchronization(any(TransactionSynchronization.class));
+		verify(mockViewActivitySignalDebouncer).signalSent(123L);
+	}
+	
+	@Test
+	public void testSendAsynchronousActivitySignalSuppressed() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		when(mockNodeDao.getNodeTypeById("123")).thenReturn(EntityType.entityview);
+		when(mockViewActivitySignalDebouncer.shouldSendSignal(123L)).thenReturn(false);
+		// call under test
+		manager.sendAsynchronousActivitySignal(idAndVersion);
+		verify(mockTransactionalMessenger, never()).sendMessageAfterCommit(any(MessageToSend.class));
+		verify(mockViewActivitySignalDebouncer, never()).signalSent(anyLong());
+	}
+	
+	@Test
+	public void testSendAsynchronousActivitySignalTable() {
+		IdAndVersion idAndVersion = IdAndVersion.parse("syn123");
+		when(mockNodeDao.getNodeTypeById("123")).thenReturn(EntityType.table);
+		// call under test
+		manager.sendAsynchronousActivitySignal(idAndVersion);
+		verify(mockViewActivitySignalDebouncer, never()).shouldSendSignal(anyLong());
+		verify(mockTransactionalMessenger, never()).sendMessageAfterCommit(any(MessageToSend.class));
+	}
+	
 	/**
 	 * Setup to create a column by returning the passed column.
 	 */
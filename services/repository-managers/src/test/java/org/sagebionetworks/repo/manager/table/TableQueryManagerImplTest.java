@@ -2,6 +2,8 @@ package org.sagebionetworks.repo.manager.table;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -26,17 +28,25 @@ import static org.sagebionetworks.repo.model.table.QueryOptions.BUNDLE_MASK_QUER
 import static org.sagebionetworks.repo.model.table.QueryOptions.BUNDLE_MASK_QUERY_SELECT_COLUMNS;
 import static org.sagebionetworks.repo.model.table.QueryOptions.BUNDLE_MASK_SUM_FILE_SIZES;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -70,6 +80,7 @@ import org.sagebionetworks.repo.model.table.FacetType;
 import org.sagebionetworks.repo.model.table.Query;
 import org.sagebionetworks.repo.model.table.QueryBundleRequest;
 import org.sagebionetworks.repo.model.table.QueryOptions;
+import org.sagebionetworks.repo.model.table.QueryNextPageToken;
 import org.sagebionetworks.repo.model.table.QueryResult;
 import org.sagebionetworks.repo.model.table.QueryResultBundle;
 import org.sagebionetworks.repo.model.table.Row;
@@ -147,6 +158,8 @@ public class TableQueryManagerImplTest {
 	
 	ViewScopeType scopeType;
 	
+	ExecutorService executorService;
+	
 	@BeforeEach
 	public void before() throws Exception {
 		tableId = "syn123";
@@ -162,6 +175,9 @@ public class TableQueryManagerImplTest {
 		models = TableModelTestUtils.createOneOfEachType(true);		
 		maxBytesPerRequest = 10000000;
 		manager.setMaxBytesPerRequest(maxBytesPerRequest);
+		executorService = Executors.newFixedThreadPool(2);
+		manager.setTableQueryExecutorService(executorService);
+		manager.setMaxConcurrentSubQueriesPerRequest(2);
 		
 		rows = TableModelTestUtils.createRows(models, 10);
 		
@@ -206,6 +222,11 @@ public class TableQueryManagerImplTest {
 		scopeType =  new ViewScopeType(ViewObjectType.ENTITY, ViewTypeMask.File.getMask());
 	}
 
+	@AfterEach
+	public void after() {
+		executorService.shutdownNow();
+	}
+
 	void setupQueryCallback() {
 		when(mockTableIndexDAO.queryAsStream(any(ProgressCallback.class),any(SqlQuery.class), any(RowHandler.class))).thenAnswer(new Answer<Boolean>() {
 			@Override
@@ -630,6 +651,8 @@ public class TableQueryManagerImplTest {
 		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
 		
 		when(mockTableIndexDAO.query(isNull(), any(SqlQuery.class))).thenReturn(enumerationFacetResults, rangeFacetResults, enumerationFacetResults);
+		// the stubbed results depend on the order of the facet queries.
+		manager.setMaxConcurrentSubQueriesPerRequest(1);
 		List<FacetColumnRequest> facetRequestList = new ArrayList<>();
 		facetRequestList.add(facetColumnRequest);
 		expectedRangeResult.setSelectedMin(facetColumnRequest.getMin());
@@ -666,7 +689,7 @@ public class TableQueryManagerImplTest {
 		SinglePageRowHandler rowHandler = new SinglePageRowHandler();
 		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models).build();
 		// call under test
-		RowSet rowSet = manager.runQueryAsStream(mockProgressCallbackVoid, query, rowHandler, mockTableIndexDAO);
+		RowSet rowSet = manager.runQueryAsStream(mockProgressCallbackVoid, query, rowHandler, mockTableIndexDAO, null);
 		assertNotNull(rowSet);
 		assertEquals(TableModelUtils.getSelectColumns(models), rowSet.getHeaders());
 		assertEquals(tableId, rowSet.getTableId());
@@ -879,6 +902,8 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
 		
 		when(mockTableIndexDAO.query(isNull(), any(SqlQuery.class))).thenReturn(enumerationFacetResults, rangeFacetResults, enumerationFacetResults);
+		// the stubbed results depend on the order of the facet queries.
+		manager.setMaxConcurrentSubQueriesPerRequest(1);
 		
 		Query query = new Query();
 		query.setSql("select * from " + tableId);
@@ -1240,7 +1265,7 @@ public class TableQueryManagerImplTest {
 	@Test
 	public void testRunCountQuerySimpleAggregate() throws ParseException{
 		SqlQuery query = new SqlQueryBuilder("select max(i0) from "+tableId, models).build();
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(1l, count);
 		// no need to run a query for a simple aggregate
 		verify(mockTableIndexDAO, never()).countQuery(anyString(), anyMap());
@@ -1253,7 +1278,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(200L, count);
 		assertEquals("SELECT COUNT(*) FROM T123 WHERE _C0_ = :b0", sqlCaptrue.getValue());
 		verify(mockTableIndexDAO).countQuery(anyString(), anyMap());
@@ -1266,7 +1291,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(100L, count);
 	}
 	
@@ -1277,7 +1302,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(200L, count);
 	}
 		
@@ -1288,7 +1313,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(100L, count);
 	}
 	
@@ -1299,7 +1324,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(50L, count);
 	}
 	
@@ -1310,7 +1335,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(149L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals(0L, count);
 	}
 	
@@ -1326,7 +1351,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals("SELECT COUNT(DISTINCT _C0_) FROM T123", sqlCaptrue.getValue());
 	}
 	
@@ -1342,7 +1367,7 @@ public class TableQueryManagerImplTest {
 		// setup the count returned from query
 		when(mockTableIndexDAO.countQuery(sqlCaptrue.capture(), anyMap())).thenReturn(200L);
 		// method under test
-		long count = manager.runCountQuery(query, mockTableIndexDAO);
+		long count = manager.runCountQuery(query, mockTableIndexDAO, null);
 		assertEquals("SELECT COUNT(DISTINCT _C0_, _C4_) FROM T123", sqlCaptrue.getValue());
 	}
 	
@@ -1404,6 +1429,140 @@ public class TableQueryManagerImplTest {
 		assertEquals(true, nextQuery.getIsConsistent());
 	}
 	
+	@Test
+	public void testQuerySinglePageWithNextPageSeek() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		
+		// setup the results to return one row.
+		Row row = rows.get(0);
+		row.setRowId(44L);
+		rows.clear();
+		rows.add(row);
+		queryOptions = new QueryOptions().withRunQuery(true).withRunCount(false).withReturnFacets(false);
+		Query query = new Query();
+		query.setIsConsistent(true);
+		// without a sort the query is paginated by ROW_ID.
+		query.setSql("select * from "+tableId);
+		manager.setMaxBytesPerRequest(1);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		// the first page is read once, ordered by ROW_ID.
+		verify(mockTableIndexDAO, times(1)).queryAsStream(any(ProgressCallback.class), any(SqlQuery.class), any(RowHandler.class));
+		assertTrue(capturedQuery.isSeekPagination());
+		assertNull(capturedQuery.getAfterRowId());
+		assertTrue(capturedQuery.getOutputSQL().contains("ORDER BY ROW_ID ASC"), capturedQuery.getOutputSQL());
+		assertFalse(capturedQuery.getOutputSQL().contains("ROW_ID >"), capturedQuery.getOutputSQL());
+		assertEquals(rows, result.getQueryResult().getQueryResults().getRows());
+		assertNotNull(result.getQueryResult().getNextPageToken());
+		NextPageQuery nextPage = TableQueryUtils.createNextPageQueryFromToken(result.getQueryResult().getNextPageToken());
+		assertEquals(new Long(44), nextPage.getAfterRowId());
+		assertNull(nextPage.getQuery().getOffset());
+		assertEquals(query.getSql(), nextPage.getQuery().getSql());
+		assertEquals(true, nextPage.getQuery().getIsConsistent());
+	}
+	
+	@Test
+	public void testQuerySinglePageWithoutNextPageNoSeek() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		
+		queryOptions = new QueryOptions().withRunQuery(true).withRunCount(false).withReturnFacets(false);
+		Query query = new Query();
+		query.setIsConsistent(true);
+		query.setSql("select * from "+tableId);
+		// a limit smaller than a page cannot have a next page.
+		query.setLimit(1L);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		// a query that fits in a single page is not ordered by ROW_ID.
+		verify(mockTableIndexDAO, times(1)).queryAsStream(any(ProgressCallback.class), any(SqlQuery.class), any(RowHandler.class));
+		assertFalse(capturedQuery.isSeekPagination());
+		assertFalse(capturedQuery.getOutputSQL().contains("ORDER BY"), capturedQuery.getOutputSQL());
+		assertNull(result.getQueryResult().getNextPageToken());
+	}
+	
+	@Test
+	public void testQuerySinglePageWithNextPageAfterOffset() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		
+		Row row = rows.get(0);
+		row.setRowId(44L);
+		rows.clear();
+		rows.add(row);
+		queryOptions = new QueryOptions().withRunQuery(true).withRunCount(false).withReturnFacets(false);
+		Query query = new Query();
+		query.setIsConsistent(true);
+		query.setSql("select * from "+tableId);
+		query.setOffset(5L);
+		manager.setMaxBytesPerRequest(1);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		// the previous pages were not ordered by ROW_ID so the offset is kept.
+		verify(mockTableIndexDAO, times(1)).queryAsStream(any(ProgressCallback.class), any(SqlQuery.class), any(RowHandler.class));
+		assertFalse(capturedQuery.isSeekPagination());
+		NextPageQuery nextPage = TableQueryUtils.createNextPageQueryFromToken(result.getQueryResult().getNextPageToken());
+		assertNull(nextPage.getAfterRowId());
+		assertEquals(new Long(6), nextPage.getQuery().getOffset());
+	}
+	
+	@Test
+	public void testQueryNextPageSeek() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken("select * from "+tableId, null, null, null, true, null, 44L);
+		// call under test.
+		QueryResult result = manager.queryNextPage(mockProgressCallbackVoid, user, token);
+		assertNotNull(result);
+		assertTrue(capturedQuery.isSeekPagination());
+		assertEquals(new Long(44), capturedQuery.getAfterRowId());
+		assertTrue(capturedQuery.getOutputSQL().contains("ROW_ID > :b"), capturedQuery.getOutputSQL());
+		assertTrue(capturedQuery.getOutputSQL().contains("ORDER BY ROW_ID ASC"), capturedQuery.getOutputSQL());
+	}
+	
+	@Test
+	public void testQueryNextPageOffset() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken("select * from "+tableId, sortList, 10L, null, true, null);
+		// call under test.
+		QueryResult result = manager.queryNextPage(mockProgressCallbackVoid, user, token);
+		assertNotNull(result);
+		// a sorted query is paginated with an offset.
+		assertFalse(capturedQuery.isSeekPagination());
+		assertNull(capturedQuery.getAfterRowId());
+		assertEquals(new Long(10), capturedQuery.getOverrideOffset());
+	}
+	
 	@Test
 	public void testQuerySinglePageWithNoOptions() throws Exception{
 		// setup the results to return one row.
@@ -1582,34 +1741,23 @@ public class TableQueryManagerImplTest {
 	}
 	
 	@Test
-	public void testBuildBenefactorFilter() throws ParseException, EmptyResultException{
-		QuerySpecification query = new TableQueryParser("select i0 from "+tableId+" where i1 is not null").querySpecification();
-		LinkedHashSet<Long> benefactorIds = new LinkedHashSet<Long>();
-		benefactorIds.add(456L);
-		benefactorIds.add(123L);
-		
+	public void testAppendBenefactorFilterNoWhere() throws ParseException {
+		// no where clause in the original query.
+		QuerySpecification query = new TableQueryParser("select i0 from "+tableId).querySpecification();
 		// call under test
-		QuerySpecification filtered = TableQueryManagerImpl.buildBenefactorFilter(query, benefactorIds);
-		assertNotNull(filtered);
-		// should filter by benefactorId
-		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( 456, 123 )", filtered.toSql());
+		TableQueryManagerImpl.appendBenefactorFilter(query, Sets.newHashSet(123L));
+		assertEquals("SELECT i0 FROM syn123 WHERE ROW_BENEFACTOR IN ( 123 )", query.toSql());
 	}
-	
+
 	@Test
-	public void testBuildBenefactorFilterNoBenefactorInSchema() throws ParseException, EmptyResultException{
-		// there is no benefactor column in the schema.
+	public void testAppendBenefactorFilterEmpty() throws ParseException {
 		QuerySpecification query = new TableQueryParser("select i0 from "+tableId+" where i1 is not null").querySpecification();
-		LinkedHashSet<Long> benefactorIds = new LinkedHashSet<Long>();
-		benefactorIds.add(456L);
-		benefactorIds.add(123L);
-		
 		// call under test
-		QuerySpecification filtered = TableQueryManagerImpl.buildBenefactorFilter(query, benefactorIds);
-		assertNotNull(filtered);
-		// should filter by benefactorId
-		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( 456, 123 )", filtered.toSql());
+		TableQueryManagerImpl.appendBenefactorFilter(query, new LinkedHashSet<Long>());
+		// should make filter always evaluate to false
+		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( -1 )", query.toSql());
 	}
-	
+
 	/**
 	 * 
 	 * PLFM-4036 identified that the benefactor search condition would limit the row visibility to
@@ -1620,46 +1768,30 @@ public class TableQueryManagerImplTest {
 	 * The fix was to unconditionally add the filter benefactor to the query such as:
 	 * WHERE ( <USER_CONDITION_1> OR <USER_CONDITION_2> ) AND <BENEFACTOR_FILTER>
 	 * @throws ParseException
-	 * @throws EmptyResultException
 	 */
 	@Test
-	public void testBuildBenefactorFilterPLFM_4036() throws ParseException, EmptyResultException {	
+	public void testAppendBenefactorFilter() throws ParseException {
 		QuerySpecification query = new TableQueryParser("select i0 from "+tableId+" where i1 > 0 or i1 is not null").querySpecification();
 		LinkedHashSet<Long> benefactorIds = new LinkedHashSet<Long>();
 		benefactorIds.add(456L);
 		benefactorIds.add(123L);
-		
-		// call under test
-		QuerySpecification filtered = TableQueryManagerImpl.buildBenefactorFilter(query, benefactorIds);
-		assertNotNull(filtered);
-		// should filter by benefactorId
-		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 > 0 OR i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( 456, 123 )", filtered.toSql());
-	}
-	
-	@Test
-	public void testBuildBenefactorFilterNoWhere() throws ParseException, EmptyResultException{
-		// no where clause in the original query.
-		QuerySpecification query = new TableQueryParser("select i0 from "+tableId).querySpecification();
-		LinkedHashSet<Long> benefactorIds = new LinkedHashSet<Long>();
-		benefactorIds.add(123L);
 		// call under test
-		QuerySpecification filtered = TableQueryManagerImpl.buildBenefactorFilter(query, benefactorIds);
-		assertNotNull(filtered);
-		// should filter by benefactorId
-		assertEquals("SELECT i0 FROM syn123 WHERE ROW_BENEFACTOR IN ( 123 )", filtered.toSql());
+		TableQueryManagerImpl.appendBenefactorFilter(query, benefactorIds);
+		// the query is filtered in place
+		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 > 0 OR i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( 456, 123 )", query.toSql());
 	}
 
 	@Test
-	public void testBuildBenefactorFilterEmpty() throws ParseException, EmptyResultException{
+	public void testAppendBenefactorFilterTranslation() throws ParseException {
 		QuerySpecification query = new TableQueryParser("select i0 from "+tableId+" where i1 is not null").querySpecification();
-		LinkedHashSet<Long> benefactorIds = new LinkedHashSet<Long>();
+		TableQueryManagerImpl.appendBenefactorFilter(query, Sets.newLinkedHashSet(Lists.newArrayList(456L, 123L)));
+		QuerySpecification parsed = new TableQueryParser(query.toSql()).querySpecification();
 		// call under test
-		QuerySpecification filtered = TableQueryManagerImpl.buildBenefactorFilter(query, benefactorIds);
-		assertNotNull(filtered);
-
-		// should make filter always evaluate to false
-		assertEquals("SELECT i0 FROM syn123 WHERE ( i1 IS NOT NULL ) AND ROW_BENEFACTOR IN ( -1 )", filtered.toSql());
-
+		SqlQuery filtered = new SqlQueryBuilder(query).tableSchema(models).build();
+		SqlQuery expected = new SqlQueryBuilder(parsed).tableSchema(models).build();
+		// the filter built from elements must be translated exactly as the parsed filter.
+		assertEquals(expected.getOutputSQL(), filtered.getOutputSQL());
+		assertEquals(expected.getParameters(), filtered.getParameters());
 	}
 	
 	@Test
@@ -1783,7 +1915,7 @@ public class TableQueryManagerImplTest {
 		ArgumentCaptor<String> sqlCaptrue = ArgumentCaptor.forClass(String.class);
 
 		// call under test
-		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO);
+		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO, null);
 		assertNotNull(sum);
 		assertEquals(sumFilesizes, sum.getSumFileSizesBytes());
 		assertFalse(sum.getGreaterThan());
@@ -1805,7 +1937,7 @@ public class TableQueryManagerImplTest {
 				.tableType(EntityType.entityview).build();
 
 		// call under test
-		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO);
+		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO, null);
 		assertNotNull(sum);
 		assertEquals(sumFilesizes, sum.getSumFileSizesBytes());
 		// when over the limit
@@ -1821,7 +1953,7 @@ public class TableQueryManagerImplTest {
 		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId, models)
 				.tableType(EntityType.table).build();
 		// call under test
-		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO);
+		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO, null);
 		assertNotNull(sum);
 		assertEquals(new Long(0), sum.getSumFileSizesBytes());
 		assertFalse(sum.getGreaterThan());
@@ -1834,14 +1966,106 @@ public class TableQueryManagerImplTest {
 		SqlQuery query = new SqlQueryBuilder("select count(*) from " + tableId, models)
 				.tableType(EntityType.entityview).build();
 		// call under test
-		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO);
+		SumFileSizes sum = manager.runSumFileSize(query, mockTableIndexDAO, null);
 		assertNotNull(sum);
 		assertEquals(new Long(0), sum.getSumFileSizesBytes());
 		assertFalse(sum.getGreaterThan());
 		verify(mockTableIndexDAO, never()).getRowIds(anyString(), any());
 		verify(mockTableIndexDAO, never()).getSumOfFileSizes(eq(ViewObjectType.ENTITY), any());
 	}
-	
+
+	@Test
+	public void testStartSubQueries() throws Exception {
+		List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+		List<Callable<Void>> subQueries = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			final int index = i;
+			subQueries.add(() -> {
+				ran.add(index);
+				return null;
+			});
+		}
+		// call under test
+		List<Future<Void>> futures = manager.startSubQueries(subQueries);
+		// limited to two concurrent sub-queries per request.
+		assertEquals(2, futures.size());
+		TableQueryManagerImpl.waitForSubQueries(futures);
+		assertEquals(5, ran.size());
+		assertTrue(ran.containsAll(Arrays.asList(0, 1, 2, 3, 4)));
+	}
+
+	@Test
+	public void testStartSubQueriesWithEmpty() {
+		// call under test
+		List<Future<Void>> futures = manager.startSubQueries(new ArrayList<>());
+		assertTrue(futures.isEmpty());
+	}
+
+	@Test
+	public void testWaitForSubQueriesWithRuntimeException() {
+		IllegalArgumentException exception = new IllegalArgumentException("bad query");
+		List<Callable<Void>> subQueries = new ArrayList<>();
+		subQueries.add(() -> {
+			throw exception;
+		});
+		List<Future<Void>> futures = manager.startSubQueries(subQueries);
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			TableQueryManagerImpl.waitForSubQueries(futures);
+		});
+		assertEquals(exception, thrown);
+	}
+
+	@Test
+	public void testWaitForSubQueriesWithCheckedException() {
+		List<Callable<Void>> subQueries = new ArrayList<>();
+		subQueries.add(() -> {
+			throw new IOException("checked");
+		});
+		List<Future<Void>> futures = manager.startSubQueries(subQueries);
+		RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
+			// call under test
+			TableQueryManagerImpl.waitForSubQueries(futures);
+		});
+		assertTrue(thrown.getCause() instanceof IOException);
+	}
+
+	@Test
+	public void testGetCapturedRowCapacity() {
+		SqlQuery mockQuery = Mockito.mock(SqlQuery.class);
+		when(mockQuery.getMaxRowsPerPage()).thenReturn(500L);
+		when(mockQuery.getOverrideLimit()).thenReturn(null);
+		// call under test
+		assertEquals(500, TableQueryManagerImpl.getCapturedRowCapacity(mockQuery));
+	}
+
+	@Test
+	public void testGetCapturedRowCapacityWithSmallerLimit() {
+		SqlQuery mockQuery = Mockito.mock(SqlQuery.class);
+		when(mockQuery.getMaxRowsPerPage()).thenReturn(500L);
+		when(mockQuery.getOverrideLimit()).thenReturn(10L);
+		// call under test
+		assertEquals(10, TableQueryManagerImpl.getCapturedRowCapacity(mockQuery));
+	}
+
+	@Test
+	public void testGetCapturedRowCapacityWithNullMaxRows() {
+		SqlQuery mockQuery = Mockito.mock(SqlQuery.class);
+		when(mockQuery.getMaxRowsPerPage()).thenReturn(null);
+		when(mockQuery.getOverrideLimit()).thenReturn(null);
+		// call under test
+		assertEquals(TableQueryManagerImpl.MAX_ROWS_PER_CALL, TableQueryManagerImpl.getCapturedRowCapacity(mockQuery));
+	}
+
+	@Test
+	public void testGetCapturedRowCapacityWithLargeMaxRows() {
+		SqlQuery mockQuery = Mockito.mock(SqlQuery.class);
+		when(mockQuery.getMaxRowsPerPage()).thenReturn(100_000L);
+		when(mockQuery.getOverrideLimit()).thenReturn(null);
+		// call under test
+		assertEquals(TableQueryManagerImpl.MAX_PREALLOCATED_ROWS, TableQueryManagerImpl.getCapturedRowCapacity(mockQuery));
+	}
+
 	private RowSet createRowSetForTest(List<String> headerNames, List<String>... rowValues){
 		RowSet rowSet = new RowSet();
 		List<SelectColumn> headerObjects = new ArrayList<>();
@@ -1865,6 +2089,154 @@ public class TableQueryManagerImplTest {
 		return rowSet;
 	}
 	
+	////////////////////////////
+	// query result cache Tests
+	////////////////////////////
+	@Test
+	public void testRunCountQueryCached() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId + " where i0 = 'aValue'", models).build();
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(200L);
+		// call under test
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		// the second count is read from the cache
+		verify(mockTableIndexDAO, times(1)).countQuery(anyString(), anyMap());
+	}
+
+	@Test
+	public void testRunCountQueryTableChanged() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId, models).build();
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(200L, 201L);
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		status.setLastTableChangeEtag("newEtag");
+		// call under test
+		assertEquals(201L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		verify(mockTableIndexDAO, times(2)).countQuery(anyString(), anyMap());
+	}
+
+	@Test
+	public void testRunCountQueryViewChanged() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId, models).build();
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(200L, 201L);
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		// the rows of a view change without changing the etag.
+		status.setChangedOn(new Date(456));
+		// call under test
+		assertEquals(201L, manager.runCountQuery(query, mockTableIndexDAO, status));
+		verify(mockTableIndexDAO, times(2)).countQuery(anyString(), anyMap());
+	}
+
+	@Test
+	public void testRunCountQueryNullStatus() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId, models).build();
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(200L);
+		// call under test
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, null));
+		assertEquals(200L, manager.runCountQuery(query, mockTableIndexDAO, null));
+		// nothing is cached without the status of the index.
+		verify(mockTableIndexDAO, times(2)).countQuery(anyString(), anyMap());
+	}
+
+	@Test
+	public void testRunQueryAsStreamCached() throws ParseException {
+		setupQueryCallback();
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models).build();
+		SinglePageRowHandler first = new SinglePageRowHandler();
+		SinglePageRowHandler second = new SinglePageRowHandler();
+		// call under test
+		RowSet firstResults = manager.runQueryAsStream(mockProgressCallbackVoid, query, first, mockTableIndexDAO, status);
+		RowSet secondResults = manager.runQueryAsStream(mockProgressCallbackVoid, query, second, mockTableIndexDAO, status);
+		verify(mockTableIndexDAO, times(1)).queryAsStream(any(ProgressCallback.class), any(SqlQuery.class), any(RowHandler.class));
+		assertEquals(rows, first.getRows());
+		assertEquals(rows, second.getRows());
+		// each caller gets its own copy of the cached rows.
+		assertNotSame(first.getRows().get(0), second.getRows().get(0));
+		assertEquals(firstResults, secondResults);
+		assertEquals(query.getSelectColumns(), secondResults.getHeaders());
+		assertEquals(tableId, secondResults.getTableId());
+	}
+
+	@Test
+	public void testRunQueryAsStreamNotSinglePage() throws ParseException {
+		setupQueryCallback();
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models).build();
+		List<Row> streamed = new ArrayList<>();
+		RowHandler handler = (Row row) -> streamed.add(row);
+		// call under test
+		manager.runQueryAsStream(mockProgressCallbackVoid, query, handler, mockTableIndexDAO, status);
+		manager.runQueryAsStream(mockProgressCallbackVoid, query, handler, mockTableIndexDAO, status);
+		// the rows of a download are never cached.
+		verify(mockTableIndexDAO, times(2)).queryAsStream(mockProgressCallbackVoid, query, handler);
+		assertEquals(rows.size() * 2, streamed.size());
+	}
+
+	@Test
+	public void testRunFacetQueryCached() throws ParseException {
+		SqlQuery facetQuery = new SqlQueryBuilder("select i2, count(*) from " + tableId + " group by i2", models).build();
+		FacetTransformer mockTransformer = Mockito.mock(FacetTransformerValueCounts.class);
+		FacetColumnResultValues result = new FacetColumnResultValues();
+		when(mockTransformer.getFacetSqlQuery()).thenReturn(facetQuery);
+		when(mockTableIndexDAO.query(null, facetQuery)).thenReturn(enumerationFacetResults);
+		when(mockTransformer.translateToResult(enumerationFacetResults)).thenReturn(result);
+		// call under test
+		assertEquals(result, manager.runFacetQuery(mockTransformer, mockTableIndexDAO, status));
+		assertEquals(result, manager.runFacetQuery(mockTransformer, mockTableIndexDAO, status));
+		verify(mockTableIndexDAO, times(1)).query(null, facetQuery);
+		// the selected values of each request are applied to the cached rows.
+		verify(mockTransformer, times(2)).translateToResult(enumerationFacetResults);
+	}
+
+	@Test
+	public void testRunSumFileSizeCached() throws Exception {
+		when(mockTableIndexDAO.getRowIds(any(), any())).thenReturn(Lists.newArrayList(1L, 2L));
+		when(mockTableIndexDAO.getSumOfFileSizes(any(), any())).thenReturn(sumFilesizes);
+		SqlQuery query = new SqlQueryBuilder("select i0 from " + tableId, models).tableType(EntityType.entityview).build();
+		// call under test
+		SumFileSizes first = manager.runSumFileSize(query, mockTableIndexDAO, status);
+		SumFileSizes second = manager.runSumFileSize(query, mockTableIndexDAO, status);
+		assertEquals(sumFilesizes, second.getSumFileSizesBytes());
+		assertFalse(second.getGreaterThan());
+		assertEquals(first, second);
+		assertNotSame(first, second);
+		verify(mockTableIndexDAO, times(1)).getRowIds(any(), any());
+		verify(mockTableIndexDAO, times(1)).getSumOfFileSizes(any(), any());
+	}
+
+	@Test
+	public void testCreateQueryCacheKey() {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("b0", "a");
+		parameters.put("b1", 1L);
+		Map<String, Object> sameParameters = new HashMap<>();
+		sameParameters.put("b1", 1L);
+		sameParameters.put("b0", "a");
+		String key = TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 1", parameters);
+		// call under test
+		assertEquals(key, TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 1", sameParameters));
+		assertNotEquals(key, TableQueryManagerImpl.createQueryCacheKey(status, "page", "SELECT 1", parameters));
+		assertNotEquals(key, TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 2", parameters));
+		sameParameters.put("b0", "b");
+		assertNotEquals(key, TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 1", sameParameters));
+		status.setResetToken("reset");
+		assertNotEquals(key, TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 1", parameters));
+	}
+
+	@Test
+	public void testCreateQueryCacheKeyNullChangedOn() {
+		status.setChangedOn(null);
+		// call under test
+		assertNotNull(TableQueryManagerImpl.createQueryCacheKey(status, "count", "SELECT 1", null));
+	}
+
+	@Test
+	public void testEstimateSizeBytes() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models).build();
+		// call under test
+		assertEquals(TableQueryManagerImpl.CACHED_VALUE_SIZE_BYTES + 10 * query.getMaxRowSizeBytes(),
+				TableQueryManagerImpl.estimateSizeBytes(10, query));
+		assertEquals(Integer.MAX_VALUE, TableQueryManagerImpl.estimateSizeBytes(Integer.MAX_VALUE, query));
+	}
+
 	List<Long> createListOfSize(long l){
 		List<Long> list = new LinkedList<>();
 		for(int i=0; i<l; i++) {
@@ -70,6 +70,39 @@ public class TableQueryUtilsTest {
 		assertEquals(selectedFacets, query.getSelectedFacets());
 	}
 	
+	@Test
+	public void testCreateNextPageTokenWithAfterRowId() throws Exception {
+		Long afterRowId = 123L;
+		Long limit = 21L;
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken(sql, null, null, limit, false, null, afterRowId);
+		// call under test
+		NextPageQuery nextPage = TableQueryUtils.createNextPageQueryFromToken(token);
+		assertEquals(afterRowId, nextPage.getAfterRowId());
+		assertEquals(sql, nextPage.getQuery().getSql());
+		assertEquals(null, nextPage.getQuery().getOffset());
+		assertEquals(limit, nextPage.getQuery().getLimit());
+		assertEquals(false, nextPage.getQuery().getIsConsistent());
+		assertEquals(tableId, TableQueryUtils.getTableId(token));
+	}
+	
+	@Test
+	public void testCreateNextPageQueryFromTokenWithOffset() throws Exception {
+		// call under test
+		NextPageQuery nextPage = TableQueryUtils.createNextPageQueryFromToken(nextPageToken);
+		assertEquals(null, nextPage.getAfterRowId());
+		assertEquals("select * from syn123", nextPage.getQuery().getSql());
+	}
+	
+	@Test
+	public void testCreateNextPageQueryFromTokenInvalid() throws Exception {
+		QueryNextPageToken token = new QueryNextPageToken();
+		token.setToken("<NextPageQuery><afterRowId>1</afterRowId></NextPageQuery>");
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			TableQueryUtils.createNextPageQueryFromToken(token);
+		});
+	}
+	
 	@Test
 	public void testExtractTableIdFromSql(){
 		String resultTableId = TableQueryUtils.extractTableIdFromSql(sql);
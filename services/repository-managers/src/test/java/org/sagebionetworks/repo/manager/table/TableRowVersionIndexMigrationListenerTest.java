@@ -0,0 +1,50 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableIdSequence;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.common.collect.Lists;
+
+@ExtendWith(MockitoExtension.class)
+public class TableRowVersionIndexMigrationListenerTest {
+
+	@Mock
+	private TableRowTruthDAO mockTableRowTruthDao;
+	@Mock
+	private DatabaseObject<?> mockDatabaseObject;
+
+	@InjectMocks
+	private TableRowVersionIndexMigrationListener listener;
+
+	@Test
+	public void testAfterCreateOrUpdateTableSequence() {
+		DBOTableIdSequence one = new DBOTableIdSequence();
+		one.setTableId(123L);
+		DBOTableIdSequence two = new DBOTableIdSequence();
+		two.setTableId(456L);
+		List<DBOTableIdSequence> delta = Lists.newArrayList(one, two);
+		// call under test
+		listener.afterCreateOrUpdate(MigrationType.TABLE_SEQUENCE, delta);
+		verify(mockTableRowTruthDao).deleteRowVersionIndex(Lists.newArrayList(123L, 456L));
+	}
+
+	@Test
+	public void testAfterCreateOrUpdateOtherType() {
+		List<DatabaseObject<?>> delta = Lists.newArrayList(mockDatabaseObject);
+		// call under test
+		listener.afterCreateOrUpdate(MigrationType.NODE, delta);
+		verifyZeroInteractions(mockTableRowTruthDao);
+	}
+}
@@ -20,7 +20,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,6 +49,7 @@ import org.sagebionetworks.repo.model.table.UploadToTableRequest;
 import org.sagebionetworks.repo.model.table.UploadToTableResult;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.FileProvider;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.util.StringInputStream;
@@ -84,9 +88,16 @@ public class TableUploadManagerTest {
 	ObjectMetadata fileMetadata;
 	String csvString;
 	List<SparseRowDto> rowsRead;
+	ExecutorService readerThreadPool;
+	ExecutorService validationThreadPool;
 	
 	@Before
 	public void before() throws Exception {
+		readerThreadPool = Executors.newCachedThreadPool();
+		validationThreadPool = Executors.newFixedThreadPool(2);
+		ReflectionTestUtils.setField(manager, "tableUploadReaderThreadPool", readerThreadPool);
+		ReflectionTestUtils.setField(manager, "tableUploadValidationThreadPool", validationThreadPool);
+
 		// User
 		user = new UserInfo(false);
 		user.setId(999L);
@@ -139,6 +150,12 @@ public class TableUploadManagerTest {
 			}}).when(rowProcessor).processRows(eq(user), eq(uploadRequest.getTableId()), anyListOf(ColumnModel.class), any(Iterator.class), anyString(), eq(mockProgressCallback));
 	}
 	
+	@After
+	public void after() {
+		readerThreadPool.shutdownNow();
+		validationThreadPool.shutdownNow();
+	}
+	
 	@Test
 	public void testHappyCase() throws IOException{
 		// call under test;
@@ -17,6 +17,7 @@ public class TestTableChangeMetaData<T extends TableChange> implements TableChan
 	Long changeNumber;
 	TableChangeType changeType;
 	String eTag;
+	Long rowCount;
 	ChangeData<T> changeData;
 
 	@Override
@@ -34,6 +35,11 @@ public class TestTableChangeMetaData<T extends TableChange> implements TableChan
 		return eTag;
 	}
 
+	@Override
+	public Long getRowCount() {
+		return rowCount;
+	}
+
 	@Override
 	public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz) throws NotFoundException, IOException {
 		return (ChangeData<T>) changeData;
@@ -51,6 +57,10 @@ public class TestTableChangeMetaData<T extends TableChange> implements TableChan
 		this.eTag = eTag;
 	}
 
+	public void setRowCount(Long rowCount) {
+		this.rowCount = rowCount;
+	}
+
 	public void setChangeData(ChangeData<T> changeData) {
 		this.changeData = changeData;
 	}
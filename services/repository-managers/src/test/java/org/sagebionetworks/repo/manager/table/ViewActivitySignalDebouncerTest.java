@@ -0,0 +1,169 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class ViewActivitySignalDebouncerTest {
+
+	@Mock
+	Clock mockClock;
+	@Mock
+	Consumer mockCloudWatch;
+	@Mock
+	StackConfiguration mockStackConfig;
+
+	ViewActivitySignalDebouncer debouncer;
+	long windowMS;
+
+	@BeforeEach
+	public void before() {
+		windowMS = 1000L;
+		debouncer = new ViewActivitySignalDebouncer(mockClock, windowMS);
+		debouncer.cloudWatch = mockCloudWatch;
+		debouncer.stackConfig = mockStackConfig;
+	}
+
+	@Test
+	public void testShouldSendSignal() {
+		when(mockClock.currentTimeMillis()).thenReturn(5000L, 5001L, 5999L, 6000L, 6000L);
+		// call under test
+		assertTrue(debouncer.shouldSendSignal(123L));
+		debouncer.signalSent(123L);
+		assertFalse(debouncer.shouldSendSignal(123L));
+		assertFalse(debouncer.shouldSendSignal(123L));
+		// the window has passed
+		assertTrue(debouncer.shouldSendSignal(123L));
+		debouncer.signalSent(123L);
+		assertEquals(2L, debouncer.getSentCount());
+		assertEquals(2L, debouncer.getSuppressedCount());
+	}
+
+	@Test
+	public void testShouldSendSignalNotSent() {
+		// call under test
+		assertTrue(debouncer.shouldSendSignal(123L));
+		// a signal that was never sent, such as a rolled back one, does not suppress the next
+		assertTrue(debouncer.shouldSendSignal(123L));
+		assertEquals(0L, debouncer.getSentCount());
+		assertEquals(0, debouncer.getTrackedViewCount());
+	}
+
+	@Test
+	public void testShouldSendSignalPerView() {
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		// call under test
+		assertTrue(debouncer.shouldSendSignal(123L));
+		debouncer.signalSent(123L);
+		assertTrue(debouncer.shouldSendSignal(456L));
+		debouncer.signalSent(456L);
+		assertFalse(debouncer.shouldSendSignal(456L));
+		assertEquals(2, debouncer.getTrackedViewCount());
+	}
+
+	@Test
+	public void testShouldSendSignalZeroWindow() {
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		debouncer = new ViewActivitySignalDebouncer(mockClock, 0L);
+		// call under test
+		assertTrue(debouncer.shouldSendSignal(123L));
+		debouncer.signalSent(123L);
+		assertTrue(debouncer.shouldSendSignal(123L));
+		assertEquals(0L, debouncer.getSuppressedCount());
+	}
+
+	@Test
+	public void testSignalSentKeepsLatest() {
+		when(mockClock.currentTimeMillis()).thenReturn(6000L, 5000L, 6999L);
+		debouncer.signalSent(123L);
+		// call under test
+		debouncer.signalSent(123L);
+		// the window starts from the latest signal
+		assertFalse(debouncer.shouldSendSignal(123L));
+	}
+
+	@Test
+	public void testRemoveExpiredWhenFull() {
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		for (long i = 0; i < ViewActivitySignalDebouncer.MAX_TRACKED_VIEWS; i++) {
+			debouncer.signalSent(i);
+		}
+		when(mockClock.currentTimeMillis()).thenReturn(6000L);
+		// call under test
+		debouncer.signalSent(-1L);
+		// only the view signaled within the window is left
+		assertEquals(1, debouncer.getTrackedViewCount());
+	}
+
+	@Test
+	public void testTimerFired() {
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		when(mockStackConfig.getStackInstance()).thenReturn("123");
+		debouncer.signalSent(123L);
+		debouncer.shouldSendSignal(123L);
+		debouncer.shouldSendSignal(123L);
+		// call under test
+		debouncer.timerFired();
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockCloudWatch, times(2)).addProfileData(captor.capture());
+		List<ProfileData> data = captor.getAllValues();
+		assertEquals(ViewActivitySignalDebouncer.METRIC_NAMESPACE_PREFIX + "123", data.get(0).getNamespace());
+		assertEquals(ViewActivitySignalDebouncer.METRIC_SENT, data.get(0).getName());
+		assertEquals(Double.valueOf(1), data.get(0).getValue());
+		assertEquals(ViewActivitySignalDebouncer.METRIC_SUPPRESSED, data.get(1).getName());
+		assertEquals(Double.valueOf(2), data.get(1).getValue());
+		// the counts are reset
+		assertEquals(0L, debouncer.getSentCount());
+		assertEquals(0L, debouncer.getSuppressedCount());
+	}
+
+	@Test
+	public void testTimerFiredIdle() {
+		// call under test
+		debouncer.timerFired();
+		verify(mockCloudWatch, never()).addProfileData(any(ProfileData.class));
+	}
+
+	@Test
+	public void testNullViewId() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			debouncer.shouldSendSignal(null);
+		});
+	}
+
+	@Test
+	public void testSignalSentNullViewId() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			debouncer.signalSent(null);
+		});
+	}
+
+	@Test
+	public void testNegativeWindow() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new ViewActivitySignalDebouncer(mockClock, -1L);
+		});
+	}
+}
@@ -0,0 +1,276 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SchemaChange;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.TableChange;
+
+@ExtendWith(MockitoExtension.class)
+public class PrefetchingTableChangeIteratorTest {
+
+	@Mock
+	private ExecutorService mockExecutorService;
+
+	private List<FutureTask<?>> submitted;
+	private List<TableChangeMetaData> changes;
+	private List<Long> loaded;
+
+	@BeforeEach
+	public void before() {
+		submitted = new ArrayList<>();
+		loaded = Collections.synchronizedList(new ArrayList<>());
+		changes = new ArrayList<>();
+		for (long i = 0; i < 6; i++) {
+			changes.add(new StubChange(i, TableChangeType.ROW, 10L));
+		}
+	}
+
+	/**
+	 * Submitted tasks are only run when the test calls {@link #runSubmitted()}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void setupExecutor() {
+		when(mockExecutorService.submit(any(Callable.class))).thenAnswer(invocation -> {
+			FutureTask task = new FutureTask((Callable) invocation.getArgument(0));
+			submitted.add(task);
+			return task;
+		});
+	}
+
+	private void runSubmitted() {
+		for (FutureTask<?> task : submitted) {
+			task.run();
+		}
+	}
+
+	@Test
+	public void testIterateInOrder() throws Exception {
+		setupExecutor();
+		List<Long> results = new ArrayList<>();
+		try (PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 2, 100L)) {
+			// call under test
+			while (iterator.hasNext()) {
+				TableChangeMetaData change = iterator.next();
+				runSubmitted();
+				ChangeData<SparseChangeSet> data = change.loadChangeData(SparseChangeSet.class);
+				assertEquals(change.getChangeNumber().longValue(), data.getChangeNumber());
+				results.add(change.getChangeNumber());
+			}
+		}
+		assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), results);
+		assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), loaded);
+		assertEquals(6, submitted.size());
+	}
+
+	@Test
+	public void testLoadsAheadWhileCurrentChangeIsUsed() {
+		setupExecutor();
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 3, 100L);
+		// call under test
+		assertTrue(iterator.hasNext());
+		assertEquals(3, submitted.size());
+		iterator.next();
+		// the next change is loaded as soon as the first is taken.
+		assertEquals(4, submitted.size());
+	}
+
+	@Test
+	public void testRowBudget() {
+		setupExecutor();
+		changes.set(1, new StubChange(1L, TableChangeType.ROW, 95L));
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 4, 100L);
+		// call under test
+		assertTrue(iterator.hasNext());
+		// the second change does not fit with the first.
+		assertEquals(1, submitted.size());
+		iterator.next();
+		// the second change fits once the first is taken.
+		assertEquals(2, submitted.size());
+		iterator.next();
+		// the remaining changes fit once the second is taken.
+		assertEquals(6, submitted.size());
+	}
+
+	@Test
+	public void testChangeLargerThanBudget() {
+		setupExecutor();
+		changes = Collections.singletonList(new StubChange(0L, TableChangeType.ROW, 1000L));
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 4, 100L);
+		// call under test
+		assertTrue(iterator.hasNext());
+		assertEquals(1, submitted.size());
+	}
+
+	@Test
+	public void testAppliedChangesAreNotLoaded() throws Exception {
+		setupExecutor();
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, 3L, 10L, 2, 100L);
+		// call under test
+		for (int i = 0; i < 4; i++) {
+			TableChangeMetaData change = iterator.next();
+			assertSame(changes.get(i), change);
+		}
+		assertEquals(2, submitted.size());
+		runSubmitted();
+		assertEquals(Arrays.asList(4L, 5L), loaded);
+	}
+
+	@Test
+	public void testStopsAfterLastChange() {
+		setupExecutor();
+		Iterator<TableChangeMetaData> source = changes.iterator();
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(source, mockExecutorService, -1L,
+				1L, 10, 100L);
+		// call under test
+		iterator.next();
+		iterator.next();
+		// the first change after the last is returned without being loaded.
+		assertSame(changes.get(2), iterator.next());
+		assertFalse(iterator.hasNext());
+		assertEquals(2, submitted.size());
+		assertEquals(changes.get(3), source.next());
+	}
+
+	@Test
+	public void testColumnChange() throws Exception {
+		setupExecutor();
+		changes = Collections.singletonList(new StubChange(0L, TableChangeType.COLUMN, null));
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 2, 100L);
+		TableChangeMetaData change = iterator.next();
+		runSubmitted();
+		// call under test
+		ChangeData<SchemaChange> data = change.loadChangeData(SchemaChange.class);
+		assertEquals(0L, data.getChangeNumber());
+	}
+
+	@Test
+	public void testLoadFailure() {
+		setupExecutor();
+		changes = Collections.singletonList(new StubChange(0L, TableChangeType.ROW, 1L) {
+			@Override
+			public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
+					throws NotFoundException, IOException {
+				throw new NotFoundException("missing");
+			}
+		});
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 2, 100L);
+		TableChangeMetaData change = iterator.next();
+		runSubmitted();
+		NotFoundException exception = assertThrows(NotFoundException.class, () -> {
+			// call under test
+			change.loadChangeData(SparseChangeSet.class);
+		});
+		assertEquals("missing", exception.getMessage());
+	}
+
+	@Test
+	public void testClose() {
+		setupExecutor();
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, -1L, 10L, 2, 100L);
+		assertTrue(iterator.hasNext());
+		// call under test
+		iterator.close();
+		assertTrue(submitted.stream().allMatch(FutureTask::isCancelled));
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, () -> {
+			iterator.next();
+		});
+	}
+
+	@Test
+	public void testGetRows() {
+		assertEquals(1L, PrefetchingTableChangeIterator.getRows(new StubChange(0L, TableChangeType.COLUMN, null)));
+		assertEquals(1L, PrefetchingTableChangeIterator.getRows(new StubChange(0L, TableChangeType.ROW, 0L)));
+		assertEquals(12L, PrefetchingTableChangeIterator.getRows(new StubChange(0L, TableChangeType.ROW, 12L)));
+	}
+
+	@Test
+	public void testInvalidWindow() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(changes.iterator(), mockExecutorService, -1L, 10L, 0, 100L);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(changes.iterator(), mockExecutorService, -1L, 10L, 2, 0L);
+		});
+	}
+
+	/**
+	 * Records each change that is loaded.
+	 */
+	private class StubChange implements TableChangeMetaData {
+
+		private final Long changeNumber;
+		private final TableChangeType type;
+		private final Long rowCount;
+
+		StubChange(Long changeNumber, TableChangeType type, Long rowCount) {
+			this.changeNumber = changeNumber;
+			this.type = type;
+			this.rowCount = rowCount;
+		}
+
+		@Override
+		public Long getChangeNumber() {
+			return changeNumber;
+		}
+
+		@Override
+		public TableChangeType getChangeType() {
+			return type;
+		}
+
+		@Override
+		public String getETag() {
+			return "etag-" + changeNumber;
+		}
+
+		@Override
+		public Long getRowCount() {
+			return rowCount;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
+				throws NotFoundException, IOException {
+			loaded.add(changeNumber);
+			TableChange change = TableChangeType.ROW == type ? new SparseChangeSet("syn123", Collections.emptyList())
+					: new SchemaChange(Collections.emptyList());
+			return new ChangeData<>(changeNumber, (T) change);
+		}
+	}
+}
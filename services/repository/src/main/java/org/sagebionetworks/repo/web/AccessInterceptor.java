@@ -1,9 +1,8 @@
 package org.sagebionetworks.repo.web;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -33,10 +32,10 @@ public class AccessInterceptor implements HandlerInterceptor, AccessIdListener{
 	public static final String SESSION_ID = "sessionId";
 
 	/**
-	 * This map keeps track of the current record for each thread.
+	 * This map keeps track of the current record for each thread. Each request
+	 * thread only touches its own entry so a single lock is not needed.
 	 */
-	Map<Long, AccessRecord> threadToRecordMap = Collections
-			.synchronizedMap(new HashMap<Long, AccessRecord>());
+	Map<Long, AccessRecord> threadToRecordMap = new ConcurrentHashMap<Long, AccessRecord>();
 
 	@Autowired
 	AccessRecorder accessRecorder;
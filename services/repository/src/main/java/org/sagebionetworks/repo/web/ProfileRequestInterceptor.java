@@ -0,0 +1,60 @@
+package org.sagebionetworks.repo.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.profiler.ProfilerFrameStackManager;
+import org.sagebionetworks.repo.manager.UserManager;
+import org.sagebionetworks.repo.model.AuthorizationConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * This intercepter turns on the capture of the full profiler frame stack for
+ * the requests of administrators that include the profile header. All other
+ * requests are only sampled by the method latency recorder.
+ *
+ */
+public class ProfileRequestInterceptor implements HandlerInterceptor {
+
+	public static final String PROFILE_REQUEST_HEADER = "Synapse-Profile-Request";
+
+	@Autowired
+	UserManager userManager;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+		ProfilerFrameStackManager.setCaptureRequested(isProfileRequested(request));
+		return true;
+	}
+
+	/**
+	 * Capturing the full profile of a request has a cost, so only an
+	 * authenticated administrator can request it.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	boolean isProfileRequested(HttpServletRequest request) {
+		if (!Boolean.parseBoolean(request.getHeader(PROFILE_REQUEST_HEADER))) {
+			return false;
+		}
+		String userIdString = request.getParameter(AuthorizationConstants.USER_ID_PARAM);
+		if (userIdString == null) {
+			return false;
+		}
+		Long userId = Long.parseLong(userIdString);
+		if (AuthorizationConstants.BOOTSTRAP_PRINCIPAL.ANONYMOUS_USER.getPrincipalId().equals(userId)) {
+			return false;
+		}
+		return userManager.getUserInfo(userId).isAdmin();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+			throws Exception {
+		// The threads are pooled so the request must not leak to the next request.
+		ProfilerFrameStackManager.setCaptureRequested(false);
+	}
+
+}
@@ -189,6 +189,7 @@ public class UrlHelpers {
 	public static final String ASYNCHRONOUS_JOB = "/asynchronous/job";
 	public static final String ASYNCHRONOUS_JOB_ID = ASYNCHRONOUS_JOB + "/{jobId}";
 	public static final String ASYNCHRONOUS_JOB_CANCEL = ASYNCHRONOUS_JOB_ID + "/cancel";
+	public static final String ASYNCHRONOUS_JOB_WAIT = ASYNCHRONOUS_JOB_ID + "/wait";
 	public static final String ADMIN_ASYNCHRONOUS_JOB = ADMIN + ASYNCHRONOUS_JOB;
 	public static final String ADMIN_ASYNCHRONOUS_JOB_ID = ADMIN + ASYNCHRONOUS_JOB_ID;
 	
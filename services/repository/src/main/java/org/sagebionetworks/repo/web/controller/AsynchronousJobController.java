@@ -89,6 +89,34 @@ public class AsynchronousJobController {
 		return serviceProvider.getAsynchronousJobServices().getJobStatus(userId, jobId);
 	}
 
+	/**
+	 * Wait for the status of a job to change. Rather than getting the status of a
+	 * job over and over, a client can pass the etag of the last status it has
+	 * seen, and this call will return as soon as the status of the job changes,
+	 * the job is no longer processing, or the wait is over, whichever comes first.
+	 * The wait is limited to 30 seconds. When the server is busy the current
+	 * status might be returned right away, so clients must be ready to call again.
+	 * 
+	 * @param userId
+	 * @param jobId     The jobId issued to a job that has been launched with <a href="${POST.asynchronous.job}">POST
+	 *                  /asynchronous/job</a>
+	 * @param etag      The etag of the last status seen by the client. When omitted the current status is returned
+	 *                  right away.
+	 * @param maxWaitMS The maximum amount of time to wait in milliseconds.
+	 * @return
+	 * @throws NotFoundException
+	 */
+	@RequiredScope({view})
+	@ResponseStatus(HttpStatus.OK)
+	@RequestMapping(value = UrlHelpers.ASYNCHRONOUS_JOB_WAIT, method = RequestMethod.GET)
+	public @ResponseBody
+	AsynchronousJobStatus waitForJobStatusChange(@RequestParam(value = AuthorizationConstants.USER_ID_PARAM) Long userId,
+			@PathVariable String jobId, @RequestParam(value = "etag", required = false) String etag,
+			@RequestParam(value = "maxWaitMS", required = false, defaultValue = "30000") Long maxWaitMS)
+			throws NotFoundException {
+		return serviceProvider.getAsynchronousJobServices().waitForJobStatusChange(userId, jobId, etag, maxWaitMS);
+	}
+
 	/**
 	 * Once a job is launched it can be cancelled if the job is set up to be cancelable.
 	 * 
@@ -36,6 +36,18 @@ public interface AsynchronousJobServices {
 	 * @throws AsynchJobFailedException
 	 */
 	AsynchronousJobStatus getJobStatus(Long userId, String jobId) throws NotFoundException;
+	
+	/**
+	 * Wait for the status of an existing job to change.
+	 * 
+	 * @param userId
+	 * @param jobId
+	 * @param etag      The etag of the last status seen by the caller.
+	 * @param maxWaitMS
+	 * @return
+	 * @throws NotFoundException
+	 */
+	AsynchronousJobStatus waitForJobStatusChange(Long userId, String jobId, String etag, Long maxWaitMS) throws NotFoundException;
 
 	/**
 	 * Stop an existing job.
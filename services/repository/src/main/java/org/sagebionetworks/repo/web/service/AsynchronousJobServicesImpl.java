@@ -55,6 +55,23 @@ public class AsynchronousJobServicesImpl implements AsynchronousJobServices {
 		return jobStatus;
 	}
 
+	@Override
+	public AsynchronousJobStatus waitForJobStatusChange(Long userId, String jobId, String etag, Long maxWaitMS)
+			throws NotFoundException {
+		if (userId == null) {
+			throw new IllegalArgumentException("UserId cannot be null");
+		}
+		if (jobId == null) {
+			throw new IllegalArgumentException("JobId cannot be null");
+		}
+		if (maxWaitMS == null) {
+			throw new IllegalArgumentException("MaxWaitMS cannot be null");
+		}
+
+		UserInfo user = userManager.getUserInfo(userId);
+		return asynchJobStatusManager.waitForJobStatusChange(user, jobId, etag, maxWaitMS);
+	}
+
 	@Override
 	public void cancelJob(Long userId, String jobId) throws NotFoundException {
 		if (userId == null) {
@@ -0,0 +1,93 @@
+package org.sagebionetworks.repo.web;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.profiler.ProfilerFrameStackManager;
+import org.sagebionetworks.repo.manager.UserManager;
+import org.sagebionetworks.repo.model.AuthorizationConstants;
+import org.sagebionetworks.repo.model.UserInfo;
+
+@ExtendWith(MockitoExtension.class)
+public class ProfileRequestInterceptorTest {
+
+	@Mock
+	HttpServletRequest mockRequest;
+	@Mock
+	HttpServletResponse mockResponse;
+	@Mock
+	UserManager mockUserManager;
+
+	@InjectMocks
+	ProfileRequestInterceptor interceptor;
+
+	@AfterEach
+	public void after() {
+		ProfilerFrameStackManager.setCaptureRequested(false);
+	}
+
+	@Test
+	public void testPreHandleWithHeaderAdmin() throws Exception {
+		when(mockRequest.getHeader(ProfileRequestInterceptor.PROFILE_REQUEST_HEADER)).thenReturn("true");
+		when(mockRequest.getParameter(AuthorizationConstants.USER_ID_PARAM)).thenReturn("123");
+		when(mockUserManager.getUserInfo(123L)).thenReturn(new UserInfo(true, 123L));
+		// call under test
+		assertTrue(interceptor.preHandle(mockRequest, mockResponse, null));
+		assertTrue(ProfilerFrameStackManager.isCaptureRequested());
+		// call under test
+		interceptor.afterCompletion(mockRequest, mockResponse, null, null);
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+	}
+
+	@Test
+	public void testPreHandleWithHeaderNotAdmin() throws Exception {
+		when(mockRequest.getHeader(ProfileRequestInterceptor.PROFILE_REQUEST_HEADER)).thenReturn("true");
+		when(mockRequest.getParameter(AuthorizationConstants.USER_ID_PARAM)).thenReturn("123");
+		when(mockUserManager.getUserInfo(123L)).thenReturn(new UserInfo(false, 123L));
+		// call under test
+		assertTrue(interceptor.preHandle(mockRequest, mockResponse, null));
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+	}
+
+	@Test
+	public void testPreHandleWithHeaderAnonymous() throws Exception {
+		when(mockRequest.getHeader(ProfileRequestInterceptor.PROFILE_REQUEST_HEADER)).thenReturn("true");
+		when(mockRequest.getParameter(AuthorizationConstants.USER_ID_PARAM))
+				.thenReturn(AuthorizationConstants.BOOTSTRAP_PRINCIPAL.ANONYMOUS_USER.getPrincipalId().toString());
+		// call under test
+		assertTrue(interceptor.preHandle(mockRequest, mockResponse, null));
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+		verifyZeroInteractions(mockUserManager);
+	}
+
+	@Test
+	public void testPreHandleWithHeaderNoUser() throws Exception {
+		when(mockRequest.getHeader(ProfileRequestInterceptor.PROFILE_REQUEST_HEADER)).thenReturn("true");
+		when(mockRequest.getParameter(AuthorizationConstants.USER_ID_PARAM)).thenReturn(null);
+		// call under test
+		assertTrue(interceptor.preHandle(mockRequest, mockResponse, null));
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+		verifyZeroInteractions(mockUserManager);
+	}
+
+	@Test
+	public void testPreHandleWithoutHeader() throws Exception {
+		when(mockRequest.getHeader(ProfileRequestInterceptor.PROFILE_REQUEST_HEADER)).thenReturn(null);
+		ProfilerFrameStackManager.setCaptureRequested(true);
+		// call under test
+		assertTrue(interceptor.preHandle(mockRequest, mockResponse, null));
+		assertFalse(ProfilerFrameStackManager.isCaptureRequested());
+		verifyZeroInteractions(mockUserManager);
+	}
+}
@@ -93,5 +93,24 @@ public class AsynchronousJobServicesImplTest {
 		assertEquals(expectedStatus.getJobId(), status.getJobId());
 	}
 	
+	@Test
+	public void testWaitForJobStatusChange() {
+		Long userId = 123L;
+		UserInfo expectedUser = new UserInfo(false);
+		expectedUser.setId(123L);
+		when(mockUserManager.getUserInfo(eq(userId))).thenReturn(expectedUser);
+		AsynchronousJobStatus expectedStatus = new AsynchronousJobStatus();
+		expectedStatus.setJobId("jobId");
+		when(mockAsynchJobStatusManager.waitForJobStatusChange(expectedUser, "jobId", "etag", 1000L))
+				.thenReturn(expectedStatus);
+		// call under test
+		AsynchronousJobStatus status = svc.waitForJobStatusChange(userId, "jobId", "etag", 1000L);
+		assertEquals(expectedStatus, status);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testWaitForJobStatusChangeNullWait() {
+		svc.waitForJobStatusChange(123L, "jobId", "etag", null);
+	}
 
 }
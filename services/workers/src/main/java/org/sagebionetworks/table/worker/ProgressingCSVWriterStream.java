@@ -2,6 +2,7 @@ package org.sagebionetworks.table.worker;
 
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
+import org.sagebionetworks.repo.manager.file.MultipartUploadOutputStream;
 import org.sagebionetworks.util.Clock;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 
@@ -11,7 +12,7 @@ import au.com.bytecode.opencsv.CSVWriter;
 
 /**
  * This implementation of CSVWriterStream will notify that progress is made for
- * each row written.
+ * the bytes of the rows uploaded, against the bytes of the rows written.
  * 
  * @author John
  * 
@@ -28,8 +29,7 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 	ProgressCallback progressCallback;
 	Message originatingMessage;
 	AsynchJobStatusManager asynchJobStatusManager;
-	long currentProgress;
-	long totalProgress;
+	MultipartUploadOutputStream uploadStream;
 	String jobId;
 	Clock clock;
 	/**
@@ -47,18 +47,20 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 	 *            The original message that started this job. The visibility
 	 *            timeout for this message will get extended as long progress
 	 *            continues to be made.
+	 * @param uploadStream
+	 *            The upload of the rows written, used to report the progress
+	 *            of the upload.
 	 */
 	public ProgressingCSVWriterStream(CSVWriter writer,
 			ProgressCallback progressCallback, Message originatingMessage,
 			AsynchJobStatusManager asynchJobStatusManager,
-			long currentProgress, long totalProgress, String jobId, Clock clock) {
+			MultipartUploadOutputStream uploadStream, String jobId, Clock clock) {
 		super();
 		this.writer = writer;
 		this.progressCallback = progressCallback;
 		this.originatingMessage = originatingMessage;
 		this.asynchJobStatusManager = asynchJobStatusManager;
-		this.currentProgress = currentProgress;
-		this.totalProgress = totalProgress;
+		this.uploadStream = uploadStream;
 		this.jobId = jobId;
 		this.clock = clock;
 		this.lastUpdateTimeMS = clock.currentTimeMillis();
@@ -72,15 +74,32 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 		if(clock.currentTimeMillis() - lastUpdateTimeMS > UPDATE_FEQUENCY_MS){
 			// It is time to update the progress
 			// Update the status
-			asynchJobStatusManager.updateJobProgress(jobId, currentProgress, totalProgress, BUILDING_THE_CSV);
+			asynchJobStatusManager.updateJobProgress(jobId, getCurrentProgress(), getTotalProgress(), BUILDING_THE_CSV);
 			// reset the clock
 			this.lastUpdateTimeMS = clock.currentTimeMillis();
 		}
 
 		// Write the line
 		writer.writeNext(nextLine);
-		// some progress was made
-		currentProgress++;
+	}
+
+	/**
+	 * The number of bytes uploaded to S3 so far.
+	 * 
+	 * @return
+	 */
+	long getCurrentProgress() {
+		return uploadStream.getBytesUploaded();
+	}
+
+	/**
+	 * The total size of the CSV is not known until the query is done, so the
+	 * total is the number of bytes written so far.
+	 * 
+	 * @return
+	 */
+	long getTotalProgress() {
+		return uploadStream.getBytesWritten();
 	}
 
 }
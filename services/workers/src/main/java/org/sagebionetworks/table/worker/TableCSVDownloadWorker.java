@@ -1,8 +1,8 @@
 package org.sagebionetworks.table.worker;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,6 +12,7 @@ import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobUtils;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.MultipartUploadOutputStream;
 import org.sagebionetworks.repo.manager.table.TableQueryManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
@@ -19,8 +20,6 @@ import org.sagebionetworks.repo.model.dbo.dao.table.TableExceptionTranslator;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.table.DownloadFromTableRequest;
 import org.sagebionetworks.repo.model.table.DownloadFromTableResult;
-import org.sagebionetworks.repo.model.table.QueryOptions;
-import org.sagebionetworks.repo.model.table.QueryResultBundle;
 import org.sagebionetworks.repo.model.table.TableFailedException;
 import org.sagebionetworks.repo.model.table.TableUnavailableException;
 import org.sagebionetworks.table.cluster.utils.CSVUtils;
@@ -36,8 +35,8 @@ import au.com.bytecode.opencsv.CSVWriter;
 import au.com.bytecode.opencsv.Constants;
 
 /**
- * This worker will stream the results of a table SQL query to a local CSV file and upload the file
- * to S3 as a FileHandle.
+ * This worker will stream the results of a table SQL query as a CSV to S3 and create a FileHandle for
+ * it. The CSV is uploaded in parts as the rows are read, without a local file.
  * 
  * @author jmhill
  *
@@ -63,49 +62,25 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 	public void run(ProgressCallback progressCallback, Message message) throws Exception {
 		AsynchronousJobStatus status = asynchJobStatusManager.lookupJobStatus(message.getBody());
 		String fileName = "Job-"+status.getJobId();
-		File temp = null;
-		CSVWriter writer = null;
+		MultipartUploadOutputStream uploadStream = null;
 		try{
 			UserInfo user = userManger.getUserInfo(status.getStartedByUserId());
 			DownloadFromTableRequest request = AsynchJobUtils.extractRequestBody(status, DownloadFromTableRequest.class);
-			// only run the count
-			QueryOptions queryOptions = new QueryOptions().withRunQuery(false).withRunCount(true).withReturnFacets(false);
-			// Before we start determine how many rows there are.
-			QueryResultBundle queryResult = tableQueryManager.querySinglePage(progressCallback, user, request, queryOptions);
-			long rowCount = queryResult.getQueryCount();
-			// Since each row must first be read from the database then uploaded to S3
-			// The total amount of progress is two times the number of rows.
-			long totalProgress = rowCount*2;
-			long currentProgress = 0;
-			// The CSV data will first be written to this file.
-			temp = File.createTempFile(
-					fileName,
-					"."
-							+ CSVUtils.guessExtension(request.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor()
-									.getSeparator()));
-			writer = createCSVWriter(new FileWriter(temp), request);
+			String separator = request.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor().getSeparator();
+			String contentType = CSVUtils.guessContentType(separator);
+			// The CSV is cut into parts that are uploaded to S3 while the query is still running.
+			uploadStream = fileHandleManager.startMultipartUploadStream(new LocalFileUploadRequest().withUserId(user.getId().toString())
+					.withFileName(fileName + "." + CSVUtils.guessExtension(separator)).withContentType(contentType));
+			CSVWriter writer = createCSVWriter(new OutputStreamWriter(uploadStream, StandardCharsets.UTF_8), request);
 			// this object will update the progress of both the job and refresh the timeout on the message as rows are read from the DB.
-			ProgressingCSVWriterStream stream = new ProgressingCSVWriterStream(writer, progressCallback, message, asynchJobStatusManager, currentProgress, totalProgress, status.getJobId(), clock);
-			// Execute the actual query and stream the results to the file.
-			DownloadFromTableResult result = null;
-			try{
-				result = tableQueryManager.runQueryDownloadAsStream(progressCallback, user, request, stream);
-			}finally{
-				writer.close();
-			}
-
-			// At this point we have the entire CSV written to a local file.
-			// Upload the file to S3 can create the filehandle.
-			long startProgress = totalProgress/2; // we are half done at this point
-			double bytesPerRow = rowCount == 0 ? 1 : temp.length() / rowCount;
-			// This will keep the progress updated as the file is uploaded.
-			UploadProgressListener uploadListener = new UploadProgressListener(progressCallback, message, startProgress, bytesPerRow, totalProgress, asynchJobStatusManager, status.getJobId());
-			String contentType = CSVUtils.guessContentType(request
-					.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor().getSeparator());
-			S3FileHandle fileHandle = fileHandleManager.multipartUploadLocalFile(new LocalFileUploadRequest().withUserId(user.getId().toString()).withFileToUpload(temp).withContentType(contentType).withListener(uploadListener));
+			ProgressingCSVWriterStream stream = new ProgressingCSVWriterStream(writer, progressCallback, message, asynchJobStatusManager, uploadStream, status.getJobId(), clock);
+			// Execute the actual query and stream the results to S3.
+			DownloadFromTableResult result = tableQueryManager.runQueryDownloadAsStream(progressCallback, user, request, stream);
+			// Push the rows still buffered by the writer to the upload.
+			writer.flush();
+			// Wait for the last parts to be uploaded and create the filehandle.
+			S3FileHandle fileHandle = fileHandleManager.completeMultipartUploadStream(uploadStream);
 			result.setResultsFileHandleId(fileHandle.getId());
-			// Create the file
-			// Now upload the file as a filehandle
 			asynchJobStatusManager.setComplete(status.getJobId(), result);
 		}catch (TableUnavailableException | LockUnavilableException e){
 			// This just means we cannot do this right now.  We can try again later.
@@ -122,13 +97,9 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 			asynchJobStatusManager.setJobFailed(status.getJobId(), translatedException);
 			log.error("Worker Failed", e);
 		}finally{
-			if(writer != null){
-				try {
-					writer.close();
-				} catch (Exception e2) {}
-			}
-			if(temp != null){
-				temp.delete();
+			if(uploadStream != null){
+				// Aborts the upload unless it was completed.
+				uploadStream.close();
 			}
 		}
 	}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.table.worker;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -11,6 +12,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
+import org.sagebionetworks.repo.manager.file.MultipartUploadOutputStream;
 import org.sagebionetworks.util.Clock;
 
 import com.amazonaws.services.sqs.model.Message;
@@ -22,8 +24,7 @@ public class ProgressingCSVWriterStreamTest {
 	ProgressCallback mockProgress;
 	Message mockMessage;
 	AsynchJobStatusManager mockAsynchJobStatusManager;
-	long currentProgress;
-	long totalProgress;
+	MultipartUploadOutputStream mockUploadStream;
 	String jobId;
 	Clock mockClock;
 	ProgressingCSVWriterStream stream;
@@ -33,12 +34,11 @@ public class ProgressingCSVWriterStreamTest {
 		mockWriter = Mockito.mock(CSVWriter.class);
 		mockProgress = Mockito.mock(ProgressCallback.class);
 		mockAsynchJobStatusManager = Mockito.mock(AsynchJobStatusManager.class);
-		currentProgress = 0L;
-		totalProgress = 100;
+		mockUploadStream = Mockito.mock(MultipartUploadOutputStream.class);
 		jobId = "123";
 		mockClock = Mockito.mock(Clock.class);
 		when(mockClock.currentTimeMillis()).thenReturn(0L);
-		stream = new ProgressingCSVWriterStream(mockWriter, mockProgress, mockMessage, mockAsynchJobStatusManager, currentProgress, totalProgress, jobId, mockClock);
+		stream = new ProgressingCSVWriterStream(mockWriter, mockProgress, mockMessage, mockAsynchJobStatusManager, mockUploadStream, jobId, mockClock);
 	}
 	
 	@Test
@@ -56,5 +56,23 @@ public class ProgressingCSVWriterStreamTest {
 		verify(mockWriter).writeNext(two);
 		verify(mockAsynchJobStatusManager).updateJobProgress(anyString(), anyLong(),anyLong(), anyString());
 	}
+	
+	@Test
+	public void testProgress(){
+		when(mockUploadStream.getBytesWritten()).thenReturn(1000L);
+		when(mockUploadStream.getBytesUploaded()).thenReturn(400L);
+		assertEquals(400L, stream.getCurrentProgress());
+		assertEquals(1000L, stream.getTotalProgress());
+	}
+
+	@Test
+	public void testWriteNextProgress(){
+		when(mockClock.currentTimeMillis()).thenReturn(2001L);
+		when(mockUploadStream.getBytesWritten()).thenReturn(1000L);
+		when(mockUploadStream.getBytesUploaded()).thenReturn(400L);
+		// call under test
+		stream.writeNext(new String[]{"1"});
+		verify(mockAsynchJobStatusManager).updateJobProgress(jobId, 400L, 1000L, "Building the CSV...");
+	}
 
 }
@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +26,7 @@ import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.MultipartUploadOutputStream;
 import org.sagebionetworks.repo.manager.table.TableQueryManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
@@ -34,7 +36,6 @@ import org.sagebionetworks.repo.model.table.DownloadFromTableRequest;
 import org.sagebionetworks.repo.model.table.DownloadFromTableResult;
 import org.sagebionetworks.repo.model.table.Query;
 import org.sagebionetworks.repo.model.table.QueryOptions;
-import org.sagebionetworks.repo.model.table.QueryResultBundle;
 import org.sagebionetworks.repo.model.table.TableFailedException;
 import org.sagebionetworks.repo.model.table.TableStatus;
 import org.sagebionetworks.repo.model.table.TableUnavailableException;
@@ -60,6 +61,8 @@ public class TableCSVDownloadWorkerTest {
 	private Clock mockClock;
 	@Mock
 	private TableExceptionTranslator mockTableExceptionTranslator;
+	@Mock
+	private MultipartUploadOutputStream mockUploadStream;
 
 	@Mock
 	ProgressCallback mockProgressCallback;
@@ -106,11 +109,6 @@ public class TableCSVDownloadWorkerTest {
 		when(mockTableQueryManager.runQueryDownloadAsStream(any(ProgressCallback.class), any(UserInfo.class),
 				any(DownloadFromTableRequest.class), any(CSVWriterStream.class))).thenReturn(results);
 		
-		QueryResultBundle countResults = new QueryResultBundle();
-		countResults.setQueryCount(100L);
-		when(mockTableQueryManager.querySinglePage(any(ProgressCallback.class),
-				any(UserInfo.class), any(Query.class), any(QueryOptions.class))).thenReturn(countResults);
-
 		doAnswer(new Answer<RuntimeException>() {
 
 			@Override
@@ -123,7 +121,8 @@ public class TableCSVDownloadWorkerTest {
 		
 		S3FileHandle fileHandle = new S3FileHandle();
 		fileHandle.setId("8888");
-		when(mockFileHandleManager.multipartUploadLocalFile(any(LocalFileUploadRequest.class))).thenReturn(fileHandle);
+		when(mockFileHandleManager.startMultipartUploadStream(any(LocalFileUploadRequest.class))).thenReturn(mockUploadStream);
+		when(mockFileHandleManager.completeMultipartUploadStream(mockUploadStream)).thenReturn(fileHandle);
 
 	}
 
@@ -132,12 +131,31 @@ public class TableCSVDownloadWorkerTest {
 		// call under test
 		worker.run(mockProgressCallback, message);
 		verify(mockAsynchJobStatusManager).setComplete(jobId, results);
-		verify(mockFileHandleManager).multipartUploadLocalFile(fileUploadCaptor.capture());
+		assertEquals("8888", results.getResultsFileHandleId());
+		verify(mockFileHandleManager).startMultipartUploadStream(fileUploadCaptor.capture());
 		LocalFileUploadRequest request = fileUploadCaptor.getValue();
 		assertNotNull(request);
 		assertEquals(userInfo.getId().toString(), request.getUserId());
 		assertEquals("text/csv", request.getContentType());
-		assertEquals(null, request.getFileName());
+		assertEquals("Job-1.csv", request.getFileName());
+		verify(mockFileHandleManager).completeMultipartUploadStream(mockUploadStream);
+		verify(mockUploadStream).close();
+		// the rows are no longer counted before the download
+		verify(mockTableQueryManager, never()).querySinglePage(any(ProgressCallback.class),
+				any(UserInfo.class), any(Query.class), any(QueryOptions.class));
+	}
+	
+	@Test
+	public void testQueryFailedUploadAborted() throws Exception {
+		RuntimeException error = new RuntimeException("Bad stuff happened");
+		when(mockTableQueryManager.runQueryDownloadAsStream(any(ProgressCallback.class), any(UserInfo.class),
+				any(DownloadFromTableRequest.class), any(CSVWriterStream.class))).thenThrow(error);
+		// call under test
+		worker.run(mockProgressCallback, message);
+		verify(mockFileHandleManager, never()).completeMultipartUploadStream(any(MultipartUploadOutputStream.class));
+		// closing an upload that was not completed aborts it.
+		verify(mockUploadStream).close();
+		verify(mockAsynchJobStatusManager).setJobFailed(jobId, translatedException);
 	}
 
 	@Test